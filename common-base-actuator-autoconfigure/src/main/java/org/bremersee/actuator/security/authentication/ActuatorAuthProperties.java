@@ -16,7 +16,9 @@
 
 package org.bremersee.actuator.security.authentication;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
@@ -31,6 +33,7 @@ import org.bremersee.security.authentication.AccessExpressionUtils;
 import org.bremersee.security.authentication.AutoSecurityMode;
 import org.bremersee.security.authentication.ClientCredentialsFlowProperties;
 import org.bremersee.security.core.AuthorityConstants;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
@@ -139,6 +142,12 @@ public class ActuatorAuthProperties {
   @NotNull
   private ActuatorPasswordFlow passwordFlow = new ActuatorPasswordFlow();
 
+  /**
+   * The properties of the health probe bypass.
+   */
+  @NotNull
+  private ProbeBypass probeBypass = new ProbeBypass();
+
   /**
    * Gets unauthenticated endpoints or defaults (these are the health and info endpoints).
    *
@@ -155,6 +164,32 @@ public class ActuatorAuthProperties {
     return unauthenticatedEndpoints;
   }
 
+  /**
+   * Determines whether health probes can bypass the security filter chain. This is only the case,
+   * if the bypass is enabled and the health endpoint is accessible without authentication.
+   *
+   * @return {@code true} if health probes can bypass the security filter chain, otherwise {@code
+   *     false}
+   */
+  public boolean probeBypassPermitted() {
+    return probeBypass.isEnabled()
+        && (enable == AutoSecurityMode.NONE || unauthenticatedEndpointsOrDefaults()
+        .contains(HealthEndpoint.class));
+  }
+
+  /**
+   * Build health probe response cache. If the probe bypass is not permitted, the cache doesn't
+   * match any path.
+   *
+   * @return the health probe response cache
+   */
+  @NotNull
+  public HealthProbeResponseCache buildHealthProbeResponseCache() {
+    return new HealthProbeResponseCache(
+        probeBypassPermitted() ? probeBypass.getPaths() : Collections.emptyList(),
+        probeBypass.getCacheDuration());
+  }
+
   /**
    * Roles or defaults.
    *
@@ -238,4 +273,35 @@ public class ActuatorAuthProperties {
 
     private String clientSecret;
   }
+
+  /**
+   * The properties of the health probe bypass. If it is enabled, anonymous {@code GET} requests to
+   * the probe paths are answered by a filter in front of the security filter chain with the last
+   * health response, as long as it is not older than the cache duration. The paths are relative
+   * to the application path; a path that ends with {@code /**} or {@code *} is a prefix.
+   */
+  @Getter
+  @Setter
+  @ToString
+  @EqualsAndHashCode
+  public static class ProbeBypass {
+
+    /**
+     * Specifies whether health probes bypass the security filter chain.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The probe paths.
+     */
+    @NotNull
+    private List<String> paths = new ArrayList<>(List.of(
+        "/actuator/health",
+        "/actuator/health/**"));
+
+    /**
+     * The duration, the last health response is cached.
+     */
+    private Duration cacheDuration = HealthProbeResponseCache.DEFAULT_TIME_TO_LIVE;
+  }
 }
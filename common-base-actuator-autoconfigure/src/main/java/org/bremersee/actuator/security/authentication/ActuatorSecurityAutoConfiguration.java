@@ -31,11 +31,13 @@ import org.springframework.boot.actuate.info.Info;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
@@ -204,6 +206,32 @@ public class ActuatorSecurityAutoConfiguration extends WebSecurityConfigurerAdap
         .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
   }
 
+  /**
+   * Creates the health probe filter, that answers anonymous health probes in front of the
+   * security filter chain.
+   *
+   * @return the filter registration bean of the health probe filter
+   */
+  @ConditionalOnProperty(
+      prefix = "bremersee.actuator.auth.probe-bypass",
+      name = "enabled",
+      havingValue = "true")
+  @Bean
+  public FilterRegistrationBean<HealthProbeFilter> healthProbeFilter() {
+    FilterRegistrationBean<HealthProbeFilter> registration = new FilterRegistrationBean<>(
+        new HealthProbeFilter(actuatorAuthProperties.buildHealthProbeResponseCache()));
+    registration.setOrder(HealthProbeFilter.DEFAULT_ORDER);
+    if (actuatorAuthProperties.probeBypassPermitted()) {
+      log.info("Health probes {} bypass the security filter chain.",
+          actuatorAuthProperties.getProbeBypass().getPaths());
+    } else {
+      log.warn("Health probes cannot bypass the security filter chain, because the health "
+          + "endpoint requires authentication.");
+      registration.setEnabled(false);
+    }
+    return registration;
+  }
+
   @ConditionalOnExpression("'${bremersee.actuator.auth.jwk-set-uri:}'.empty")
   @ConditionalOnMissingBean
   @Bean
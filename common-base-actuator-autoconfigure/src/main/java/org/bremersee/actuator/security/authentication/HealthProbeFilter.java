@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.actuator.security.authentication;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.bremersee.actuator.security.authentication.HealthProbeResponseCache.CachedResponse;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * The health probe filter runs in front of the security filter chain. It answers anonymous
+ * {@code GET} requests to the probe paths with the cached response. If there is no cached
+ * response, the request goes through the filter chain and the response is cached together with
+ * the headers, that were written by the filter chain. Requests with an {@code Accept} header, that
+ * doesn't accept all media types, are not cached.
+ *
+ * @author Christian Bremer
+ */
+public class HealthProbeFilter extends OncePerRequestFilter {
+
+  /**
+   * The default order of the filter (before the security filter chain).
+   */
+  public static final int DEFAULT_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+  private static final String PATH_ATTRIBUTE = HealthProbeFilter.class.getName() + ".PATH";
+
+  private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+  private final HealthProbeResponseCache cache;
+
+  /**
+   * Instantiates a new health probe filter.
+   *
+   * @param cache the cache
+   */
+  public HealthProbeFilter(HealthProbeResponseCache cache) {
+    Assert.notNull(cache, "Health probe response cache must be present.");
+    this.cache = cache;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    if (!HttpMethod.GET.matches(request.getMethod())
+        || request.getHeader(HttpHeaders.AUTHORIZATION) != null
+        || !HealthProbeResponseCache.acceptsAll(
+            Collections.list(request.getHeaders(HttpHeaders.ACCEPT)))) {
+      return true;
+    }
+    String path = urlPathHelper.getPathWithinApplication(request);
+    if (!cache.matches(path)) {
+      return true;
+    }
+    request.setAttribute(PATH_ATTRIBUTE, path);
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+
+    Object pathAttribute = request.getAttribute(PATH_ATTRIBUTE);
+    String path = pathAttribute instanceof String
+        ? (String) pathAttribute
+        : urlPathHelper.getPathWithinApplication(request);
+    CachedResponse cachedResponse = cache.get(path);
+    if (cachedResponse != null) {
+      response.setStatus(cachedResponse.getStatus());
+      cachedResponse.getHeaders().forEach((name, values) -> values
+          .forEach(value -> response.addHeader(name, value)));
+      if (cachedResponse.getContentType() != null) {
+        response.setContentType(cachedResponse.getContentType());
+      }
+      response.setContentLength(cachedResponse.getBody().length);
+      response.getOutputStream().write(cachedResponse.getBody());
+      return;
+    }
+    ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+    try {
+      filterChain.doFilter(request, responseWrapper);
+      HttpHeaders headers = new HttpHeaders();
+      for (String name : responseWrapper.getHeaderNames()) {
+        headers.addAll(name, new ArrayList<>(responseWrapper.getHeaders(name)));
+      }
+      cache.put(
+          path,
+          responseWrapper.getStatus(),
+          responseWrapper.getContentType(),
+          headers,
+          responseWrapper.getContentAsByteArray());
+    } finally {
+      responseWrapper.copyBodyToResponse();
+    }
+  }
+
+}
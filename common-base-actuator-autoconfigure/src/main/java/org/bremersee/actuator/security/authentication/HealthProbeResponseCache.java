@@ -0,0 +1,296 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.actuator.security.authentication;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The health probe response cache keeps the last response of a health probe for a short time.
+ * The probe paths are matched by exact string or by prefix:
+ *
+ * <ul>
+ *   <li>{@code /actuator/health} matches only {@code /actuator/health}</li>
+ *   <li>{@code /actuator/health/**} matches {@code /actuator/health} and every path below</li>
+ *   <li>{@code /actuator/health*} matches every path, that starts with {@code /actuator/health}
+ *   </li>
+ * </ul>
+ *
+ * <p>Only responses with status 200 (up) or 503 (down or out of service) are cached. The headers
+ * of the response, e.g. the {@code Cache-Control} and {@code X-Content-Type-Options} headers of
+ * the security filter chain, are cached, too, except the headers, that belong to the connection
+ * or to a single response (see {@link #isReplayable(String)}).
+ *
+ * <p>The content type of a health response depends on the {@code Accept} header of the request.
+ * So only requests without {@code Accept} header or with {@code Accept: *}{@code /*} (like the
+ * probes of kubernetes) are answered from the cache (see {@link #acceptsAll(Collection)}).
+ *
+ * @author Christian Bremer
+ */
+public class HealthProbeResponseCache {
+
+  /**
+   * The default time to live of a cached response.
+   */
+  public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMillis(250L);
+
+  /**
+   * The maximum number of cached responses.
+   */
+  static final int MAX_SIZE = 64;
+
+  private final Set<String> exactPaths = new HashSet<>();
+
+  private final String[] prefixes;
+
+  private final long timeToLiveMillis;
+
+  private final ConcurrentMap<String, CachedResponse> responses = new ConcurrentHashMap<>();
+
+  private final LongSupplier currentTimeMillis;
+
+  /**
+   * Instantiates a new health probe response cache.
+   *
+   * @param paths the probe paths
+   * @param timeToLive the time to live of a cached response; if it is zero or negative, nothing
+   *     will be cached
+   */
+  public HealthProbeResponseCache(
+      @Nullable Collection<String> paths,
+      @Nullable Duration timeToLive) {
+    this(paths, timeToLive, System::currentTimeMillis);
+  }
+
+  /**
+   * Instantiates a new health probe response cache with the given source of the current time.
+   *
+   * @param paths the probe paths
+   * @param timeToLive the time to live of a cached response
+   * @param currentTimeMillis the source of the current time in milliseconds
+   */
+  HealthProbeResponseCache(
+      @Nullable Collection<String> paths,
+      @Nullable Duration timeToLive,
+      LongSupplier currentTimeMillis) {
+
+    List<String> prefixList = new ArrayList<>();
+    if (paths != null) {
+      for (String path : paths) {
+        if (!StringUtils.hasText(path)) {
+          continue;
+        }
+        String value = path.trim();
+        if (value.endsWith("/**")) {
+          String base = value.substring(0, value.length() - 3);
+          exactPaths.add(base);
+          prefixList.add(base + "/");
+        } else if (value.endsWith("*")) {
+          prefixList.add(value.substring(0, value.length() - 1));
+        } else {
+          exactPaths.add(value);
+        }
+      }
+    }
+    this.prefixes = prefixList.toArray(new String[0]);
+    this.timeToLiveMillis = Objects.requireNonNullElse(timeToLive, DEFAULT_TIME_TO_LIVE)
+        .toMillis();
+    this.currentTimeMillis = currentTimeMillis;
+  }
+
+  /**
+   * Determines whether the given path is a probe path.
+   *
+   * @param path the path within the application
+   * @return {@code true} if the path is a probe path, otherwise {@code false}
+   */
+  public boolean matches(@Nullable String path) {
+    if (path == null) {
+      return false;
+    }
+    if (exactPaths.contains(path)) {
+      return true;
+    }
+    for (String prefix : prefixes) {
+      if (path.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the cached response of the given probe path.
+   *
+   * @param path the probe path
+   * @return the cached response or {@code null}, if there is no response or it is expired
+   */
+  @Nullable
+  public CachedResponse get(String path) {
+    CachedResponse response = responses.get(path);
+    if (response == null) {
+      return null;
+    }
+    if (response.expiresAt <= currentTimeMillis.getAsLong()) {
+      responses.remove(path, response);
+      return null;
+    }
+    return response;
+  }
+
+  /**
+   * Caches the response of the given probe path, if the status is cacheable.
+   *
+   * @param path the probe path
+   * @param status the http status
+   * @param contentType the content type
+   * @param body the body
+   */
+  public void put(String path, int status, @Nullable String contentType, byte[] body) {
+    put(path, status, contentType, null, body);
+  }
+
+  /**
+   * Caches the response of the given probe path, if the status is cacheable.
+   *
+   * @param path the probe path
+   * @param status the http status
+   * @param contentType the content type
+   * @param headers the headers of the response
+   * @param body the body
+   */
+  public void put(
+      String path,
+      int status,
+      @Nullable String contentType,
+      @Nullable HttpHeaders headers,
+      byte[] body) {
+
+    if (timeToLiveMillis <= 0L || !isCacheable(status)) {
+      return;
+    }
+    if (responses.size() >= MAX_SIZE && !responses.containsKey(path)) {
+      return;
+    }
+    HttpHeaders replayableHeaders = new HttpHeaders();
+    if (headers != null) {
+      headers.forEach((name, values) -> {
+        if (isReplayable(name)) {
+          replayableHeaders.addAll(name, values);
+        }
+      });
+    }
+    responses.put(path, new CachedResponse(
+        status,
+        contentType,
+        HttpHeaders.readOnlyHttpHeaders(replayableHeaders),
+        body,
+        currentTimeMillis.getAsLong() + timeToLiveMillis));
+  }
+
+  /**
+   * Determines whether a header of a cached response can be replayed. The content type and the
+   * content length are set from the cached response; the headers, that belong to the connection
+   * or to a single response, like {@code Date} or {@code Set-Cookie}, are not replayed.
+   *
+   * @param name the header name
+   * @return {@code true} if the header can be replayed, otherwise {@code false}
+   */
+  public static boolean isReplayable(@Nullable String name) {
+    return name != null
+        && !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)
+        && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+        && !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)
+        && !HttpHeaders.CONNECTION.equalsIgnoreCase(name)
+        && !HttpHeaders.DATE.equalsIgnoreCase(name)
+        && !HttpHeaders.SET_COOKIE.equalsIgnoreCase(name);
+  }
+
+  /**
+   * Determines whether a response with the given status can be cached.
+   *
+   * @param status the http status
+   * @return {@code true} if the status is 200 or 503, otherwise {@code false}
+   */
+  public static boolean isCacheable(int status) {
+    return status == 200 || status == 503;
+  }
+
+  /**
+   * Determines whether a request with the given {@code Accept} header values accepts all media
+   * types, so that it can be answered from the cache.
+   *
+   * @param accept the values of the {@code Accept} header
+   * @return {@code true} if there is no value or every value is {@code *}{@code /*}, otherwise
+   *     {@code false}
+   */
+  public static boolean acceptsAll(@Nullable Collection<String> accept) {
+    if (accept == null) {
+      return true;
+    }
+    for (String value : accept) {
+      if (StringUtils.hasText(value) && !"*/*".equals(value.trim())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A cached response.
+   */
+  @Getter
+  public static class CachedResponse {
+
+    private final int status;
+
+    @Nullable
+    private final String contentType;
+
+    private final HttpHeaders headers;
+
+    private final byte[] body;
+
+    private final long expiresAt;
+
+    private CachedResponse(
+        int status,
+        @Nullable String contentType,
+        HttpHeaders headers,
+        byte[] body,
+        long expiresAt) {
+      this.status = status;
+      this.contentType = contentType;
+      this.headers = headers;
+      this.body = body;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+}
@@ -34,6 +34,7 @@ import org.springframework.boot.actuate.autoconfigure.security.reactive.Endpoint
 import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest.EndpointServerWebExchangeMatcher;
 import org.springframework.boot.actuate.info.Info;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.boot.autoconfigure.security.SecurityProperties;
@@ -203,6 +204,28 @@ public class ReactiveActuatorSecurityAutoConfiguration {
     return OrderedProxy.create(http.build(), actuatorAuthProperties.getOrder());
   }
 
+  /**
+   * Creates the reactive health probe filter, that answers anonymous health probes in front of
+   * the security web filter chain.
+   *
+   * @return the reactive health probe filter
+   */
+  @ConditionalOnProperty(
+      prefix = "bremersee.actuator.auth.probe-bypass",
+      name = "enabled",
+      havingValue = "true")
+  @Bean
+  public ReactiveHealthProbeFilter reactiveHealthProbeFilter() {
+    if (actuatorAuthProperties.probeBypassPermitted()) {
+      log.info("Health probes {} bypass the security web filter chain.",
+          actuatorAuthProperties.getProbeBypass().getPaths());
+    } else {
+      log.warn("Health probes cannot bypass the security web filter chain, because the health "
+          + "endpoint requires authentication.");
+    }
+    return new ReactiveHealthProbeFilter(actuatorAuthProperties.buildHealthProbeResponseCache());
+  }
+
   private EndpointServerWebExchangeMatcher[] unauthenticatedEndpointMatchers() {
     return actuatorAuthProperties.unauthenticatedEndpointsOrDefaults().stream()
         .map(EndpointRequest::to)
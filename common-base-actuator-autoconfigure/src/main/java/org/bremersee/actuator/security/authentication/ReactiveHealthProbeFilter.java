@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.actuator.security.authentication;
+
+import org.bremersee.actuator.security.authentication.HealthProbeResponseCache.CachedResponse;
+import org.reactivestreams.Publisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * The reactive health probe filter runs in front of the security web filter chain. It answers
+ * anonymous {@code GET} requests to the probe paths with the cached response. If there is no
+ * cached response, the exchange goes through the filter chain and the response is cached together
+ * with the headers, that were written by the filter chain. Because the security web filter chain
+ * writes its headers before the response is committed, the response is cached after it has been
+ * written. Requests with an {@code Accept} header, that doesn't accept all media types, are not
+ * cached.
+ *
+ * @author Christian Bremer
+ */
+public class ReactiveHealthProbeFilter implements WebFilter, Ordered {
+
+  private final HealthProbeResponseCache cache;
+
+  /**
+   * Instantiates a new reactive health probe filter.
+   *
+   * @param cache the cache
+   */
+  public ReactiveHealthProbeFilter(HealthProbeResponseCache cache) {
+    Assert.notNull(cache, "Health probe response cache must be present.");
+    this.cache = cache;
+  }
+
+  @Override
+  public int getOrder() {
+    return HealthProbeFilter.DEFAULT_ORDER;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    ServerHttpRequest request = exchange.getRequest();
+    if (request.getMethod() != HttpMethod.GET
+        || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+        || !HealthProbeResponseCache.acceptsAll(request.getHeaders().get(HttpHeaders.ACCEPT))) {
+      return chain.filter(exchange);
+    }
+    String path = request.getPath().pathWithinApplication().value();
+    if (!cache.matches(path)) {
+      return chain.filter(exchange);
+    }
+    CachedResponse cachedResponse = cache.get(path);
+    if (cachedResponse != null) {
+      return write(exchange.getResponse(), cachedResponse);
+    }
+    return chain.filter(exchange.mutate()
+        .response(new CachingResponse(exchange.getResponse(), path))
+        .build());
+  }
+
+  private static Mono<Void> write(ServerHttpResponse response, CachedResponse cachedResponse) {
+    response.setStatusCode(HttpStatus.valueOf(cachedResponse.getStatus()));
+    HttpHeaders headers = response.getHeaders();
+    headers.addAll(cachedResponse.getHeaders());
+    if (cachedResponse.getContentType() != null) {
+      headers.setContentType(MediaType.parseMediaType(cachedResponse.getContentType()));
+    }
+    headers.setContentLength(cachedResponse.getBody().length);
+    return response.writeWith(Mono.just(response.bufferFactory().wrap(cachedResponse.getBody())));
+  }
+
+  private class CachingResponse extends ServerHttpResponseDecorator {
+
+    private final String path;
+
+    private CachingResponse(ServerHttpResponse delegate, String path) {
+      super(delegate);
+      this.path = path;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      return DataBufferUtils.join(body)
+          .map(dataBuffer -> {
+            byte[] bytes = new byte[dataBuffer.readableByteCount()];
+            dataBuffer.read(bytes);
+            DataBufferUtils.release(dataBuffer);
+            return bytes;
+          })
+          .defaultIfEmpty(new byte[0])
+          .flatMap(bytes -> super.writeWith(Mono.just(bufferFactory().wrap(bytes)))
+              .doOnSuccess(ignored -> {
+                HttpStatus status = getStatusCode();
+                MediaType contentType = getHeaders().getContentType();
+                cache.put(
+                    path,
+                    status != null ? status.value() : HttpStatus.OK.value(),
+                    contentType != null ? contentType.toString() : null,
+                    getHeaders(),
+                    bytes);
+              }));
+    }
+  }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.actuator.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bremersee.actuator.security.authentication.HealthProbeResponseCache.CachedResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * The health probe response cache test.
+ *
+ * @author Christian Bremer
+ */
+class HealthProbeResponseCacheTest {
+
+  private static final byte[] BODY = "{\"status\":\"UP\"}".getBytes();
+
+  /**
+   * Matches.
+   */
+  @Test
+  void matches() {
+    HealthProbeResponseCache cache = new HealthProbeResponseCache(
+        Arrays.asList("/actuator/health/**", "/ping", "/status*", " "),
+        null);
+    assertTrue(cache.matches("/actuator/health"));
+    assertTrue(cache.matches("/actuator/health/liveness"));
+    assertTrue(cache.matches("/ping"));
+    assertTrue(cache.matches("/status"));
+    assertTrue(cache.matches("/statusx"));
+    assertFalse(cache.matches("/actuator/healthx"));
+    assertFalse(cache.matches("/actuator/info"));
+    assertFalse(cache.matches("/ping/pong"));
+    assertFalse(cache.matches(null));
+  }
+
+  /**
+   * Get and put.
+   */
+  @Test
+  void getAndPut() {
+    AtomicLong now = new AtomicLong(1000L);
+    HealthProbeResponseCache cache = new HealthProbeResponseCache(
+        Arrays.asList("/actuator/health", "/actuator/health/**"),
+        Duration.ofMillis(250L),
+        now::get);
+
+    assertNull(cache.get("/actuator/health"));
+    cache.put("/actuator/health", 200, "application/json", BODY);
+    CachedResponse response = cache.get("/actuator/health");
+    assertNotNull(response);
+    assertEquals(200, response.getStatus());
+    assertEquals("application/json", response.getContentType());
+    assertArrayEquals(BODY, response.getBody());
+    assertNull(cache.get("/actuator/health/liveness"));
+
+    now.addAndGet(249L);
+    assertNotNull(cache.get("/actuator/health"));
+    now.addAndGet(1L);
+    assertNull(cache.get("/actuator/health"));
+  }
+
+  /**
+   * Put not cacheable.
+   */
+  @Test
+  void putNotCacheable() {
+    HealthProbeResponseCache cache = new HealthProbeResponseCache(
+        Arrays.asList("/actuator/health", "/actuator/health/**"),
+        null);
+    cache.put("/actuator/health", 401, null, new byte[0]);
+    assertNull(cache.get("/actuator/health"));
+    cache.put("/actuator/health", 503, null, BODY);
+    assertNotNull(cache.get("/actuator/health"));
+
+    HealthProbeResponseCache disabled = new HealthProbeResponseCache(
+        Arrays.asList("/actuator/health", "/actuator/health/**"),
+        Duration.ZERO);
+    disabled.put("/actuator/health", 200, null, BODY);
+    assertNull(disabled.get("/actuator/health"));
+  }
+
+  /**
+   * Put more than max size.
+   */
+  @Test
+  void putMoreThanMaxSize() {
+    HealthProbeResponseCache cache = new HealthProbeResponseCache(
+        Arrays.asList("/actuator/health", "/actuator/health/**"),
+        null);
+    for (int i = 0; i < HealthProbeResponseCache.MAX_SIZE; i++) {
+      cache.put("/actuator/health/" + i, 200, null, BODY);
+    }
+    cache.put("/actuator/health", 200, null, BODY);
+    assertNull(cache.get("/actuator/health"));
+    assertNotNull(cache.get("/actuator/health/0"));
+  }
+
+  /**
+   * Put with headers.
+   */
+  @Test
+  void putWithHeaders() {
+    HealthProbeResponseCache cache = new HealthProbeResponseCache(
+        Arrays.asList("/actuator/health", "/actuator/health/**"),
+        null);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setCacheControl("no-cache, no-store");
+    headers.set("X-Content-Type-Options", "nosniff");
+    headers.set(HttpHeaders.SET_COOKIE, "SESSION=abc");
+    headers.setContentLength(BODY.length);
+    cache.put("/actuator/health", 200, "application/json", headers, BODY);
+
+    CachedResponse response = cache.get("/actuator/health");
+    assertNotNull(response);
+    assertEquals("no-cache, no-store", response.getHeaders().getCacheControl());
+    assertEquals("nosniff", response.getHeaders().getFirst("X-Content-Type-Options"));
+    assertFalse(response.getHeaders().containsKey(HttpHeaders.SET_COOKIE));
+    assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+  }
+
+  /**
+   * Accepts all.
+   */
+  @Test
+  void acceptsAll() {
+    assertTrue(HealthProbeResponseCache.acceptsAll(null));
+    assertTrue(HealthProbeResponseCache.acceptsAll(Collections.emptyList()));
+    assertTrue(HealthProbeResponseCache.acceptsAll(Collections.singletonList(" */* ")));
+    assertFalse(HealthProbeResponseCache.acceptsAll(Arrays.asList("*/*", "application/json")));
+    assertFalse(HealthProbeResponseCache.acceptsAll(
+        Collections.singletonList("application/vnd.spring-boot.actuator.v3+json")));
+  }
+
+}
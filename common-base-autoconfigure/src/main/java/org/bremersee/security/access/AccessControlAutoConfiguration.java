@@ -16,19 +16,32 @@
 
 package org.bremersee.security.access;
 
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import lombok.extern.slf4j.Slf4j;
 import org.bremersee.common.model.AccessControlList;
 import org.bremersee.converter.ModelMapperConfigurerAdapter;
+import org.bremersee.security.access.PrincipalHierarchyCondition.GroupHierarchyCondition;
+import org.bremersee.security.access.PrincipalHierarchyCondition.RoleHierarchyCondition;
+import org.bremersee.security.core.ReactiveUserContextCaller;
+import org.bremersee.security.core.UserContextCaller;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.lang.NonNull;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
@@ -43,6 +56,16 @@ import org.springframework.util.ClassUtils;
 @Slf4j
 public class AccessControlAutoConfiguration {
 
+  /**
+   * The bean name of the role hierarchy.
+   */
+  public static final String ROLE_HIERARCHY_BEAN_NAME = "aclRoleHierarchy";
+
+  /**
+   * The bean name of the group hierarchy.
+   */
+  public static final String GROUP_HIERARCHY_BEAN_NAME = "aclGroupHierarchy";
+
   /**
    * The properties.
    */
@@ -70,12 +93,22 @@ public class AccessControlAutoConfiguration {
             + "* adminRoles = {}\n"
             + "* switchAdminAccess = {}\n"
             + "* returnNull = {}\n"
+            + "* parallelMappingThreshold = {}\n"
+            + "* roleHierarchy = {}\n"
+            + "* groupHierarchy = {}\n"
+            + "* decisionCache = {}\n"
+            + "* binaryCodec = {}\n"
             + "*********************************************************************************",
         ClassUtils.getUserClass(getClass()).getSimpleName(),
         properties.getDefaultPermissions(),
         properties.getAdminRoles(),
         properties.isSwitchAdminAccess(),
-        properties.isReturnNull());
+        properties.isReturnNull(),
+        properties.getParallelMappingThreshold(),
+        properties.getRoleHierarchy(),
+        properties.getGroupHierarchy(),
+        properties.getDecisionCache(),
+        properties.getBinaryCodec());
   }
 
   /**
@@ -86,7 +119,7 @@ public class AccessControlAutoConfiguration {
    * @return the acl mapper
    */
   @Bean
-  public <T extends Acl<? extends Ace>> AclMapper<T> aclMapper(
+  public <T extends ReadOnlyAcl<? extends ReadOnlyAce>> AclMapper<T> aclMapper(
       ObjectProvider<AclFactory<T>> aclFactoryProvider) {
 
     AclFactory<T> aclFactory = aclFactoryProvider.getIfAvailable();
@@ -100,11 +133,66 @@ public class AccessControlAutoConfiguration {
         properties.isSwitchAdminAccess(),
         properties.isReturnNull());
     aclMapper.setAdminRoles(properties.getAdminRoles());
+    aclMapper.setParallelThreshold(properties.getParallelMappingThreshold());
     return aclMapper;
   }
 
   /**
-   * Creates a model mapper configurer adapter for the acl entity of the acl factory.
+   * Creates the role hierarchy bean, if a role hierarchy is configured. It is applied to the
+   * user context callers of the application (see {@link UserContextCallerHierarchyConfiguration}
+   * and {@link ReactiveUserContextCallerHierarchyConfiguration}), so that the access controller,
+   * the access filter and the acl criteria builder get the expanded roles of the user context.
+   * Other consumers must inject it by its name ({@value #ROLE_HIERARCHY_BEAN_NAME}), because the
+   * group hierarchy has the same type.
+   *
+   * @return the role hierarchy
+   */
+  @Conditional(RoleHierarchyCondition.class)
+  @ConditionalOnMissingBean(name = ROLE_HIERARCHY_BEAN_NAME)
+  @Bean(name = ROLE_HIERARCHY_BEAN_NAME)
+  public PrincipalHierarchy aclRoleHierarchy() {
+    return new DefaultPrincipalHierarchy(properties.getRoleHierarchy());
+  }
+
+  /**
+   * Creates the group hierarchy bean, if a group hierarchy is configured. It is applied to the
+   * user context callers of the application like the role hierarchy. Other consumers must inject
+   * it by its name ({@value #GROUP_HIERARCHY_BEAN_NAME}), because the role hierarchy has the
+   * same type.
+   *
+   * @return the group hierarchy
+   */
+  @Conditional(GroupHierarchyCondition.class)
+  @ConditionalOnMissingBean(name = GROUP_HIERARCHY_BEAN_NAME)
+  @Bean(name = GROUP_HIERARCHY_BEAN_NAME)
+  public PrincipalHierarchy aclGroupHierarchy() {
+    return new DefaultPrincipalHierarchy(properties.getGroupHierarchy());
+  }
+
+  /**
+   * Creates the access decision cache bean.
+   *
+   * @return the access decision cache
+   */
+  @ConditionalOnProperty(
+      prefix = "bremersee.acl.decision-cache",
+      name = "enabled",
+      havingValue = "true")
+  @ConditionalOnMissingBean
+  @Bean
+  public AccessDecisionCache accessDecisionCache() {
+    AccessControlProperties.DecisionCache cacheProperties = properties.getDecisionCache();
+    log.info("Creating bean 'accessDecisionCache' with maximum size {} ...",
+        cacheProperties.getMaximumSize());
+    return new AccessDecisionCache(
+        cacheProperties.getMaximumSize(),
+        cacheProperties.getConcurrencyLevel());
+  }
+
+  /**
+   * Creates a model mapper configurer adapter for the acl entity of the acl factory. Collections
+   * of access control lists are mapped with the bulk operations of the acl mapper (see {@link
+   * AclCollectionConverter}).
    *
    * @param <T> the acl entity type
    * @param aclMapperProvider the acl mapper provider
@@ -113,7 +201,8 @@ public class AccessControlAutoConfiguration {
   @ConditionalOnClass(ModelMapper.class)
   @Bean(name = "aclModelMapperConfigurerAdapter")
   @Order(-1000)
-  public <T extends Acl<? extends Ace>> ModelMapperConfigurerAdapter aclModelMapperConfigAdapter(
+  public <T extends ReadOnlyAcl<? extends ReadOnlyAce>>
+      ModelMapperConfigurerAdapter aclModelMapperConfigAdapter(
       ObjectProvider<AclMapper<T>> aclMapperProvider) {
 
     log.info("Creating bean 'aclModelMapperConfigurerAdapter' ...");
@@ -127,7 +216,159 @@ public class AccessControlAutoConfiguration {
       modelMapper
           .createTypeMap(aclEntityClass, AccessControlList.class)
           .setConverter(context -> aclMapper.map(context.getSource()));
+      AclCollectionConverter.register(modelMapper, aclMapper);
     });
   }
 
+  /**
+   * Applies the configured hierarchies to the user context callers of the application, that
+   * have no hierarchies yet.
+   */
+  @ConditionalOnClass(UserContextCaller.class)
+  @Configuration
+  static class UserContextCallerHierarchyConfiguration {
+
+    /**
+     * Creates a bean post processor, that sets the role and group hierarchy of the user context
+     * callers.
+     *
+     * @param roleHierarchy the role hierarchy
+     * @param groupHierarchy the group hierarchy
+     * @return the bean post processor
+     */
+    @Bean
+    public static BeanPostProcessor aclUserContextCallerHierarchyPostProcessor(
+        @Qualifier(ROLE_HIERARCHY_BEAN_NAME) ObjectProvider<PrincipalHierarchy> roleHierarchy,
+        @Qualifier(GROUP_HIERARCHY_BEAN_NAME) ObjectProvider<PrincipalHierarchy> groupHierarchy) {
+
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String name) {
+          if (bean instanceof UserContextCaller) {
+            UserContextCaller caller = (UserContextCaller) bean;
+            if (caller.getRoleHierarchy() == null) {
+              roleHierarchy.ifAvailable(caller::setRoleHierarchy);
+            }
+            if (caller.getGroupHierarchy() == null) {
+              groupHierarchy.ifAvailable(caller::setGroupHierarchy);
+            }
+          }
+          return bean;
+        }
+      };
+    }
+  }
+
+  /**
+   * Applies the configured hierarchies to the reactive user context callers of the
+   * application, that have no hierarchies yet.
+   */
+  @ConditionalOnClass(ReactiveUserContextCaller.class)
+  @Configuration
+  static class ReactiveUserContextCallerHierarchyConfiguration {
+
+    /**
+     * Creates a bean post processor, that sets the role and group hierarchy of the reactive user
+     * context callers.
+     *
+     * @param roleHierarchy the role hierarchy
+     * @param groupHierarchy the group hierarchy
+     * @return the bean post processor
+     */
+    @Bean
+    public static BeanPostProcessor aclReactiveUserContextCallerHierarchyPostProcessor(
+        @Qualifier(ROLE_HIERARCHY_BEAN_NAME) ObjectProvider<PrincipalHierarchy> roleHierarchy,
+        @Qualifier(GROUP_HIERARCHY_BEAN_NAME) ObjectProvider<PrincipalHierarchy> groupHierarchy) {
+
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String name) {
+          if (bean instanceof ReactiveUserContextCaller) {
+            ReactiveUserContextCaller caller = (ReactiveUserContextCaller) bean;
+            if (caller.getRoleHierarchy() == null) {
+              roleHierarchy.ifAvailable(caller::setRoleHierarchy);
+            }
+            if (caller.getGroupHierarchy() == null) {
+              groupHierarchy.ifAvailable(caller::setGroupHierarchy);
+            }
+          }
+          return bean;
+        }
+      };
+    }
+  }
+
+  /**
+   * The redis serializers of access control lists, that use the binary codec.
+   */
+  @ConditionalOnClass(RedisSerializer.class)
+  @ConditionalOnProperty(
+      prefix = "bremersee.acl.binary-codec",
+      name = "redis-serializer-enabled",
+      havingValue = "true")
+  @Configuration
+  static class AclRedisSerializerConfiguration {
+
+    /**
+     * Creates the redis serializer of acl entities.
+     *
+     * @return the redis serializer
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public AclRedisSerializer aclRedisSerializer() {
+      log.info("Creating bean 'aclRedisSerializer' ...");
+      return new AclRedisSerializer();
+    }
+
+    /**
+     * Creates the redis serializer of access control lists (dto).
+     *
+     * @return the redis serializer
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public AccessControlListRedisSerializer accessControlListRedisSerializer() {
+      log.info("Creating bean 'accessControlListRedisSerializer' ...");
+      return new AccessControlListRedisSerializer();
+    }
+  }
+
+  /**
+   * The jackson module, that uses the binary codec. It is registered by a customizer of the
+   * object mapper builder and not as a module bean. It changes the json of access control lists
+   * in every object mapper, that is built by spring boot, so it should only be switched on in
+   * applications, that use the object mapper for caching or messaging and not for a public rest
+   * api.
+   */
+  @ConditionalOnClass({SimpleModule.class, Jackson2ObjectMapperBuilderCustomizer.class})
+  @ConditionalOnProperty(
+      prefix = "bremersee.acl.binary-codec",
+      name = "jackson-module-enabled",
+      havingValue = "true")
+  @Configuration
+  static class AclCodecModuleConfiguration {
+
+    /**
+     * Creates the object mapper builder customizer, that adds the serializers and deserializers
+     * of the jackson module of the binary codec. They are added one by one, because {@code
+     * modulesToInstall} would replace the modules of the other customizers.
+     *
+     * @return the object mapper builder customizer
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer aclCodecModuleCustomizer() {
+      log.info("Creating bean 'aclCodecModuleCustomizer' ...");
+      return builder -> builder
+          .serializerByType(
+              AccessControlList.class, new AclCodecModule.AccessControlListSerializer())
+          .deserializerByType(
+              AccessControlList.class, new AclCodecModule.AccessControlListDeserializer())
+          .serializerByType(
+              ImmutableAcl.class, new AclCodecModule.ImmutableAclSerializer())
+          .deserializerByType(
+              ImmutableAcl.class, new AclCodecModule.ImmutableAclDeserializer());
+    }
+  }
+
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import org.bremersee.common.model.AccessControlList;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+/**
+ * The redis serializer of access control lists (dto), that uses the compact binary format of the
+ * {@link AclCodec} instead of json.
+ *
+ * @author Christian Bremer
+ */
+public class AccessControlListRedisSerializer implements RedisSerializer<AccessControlList> {
+
+  @Override
+  public byte[] serialize(@Nullable AccessControlList acl) throws SerializationException {
+    return acl == null ? null : AclCodec.encode(acl);
+  }
+
+  @Override
+  public AccessControlList deserialize(@Nullable byte[] bytes) throws SerializationException {
+    try {
+      return AclCodec.decodeAccessControlList(bytes);
+
+    } catch (IllegalArgumentException e) {
+      throw new SerializationException("Deserializing access control list failed.", e);
+    }
+  }
+
+}
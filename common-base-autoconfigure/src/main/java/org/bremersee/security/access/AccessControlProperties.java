@@ -17,7 +17,9 @@
 package org.bremersee.security.access;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -46,6 +48,16 @@ public class AccessControlProperties {
 
   private Set<String> defaultPermissions = new LinkedHashSet<>();
 
+  private int parallelMappingThreshold = AclMapperImpl.NO_PARALLEL_PROCESSING;
+
+  private Map<String, Set<String>> roleHierarchy = new LinkedHashMap<>();
+
+  private Map<String, Set<String>> groupHierarchy = new LinkedHashMap<>();
+
+  private DecisionCache decisionCache = new DecisionCache();
+
+  private BinaryCodec binaryCodec = new BinaryCodec();
+
   /**
    * Instantiates new access control properties.
    */
@@ -53,4 +65,34 @@ public class AccessControlProperties {
     adminRoles.add(AuthorityConstants.ADMIN_ROLE_NAME);
     defaultPermissions.addAll(Arrays.asList(PermissionConstants.ALL));
   }
+
+  /**
+   * The properties of the access decision cache (see {@link AccessDecisionCache}).
+   */
+  @Getter
+  @Setter
+  @ToString
+  @EqualsAndHashCode
+  public static class DecisionCache {
+
+    private boolean enabled = false;
+
+    private int maximumSize = AccessDecisionCache.DEFAULT_MAXIMUM_SIZE;
+
+    private int concurrencyLevel = AccessDecisionCache.DEFAULT_CONCURRENCY_LEVEL;
+  }
+
+  /**
+   * The properties of the binary codec (see {@link AclCodec}).
+   */
+  @Getter
+  @Setter
+  @ToString
+  @EqualsAndHashCode
+  public static class BinaryCodec {
+
+    private boolean redisSerializerEnabled = false;
+
+    private boolean jacksonModuleEnabled = false;
+  }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import org.bremersee.common.model.AccessControlList;
+
+/**
+ * The jackson module, that writes access control lists in the compact binary format of the
+ * {@link AclCodec}. Json will contain a base64 encoded string, binary formats (like smile or
+ * cbor) will contain the raw bytes.
+ *
+ * <p>The module changes the representation of access control lists, so it must not be registered
+ * as a bean (spring boot would add it to the object mapper of the rest api). Register it only in
+ * the object mapper, that is used for caching, e. g.:
+ * <pre>
+ * new GenericJackson2JsonRedisSerializer(objectMapper.copy().registerModule(new AclCodecModule()))
+ * </pre>
+ *
+ * <p>Applications, that don't use their object mapper for a public rest api, can switch on the
+ * module for all object mappers built by spring boot with {@code
+ * bremersee.acl.binary-codec.jackson-module-enabled=true}.
+ *
+ * @author Christian Bremer
+ */
+public class AclCodecModule extends SimpleModule {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Instantiates a new acl codec module.
+   */
+  public AclCodecModule() {
+    super(AclCodecModule.class.getSimpleName());
+    addSerializer(AccessControlList.class, new AccessControlListSerializer());
+    addDeserializer(AccessControlList.class, new AccessControlListDeserializer());
+    addSerializer(ImmutableAcl.class, new ImmutableAclSerializer());
+    addDeserializer(ImmutableAcl.class, new ImmutableAclDeserializer());
+  }
+
+  /**
+   * The access control list serializer.
+   */
+  static class AccessControlListSerializer extends StdSerializer<AccessControlList> {
+
+    private static final long serialVersionUID = 1L;
+
+    AccessControlListSerializer() {
+      super(AccessControlList.class);
+    }
+
+    @Override
+    public void serialize(
+        AccessControlList acl,
+        JsonGenerator gen,
+        SerializerProvider provider) throws IOException {
+      gen.writeBinary(AclCodec.encode(acl));
+    }
+  }
+
+  /**
+   * The access control list deserializer.
+   */
+  static class AccessControlListDeserializer extends StdDeserializer<AccessControlList> {
+
+    private static final long serialVersionUID = 1L;
+
+    AccessControlListDeserializer() {
+      super(AccessControlList.class);
+    }
+
+    @Override
+    public AccessControlList deserialize(
+        JsonParser p,
+        DeserializationContext ctxt) throws IOException {
+      try {
+        return AclCodec.decodeAccessControlList(p.getBinaryValue());
+
+      } catch (IllegalArgumentException e) {
+        throw ctxt.weirdStringException(p.getText(), AccessControlList.class, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * The immutable acl serializer.
+   */
+  static class ImmutableAclSerializer extends StdSerializer<ImmutableAcl> {
+
+    private static final long serialVersionUID = 1L;
+
+    ImmutableAclSerializer() {
+      super(ImmutableAcl.class);
+    }
+
+    @Override
+    public void serialize(
+        ImmutableAcl acl,
+        JsonGenerator gen,
+        SerializerProvider provider) throws IOException {
+      gen.writeBinary(AclCodec.encode(acl));
+    }
+  }
+
+  /**
+   * The immutable acl deserializer.
+   */
+  static class ImmutableAclDeserializer extends StdDeserializer<ImmutableAcl> {
+
+    private static final long serialVersionUID = 1L;
+
+    ImmutableAclDeserializer() {
+      super(ImmutableAcl.class);
+    }
+
+    @Override
+    public ImmutableAcl deserialize(
+        JsonParser p,
+        DeserializationContext ctxt) throws IOException {
+      try {
+        return AclCodec.decodeAcl(p.getBinaryValue());
+
+      } catch (IllegalArgumentException e) {
+        throw ctxt.weirdStringException(p.getText(), ImmutableAcl.class, e.getMessage());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.bremersee.common.model.AccessControlList;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.spi.ConditionalConverter;
+import org.modelmapper.spi.MappingContext;
+import org.springframework.util.Assert;
+
+/**
+ * The model mapper converter of collections of access control lists. It maps a collection,
+ * whose element type is the acl entity or {@link AccessControlList}, with the bulk operations of
+ * the {@link AclMapper} ({@link AclMapper#mapAll(Collection)} and {@link
+ * AclMapper#mapAllToAcl(Collection)}) instead of mapping one element after the other.
+ *
+ * <p>The converter decorates a collection converter of the model mapper. It has the same match
+ * result as the decorated converter, so the model mapper selects converters exactly as before.
+ * All other collections are converted by the decorated converter.
+ *
+ * @param <T> the acl entity type
+ * @author Christian Bremer
+ */
+@SuppressWarnings("unchecked")
+public class AclCollectionConverter<T extends ReadOnlyAcl<? extends ReadOnlyAce>>
+    implements ConditionalConverter<Object, Object> {
+
+  private final AclMapper<T> aclMapper;
+
+  private final Class<T> aclEntityClass;
+
+  private final ConditionalConverter<Object, Object> delegate;
+
+  /**
+   * Instantiates a new acl collection converter.
+   *
+   * @param aclMapper the acl mapper
+   * @param delegate the decorated collection converter of the model mapper
+   */
+  public AclCollectionConverter(
+      AclMapper<T> aclMapper,
+      ConditionalConverter<?, ?> delegate) {
+    Assert.notNull(aclMapper, "Acl mapper must be present.");
+    Assert.notNull(delegate, "Delegate must be present.");
+    this.aclMapper = aclMapper;
+    this.aclEntityClass = aclMapper.getAclFactory().getAccessControlListClass();
+    this.delegate = (ConditionalConverter<Object, Object>) delegate;
+  }
+
+  /**
+   * Decorates the collection converters of the given model mapper.
+   *
+   * @param <T> the acl entity type
+   * @param modelMapper the model mapper
+   * @param aclMapper the acl mapper
+   */
+  public static <T extends ReadOnlyAcl<? extends ReadOnlyAce>> void register(
+      ModelMapper modelMapper,
+      AclMapper<T> aclMapper) {
+
+    final List<ConditionalConverter<?, ?>> converters = modelMapper.getConfiguration()
+        .getConverters();
+    for (int i = 0; i < converters.size(); i++) {
+      final ConditionalConverter<?, ?> converter = converters.get(i);
+      if (!(converter instanceof AclCollectionConverter) && isCollectionConverter(converter)) {
+        converters.set(i, new AclCollectionConverter<>(aclMapper, converter));
+      }
+    }
+  }
+
+  private static boolean isCollectionConverter(ConditionalConverter<?, ?> converter) {
+    return converter.match(ArrayList.class, List.class) != MatchResult.NONE;
+  }
+
+  @Override
+  public MatchResult match(Class<?> sourceType, Class<?> destinationType) {
+    return delegate.match(sourceType, destinationType);
+  }
+
+  @Override
+  public Object convert(MappingContext<Object, Object> context) {
+    final Object source = context.getSource();
+    if (source instanceof Collection
+        && context.getDestination() == null
+        && Collection.class.isAssignableFrom(context.getDestinationType())) {
+      final Class<?> elementType = elementType(context.getGenericDestinationType());
+      final Collection<?> sourceCollection = (Collection<?>) source;
+      if (AccessControlList.class.equals(elementType)
+          && containsOnly(sourceCollection, aclEntityClass)) {
+        final Collection<?> result = collection(
+            context.getDestinationType(), aclMapper.mapAll((Collection<T>) sourceCollection));
+        if (result != null) {
+          return result;
+        }
+      } else if (aclEntityClass.equals(elementType)
+          && containsOnly(sourceCollection, AccessControlList.class)) {
+        final Collection<?> result = collection(
+            context.getDestinationType(),
+            aclMapper.mapAllToAcl((Collection<AccessControlList>) sourceCollection));
+        if (result != null) {
+          return result;
+        }
+      }
+    }
+    return delegate.convert(context);
+  }
+
+  private static Class<?> elementType(Type type) {
+    if (type instanceof ParameterizedType) {
+      final Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+      if (arguments.length == 1 && arguments[0] instanceof Class) {
+        return (Class<?>) arguments[0];
+      }
+    }
+    return null;
+  }
+
+  private static boolean containsOnly(Collection<?> source, Class<?> type) {
+    for (Object element : source) {
+      if (element != null && !type.isInstance(element)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Collection<?> collection(Class<?> destinationType, List<?> values) {
+    if (destinationType.isAssignableFrom(ArrayList.class)) {
+      return values instanceof ArrayList ? values : new ArrayList<>(values);
+    }
+    if (destinationType.isAssignableFrom(LinkedHashSet.class)) {
+      return new LinkedHashSet<>(values);
+    }
+    return null;
+  }
+
+}
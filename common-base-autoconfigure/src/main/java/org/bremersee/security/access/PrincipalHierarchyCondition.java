@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.Map;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * The principal hierarchy condition matches, if a hierarchy is configured under the property
+ * name of the concrete condition.
+ *
+ * @author Christian Bremer
+ */
+public abstract class PrincipalHierarchyCondition extends SpringBootCondition {
+
+  private static final Bindable<Map<String, Set<String>>> HIERARCHY = Bindable.of(ResolvableType
+      .forClassWithGenerics(
+          Map.class,
+          ResolvableType.forClass(String.class),
+          ResolvableType.forClassWithGenerics(Set.class, String.class)));
+
+  private final String propertyName;
+
+  /**
+   * Instantiates a new principal hierarchy condition.
+   *
+   * @param propertyName the property name of the hierarchy
+   */
+  protected PrincipalHierarchyCondition(String propertyName) {
+    this.propertyName = propertyName;
+  }
+
+  @Override
+  public ConditionOutcome getMatchOutcome(
+      ConditionContext context,
+      AnnotatedTypeMetadata metadata) {
+
+    boolean configured = Binder.get(context.getEnvironment())
+        .bind(propertyName, HIERARCHY)
+        .map(hierarchy -> !hierarchy.isEmpty())
+        .orElse(false);
+    return new ConditionOutcome(
+        configured,
+        "Principal hierarchy '" + propertyName + "' is " + (configured ? "" : "not ")
+            + "configured");
+  }
+
+  /**
+   * The role hierarchy condition.
+   */
+  public static class RoleHierarchyCondition extends PrincipalHierarchyCondition {
+
+    /**
+     * Instantiates a new role hierarchy condition.
+     */
+    public RoleHierarchyCondition() {
+      super("bremersee.acl.role-hierarchy");
+    }
+  }
+
+  /**
+   * The group hierarchy condition.
+   */
+  public static class GroupHierarchyCondition extends PrincipalHierarchyCondition {
+
+    /**
+     * Instantiates a new group hierarchy condition.
+     */
+    public GroupHierarchyCondition() {
+      super("bremersee.acl.group-hierarchy");
+    }
+  }
+
+}
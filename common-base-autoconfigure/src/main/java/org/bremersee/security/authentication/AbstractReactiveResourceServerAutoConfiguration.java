@@ -16,6 +16,7 @@
 
 package org.bremersee.security.authentication;
 
+import java.util.List;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.bremersee.core.OrderedProxy;
@@ -35,7 +36,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.header.XFrameOptionsServerHttpHeadersWriter.Mode;
 import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
-import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
@@ -158,17 +158,21 @@ public abstract class AbstractReactiveResourceServerAutoConfiguration {
   }
 
   private AuthorizeExchangeSpec configurePathMatchers(AuthorizeExchangeSpec spec) {
-    for (PathMatcherProperties props : authProperties.preparePathMatchers(corsProperties)) {
+    List<PathMatcherProperties> pathMatchers = authProperties.preparePathMatchers(corsProperties);
+    ReactivePathMatcherDispatcher dispatcher = new ReactivePathMatcherDispatcher(pathMatchers);
+    for (int i = 0; i < pathMatchers.size(); i++) {
+      PathMatcherProperties props = pathMatchers.get(i);
       log.info("Securing requests to {}", props);
+      ServerWebExchangeMatcher matcher = dispatcher.matcher(i);
       switch (props.getAccessMode()) {
         case DENY_ALL:
-          spec = spec.matchers(matcher(props)).denyAll();
+          spec = spec.matchers(matcher).denyAll();
           break;
         case PERMIT_ALL:
-          spec = spec.matchers(matcher(props)).permitAll();
+          spec = spec.matchers(matcher).permitAll();
           break;
         default:
-          spec = spec.matchers(matcher(props)).access(new RoleOrIpBasedAuthorizationManager(
+          spec = spec.matchers(matcher).access(new RoleOrIpBasedAuthorizationManager(
               props.roles(authProperties::ensureRolePrefix),
               props.getIpAddresses()));
       }
@@ -176,12 +180,6 @@ public abstract class AbstractReactiveResourceServerAutoConfiguration {
     return spec;
   }
 
-  private ServerWebExchangeMatcher matcher(PathMatcherProperties props) {
-    return Optional.ofNullable(props.httpMethod())
-        .map(method -> ServerWebExchangeMatchers.pathMatchers(method, props.getAntPattern()))
-        .orElseGet(() -> ServerWebExchangeMatchers.pathMatchers(props.getAntPattern()));
-  }
-
   private ServerHttpSecurity configureAuthenticationManager(ServerHttpSecurity http) {
     return Optional.ofNullable(jwtConverterProvider.getIfAvailable())
         .map(jwtConverter -> http
@@ -16,20 +16,23 @@
 
 package org.bremersee.security.authentication;
 
+import java.util.List;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.bremersee.security.IpAddressTrie;
 import org.bremersee.security.authentication.AuthProperties.PathMatcherProperties;
 import org.bremersee.web.CorsProperties;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.core.Ordered;
 import org.springframework.core.env.Environment;
-import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
@@ -164,18 +167,22 @@ public abstract class AbstractResourceServerAutoConfiguration extends WebSecurit
   configurePathMatchers(
       ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry reg) {
 
-    for (PathMatcherProperties props : authProperties.preparePathMatchers(corsProperties)) {
+    List<PathMatcherProperties> pathMatchers = authProperties.preparePathMatchers(corsProperties);
+    PathMatcherDispatcher dispatcher = new PathMatcherDispatcher(pathMatchers);
+    for (int i = 0; i < pathMatchers.size(); i++) {
+      PathMatcherProperties props = pathMatchers.get(i);
       log.info("Securing requests to {}", props);
-      HttpMethod httpMethod = props.httpMethod();
-      if (httpMethod == null) {
-        reg = reg.antMatchers(props.getAntPattern())
-            .access(props.accessExpression(
-                authProperties::ensureRolePrefix));
-      } else {
-        reg = reg.antMatchers(httpMethod, props.getAntPattern())
-            .access(props.accessExpression(
-                authProperties::ensureRolePrefix));
+      RequestMatcher pathMatcher = dispatcher.matcher(i);
+      IpAddressTrie ipAddresses = props.ipAddressTrie();
+      if (!ipAddresses.isEmpty()) {
+        reg = reg.requestMatchers(new AndRequestMatcher(
+            pathMatcher,
+            request -> ipAddresses.matches(request.getRemoteAddr())))
+            .permitAll();
       }
+      reg = reg.requestMatchers(pathMatcher)
+          .access(props.accessExpressionWithoutIpAddresses(
+              authProperties::ensureRolePrefix));
     }
     return reg;
   }
@@ -185,13 +185,28 @@ public abstract class AccessExpressionUtils {
   static String buildAccessExpression(
       PathMatcherProperties properties,
       Function<String, String> ensureRolePrefixFunction) {
+    return buildAccessExpression(properties, ensureRolePrefixFunction, true);
+  }
+
+  /**
+   * Build access expression of the given path matcher properties.
+   *
+   * @param properties the properties
+   * @param ensureRolePrefixFunction the ensure role prefix function
+   * @param withIpAddresses specifies whether the ip addresses are part of the expression
+   * @return the access expression
+   */
+  static String buildAccessExpression(
+      PathMatcherProperties properties,
+      Function<String, String> ensureRolePrefixFunction,
+      boolean withIpAddresses) {
 
     if (AccessMode.AUTHENTICATED == properties.getAccessMode()) {
       StringBuilder sb = new StringBuilder();
       sb.append(hasAuthorityOrIpAddressExpr(
           properties.getRoles(),
           ensureRolePrefixFunction,
-          properties.getIpAddresses()));
+          withIpAddresses ? properties.getIpAddresses() : null));
       if (properties.getRoles() == null || properties.getRoles().isEmpty()) {
         if (sb.length() > 0) {
           sb.append(" or ");
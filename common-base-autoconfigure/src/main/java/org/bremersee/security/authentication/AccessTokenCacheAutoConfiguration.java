@@ -106,6 +106,9 @@ public class AccessTokenCacheAutoConfiguration {
           .orElseGet(AccessTokenCache::builder)
           .withExpirationTimeThreshold(authProperties.getJwtCache().getExpirationTimeThreshold())
           .withKeyPrefix(authProperties.getJwtCache().getKeyPrefix())
+          .withInternalCacheMaximumSize(authProperties.getJwtCache().getInternalCacheMaximumSize())
+          .withInternalCacheSweepInterval(
+              authProperties.getJwtCache().getInternalCacheSweepInterval())
           .build();
     }
 
@@ -171,8 +174,11 @@ public class AccessTokenCacheAutoConfiguration {
 
       RedisConnectionFactory connectionFactory = connectionFactoryProvider.getIfAvailable();
       Assert.notNull(connectionFactory, "Redis connection factory must not be null.");
-      log.info("Creating {} with {} ...", RedisAccessTokenCache.class.getSimpleName(),
-          ClassUtils.getUserClass(connectionFactory).getSimpleName());
+      log.info("Creating {} with {} (near cache enabled = {}, invalidation enabled = {}) ...",
+          RedisAccessTokenCache.class.getSimpleName(),
+          ClassUtils.getUserClass(connectionFactory).getSimpleName(),
+          authProperties.getJwtCache().isNearCacheEnabled(),
+          authProperties.getJwtCache().isNearCacheInvalidationEnabled());
       return new RedisAccessTokenCache(authProperties.getJwtCache(), connectionFactory);
     }
   }
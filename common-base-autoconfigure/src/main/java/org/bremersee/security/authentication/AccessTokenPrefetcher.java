@@ -0,0 +1,232 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The access token prefetcher retrieves the access tokens of the configured client credentials
+ * and password flows in parallel, so that they are cached and the connections to the token
+ * endpoint are open, before the first request arrives.
+ *
+ * <p>It is called by the ready listeners of the jwt support auto configurations. Because spring
+ * boot reports readiness only after all ready listeners have returned, the application does not
+ * accept traffic, until the access tokens are cached or the timeout is reached. A failed
+ * retrieval is logged and does not stop the application.
+ *
+ * @author Christian Bremer
+ */
+@Slf4j
+public class AccessTokenPrefetcher implements DisposableBean {
+
+  /**
+   * The default timeout.
+   */
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30L);
+
+  /**
+   * The default maximum number of threads, that call a blocking retriever.
+   */
+  public static final int DEFAULT_MAX_THREADS = 4;
+
+  private final Function<AccessTokenRetrieverProperties, CompletionStage<String>> retriever;
+
+  private final Duration timeout;
+
+  private final ExecutorService executor;
+
+  /**
+   * Instantiates a new access token prefetcher.
+   *
+   * @param retriever the function, that retrieves an access token asynchronously
+   * @param timeout the maximum time to wait for all access tokens
+   */
+  public AccessTokenPrefetcher(
+      Function<AccessTokenRetrieverProperties, CompletionStage<String>> retriever,
+      @Nullable Duration timeout) {
+    this(retriever, timeout, null);
+  }
+
+  private AccessTokenPrefetcher(
+      Function<AccessTokenRetrieverProperties, CompletionStage<String>> retriever,
+      @Nullable Duration timeout,
+      @Nullable ExecutorService executor) {
+    this.retriever = Objects.requireNonNull(retriever, "Retriever must be present.");
+    this.timeout = Objects.requireNonNullElse(timeout, DEFAULT_TIMEOUT);
+    this.executor = executor;
+  }
+
+  /**
+   * Creates an access token prefetcher, that calls the given blocking retriever with at most
+   * {@link #DEFAULT_MAX_THREADS} daemon threads. The threads time out, when they are idle, and
+   * they are shut down, when the prefetcher is destroyed.
+   *
+   * @param retriever the blocking access token retriever
+   * @param timeout the maximum time to wait for all access tokens
+   * @return the access token prefetcher
+   */
+  public static AccessTokenPrefetcher withBlockingRetriever(
+      AccessTokenRetriever<String> retriever,
+      @Nullable Duration timeout) {
+    Objects.requireNonNull(retriever, "Retriever must be present.");
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        DEFAULT_MAX_THREADS,
+        DEFAULT_MAX_THREADS,
+        60L,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "access-token-prefetcher");
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    return new AccessTokenPrefetcher(
+        flow -> CompletableFuture.supplyAsync(() -> retriever.retrieveAccessToken(flow), executor),
+        timeout,
+        executor);
+  }
+
+  /**
+   * Gets the flows of the given properties and beans, that can be prefetched. These are the flows
+   * with token endpoint, client id and client secret; a password flow needs username and password,
+   * too. Flows with the same cache key are returned only once.
+   *
+   * @param properties the auth properties
+   * @param beans additional flows (e.g. beans of the application context)
+   * @return the flows
+   */
+  public static List<ClientCredentialsFlowProperties> flowsOf(
+      @Nullable AuthProperties properties,
+      @Nullable Collection<? extends ClientCredentialsFlowProperties> beans) {
+
+    final List<ClientCredentialsFlowProperties> candidates = new ArrayList<>();
+    if (properties != null) {
+      candidates.add(properties.getClientCredentialsFlow());
+      candidates.add(properties.getPasswordFlow());
+    }
+    if (beans != null) {
+      candidates.addAll(beans);
+    }
+    final Map<String, ClientCredentialsFlowProperties> flows = new LinkedHashMap<>();
+    for (ClientCredentialsFlowProperties candidate : candidates) {
+      if (isComplete(candidate)) {
+        flows.putIfAbsent(candidate.createCacheKey(), candidate);
+      }
+    }
+    return new ArrayList<>(flows.values());
+  }
+
+  private static boolean isComplete(ClientCredentialsFlowProperties flow) {
+    if (flow == null
+        || !StringUtils.hasText(flow.getTokenEndpoint())
+        || !StringUtils.hasText(flow.getClientId())
+        || flow.getClientSecret() == null) {
+      return false;
+    }
+    if (flow instanceof PasswordFlowProperties) {
+      final PasswordFlowProperties passwordFlow = (PasswordFlowProperties) flow;
+      return StringUtils.hasText(passwordFlow.getUsername()) && passwordFlow.getPassword() != null;
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves the access tokens of the given flows in parallel and waits for them until the
+   * timeout is reached.
+   *
+   * @param flows the flows
+   * @return the number of retrieved access tokens
+   */
+  public int prefetch(@Nullable Collection<? extends AccessTokenRetrieverProperties> flows) {
+    if (flows == null || flows.isEmpty()) {
+      return 0;
+    }
+    log.info("Prefetching {} access tokens (timeout = {}) ...", flows.size(), timeout);
+    final long start = System.currentTimeMillis();
+    final AtomicInteger retrieved = new AtomicInteger();
+    final CompletableFuture<?>[] futures = flows.stream()
+        .map(flow -> retrieve(flow)
+            .thenAccept(accessToken -> retrieved.incrementAndGet())
+            .exceptionally(error -> {
+              log.warn("Prefetching access token from {} failed.", flow.getTokenEndpoint(), error);
+              return null;
+            }))
+        .toArray(CompletableFuture[]::new);
+    try {
+      CompletableFuture.allOf(futures).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+    } catch (TimeoutException e) {
+      log.warn("Prefetching access tokens timed out.");
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Prefetching access tokens was interrupted.");
+
+    } catch (ExecutionException e) {
+      log.warn("Prefetching access tokens failed.", e);
+    }
+    log.info("Prefetched {} of {} access tokens in {} ms.",
+        retrieved.get(), flows.size(), System.currentTimeMillis() - start);
+    return retrieved.get();
+  }
+
+  private CompletableFuture<String> retrieve(AccessTokenRetrieverProperties flow) {
+    try {
+      return retriever.apply(flow).toCompletableFuture();
+
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Shuts down the threads, that call a blocking retriever.
+   */
+  @Override
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AccessTokenPrefetcher {timeout = " + timeout + '}';
+  }
+
+}
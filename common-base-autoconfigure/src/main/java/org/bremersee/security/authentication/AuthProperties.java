@@ -37,6 +37,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.bremersee.security.FrameOptionsMode;
+import org.bremersee.security.IpAddressTrie;
 import org.bremersee.security.core.AuthorityConstants;
 import org.bremersee.web.CorsProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -138,12 +139,36 @@ public class AuthProperties {
   @NotNull
   private JwtCache jwtCache = new JwtCache();
 
+  /**
+   * Properties of the cache of decoded (and verified) jwts of the resource server.
+   */
+  @NotNull
+  private JwtDecoderCache jwtDecoderCache = new JwtDecoderCache();
+
   /**
    * The properties for the oauth2 password flow.
    */
   @NotNull
   private PasswordFlow passwordFlow = new PasswordFlow();
 
+  /**
+   * Properties of the credentials cache of the basic authentication with the password flow.
+   */
+  @NotNull
+  private PasswordFlowCache passwordFlowCache = new PasswordFlowCache();
+
+  /**
+   * Properties of the client of the token endpoint.
+   */
+  @NotNull
+  private TokenEndpointClient tokenEndpointClient = new TokenEndpointClient();
+
+  /**
+   * Properties of prefetching the access tokens of the configured flows on startup.
+   */
+  @NotNull
+  private TokenPrefetch tokenPrefetch = new TokenPrefetch();
+
   /**
    * The properties for the client credentials flow.
    */
@@ -296,6 +321,31 @@ public class AuthProperties {
       return AccessExpressionUtils.buildAccessExpression(this, ensureRolePrefixFunction);
     }
 
+    /**
+     * Access expression without the ip addresses. They can be checked by the compiled
+     * {@link #ipAddressTrie()} instead.
+     *
+     * @param ensureRolePrefixFunction the ensure role prefix function
+     * @return the string
+     */
+    @NotEmpty
+    public String accessExpressionWithoutIpAddresses(
+        @Nullable Function<String, String> ensureRolePrefixFunction) {
+      return AccessExpressionUtils.buildAccessExpression(this, ensureRolePrefixFunction, false);
+    }
+
+    /**
+     * Compiles the ip addresses, that have access, if the access mode is
+     * {@link AccessMode#AUTHENTICATED}.
+     *
+     * @return the compiled ip addresses
+     */
+    public IpAddressTrie ipAddressTrie() {
+      return AccessMode.AUTHENTICATED == accessMode
+          ? IpAddressTrie.compile(ipAddresses)
+          : IpAddressTrie.empty();
+    }
+
     /**
      * Returns valid roles.
      *
@@ -515,6 +565,64 @@ public class AuthProperties {
      */
     private String keyPrefix = "jwt:";
 
+    /**
+     * The maximum size of the internal in memory cache, that is used, if there is no external
+     * cache.
+     */
+    private int internalCacheMaximumSize = InMemoryAccessTokenCache.DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * The interval, in which expired access tokens are removed from the internal in memory cache.
+     */
+    @NotNull
+    private Duration internalCacheSweepInterval = InMemoryAccessTokenCache.DEFAULT_SWEEP_INTERVAL;
+
+    /**
+     * Specifies whether access tokens of the redis cache are also stored in a local near cache.
+     */
+    private boolean nearCacheEnabled = false;
+
+    /**
+     * The maximum size of the local near cache.
+     */
+    private int nearCacheMaximumSize = 1000;
+
+    /**
+     * Specifies whether entries of the local near cache are invalidated by redis keyspace
+     * notifications. The redis server must publish them (e. g. {@code notify-keyspace-events Kgx}).
+     */
+    private boolean nearCacheInvalidationEnabled = false;
+
+    /**
+     * Specifies whether cached access tokens, that are used, are renewed in the background,
+     * before they expire.
+     */
+    private boolean refreshAheadEnabled = false;
+
+    /**
+     * The fraction of the lifetime of an access token, after which it is renewed in the
+     * background.
+     */
+    private double refreshAheadLifetimeFraction = AccessTokenRefreshAhead.DEFAULT_LIFETIME_FRACTION;
+
+    /**
+     * The maximum fraction of the lifetime of an access token, by which the renewal is moved
+     * forward randomly.
+     */
+    private double refreshAheadJitter = AccessTokenRefreshAhead.DEFAULT_JITTER;
+
+    /**
+     * Creates the refresh ahead policy.
+     *
+     * @return the refresh ahead policy or {@code null}, if refresh ahead is disabled
+     */
+    @Nullable
+    public AccessTokenRefreshAhead createRefreshAhead() {
+      return refreshAheadEnabled
+          ? new AccessTokenRefreshAhead(refreshAheadLifetimeFraction, refreshAheadJitter)
+          : null;
+    }
+
     /**
      * Add key prefix to the given key.
      *
@@ -531,4 +639,163 @@ public class AuthProperties {
 
   }
 
+  /**
+   * The properties of the cache of decoded jwts. If it is enabled, the jwt decoder of the
+   * resource server is decorated with a cache, so that the signature of a bearer token is
+   * verified only once.
+   */
+  @Getter
+  @Setter
+  @ToString
+  @EqualsAndHashCode
+  @NoArgsConstructor
+  @Validated
+  public static class JwtDecoderCache {
+
+    /**
+     * Specifies whether decoded jwts are cached until they expire.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The maximum number of cached jwts.
+     */
+    private int maximumSize = JwtDecodeCache.DEFAULT_MAXIMUM_SIZE;
+
+  }
+
+  /**
+   * The properties of the credentials cache of the basic authentication with the password flow.
+   * If it is enabled, the token endpoint is contacted only once for the same username and
+   * password until the access token expires.
+   */
+  @Getter
+  @Setter
+  @ToString
+  @EqualsAndHashCode
+  @NoArgsConstructor
+  @Validated
+  public static class PasswordFlowCache {
+
+    /**
+     * Specifies whether verified credentials are cached until the access token expires.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The maximum number of cached credentials.
+     */
+    private int maximumSize = PasswordFlowCredentialsCache.DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * The number of iterations of the hash function of the credentials.
+     */
+    private int hashIterations = PasswordFlowCredentialsCache.DEFAULT_HASH_ITERATIONS;
+
+    /**
+     * Creates the credentials cache.
+     *
+     * @return the credentials cache or {@code null}, if it is disabled
+     */
+    @Nullable
+    public PasswordFlowCredentialsCache createCredentialsCache() {
+      return enabled
+          ? new PasswordFlowCredentialsCache(maximumSize, hashIterations)
+          : null;
+    }
+
+  }
+
+  /**
+   * The properties of the client of the token endpoint. The timeouts are applied to the client of
+   * the access token retriever; the guard limits the number of concurrent requests and opens a
+   * circuit, when the token endpoint fails repeatedly.
+   */
+  @Getter
+  @Setter
+  @ToString
+  @EqualsAndHashCode
+  @NoArgsConstructor
+  @Validated
+  public static class TokenEndpointClient {
+
+    /**
+     * The connect timeout (blocking client only).
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5L);
+
+    /**
+     * The read timeout of the blocking client and the response timeout of the reactive client.
+     */
+    private Duration readTimeout = Duration.ofSeconds(10L);
+
+    /**
+     * Specifies whether the concurrency limit and the circuit breaker are enabled. It is disabled
+     * by default, because reactive callers don't wait for a free slot: they fail with status 503,
+     * if the maximum number of concurrent requests is reached.
+     */
+    private boolean guardEnabled = false;
+
+    /**
+     * The maximum number of concurrent requests to the token endpoint.
+     */
+    private int maxConcurrentRequests = TokenEndpointGuard.DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+    /**
+     * The time a blocking caller waits for a free slot, if the maximum number of concurrent
+     * requests is reached.
+     */
+    private Duration acquireTimeout = TokenEndpointGuard.DEFAULT_ACQUIRE_TIMEOUT;
+
+    /**
+     * The number of consecutive failures, that opens the circuit.
+     */
+    private int failureThreshold = TokenEndpointGuard.DEFAULT_FAILURE_THRESHOLD;
+
+    /**
+     * The duration, the circuit stays open, before a trial request is sent.
+     */
+    private Duration openDuration = TokenEndpointGuard.DEFAULT_OPEN_DURATION;
+
+    /**
+     * Creates the token endpoint guard.
+     *
+     * @return the token endpoint guard or {@code null}, if it is disabled
+     */
+    @Nullable
+    public TokenEndpointGuard createGuard() {
+      if (!guardEnabled) {
+        return null;
+      }
+      return new TokenEndpointGuard(
+          maxConcurrentRequests, acquireTimeout, failureThreshold, openDuration);
+    }
+
+  }
+
+  /**
+   * The properties of prefetching access tokens. If it is enabled, the access tokens of the
+   * configured client credentials and password flows are retrieved on startup, before the
+   * application reports readiness.
+   */
+  @Getter
+  @Setter
+  @ToString
+  @EqualsAndHashCode
+  @NoArgsConstructor
+  @Validated
+  public static class TokenPrefetch {
+
+    /**
+     * Specifies whether access tokens are prefetched on startup.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The maximum time to wait for the access tokens.
+     */
+    private Duration timeout = AccessTokenPrefetcher.DEFAULT_TIMEOUT;
+
+  }
+
 }
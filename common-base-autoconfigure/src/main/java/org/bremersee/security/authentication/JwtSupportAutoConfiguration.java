@@ -16,9 +16,12 @@
 
 package org.bremersee.security.authentication;
 
+import java.time.Duration;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.bremersee.context.MessageSourceProperties;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -32,6 +35,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -54,18 +58,30 @@ public class JwtSupportAutoConfiguration {
 
   private final AuthProperties properties;
 
+  private final ObjectProvider<AccessTokenPrefetcher> accessTokenPrefetcher;
+
+  private final ObjectProvider<ClientCredentialsFlowProperties> clientCredentialsFlows;
+
   /**
    * Instantiates a new authentication support auto configuration.
    *
    * @param properties the properties
+   * @param accessTokenPrefetcher the access token prefetcher
+   * @param clientCredentialsFlows additional client credentials flows
    */
   public JwtSupportAutoConfiguration(
-      AuthProperties properties) {
+      AuthProperties properties,
+      ObjectProvider<AccessTokenPrefetcher> accessTokenPrefetcher,
+      ObjectProvider<ClientCredentialsFlowProperties> clientCredentialsFlows) {
     this.properties = properties;
+    this.accessTokenPrefetcher = accessTokenPrefetcher;
+    this.clientCredentialsFlows = clientCredentialsFlows;
   }
 
   /**
-   * Init.
+   * Init. Prefetches the access tokens of the configured flows, if an
+   * {@link AccessTokenPrefetcher} is present; readiness is reported after this listener has
+   * returned.
    */
   @EventListener(ApplicationReadyEvent.class)
   public void init() {
@@ -85,6 +101,38 @@ public class JwtSupportAutoConfiguration {
         properties.getRolesValueSeparator(),
         properties.getRolePrefix(),
         properties.getNameJsonPath());
+    accessTokenPrefetcher.ifAvailable(prefetcher -> prefetcher.prefetch(
+        AccessTokenPrefetcher.flowsOf(
+            properties,
+            clientCredentialsFlows.orderedStream().collect(Collectors.toList()))));
+  }
+
+  /**
+   * Creates a bean post processor, that decorates the jwt decoder with a cache of decoded jwts.
+   *
+   * @param authProperties the auth properties
+   * @return the bean post processor
+   */
+  @ConditionalOnProperty(
+      prefix = "bremersee.auth.jwt-decoder-cache",
+      name = "enabled",
+      havingValue = "true")
+  @Bean
+  public static BeanPostProcessor jwtDecoderCachePostProcessor(
+      ObjectProvider<AuthProperties> authProperties) {
+
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String name) {
+        if (bean instanceof JwtDecoder && !(bean instanceof CachingJwtDecoder)) {
+          int maximumSize = authProperties.getObject().getJwtDecoderCache().getMaximumSize();
+          log.info("Decorating {} {} with cache (maximum size = {}) ...",
+              JwtDecoder.class.getSimpleName(), name, maximumSize);
+          return new CachingJwtDecoder((JwtDecoder) bean, new JwtDecodeCache(maximumSize));
+        }
+        return bean;
+      }
+    };
   }
 
   /**
@@ -146,9 +194,19 @@ public class JwtSupportAutoConfiguration {
     Assert.notNull(
         restTemplateBuilder.getIfAvailable(),
         "Rest template builder must be present.");
-    return new RestTemplateAccessTokenRetriever(
-        restTemplateBuilder.getIfAvailable().build(),
+    AuthProperties.TokenEndpointClient client = properties.getTokenEndpointClient();
+    RestTemplateAccessTokenRetriever retriever = new RestTemplateAccessTokenRetriever(
+        restTemplateBuilder.getIfAvailable()
+            .setConnectTimeout(client.getConnectTimeout())
+            .setReadTimeout(client.getReadTimeout())
+            .build(),
         cache);
+    retriever.setAwaitTimeout(client.getConnectTimeout()
+        .plus(client.getReadTimeout())
+        .plus(client.isGuardEnabled() ? client.getAcquireTimeout() : Duration.ZERO));
+    retriever.setRefreshAhead(properties.getJwtCache().createRefreshAhead());
+    retriever.setTokenEndpointGuard(client.createGuard());
+    return retriever;
   }
 
   /**
@@ -179,11 +237,40 @@ public class JwtSupportAutoConfiguration {
     Assert.notNull(
         jwtDecoder.getIfAvailable(),
         "Jwt decoder must be present.");
-    return new PasswordFlowAuthenticationManager(
+    final PasswordFlowAuthenticationManager manager = new PasswordFlowAuthenticationManager(
         properties.getPasswordFlow(),
         jwtDecoder.getIfAvailable(),
         jwtConverter,
         tokenRetriever);
+    final PasswordFlowCredentialsCache credentialsCache = properties.getPasswordFlowCache()
+        .createCredentialsCache();
+    if (credentialsCache != null) {
+      log.info("Basic authentication with password flow uses {}", credentialsCache);
+      manager.setCredentialsCache(credentialsCache);
+    }
+    return manager;
+  }
+
+  /**
+   * Creates the access token prefetcher.
+   *
+   * @param tokenRetriever the token retriever
+   * @return the access token prefetcher
+   */
+  @Conditional(JwtSupportCondition.class)
+  @ConditionalOnProperty(
+      prefix = "bremersee.auth.token-prefetch",
+      name = "enabled",
+      havingValue = "true")
+  @ConditionalOnMissingBean
+  @Bean
+  public AccessTokenPrefetcher accessTokenPrefetcher(
+      RestTemplateAccessTokenRetriever tokenRetriever) {
+
+    log.info("Creating {} ...", AccessTokenPrefetcher.class.getSimpleName());
+    return AccessTokenPrefetcher.withBlockingRetriever(
+        tokenRetriever,
+        properties.getTokenPrefetch().getTimeout());
   }
 
 }
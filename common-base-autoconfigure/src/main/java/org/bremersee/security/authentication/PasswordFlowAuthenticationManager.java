@@ -54,6 +54,8 @@ public class PasswordFlowAuthenticationManager
 
   private final Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter;
 
+  private PasswordFlowCredentialsCache credentialsCache;
+
   /**
    * Instantiates a new password flow authentication manager.
    *
@@ -76,6 +78,17 @@ public class PasswordFlowAuthenticationManager
     this.accessTokenRetriever = accessTokenRetriever;
   }
 
+  /**
+   * Sets the credentials cache. If it is present, the decoded access token of verified
+   * credentials is cached until it expires and the token endpoint is not contacted again for the
+   * same username and password. A new authentication is created for each call.
+   *
+   * @param credentialsCache the credentials cache
+   */
+  public void setCredentialsCache(@Nullable PasswordFlowCredentialsCache credentialsCache) {
+    this.credentialsCache = credentialsCache;
+  }
+
   @Override
   public Authentication authenticate(Authentication authentication) throws AuthenticationException {
     final PasswordFlowProperties properties = PasswordFlowProperties.builder()
@@ -83,10 +96,18 @@ public class PasswordFlowAuthenticationManager
         .username(authentication.getName())
         .password((String) authentication.getCredentials())
         .build();
+    final String cacheKey = credentialsCache != null && properties.getPassword() != null
+        ? credentialsCache.key(properties.getUsername(), properties.getPassword())
+        : null;
     try {
-      return this.jwtAuthenticationConverter.convert(
-          jwtDecoder.decode(
-              accessTokenRetriever.retrieveAccessToken(properties)));
+      Jwt jwt = cacheKey != null ? credentialsCache.findJwt(cacheKey) : null;
+      if (jwt == null) {
+        jwt = jwtDecoder.decode(accessTokenRetriever.retrieveAccessToken(properties));
+        if (cacheKey != null) {
+          credentialsCache.putJwt(cacheKey, jwt);
+        }
+      }
+      return this.jwtAuthenticationConverter.convert(jwt);
 
     } catch (JwtException failed) {
       final OAuth2Error invalidToken = invalidToken(failed.getMessage());
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+
+/**
+ * The credentials cache of the password flow authentication managers. It stores the decoded
+ * access token of successfully verified credentials, so that a basic authentication with the same
+ * username and password does not contact the token endpoint again until the access token expires.
+ *
+ * <p>Neither the username nor the password is stored: the key is a slow salted hash
+ * (PBKDF2 with HMAC SHA-256) of both. The salt is created randomly for each instance, so the keys
+ * are useless outside of this cache.
+ *
+ * <p>Changing the password at the identity provider does not invalidate an entry; the old
+ * password is accepted until the cached access token expires. That's why the cache is disabled
+ * by default.
+ *
+ * @author Christian Bremer
+ */
+public class PasswordFlowCredentialsCache {
+
+  /**
+   * The default maximum size.
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+  /**
+   * The default number of hash iterations.
+   */
+  public static final int DEFAULT_HASH_ITERATIONS = 10000;
+
+  private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+  private static final int SALT_LENGTH = 16;
+
+  private static final int KEY_LENGTH = 256;
+
+  private final ExpiringTokenCache<Jwt> cache;
+
+  private final int hashIterations;
+
+  private final byte[] salt;
+
+  /**
+   * Instantiates a new password flow credentials cache with default values.
+   */
+  public PasswordFlowCredentialsCache() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_HASH_ITERATIONS);
+  }
+
+  /**
+   * Instantiates a new password flow credentials cache.
+   *
+   * @param maximumSize the maximum size
+   * @param hashIterations the number of hash iterations
+   */
+  public PasswordFlowCredentialsCache(int maximumSize, int hashIterations) {
+    Assert.isTrue(hashIterations > 0, "Hash iterations must be greater than zero.");
+    this.cache = new ExpiringTokenCache<>(maximumSize);
+    this.hashIterations = hashIterations;
+    this.salt = new byte[SALT_LENGTH];
+    new SecureRandom().nextBytes(this.salt);
+  }
+
+  /**
+   * Creates the cache key of the given credentials. This is expensive by intention and should be
+   * called only once per authentication.
+   *
+   * @param username the username
+   * @param password the password
+   * @return the cache key
+   */
+  public String key(String username, String password) {
+    Assert.notNull(username, "Username must be present.");
+    Assert.notNull(password, "Password must be present.");
+    final byte[] name = username.getBytes(StandardCharsets.UTF_8);
+    final byte[] userSalt = new byte[salt.length + name.length];
+    System.arraycopy(salt, 0, userSalt, 0, salt.length);
+    System.arraycopy(name, 0, userSalt, salt.length, name.length);
+    final PBEKeySpec spec = new PBEKeySpec(
+        password.toCharArray(), userSalt, hashIterations, KEY_LENGTH);
+    try {
+      final byte[] hash = SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+      return Base64.getEncoder().encodeToString(hash);
+
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Hashing credentials failed.", e);
+
+    } finally {
+      spec.clearPassword();
+    }
+  }
+
+  /**
+   * Finds the decoded access token of the given cache key.
+   *
+   * @param key the cache key
+   * @return the decoded access token or {@code null}, if it is not cached or expired
+   */
+  @Nullable
+  public Jwt findJwt(@Nullable String key) {
+    return cache.get(key);
+  }
+
+  /**
+   * Puts the decoded access token of verified credentials into the cache. It is cached until it
+   * expires.
+   *
+   * @param key the cache key
+   * @param jwt the decoded access token
+   */
+  public void putJwt(@Nullable String key, @Nullable Jwt jwt) {
+    if (jwt != null) {
+      cache.put(key, jwt, jwt.getExpiresAt());
+    }
+  }
+
+  /**
+   * Removes all cached access tokens.
+   */
+  public void clear() {
+    cache.clear();
+  }
+
+  /**
+   * Gets the number of cached access tokens.
+   *
+   * @return the size
+   */
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * Gets the number of authentications, that were answered by the cache.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return cache.getHitCount();
+  }
+
+  /**
+   * Gets the number of authentications, that contacted the token endpoint.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return cache.getMissCount();
+  }
+
+  @Override
+  public String toString() {
+    return "PasswordFlowCredentialsCache {hashIterations = " + hashIterations
+        + ", cache = " + cache
+        + '}';
+  }
+
+}
@@ -34,6 +34,7 @@ import org.springframework.security.oauth2.server.resource.BearerTokenErrorCodes
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * The password flow reactive authentication manager.
@@ -51,6 +52,8 @@ public class PasswordFlowReactiveAuthenticationManager implements ReactiveAuthen
 
   private final AccessTokenRetriever<Mono<String>> retriever;
 
+  private PasswordFlowCredentialsCache credentialsCache;
+
   /**
    * Instantiates a new password flow reactive authentication manager.
    *
@@ -88,6 +91,18 @@ public class PasswordFlowReactiveAuthenticationManager implements ReactiveAuthen
     }
   }
 
+  /**
+   * Sets the credentials cache. If it is present, the decoded access token of verified
+   * credentials is cached until it expires and the token endpoint is not contacted again for the
+   * same username and password. The hash of the credentials is calculated on the parallel
+   * scheduler.
+   *
+   * @param credentialsCache the credentials cache
+   */
+  public void setCredentialsCache(@Nullable PasswordFlowCredentialsCache credentialsCache) {
+    this.credentialsCache = credentialsCache;
+  }
+
   @Override
   public Mono<Authentication> authenticate(final Authentication authentication) {
 
@@ -96,13 +111,30 @@ public class PasswordFlowReactiveAuthenticationManager implements ReactiveAuthen
         .username(authentication.getName())
         .password((String) authentication.getCredentials())
         .build();
-    return retriever.retrieveAccessToken(properties)
-        .flatMap(jwtDecoder::decode)
+    return findJwt(properties)
         .flatMap(jwt -> Objects.requireNonNull(jwtConverter.convert(jwt)))
         .cast(Authentication.class)
         .onErrorMap(JwtException.class, this::onError);
   }
 
+  private Mono<Jwt> findJwt(PasswordFlowProperties properties) {
+    final PasswordFlowCredentialsCache cache = credentialsCache;
+    if (cache == null || properties.getPassword() == null) {
+      return retrieveJwt(properties);
+    }
+    return Mono
+        .fromCallable(() -> cache.key(properties.getUsername(), properties.getPassword()))
+        .subscribeOn(Schedulers.parallel())
+        .flatMap(cacheKey -> Mono.justOrEmpty(cache.findJwt(cacheKey))
+            .switchIfEmpty(retrieveJwt(properties)
+                .doOnNext(jwt -> cache.putJwt(cacheKey, jwt))));
+  }
+
+  private Mono<Jwt> retrieveJwt(PasswordFlowProperties properties) {
+    return Mono.defer(() -> retriever.retrieveAccessToken(properties))
+        .flatMap(jwtDecoder::decode);
+  }
+
   private OAuth2AuthenticationException onError(JwtException e) {
     log.error("msg=[Basic authentication with password flow failed.]", e);
     OAuth2Error invalidRequest = invalidToken(e.getMessage());
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import javax.servlet.http.HttpServletRequest;
+import org.bremersee.security.PathRuleTrie;
+import org.bremersee.security.authentication.AuthProperties.PathMatcherProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.Assert;
+
+/**
+ * The path matcher dispatcher finds the first path matcher of the given list, that matches a
+ * request. The path matchers are compiled into a {@link PathRuleTrie}, the candidates of the trie
+ * are confirmed in the configured order by {@link AntPathRequestMatcher}s. So the result is the
+ * same as checking the ant matchers one by one, but the cost grows with the depth of the path and
+ * not with the number of path matchers.
+ *
+ * <p>The result is stored as request attribute, so the request path is built once per request
+ * and the {@link #matcher(int) request matchers} of the path matchers, that are registered one
+ * by one in the http security, only compare the stored index.
+ *
+ * @author Christian Bremer
+ */
+public class PathMatcherDispatcher {
+
+  private final String attributeName = PathMatcherDispatcher.class.getName()
+      + ".LOOKUP." + System.identityHashCode(this);
+
+  private final List<PathMatcherProperties> pathMatchers;
+
+  private final RequestMatcher[] requestMatchers;
+
+  private final PathRuleTrie trie;
+
+  /**
+   * Instantiates a new path matcher dispatcher.
+   *
+   * @param pathMatchers the path matchers in the order of their precedence
+   */
+  public PathMatcherDispatcher(List<PathMatcherProperties> pathMatchers) {
+    Assert.notNull(pathMatchers, "Path matchers must not be null.");
+    this.pathMatchers = List.copyOf(pathMatchers);
+    this.requestMatchers = new RequestMatcher[this.pathMatchers.size()];
+    final PathRuleTrie.Builder builder = PathRuleTrie.builder();
+    for (int i = 0; i < requestMatchers.length; i++) {
+      final PathMatcherProperties props = this.pathMatchers.get(i);
+      final HttpMethod httpMethod = props.httpMethod();
+      requestMatchers[i] = httpMethod == null
+          ? new AntPathRequestMatcher(props.getAntPattern())
+          : new AntPathRequestMatcher(props.getAntPattern(), httpMethod.name());
+      builder.add(httpMethod, props.getAntPattern());
+    }
+    this.trie = builder.build();
+  }
+
+  /**
+   * Gets the path matchers.
+   *
+   * @return the path matchers
+   */
+  public List<PathMatcherProperties> getPathMatchers() {
+    return pathMatchers;
+  }
+
+  /**
+   * Finds the first path matcher, that matches the given request.
+   *
+   * @param request the request
+   * @return the path matcher
+   */
+  public Optional<PathMatcherProperties> find(HttpServletRequest request) {
+    final int index = indexOf(request);
+    return index >= 0 ? Optional.of(pathMatchers.get(index)) : Optional.empty();
+  }
+
+  /**
+   * Returns the index of the first path matcher, that matches the given request.
+   *
+   * @param request the request
+   * @return the index of the path matcher or {@code -1}
+   */
+  public int indexOf(HttpServletRequest request) {
+    final String method = request.getMethod();
+    final String servletPath = request.getServletPath();
+    final String pathInfo = request.getPathInfo();
+    final Object value = request.getAttribute(attributeName);
+    if (value instanceof Lookup && ((Lookup) value).isLookupOf(method, servletPath, pathInfo)) {
+      return ((Lookup) value).index;
+    }
+    final int index = lookup(request, method, getRequestPath(servletPath, pathInfo));
+    request.setAttribute(attributeName, new Lookup(method, servletPath, pathInfo, index));
+    return index;
+  }
+
+  private int lookup(HttpServletRequest request, String method, String path) {
+    final BitSet candidates = trie.candidates(
+        method != null ? HttpMethod.resolve(method) : null,
+        path);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      if (requestMatchers[i].matches(request)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns a request matcher, that matches, if the path matcher with the given index is the
+   * first path matcher, that matches the request.
+   *
+   * @param index the index of the path matcher
+   * @return the request matcher
+   */
+  public RequestMatcher matcher(int index) {
+    Assert.isTrue(index >= 0 && index < requestMatchers.length,
+        "Index of path matcher is out of bounds: " + index);
+    return request -> indexOf(request) == index;
+  }
+
+  /**
+   * Gets the request path like the {@link AntPathRequestMatcher} does.
+   *
+   * @param servletPath the servlet path of the request
+   * @param pathInfo the path info of the request
+   * @return the request path
+   */
+  private static String getRequestPath(String servletPath, String pathInfo) {
+    String url = servletPath;
+    if (pathInfo != null) {
+      url = url != null && !url.isEmpty() ? url + pathInfo : pathInfo;
+    }
+    return url;
+  }
+
+  @Override
+  public String toString() {
+    return "PathMatcherDispatcher {pathMatchers = " + pathMatchers.size() + '}';
+  }
+
+  /**
+   * The stored lookup of a request. The request path is only built for the lookup; the stored
+   * lookup is validated with the parts of the path, which are usually the same string instances,
+   * so that the validation does not compare characters.
+   */
+  private static final class Lookup {
+
+    private final String method;
+
+    private final String servletPath;
+
+    private final String pathInfo;
+
+    private final int index;
+
+    private Lookup(String method, String servletPath, String pathInfo, int index) {
+      this.method = method;
+      this.servletPath = servletPath;
+      this.pathInfo = pathInfo;
+      this.index = index;
+    }
+
+    private boolean isLookupOf(String method, String servletPath, String pathInfo) {
+      return Objects.equals(this.method, method)
+          && Objects.equals(this.servletPath, servletPath)
+          && Objects.equals(this.pathInfo, pathInfo);
+    }
+  }
+
+}
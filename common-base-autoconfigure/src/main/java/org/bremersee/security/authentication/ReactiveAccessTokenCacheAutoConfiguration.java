@@ -169,8 +169,11 @@ public class ReactiveAccessTokenCacheAutoConfiguration {
 
       ReactiveRedisConnectionFactory connectionFactory = connectionFactoryProvider.getIfAvailable();
       Assert.notNull(connectionFactory, "Redis connection factory must not be null.");
-      log.info("Creating {} with {} ...", RedisAccessTokenCache.class.getSimpleName(),
-          ClassUtils.getUserClass(connectionFactory).getSimpleName());
+      log.info("Creating {} with {} (near cache enabled = {}, invalidation enabled = {}) ...",
+          ReactiveRedisAccessTokenCache.class.getSimpleName(),
+          ClassUtils.getUserClass(connectionFactory).getSimpleName(),
+          authProperties.getJwtCache().isNearCacheEnabled(),
+          authProperties.getJwtCache().isNearCacheInvalidationEnabled());
       return new ReactiveRedisAccessTokenCache(authProperties.getJwtCache(), connectionFactory);
     }
 
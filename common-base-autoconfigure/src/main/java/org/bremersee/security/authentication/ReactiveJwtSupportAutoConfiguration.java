@@ -16,9 +16,11 @@
 
 package org.bremersee.security.authentication;
 
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.bremersee.context.MessageSourceProperties;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -31,6 +33,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -53,18 +56,30 @@ public class ReactiveJwtSupportAutoConfiguration {
 
   private final AuthProperties properties;
 
+  private final ObjectProvider<AccessTokenPrefetcher> accessTokenPrefetcher;
+
+  private final ObjectProvider<ClientCredentialsFlowProperties> clientCredentialsFlows;
+
   /**
    * Instantiates a reactive authentication support auto configuration.
    *
    * @param properties the properties
+   * @param accessTokenPrefetcher the access token prefetcher
+   * @param clientCredentialsFlows additional client credentials flows
    */
   public ReactiveJwtSupportAutoConfiguration(
-      AuthProperties properties) {
+      AuthProperties properties,
+      ObjectProvider<AccessTokenPrefetcher> accessTokenPrefetcher,
+      ObjectProvider<ClientCredentialsFlowProperties> clientCredentialsFlows) {
     this.properties = properties;
+    this.accessTokenPrefetcher = accessTokenPrefetcher;
+    this.clientCredentialsFlows = clientCredentialsFlows;
   }
 
   /**
-   * Init.
+   * Init. Prefetches the access tokens of the configured flows, if an
+   * {@link AccessTokenPrefetcher} is present; readiness is reported after this listener has
+   * returned.
    */
   @EventListener(ApplicationReadyEvent.class)
   public void init() {
@@ -84,6 +99,40 @@ public class ReactiveJwtSupportAutoConfiguration {
         properties.getRolesValueSeparator(),
         properties.getRolePrefix(),
         properties.getNameJsonPath());
+    accessTokenPrefetcher.ifAvailable(prefetcher -> prefetcher.prefetch(
+        AccessTokenPrefetcher.flowsOf(
+            properties,
+            clientCredentialsFlows.orderedStream().collect(Collectors.toList()))));
+  }
+
+  /**
+   * Creates a bean post processor, that decorates the jwt decoder with a cache of decoded jwts.
+   *
+   * @param authProperties the auth properties
+   * @return the bean post processor
+   */
+  @ConditionalOnProperty(
+      prefix = "bremersee.auth.jwt-decoder-cache",
+      name = "enabled",
+      havingValue = "true")
+  @Bean
+  public static BeanPostProcessor reactiveJwtDecoderCachePostProcessor(
+      ObjectProvider<AuthProperties> authProperties) {
+
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String name) {
+        if (bean instanceof ReactiveJwtDecoder && !(bean instanceof CachingReactiveJwtDecoder)) {
+          int maximumSize = authProperties.getObject().getJwtDecoderCache().getMaximumSize();
+          log.info("Decorating {} {} with cache (maximum size = {}) ...",
+              ReactiveJwtDecoder.class.getSimpleName(), name, maximumSize);
+          return new CachingReactiveJwtDecoder(
+              (ReactiveJwtDecoder) bean,
+              new JwtDecodeCache(maximumSize));
+        }
+        return bean;
+      }
+    };
   }
 
   /**
@@ -129,6 +178,7 @@ public class ReactiveJwtSupportAutoConfiguration {
   /**
    * Creates access token retriever.
    *
+   * @param webClientBuilder the web client builder
    * @param accessTokenCache the access token cache
    * @return the web client access token retriever
    */
@@ -136,14 +186,21 @@ public class ReactiveJwtSupportAutoConfiguration {
   @ConditionalOnMissingBean
   @Bean
   public WebClientAccessTokenRetriever webClientAccessTokenRetriever(
+      ObjectProvider<WebClient.Builder> webClientBuilder,
       ObjectProvider<ReactiveAccessTokenCache> accessTokenCache) {
 
     ReactiveAccessTokenCache cache = accessTokenCache.getIfAvailable();
     log.info("Creating common {} with cache {} ...",
         WebClientAccessTokenRetriever.class.getSimpleName(), cache);
-    return new WebClientAccessTokenRetriever(
-        WebClient.builder().build(),
+    WebClient.Builder builder = webClientBuilder.getIfAvailable();
+    WebClientAccessTokenRetriever retriever = new WebClientAccessTokenRetriever(
+        builder != null ? builder.build() : WebClient.builder().build(),
         cache);
+    AuthProperties.TokenEndpointClient client = properties.getTokenEndpointClient();
+    retriever.setRefreshAhead(properties.getJwtCache().createRefreshAhead());
+    retriever.setResponseTimeout(client.getReadTimeout());
+    retriever.setTokenEndpointGuard(client.createGuard());
+    return retriever;
   }
 
   /**
@@ -171,11 +228,39 @@ public class ReactiveJwtSupportAutoConfiguration {
 
     Assert.notNull(jwtDecoder.getIfAvailable(), "Jwt decoder must be present.");
     log.info("Creating {} ...", PasswordFlowReactiveAuthenticationManager.class.getSimpleName());
-    return new PasswordFlowReactiveAuthenticationManager(
-        properties.getPasswordFlow(),
-        jwtDecoder.getIfAvailable(),
-        jwtConverter,
-        tokenRetriever);
+    final PasswordFlowReactiveAuthenticationManager manager =
+        new PasswordFlowReactiveAuthenticationManager(
+            properties.getPasswordFlow(),
+            jwtDecoder.getIfAvailable(),
+            jwtConverter,
+            tokenRetriever);
+    final PasswordFlowCredentialsCache credentialsCache = properties.getPasswordFlowCache()
+        .createCredentialsCache();
+    if (credentialsCache != null) {
+      log.info("Basic authentication with password flow uses {}", credentialsCache);
+      manager.setCredentialsCache(credentialsCache);
+    }
+    return manager;
+  }
+
+  /**
+   * Creates the access token prefetcher.
+   *
+   * @param tokenRetriever the token retriever
+   * @return the access token prefetcher
+   */
+  @Conditional(JwtSupportCondition.class)
+  @ConditionalOnProperty(
+      prefix = "bremersee.auth.token-prefetch",
+      name = "enabled",
+      havingValue = "true")
+  @ConditionalOnMissingBean
+  @Bean
+  public AccessTokenPrefetcher accessTokenPrefetcher(WebClientAccessTokenRetriever tokenRetriever) {
+    log.info("Creating {} ...", AccessTokenPrefetcher.class.getSimpleName());
+    return new AccessTokenPrefetcher(
+        flow -> tokenRetriever.retrieveAccessToken(flow).toFuture(),
+        properties.getTokenPrefetch().getTimeout());
   }
 
 }
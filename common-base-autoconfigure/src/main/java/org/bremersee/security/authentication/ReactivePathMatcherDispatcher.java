@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.bremersee.security.PathRuleTrie;
+import org.bremersee.security.authentication.AuthProperties.PathMatcherProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The reactive path matcher dispatcher finds the first path matcher of the given list, that
+ * matches an exchange. The path matchers are compiled into a {@link PathRuleTrie}, the candidates
+ * of the trie are confirmed in the configured order by the path pattern matchers of
+ * {@link ServerWebExchangeMatchers}. So the result is the same as checking the path pattern
+ * matchers one by one, but the cost grows with the depth of the path and not with the number of
+ * path matchers.
+ *
+ * <p>The result is stored as exchange attribute, so the {@link #matcher(int) exchange matchers}
+ * of the path matchers only compare the stored index.
+ *
+ * @author Christian Bremer
+ */
+public class ReactivePathMatcherDispatcher {
+
+  private final String attributeName = ReactivePathMatcherDispatcher.class.getName()
+      + ".LOOKUP." + System.identityHashCode(this);
+
+  private final List<PathMatcherProperties> pathMatchers;
+
+  private final ServerWebExchangeMatcher[] exchangeMatchers;
+
+  private final PathRuleTrie trie;
+
+  /**
+   * Instantiates a new reactive path matcher dispatcher.
+   *
+   * @param pathMatchers the path matchers in the order of their precedence
+   */
+  public ReactivePathMatcherDispatcher(List<PathMatcherProperties> pathMatchers) {
+    Assert.notNull(pathMatchers, "Path matchers must not be null.");
+    this.pathMatchers = List.copyOf(pathMatchers);
+    this.exchangeMatchers = new ServerWebExchangeMatcher[this.pathMatchers.size()];
+    final PathRuleTrie.Builder builder = PathRuleTrie.builder();
+    for (int i = 0; i < exchangeMatchers.length; i++) {
+      final PathMatcherProperties props = this.pathMatchers.get(i);
+      final HttpMethod httpMethod = props.httpMethod();
+      exchangeMatchers[i] = Optional.ofNullable(httpMethod)
+          .map(method -> ServerWebExchangeMatchers.pathMatchers(method, props.getAntPattern()))
+          .orElseGet(() -> ServerWebExchangeMatchers.pathMatchers(props.getAntPattern()));
+      builder.add(httpMethod, props.getAntPattern());
+    }
+    this.trie = builder.build();
+  }
+
+  /**
+   * Gets the path matchers.
+   *
+   * @return the path matchers
+   */
+  public List<PathMatcherProperties> getPathMatchers() {
+    return pathMatchers;
+  }
+
+  /**
+   * Finds the first path matcher, that matches the given exchange.
+   *
+   * @param exchange the exchange
+   * @return the path matcher
+   */
+  public Mono<PathMatcherProperties> find(ServerWebExchange exchange) {
+    return indexOf(exchange)
+        .filter(index -> index >= 0)
+        .map(pathMatchers::get);
+  }
+
+  /**
+   * Returns the index of the first path matcher, that matches the given exchange.
+   *
+   * @param exchange the exchange
+   * @return the index of the path matcher or {@code -1}
+   */
+  public Mono<Integer> indexOf(ServerWebExchange exchange) {
+    final ServerHttpRequest request = exchange.getRequest();
+    final HttpMethod method = request.getMethod();
+    final PathContainer path = request.getPath().pathWithinApplication();
+    final Object value = exchange.getAttribute(attributeName);
+    if (value instanceof Lookup && ((Lookup) value).isLookupOf(method, path.value())) {
+      return Mono.just(((Lookup) value).index);
+    }
+    final BitSet candidates = trie.candidates(method, segments(path));
+    return Flux.fromStream(candidates.stream().boxed())
+        .concatMap(index -> exchangeMatchers[index].matches(exchange)
+            .filter(MatchResult::isMatch)
+            .map(matchResult -> index))
+        .next()
+        .defaultIfEmpty(-1)
+        .doOnNext(index -> exchange.getAttributes()
+            .put(attributeName, new Lookup(method, path.value(), index)));
+  }
+
+  /**
+   * Returns an exchange matcher, that matches, if the path matcher with the given index is the
+   * first path matcher, that matches the exchange.
+   *
+   * @param index the index of the path matcher
+   * @return the exchange matcher
+   */
+  public ServerWebExchangeMatcher matcher(int index) {
+    Assert.isTrue(index >= 0 && index < exchangeMatchers.length,
+        "Index of path matcher is out of bounds: " + index);
+    return exchange -> indexOf(exchange)
+        .flatMap(found -> found == index ? MatchResult.match() : MatchResult.notMatch());
+  }
+
+  private static List<String> segments(PathContainer path) {
+    final List<String> segments = new ArrayList<>();
+    for (PathContainer.Element element : path.elements()) {
+      if (element instanceof PathContainer.PathSegment) {
+        final String segment = ((PathContainer.PathSegment) element).valueToMatch();
+        if (!segment.isEmpty()) {
+          segments.add(segment);
+        }
+      }
+    }
+    return segments;
+  }
+
+  @Override
+  public String toString() {
+    return "ReactivePathMatcherDispatcher {pathMatchers = " + pathMatchers.size() + '}';
+  }
+
+  /**
+   * The stored lookup of an exchange.
+   */
+  private static final class Lookup {
+
+    private final HttpMethod method;
+
+    private final String path;
+
+    private final int index;
+
+    private Lookup(HttpMethod method, String path, int index) {
+      this.method = method;
+      this.path = path;
+      this.index = index;
+    }
+
+    private boolean isLookupOf(HttpMethod method, String path) {
+      return this.method == method && Objects.equals(this.path, path);
+    }
+  }
+
+}
@@ -20,27 +20,45 @@ import java.time.Duration;
 import java.util.Date;
 import java.util.function.Function;
 import javax.validation.constraints.NotNull;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.bremersee.security.authentication.AuthProperties.JwtCache;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 import org.springframework.util.Assert;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
 /**
  * The reactive redis access token cache.
  *
+ * <p>If the near cache is enabled, the access tokens are also stored in a local
+ * {@link InMemoryAccessTokenCache}, that is asked first. The local entries can be invalidated by
+ * redis keyspace notifications (the redis server must be configured to publish them, e. g. with
+ * {@code notify-keyspace-events Kgx}). The notifications are received after the properties are
+ * set ({@link #afterPropertiesSet()}) until the cache is destroyed.
+ *
  * @author Christian Bremer
  */
 @Slf4j
-public class ReactiveRedisAccessTokenCache implements ReactiveAccessTokenCache {
+public class ReactiveRedisAccessTokenCache
+    implements ReactiveAccessTokenCache, InitializingBean, DisposableBean {
 
   private final JwtCache jwtCacheProperties;
 
   private final ReactiveStringRedisTemplate redis;
 
-  @Setter
+  private final ReactiveRedisConnectionFactory connectionFactory;
+
+  private final InMemoryAccessTokenCache nearCache;
+
+  private ReactiveRedisMessageListenerContainer invalidationListenerContainer;
+
+  private Disposable invalidationSubscription;
+
   @NotNull
   private Function<String, Date> findExpirationTimeFn = AccessTokenCache::getExpirationTime;
 
@@ -57,18 +75,70 @@ public class ReactiveRedisAccessTokenCache implements ReactiveAccessTokenCache {
     Assert.notNull(jwtCacheProperties, "Jwt cache properties must be present.");
     Assert.notNull(connectionFactory, "Redis connection factory must be present.");
     this.jwtCacheProperties = jwtCacheProperties;
+    this.connectionFactory = connectionFactory;
     this.redis = new ReactiveStringRedisTemplate(connectionFactory);
+    if (jwtCacheProperties.isNearCacheEnabled()) {
+      this.nearCache = RedisAccessTokenCache.createNearCache(jwtCacheProperties);
+    } else {
+      this.nearCache = null;
+    }
+  }
+
+  /**
+   * Subscribes to the keyspace notifications, if the near cache invalidation is enabled.
+   */
+  @Override
+  public synchronized void afterPropertiesSet() {
+    if (nearCache != null
+        && jwtCacheProperties.isNearCacheInvalidationEnabled()
+        && invalidationListenerContainer == null) {
+      invalidationListenerContainer = new ReactiveRedisMessageListenerContainer(
+          connectionFactory);
+      invalidationSubscription = invalidationListenerContainer
+          .receive(new PatternTopic(
+              RedisAccessTokenCache.keyspaceNotificationPattern(jwtCacheProperties)))
+          .subscribe(
+              message -> invalidate(message.getChannel(), message.getMessage()),
+              error -> log.error("Receiving keyspace notifications failed.", error));
+    }
+  }
+
+  private void invalidate(String channel, String event) {
+    final String key = RedisAccessTokenCache.keyOfKeyspaceNotification(channel, event);
+    if (key != null) {
+      log.trace("Removing access token {} from near cache.", key);
+      nearCache.removeAccessToken(key);
+    }
+  }
+
+  /**
+   * Sets the function to find the expiration time of an access token.
+   *
+   * @param findExpirationTimeFn the find expiration time function
+   */
+  public void setFindExpirationTimeFn(@NotNull Function<String, Date> findExpirationTimeFn) {
+    this.findExpirationTimeFn = findExpirationTimeFn;
+    if (nearCache != null) {
+      nearCache.setFindExpirationTimeFn(findExpirationTimeFn);
+    }
   }
 
   @Override
   public Mono<String> findAccessToken(String key) {
-    return redis.opsForValue().get(key)
+    final String dbKey = jwtCacheProperties.addKeyPrefix(key);
+    final Mono<String> accessToken = redis.opsForValue().get(dbKey)
         .onErrorResume(
             throwable -> throwable instanceof RuntimeException,
             throwable -> {
               log.error("Getting access token from redis cache failed.", throwable);
               return Mono.empty();
             });
+    if (nearCache == null) {
+      return accessToken;
+    }
+    return Mono.defer(() -> Mono.justOrEmpty(nearCache.findAccessToken(dbKey)))
+        .switchIfEmpty(accessToken
+            .doOnNext(value -> nearCache.putAccessToken(dbKey, value)));
   }
 
   @Override
@@ -78,10 +148,13 @@ public class ReactiveRedisAccessTokenCache implements ReactiveAccessTokenCache {
     String dbKey = jwtCacheProperties.addKeyPrefix(key);
     return Mono.justOrEmpty(findExpirationTimeFn.apply(accessToken))
         .filter(expirationTime -> expirationTime.getTime() > millis)
-        .flatMap(expirationTime -> redis.opsForValue().set(dbKey, accessToken)
-            .flatMap(success -> success
-                ? redis.expireAt(dbKey, expirationTime.toInstant().minus(duration))
-                : Mono.just(false)))
+        .flatMap(expirationTime -> redis.opsForValue()
+            .set(dbKey, accessToken, Duration.ofMillis(expirationTime.getTime() - millis)))
+        .doOnNext(success -> {
+          if (success && nearCache != null) {
+            nearCache.putAccessToken(dbKey, accessToken);
+          }
+        })
         .map(result -> accessToken)
         .onErrorResume(
             throwable -> throwable instanceof RuntimeException,
@@ -92,4 +165,19 @@ public class ReactiveRedisAccessTokenCache implements ReactiveAccessTokenCache {
         .defaultIfEmpty(accessToken);
   }
 
+  @Override
+  public synchronized void destroy() {
+    if (invalidationSubscription != null) {
+      invalidationSubscription.dispose();
+      invalidationSubscription = null;
+    }
+    if (invalidationListenerContainer != null) {
+      invalidationListenerContainer.destroy();
+      invalidationListenerContainer = null;
+    }
+    if (nearCache != null) {
+      nearCache.destroy();
+    }
+  }
+
 }
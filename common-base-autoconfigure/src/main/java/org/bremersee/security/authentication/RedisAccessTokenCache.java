@@ -16,31 +16,45 @@
 
 package org.bremersee.security.authentication;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Date;
 import java.util.Optional;
 import java.util.function.Function;
 import javax.validation.constraints.NotNull;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.bremersee.security.authentication.AuthProperties.JwtCache;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.util.Assert;
 
 /**
  * The redis access token cache.
  *
+ * <p>If the near cache is enabled, the access tokens are also stored in a local
+ * {@link InMemoryAccessTokenCache}, that is asked first. The local entries can be invalidated by
+ * redis keyspace notifications (the redis server must be configured to publish them, e. g. with
+ * {@code notify-keyspace-events Kgx}). The notifications are received after the properties are
+ * set ({@link #afterPropertiesSet()}) until the cache is destroyed.
+ *
  * @author Christian Bremer
  */
 @Slf4j
-public class RedisAccessTokenCache implements AccessTokenCache {
+public class RedisAccessTokenCache implements AccessTokenCache, InitializingBean, DisposableBean {
 
   private final JwtCache jwtCacheProperties;
 
   private final StringRedisTemplate redis;
 
-  @Setter
+  private final InMemoryAccessTokenCache nearCache;
+
+  private final RedisMessageListenerContainer invalidationListenerContainer;
+
   @NotNull
   private Function<String, Date> findExpirationTimeFn = AccessTokenCache::getExpirationTime;
 
@@ -57,12 +71,117 @@ public class RedisAccessTokenCache implements AccessTokenCache {
     Assert.notNull(connectionFactory, "Redis connection factory must be present.");
     this.jwtCacheProperties = jwtCacheProperties;
     this.redis = new StringRedisTemplate(connectionFactory);
+    if (jwtCacheProperties.isNearCacheEnabled()) {
+      this.nearCache = createNearCache(jwtCacheProperties);
+      this.invalidationListenerContainer = jwtCacheProperties.isNearCacheInvalidationEnabled()
+          ? createInvalidationListenerContainer(connectionFactory)
+          : null;
+    } else {
+      this.nearCache = null;
+      this.invalidationListenerContainer = null;
+    }
+  }
+
+  private RedisMessageListenerContainer createInvalidationListenerContainer(
+      RedisConnectionFactory connectionFactory) {
+    final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(
+        (message, pattern) -> invalidate(message),
+        new PatternTopic(keyspaceNotificationPattern(jwtCacheProperties)));
+    return container;
+  }
+
+  /**
+   * Starts the listener container of the keyspace notifications, if the near cache invalidation
+   * is enabled.
+   */
+  @Override
+  public void afterPropertiesSet() {
+    if (invalidationListenerContainer != null && !invalidationListenerContainer.isRunning()) {
+      invalidationListenerContainer.afterPropertiesSet();
+      invalidationListenerContainer.start();
+    }
+  }
+
+  private void invalidate(Message message) {
+    final String key = keyOfKeyspaceNotification(
+        new String(message.getChannel(), StandardCharsets.UTF_8),
+        new String(message.getBody(), StandardCharsets.UTF_8));
+    if (key != null) {
+      log.trace("Removing access token {} from near cache.", key);
+      nearCache.removeAccessToken(key);
+    }
+  }
+
+  /**
+   * Creates the near cache.
+   *
+   * @param jwtCacheProperties the jwt cache properties
+   * @return the near cache
+   */
+  static InMemoryAccessTokenCache createNearCache(JwtCache jwtCacheProperties) {
+    return new InMemoryAccessTokenCache(
+        jwtCacheProperties.getExpirationTimeThreshold(),
+        jwtCacheProperties.getKeyPrefix(),
+        jwtCacheProperties.getNearCacheMaximumSize(),
+        jwtCacheProperties.getInternalCacheSweepInterval());
+  }
+
+  /**
+   * Gets the pattern of the keyspace notification channels of the cached access tokens.
+   *
+   * @param jwtCacheProperties the jwt cache properties
+   * @return the pattern
+   */
+  static String keyspaceNotificationPattern(JwtCache jwtCacheProperties) {
+    return "__keyspace@*__:" + jwtCacheProperties.addKeyPrefix("*");
+  }
+
+  /**
+   * Gets the key of a keyspace notification, if the access token must be removed from the near
+   * cache. Writing an access token (events {@code set} and {@code expire}) doesn't invalidate the
+   * near cache, because the near cache entry is still valid until it expires.
+   *
+   * @param channel the channel, e. g. {@code __keyspace@0__:jwt:1234}
+   * @param event the event, e. g. {@code del} or {@code expired}
+   * @return the key or {@code null}
+   */
+  static String keyOfKeyspaceNotification(String channel, String event) {
+    final int index = channel.indexOf("__:");
+    if (index < 0 || "set".equals(event) || "expire".equals(event)) {
+      return null;
+    }
+    return channel.substring(index + 3);
+  }
+
+  /**
+   * Sets the function to find the expiration time of an access token.
+   *
+   * @param findExpirationTimeFn the find expiration time function
+   */
+  public void setFindExpirationTimeFn(@NotNull Function<String, Date> findExpirationTimeFn) {
+    this.findExpirationTimeFn = findExpirationTimeFn;
+    if (nearCache != null) {
+      nearCache.setFindExpirationTimeFn(findExpirationTimeFn);
+    }
   }
 
   @Override
   public Optional<String> findAccessToken(String key) {
+    final String dbKey = jwtCacheProperties.addKeyPrefix(key);
+    if (nearCache != null) {
+      final Optional<String> accessToken = nearCache.findAccessToken(dbKey);
+      if (accessToken.isPresent()) {
+        return accessToken;
+      }
+    }
     try {
-      return Optional.ofNullable(redis.opsForValue().get(jwtCacheProperties.addKeyPrefix(key)));
+      final Optional<String> accessToken = Optional.ofNullable(redis.opsForValue().get(dbKey));
+      if (nearCache != null) {
+        accessToken.ifPresent(value -> nearCache.putAccessToken(dbKey, value));
+      }
+      return accessToken;
 
     } catch (RuntimeException e) {
       log.error("Getting access token from redis cache failed.", e);
@@ -79,8 +198,13 @@ public class RedisAccessTokenCache implements AccessTokenCache {
       Optional.ofNullable(findExpirationTimeFn.apply(accessToken))
           .filter(expirationTime -> expirationTime.getTime() > millis)
           .ifPresent(expirationTime -> {
-            redis.opsForValue().set(dbKey, accessToken);
-            redis.expireAt(dbKey, expirationTime);
+            redis.opsForValue().set(
+                dbKey,
+                accessToken,
+                Duration.ofMillis(expirationTime.getTime() - millis));
+            if (nearCache != null) {
+              nearCache.putAccessToken(dbKey, accessToken);
+            }
           });
 
     } catch (RuntimeException e) {
@@ -88,4 +212,14 @@ public class RedisAccessTokenCache implements AccessTokenCache {
     }
   }
 
+  @Override
+  public void destroy() throws Exception {
+    if (invalidationListenerContainer != null) {
+      invalidationListenerContainer.destroy();
+    }
+    if (nearCache != null) {
+      nearCache.destroy();
+    }
+  }
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.server.WebFilter;
+
+/**
+ * The reactive user context auto configuration registers the {@link UserContextCacheWebFilter},
+ * so that a {@link ReactiveUserContextCaller} builds the user context only once per exchange.
+ *
+ * @author Christian Bremer
+ */
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@ConditionalOnClass({WebFilter.class, UserContextCacheWebFilter.class})
+@Configuration
+@Slf4j
+public class ReactiveUserContextAutoConfiguration {
+
+  /**
+   * Creates the user context cache web filter.
+   *
+   * @return the user context cache web filter
+   */
+  @ConditionalOnMissingBean
+  @Bean
+  public UserContextCacheWebFilter userContextCacheWebFilter() {
+    log.info("Creating bean 'userContextCacheWebFilter' ...");
+    return new UserContextCacheWebFilter();
+  }
+
+}
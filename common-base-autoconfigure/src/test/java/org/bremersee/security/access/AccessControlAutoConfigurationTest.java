@@ -18,14 +18,18 @@ package org.bremersee.security.access;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 import lombok.Getter;
@@ -33,10 +37,14 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.bremersee.common.model.AccessControlList;
 import org.bremersee.converter.ModelMapperConfigurerAdapter;
+import org.bremersee.security.core.UserContextCaller;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer;
 import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeToken;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 /**
  * The access control auto configuration test.
@@ -61,6 +69,76 @@ class AccessControlAutoConfigurationTest {
     assertEquals(AclImpl.class, aclMapper.getAclFactory().getAccessControlListClass());
   }
 
+  /**
+   * Access decision cache.
+   */
+  @Test
+  void accessDecisionCache() {
+    AccessControlProperties properties = new AccessControlProperties();
+    properties.getDecisionCache().setEnabled(true);
+    properties.getDecisionCache().setMaximumSize(100);
+    AccessControlAutoConfiguration configuration = new AccessControlAutoConfiguration(properties);
+    AccessDecisionCache cache = configuration.accessDecisionCache();
+    assertNotNull(cache);
+    assertEquals(100, cache.getMaximumSize());
+  }
+
+  /**
+   * Acl codec module customizer.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void aclCodecModuleCustomizer() throws Exception {
+    Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+    new AccessControlAutoConfiguration.AclCodecModuleConfiguration()
+        .aclCodecModuleCustomizer()
+        .customize(builder);
+    ObjectMapper objectMapper = builder.build();
+    AccessControlList acl = ImmutableAcl.empty()
+        .withOwner("owner")
+        .addUser("anna", PermissionConstants.READ)
+        .toAccessControlList();
+    String json = objectMapper.writeValueAsString(acl);
+    assertTrue(json.startsWith("\""));
+    assertEquals(acl, objectMapper.readValue(json, AccessControlList.class));
+  }
+
+  /**
+   * Principal hierarchies.
+   */
+  @Test
+  void principalHierarchies() {
+    AccessControlProperties properties = new AccessControlProperties();
+    properties.getRoleHierarchy().put("ROLE_ADMIN", Collections.singleton("ROLE_USER"));
+    AccessControlAutoConfiguration configuration = new AccessControlAutoConfiguration(properties);
+    assertTrue(configuration.aclRoleHierarchy()
+        .expand(Collections.singleton("ROLE_ADMIN"))
+        .contains("ROLE_USER"));
+    assertTrue(configuration.aclGroupHierarchy()
+        .expand(Collections.singleton("friends"))
+        .contains("friends"));
+  }
+
+  /**
+   * User context caller hierarchy post processor.
+   */
+  @Test
+  void userContextCallerHierarchyPostProcessor() {
+    PrincipalHierarchy roleHierarchy = DefaultPrincipalHierarchy
+        .fromString("ROLE_ADMIN > ROLE_USER");
+    PrincipalHierarchy groupHierarchy = new DefaultPrincipalHierarchy();
+    BeanPostProcessor postProcessor = AccessControlAutoConfiguration
+        .UserContextCallerHierarchyConfiguration
+        .aclUserContextCallerHierarchyPostProcessor(
+            objectProvider(roleHierarchy), objectProvider(null));
+    UserContextCaller caller = new UserContextCaller();
+    caller.setGroupHierarchy(groupHierarchy);
+    assertSame(caller, postProcessor.postProcessAfterInitialization(caller, "caller"));
+    assertSame(roleHierarchy, caller.getRoleHierarchy());
+    assertSame(groupHierarchy, caller.getGroupHierarchy());
+  }
+
   /**
    * Acl model mapper config adapter.
    */
@@ -80,6 +158,8 @@ class AccessControlAutoConfigurationTest {
 
     ModelMapper modelMapper = new ModelMapper();
     adapter.configure(modelMapper);
+    assertTrue(modelMapper.getConfiguration().getConverters().stream()
+        .anyMatch(converter -> converter instanceof AclCollectionConverter));
 
     // test from dto to entity
     AccessControlList dto = AclBuilder.builder()
@@ -107,6 +187,28 @@ class AccessControlAutoConfigurationTest {
     assertEquals(dto, actualDto);
 
     testHolders(modelMapper);
+    testCollections(modelMapper, dto);
+  }
+
+  private void testCollections(ModelMapper modelMapper, AccessControlList dto) {
+    List<AclEntity> entities = modelMapper.map(
+        Arrays.asList(dto, dto),
+        new TypeToken<List<AclEntity>>() {
+        }.getType());
+    assertEquals(2, entities.size());
+    assertEquals("anna", entities.get(1).getOwner());
+
+    Set<AccessControlList> dtos = modelMapper.map(
+        entities,
+        new TypeToken<Set<AccessControlList>>() {
+        }.getType());
+    assertEquals(Collections.singleton(dto), dtos);
+
+    List<String> strings = modelMapper.map(
+        Collections.singleton("item"),
+        new TypeToken<List<String>>() {
+        }.getType());
+    assertEquals(Collections.singletonList("item"), strings);
   }
 
   private void testHolders(ModelMapper modelMapper) {
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.bremersee.common.model.AccessControlList;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * The access control list redis serializer test.
+ *
+ * @author Christian Bremer
+ */
+class AccessControlListRedisSerializerTest {
+
+  private final AccessControlListRedisSerializer serializer
+      = new AccessControlListRedisSerializer();
+
+  /**
+   * Serialize and deserialize.
+   */
+  @Test
+  void serializeAndDeserialize() {
+    AccessControlList expected = AclBuilder.builder()
+        .owner("owner")
+        .guest(true, PermissionConstants.READ)
+        .addGroup("friends", PermissionConstants.READ, PermissionConstants.WRITE)
+        .buildAccessControlList();
+    AccessControlList actual = serializer.deserialize(serializer.serialize(expected));
+    assertEquals(expected, actual);
+  }
+
+  /**
+   * Serialize and deserialize null.
+   */
+  @Test
+  void serializeAndDeserializeNull() {
+    assertNull(serializer.serialize(null));
+    assertNull(serializer.deserialize(new byte[0]));
+  }
+
+  /**
+   * Deserialize invalid bytes.
+   */
+  @Test
+  void deserializeInvalidBytes() {
+    assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{42}));
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bremersee.common.model.AccessControlList;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The acl codec module test.
+ *
+ * @author Christian Bremer
+ */
+class AclCodecModuleTest {
+
+  private static final ImmutableAcl ACL = ImmutableAcl.empty()
+      .withOwner("owner")
+      .addUser("anna", PermissionConstants.READ)
+      .addRole("ROLE_ADMIN", PermissionConstants.ALL);
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new AclCodecModule());
+
+  /**
+   * Write and read access control list.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void writeAndReadAccessControlList() throws Exception {
+    AccessControlList expected = ACL.toAccessControlList();
+    String json = objectMapper.writeValueAsString(expected);
+    assertTrue(json.startsWith("\""));
+    assertEquals(expected, objectMapper.readValue(json, AccessControlList.class));
+  }
+
+  /**
+   * Write and read immutable acl.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void writeAndReadImmutableAcl() throws Exception {
+    String json = objectMapper.writeValueAsString(ACL);
+    assertEquals(ACL, objectMapper.readValue(json, ImmutableAcl.class));
+  }
+
+  /**
+   * Read invalid value.
+   */
+  @Test
+  void readInvalidValue() {
+    assertThrows(
+        JsonMappingException.class,
+        () -> objectMapper.readValue("\"AQID\"", AccessControlList.class));
+  }
+
+}
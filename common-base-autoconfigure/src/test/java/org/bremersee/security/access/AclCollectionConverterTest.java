@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.bremersee.common.model.AccessControlList;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeToken;
+
+/**
+ * The acl collection converter test.
+ *
+ * @author Christian Bremer
+ */
+class AclCollectionConverterTest {
+
+  private static final AccessControlList DTO = AclBuilder.builder()
+      .owner("anna")
+      .guest(true, PermissionConstants.READ)
+      .addUser("otto", PermissionConstants.WRITE)
+      .buildAccessControlList();
+
+  /**
+   * Collections of access control lists are mapped by the bulk operations of the acl mapper.
+   */
+  @Test
+  void mapAll() {
+    AclMapper<AclEntity> aclMapper = spy(new AclMapperImpl<>(AclEntity::new));
+    ModelMapper modelMapper = new ModelMapper();
+    AclCollectionConverter.register(modelMapper, aclMapper);
+    AclCollectionConverter.register(modelMapper, aclMapper);
+
+    List<AclEntity> entities = modelMapper.map(
+        Arrays.asList(DTO, DTO),
+        new TypeToken<List<AclEntity>>() {
+        }.getType());
+    assertEquals(2, entities.size());
+    assertEquals("anna", entities.get(1).getOwner());
+    verify(aclMapper, times(1)).mapAllToAcl(anyCollection());
+
+    Set<AccessControlList> dtos = modelMapper.map(
+        entities,
+        new TypeToken<Set<AccessControlList>>() {
+        }.getType());
+    assertEquals(Collections.singleton(DTO), dtos);
+    verify(aclMapper, times(1)).mapAll(anyCollection());
+  }
+
+  /**
+   * Other collections are mapped by the decorated converter.
+   */
+  @Test
+  void delegate() {
+    AclMapper<AclEntity> aclMapper = spy(new AclMapperImpl<>(AclEntity::new));
+    ModelMapper modelMapper = new ModelMapper();
+    AclCollectionConverter.register(modelMapper, aclMapper);
+    assertTrue(modelMapper.getConfiguration().getConverters().stream()
+        .anyMatch(converter -> converter instanceof AclCollectionConverter));
+
+    List<String> strings = modelMapper.map(
+        Collections.singleton("item"),
+        new TypeToken<List<String>>() {
+        }.getType());
+    assertEquals(Collections.singletonList("item"), strings);
+    verify(aclMapper, never()).mapAll(anyCollection());
+    verify(aclMapper, never()).mapAllToAcl(anyCollection());
+  }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.bremersee.security.authentication.AuthProperties.ClientCredentialsFlow;
+import org.bremersee.security.authentication.AuthProperties.PasswordFlow;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The access token prefetcher test.
+ *
+ * @author Christian Bremer
+ */
+class AccessTokenPrefetcherTest {
+
+  private static ClientCredentialsFlow clientCredentialsFlow(String clientId) {
+    ClientCredentialsFlow flow = new ClientCredentialsFlow();
+    flow.setTokenEndpoint("http://localhost/token");
+    flow.setClientId(clientId);
+    flow.setClientSecret("secret");
+    return flow;
+  }
+
+  /**
+   * Flows of.
+   */
+  @Test
+  void flowsOf() {
+    AuthProperties properties = new AuthProperties();
+    properties.setClientCredentialsFlow(clientCredentialsFlow("abc"));
+    PasswordFlow passwordFlow = new PasswordFlow();
+    passwordFlow.setTokenEndpoint("http://localhost/token");
+    passwordFlow.setClientId("abc");
+    passwordFlow.setClientSecret("secret");
+    properties.setPasswordFlow(passwordFlow);
+
+    List<ClientCredentialsFlowProperties> flows = AccessTokenPrefetcher.flowsOf(
+        properties,
+        Arrays.asList(clientCredentialsFlow("abc"), clientCredentialsFlow("xyz")));
+    assertEquals(2, flows.size());
+
+    passwordFlow.setUsername("anna");
+    passwordFlow.setPassword("changeit");
+    assertEquals(2, AccessTokenPrefetcher.flowsOf(properties, null).size());
+    assertTrue(AccessTokenPrefetcher.flowsOf(null, Collections.emptyList()).isEmpty());
+  }
+
+  /**
+   * Prefetch.
+   */
+  @Test
+  void prefetch() {
+    AccessTokenPrefetcher prefetcher = new AccessTokenPrefetcher(
+        flow -> "bad".equals(flow.getClientSecret())
+            ? CompletableFuture.failedFuture(new IllegalStateException("Bad client"))
+            : CompletableFuture.completedFuture("token"),
+        Duration.ofSeconds(10L));
+    ClientCredentialsFlow badFlow = clientCredentialsFlow("bad");
+    badFlow.setClientSecret("bad");
+    assertEquals(2, prefetcher.prefetch(Arrays.asList(
+        clientCredentialsFlow("abc"), badFlow, clientCredentialsFlow("xyz"))));
+    assertEquals(0, prefetcher.prefetch(null));
+  }
+
+  /**
+   * Prefetch times out.
+   */
+  @Test
+  void prefetchTimesOut() {
+    AccessTokenPrefetcher prefetcher = new AccessTokenPrefetcher(
+        flow -> new CompletableFuture<>(),
+        Duration.ofMillis(50L));
+    assertEquals(0, prefetcher.prefetch(Collections.singletonList(clientCredentialsFlow("abc"))));
+  }
+
+  /**
+   * Prefetch with blocking retriever.
+   */
+  @Test
+  void prefetchWithBlockingRetriever() {
+    AccessTokenPrefetcher prefetcher = AccessTokenPrefetcher.withBlockingRetriever(
+        flow -> "token",
+        Duration.ofSeconds(10L));
+    try {
+      assertEquals(2, prefetcher.prefetch(Arrays.asList(
+          clientCredentialsFlow("abc"), clientCredentialsFlow("xyz"))));
+    } finally {
+      prefetcher.destroy();
+    }
+  }
+
+}
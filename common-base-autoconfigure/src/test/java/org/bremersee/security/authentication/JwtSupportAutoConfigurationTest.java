@@ -17,12 +17,15 @@
 package org.bremersee.security.authentication;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.web.client.RestTemplate;
@@ -40,9 +43,13 @@ class JwtSupportAutoConfigurationTest {
    * Init.
    */
   @BeforeAll
+  @SuppressWarnings("unchecked")
   static void init() {
     AuthProperties properties = new AuthProperties();
-    configuration = new JwtSupportAutoConfiguration(properties);
+    configuration = new JwtSupportAutoConfiguration(
+        properties,
+        mock(ObjectProvider.class),
+        mock(ObjectProvider.class));
     configuration.init();
   }
 
@@ -78,6 +85,24 @@ class JwtSupportAutoConfigurationTest {
         new RestTemplateAccessTokenRetriever(new RestTemplate())));
   }
 
+  /**
+   * Jwt decoder cache post processor.
+   */
+  @Test
+  void jwtDecoderCachePostProcessor() {
+    //noinspection unchecked
+    ObjectProvider<AuthProperties> provider = mock(ObjectProvider.class);
+    when(provider.getObject()).thenReturn(new AuthProperties());
+    BeanPostProcessor postProcessor = JwtSupportAutoConfiguration
+        .jwtDecoderCachePostProcessor(provider);
+    Object decoder = postProcessor
+        .postProcessAfterInitialization(mock(JwtDecoder.class), "jwtDecoder");
+    assertTrue(decoder instanceof CachingJwtDecoder);
+    assertSame(decoder, postProcessor.postProcessAfterInitialization(decoder, "jwtDecoder"));
+    Object other = new Object();
+    assertSame(other, postProcessor.postProcessAfterInitialization(other, "other"));
+  }
+
   private static ObjectProvider<RestTemplateBuilder> restTemplateBuilder() {
     RestTemplateBuilder value = new RestTemplateBuilder();
     //noinspection unchecked
@@ -19,11 +19,14 @@ package org.bremersee.security.authentication;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Instant;
@@ -128,6 +131,40 @@ class PasswordFlowAuthenticationManagerTest {
     assertEquals(jwt.getHeaders(), actualJwt.getHeaders());
   }
 
+  /**
+   * Authenticate with credentials cache.
+   */
+  @Test
+  void authenticateWithCredentialsCache() {
+    Map<String, Object> headers = new HashMap<>();
+    headers.put("test-key", "test-value");
+    Map<String, Object> claims = new HashMap<>();
+    claims.put("sub", "an_username");
+    Jwt jwt = jwt(headers, claims);
+
+    AccessTokenRetriever<String> retriever = tokenRetriever();
+    PasswordFlowAuthenticationManager manager = new PasswordFlowAuthenticationManager(
+        properties(),
+        workingJwtDecoder(jwt),
+        null,
+        retriever);
+    PasswordFlowCredentialsCache cache = new PasswordFlowCredentialsCache(10, 1000);
+    manager.setCredentialsCache(cache);
+
+    Authentication first = manager.authenticate(
+        new UsernamePasswordAuthenticationToken("an_username", "a_password"));
+    Authentication second = manager.authenticate(
+        new UsernamePasswordAuthenticationToken("an_username", "a_password"));
+    assertNotSame(first, second);
+    assertEquals(jwt, ((JwtAuthenticationToken) second).getToken());
+    verify(retriever, times(1)).retrieveAccessToken(any(PasswordFlowProperties.class));
+    assertEquals(1L, cache.getHitCount());
+
+    manager.authenticate(
+        new UsernamePasswordAuthenticationToken("an_username", "another_password"));
+    verify(retriever, times(2)).retrieveAccessToken(any(PasswordFlowProperties.class));
+  }
+
   /**
    * Tests authenticate fails.
    */
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Instant;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * The password flow credentials cache test.
+ *
+ * @author Christian Bremer
+ */
+class PasswordFlowCredentialsCacheTest {
+
+  private static Jwt jwt(Instant expiresAt) {
+    return new Jwt(
+        "an_access_token",
+        Instant.now().minusSeconds(10L),
+        expiresAt,
+        Collections.singletonMap("alg", "none"),
+        Collections.singletonMap("sub", "anna"));
+  }
+
+  /**
+   * Key.
+   */
+  @Test
+  void key() {
+    PasswordFlowCredentialsCache cache = new PasswordFlowCredentialsCache(10, 1000);
+    String key = cache.key("anna", "secret");
+    assertEquals(key, cache.key("anna", "secret"));
+    assertNotEquals(key, cache.key("anna", "Secret"));
+    assertNotEquals(key, cache.key("annas", "ecret"));
+    assertNotEquals(key, new PasswordFlowCredentialsCache(10, 1000).key("anna", "secret"));
+  }
+
+  /**
+   * Find and put jwt.
+   */
+  @Test
+  void findAndPutJwt() {
+    PasswordFlowCredentialsCache cache = new PasswordFlowCredentialsCache(10, 1000);
+    String key = cache.key("anna", "secret");
+    assertNull(cache.findJwt(key));
+
+    Jwt jwt = jwt(Instant.now().plusSeconds(3600L));
+    cache.putJwt(key, jwt);
+    assertSame(jwt, cache.findJwt(key));
+    assertNull(cache.findJwt(cache.key("anna", "wrong")));
+    assertEquals(1, cache.size());
+    assertEquals(1L, cache.getHitCount());
+    assertEquals(2L, cache.getMissCount());
+
+    cache.clear();
+    assertNull(cache.findJwt(key));
+  }
+
+  /**
+   * Expired jwt is not cached.
+   */
+  @Test
+  void expiredJwtIsNotCached() {
+    PasswordFlowCredentialsCache cache = new PasswordFlowCredentialsCache(10, 1000);
+    String key = cache.key("anna", "secret");
+    cache.putJwt(key, jwt(Instant.now().minusSeconds(1L)));
+    assertNull(cache.findJwt(key));
+    assertEquals(0, cache.size());
+  }
+
+}
@@ -22,6 +22,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Instant;
@@ -30,6 +32,7 @@ import java.util.HashMap;
 import java.util.Map;
 import org.bremersee.security.authentication.AuthProperties.PasswordFlow;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -108,6 +111,38 @@ class PasswordFlowReactiveAuthenticationManagerTest {
         .verifyComplete();
   }
 
+  /**
+   * Authenticate with credentials cache.
+   */
+  @Test
+  void authenticateWithCredentialsCache() {
+    Map<String, Object> headers = new HashMap<>();
+    headers.put("test-key", "test-value");
+    Map<String, Object> claims = new HashMap<>();
+    claims.put("sub", "an_username");
+    Jwt jwt = jwt(headers, claims);
+
+    AccessTokenRetriever<Mono<String>> retriever = retriever();
+    PasswordFlowReactiveAuthenticationManager manager =
+        new PasswordFlowReactiveAuthenticationManager(
+            properties(),
+            workingJwtDecoder(jwt),
+            null,
+            retriever);
+    PasswordFlowCredentialsCache cache = new PasswordFlowCredentialsCache(10, 1000);
+    manager.setCredentialsCache(cache);
+
+    for (int i = 0; i < 2; i++) {
+      StepVerifier.create(manager.authenticate(
+          new UsernamePasswordAuthenticationToken("an_username", "a_password")))
+          .assertNext(authentication -> assertEquals(
+              jwt, ((JwtAuthenticationToken) authentication).getToken()))
+          .verifyComplete();
+    }
+    verify(retriever, times(1)).retrieveAccessToken(any(PasswordFlowProperties.class));
+    assertEquals(1L, cache.getHitCount());
+  }
+
   /**
    * Tests authenticate fails.
    */
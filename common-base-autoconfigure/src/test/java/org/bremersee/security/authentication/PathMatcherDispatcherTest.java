@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.bremersee.security.authentication.AuthProperties.PathMatcherProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * The path matcher dispatcher test.
+ *
+ * @author Christian Bremer
+ */
+class PathMatcherDispatcherTest {
+
+  private static final List<PathMatcherProperties> PATH_MATCHERS = Arrays.asList(
+      pathMatcher("OPTIONS", "/**", AccessMode.PERMIT_ALL),
+      pathMatcher("GET", "/api/admin/**", AccessMode.AUTHENTICATED),
+      pathMatcher("*", "/api/*/items/{id}", AccessMode.DENY_ALL),
+      pathMatcher("*", "/api/**", AccessMode.AUTHENTICATED),
+      pathMatcher("*", "/public/*.json", AccessMode.PERMIT_ALL),
+      pathMatcher("*", "/**", AccessMode.DENY_ALL));
+
+  /**
+   * Find.
+   */
+  @Test
+  void find() {
+    PathMatcherDispatcher dispatcher = new PathMatcherDispatcher(PATH_MATCHERS);
+    assertEquals(PATH_MATCHERS, dispatcher.getPathMatchers());
+    assertEquals(0, dispatcher.indexOf(request("OPTIONS", "/api/admin/users")));
+    assertEquals(1, dispatcher.indexOf(request("GET", "/api/admin/users")));
+    assertEquals(1, dispatcher.indexOf(request("GET", "/api/admin/items/42")));
+    assertEquals(2, dispatcher.indexOf(request("POST", "/api/admin/items/42")));
+    assertEquals(3, dispatcher.indexOf(request("POST", "/api/admin/users")));
+    assertEquals(4, dispatcher.indexOf(request("GET", "/public/data.json")));
+    assertEquals(5, dispatcher.indexOf(request("GET", "/public/data.xml")));
+    assertEquals(
+        PATH_MATCHERS.get(3),
+        dispatcher.find(request("DELETE", "/api")).orElse(null));
+  }
+
+  /**
+   * Find nothing.
+   */
+  @Test
+  void findNothing() {
+    PathMatcherDispatcher dispatcher = new PathMatcherDispatcher(PATH_MATCHERS.subList(0, 3));
+    assertEquals(-1, dispatcher.indexOf(request("GET", "/public/data.json")));
+    assertFalse(dispatcher.find(request("GET", "/public/data.json")).isPresent());
+  }
+
+  /**
+   * Matcher.
+   */
+  @Test
+  void matcher() {
+    PathMatcherDispatcher dispatcher = new PathMatcherDispatcher(PATH_MATCHERS);
+    RequestMatcher admin = dispatcher.matcher(1);
+    RequestMatcher api = dispatcher.matcher(3);
+    MockHttpServletRequest request = request("GET", "/api/admin/users");
+    assertTrue(admin.matches(request));
+    assertFalse(api.matches(request));
+
+    request.setMethod("PUT");
+    assertFalse(admin.matches(request));
+    assertTrue(api.matches(request));
+
+    request.setServletPath("/unknown");
+    assertFalse(api.matches(request));
+    assertTrue(dispatcher.matcher(5).matches(request));
+
+    request.setServletPath("/api");
+    request.setPathInfo("/admin/users");
+    assertTrue(api.matches(request));
+
+    assertThrows(IllegalArgumentException.class, () -> dispatcher.matcher(6));
+  }
+
+  private static MockHttpServletRequest request(String method, String path) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+    request.setServletPath(path);
+    return request;
+  }
+
+  private static PathMatcherProperties pathMatcher(
+      String httpMethod,
+      String antPattern,
+      AccessMode accessMode) {
+    PathMatcherProperties props = new PathMatcherProperties();
+    props.setHttpMethod(httpMethod);
+    props.setAntPattern(antPattern);
+    props.setAccessMode(accessMode);
+    return props;
+  }
+
+}
@@ -17,6 +17,7 @@
 package org.bremersee.security.authentication;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -159,4 +160,23 @@ class PathMatcherPropertiesTest {
     assertEquals("isAuthenticated()", properties.accessExpression(null));
   }
 
+  /**
+   * Access expression without ip addresses and ip address trie.
+   */
+  @Test
+  void accessExpressionWithoutIpAddresses() {
+    PathMatcherProperties properties = new PathMatcherProperties();
+    properties.setAccessMode(AccessMode.AUTHENTICATED);
+    properties.setIpAddresses(Collections.singletonList("192.168.1.0/24"));
+    assertEquals(
+        "hasIpAddress('192.168.1.0/24') or isAuthenticated()",
+        properties.accessExpression(null));
+    assertEquals("isAuthenticated()", properties.accessExpressionWithoutIpAddresses(null));
+    assertTrue(properties.ipAddressTrie().matches("192.168.1.23"));
+    assertFalse(properties.ipAddressTrie().matches("192.168.2.23"));
+
+    properties.setAccessMode(AccessMode.DENY_ALL);
+    assertTrue(properties.ipAddressTrie().isEmpty());
+  }
+
 }
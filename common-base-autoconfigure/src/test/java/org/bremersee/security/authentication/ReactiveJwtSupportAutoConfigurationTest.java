@@ -24,6 +24,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * The reactive jwt support auto configuration test.
@@ -38,9 +39,13 @@ class ReactiveJwtSupportAutoConfigurationTest {
    * Init.
    */
   @BeforeAll
+  @SuppressWarnings("unchecked")
   static void init() {
     AuthProperties properties = new AuthProperties();
-    configuration = new ReactiveJwtSupportAutoConfiguration(properties);
+    configuration = new ReactiveJwtSupportAutoConfiguration(
+        properties,
+        mock(ObjectProvider.class),
+        mock(ObjectProvider.class));
     configuration.init();
   }
 
@@ -60,7 +65,10 @@ class ReactiveJwtSupportAutoConfigurationTest {
     @SuppressWarnings("unchecked")
     ObjectProvider<ReactiveAccessTokenCache> provider = mock(ObjectProvider.class);
     when(provider.getIfAvailable()).thenReturn(null);
-    assertNotNull(configuration.webClientAccessTokenRetriever(provider));
+    @SuppressWarnings("unchecked")
+    ObjectProvider<WebClient.Builder> builderProvider = mock(ObjectProvider.class);
+    when(builderProvider.getIfAvailable()).thenReturn(WebClient.builder());
+    assertNotNull(configuration.webClientAccessTokenRetriever(builderProvider, provider));
   }
 
   /**
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.bremersee.security.authentication.AuthProperties.PathMatcherProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import reactor.test.StepVerifier;
+
+/**
+ * The reactive path matcher dispatcher test.
+ *
+ * @author Christian Bremer
+ */
+class ReactivePathMatcherDispatcherTest {
+
+  private static final List<PathMatcherProperties> PATH_MATCHERS = Arrays.asList(
+      pathMatcher("OPTIONS", "/**", AccessMode.PERMIT_ALL),
+      pathMatcher("GET", "/api/admin/**", AccessMode.AUTHENTICATED),
+      pathMatcher("*", "/api/*/items/{id}", AccessMode.DENY_ALL),
+      pathMatcher("*", "/api/**", AccessMode.AUTHENTICATED),
+      pathMatcher("*", "/public/*.json", AccessMode.PERMIT_ALL),
+      pathMatcher("*", "/**", AccessMode.DENY_ALL));
+
+  /**
+   * Find.
+   */
+  @Test
+  void find() {
+    ReactivePathMatcherDispatcher dispatcher = new ReactivePathMatcherDispatcher(PATH_MATCHERS);
+    verifyIndex(dispatcher, HttpMethod.OPTIONS, "/api/admin/users", 0);
+    verifyIndex(dispatcher, HttpMethod.GET, "/api/admin/users", 1);
+    verifyIndex(dispatcher, HttpMethod.GET, "/api/admin/items/42", 1);
+    verifyIndex(dispatcher, HttpMethod.POST, "/api/admin/items/42", 2);
+    verifyIndex(dispatcher, HttpMethod.GET, "/api/admin;a=b/users", 1);
+    verifyIndex(dispatcher, HttpMethod.GET, "/public/data.json", 4);
+    verifyIndex(dispatcher, HttpMethod.GET, "/public/data.xml", 5);
+
+    StepVerifier.create(dispatcher.find(exchange(HttpMethod.DELETE, "/api")))
+        .expectNext(PATH_MATCHERS.get(3))
+        .verifyComplete();
+  }
+
+  /**
+   * Find nothing.
+   */
+  @Test
+  void findNothing() {
+    ReactivePathMatcherDispatcher dispatcher = new ReactivePathMatcherDispatcher(
+        PATH_MATCHERS.subList(0, 3));
+    verifyIndex(dispatcher, HttpMethod.GET, "/public/data.json", -1);
+    StepVerifier.create(dispatcher.find(exchange(HttpMethod.GET, "/public/data.json")))
+        .verifyComplete();
+  }
+
+  /**
+   * Matcher.
+   */
+  @Test
+  void matcher() {
+    ReactivePathMatcherDispatcher dispatcher = new ReactivePathMatcherDispatcher(PATH_MATCHERS);
+    ServerWebExchangeMatcher admin = dispatcher.matcher(1);
+    ServerWebExchangeMatcher api = dispatcher.matcher(3);
+    MockServerWebExchange exchange = exchange(HttpMethod.GET, "/api/admin/users");
+    StepVerifier.create(admin.matches(exchange))
+        .assertNext(matchResult -> assertTrue(matchResult.isMatch()))
+        .verifyComplete();
+    StepVerifier.create(api.matches(exchange))
+        .assertNext(matchResult -> assertFalse(matchResult.isMatch()))
+        .verifyComplete();
+    StepVerifier.create(api.matches(exchange(HttpMethod.PUT, "/api/admin/users")))
+        .assertNext(matchResult -> assertTrue(matchResult.isMatch()))
+        .verifyComplete();
+    StepVerifier.create(dispatcher.matcher(5).matches(exchange(HttpMethod.PUT, "/unknown")))
+        .assertNext(matchResult -> assertTrue(matchResult.isMatch()))
+        .verifyComplete();
+
+    assertThrows(IllegalArgumentException.class, () -> dispatcher.matcher(6));
+  }
+
+  private static void verifyIndex(
+      ReactivePathMatcherDispatcher dispatcher,
+      HttpMethod method,
+      String path,
+      int expected) {
+    MockServerWebExchange exchange = exchange(method, path);
+    StepVerifier.create(dispatcher.indexOf(exchange))
+        .expectNext(expected)
+        .verifyComplete();
+    // the second lookup returns the stored index
+    StepVerifier.create(dispatcher.indexOf(exchange))
+        .expectNext(expected)
+        .verifyComplete();
+  }
+
+  private static MockServerWebExchange exchange(HttpMethod method, String path) {
+    return MockServerWebExchange.from(MockServerHttpRequest.method(method, path));
+  }
+
+  private static PathMatcherProperties pathMatcher(
+      String httpMethod,
+      String antPattern,
+      AccessMode accessMode) {
+    PathMatcherProperties props = new PathMatcherProperties();
+    props.setHttpMethod(httpMethod);
+    props.setAntPattern(antPattern);
+    props.setAccessMode(accessMode);
+    return props;
+  }
+
+}
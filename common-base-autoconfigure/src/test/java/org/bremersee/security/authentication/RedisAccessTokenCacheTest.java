@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import org.bremersee.security.authentication.AuthProperties.JwtCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * The redis access token cache test.
+ *
+ * @author Christian Bremer
+ */
+class RedisAccessTokenCacheTest {
+
+  /**
+   * Find access token in near cache.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void findAccessTokenInNearCache() throws Exception {
+    RedisConnection connection = mock(RedisConnection.class);
+    RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+    when(connectionFactory.getConnection()).thenReturn(connection);
+
+    JwtCache properties = new JwtCache();
+    properties.setNearCacheEnabled(true);
+    RedisAccessTokenCache cache = new RedisAccessTokenCache(properties, connectionFactory);
+    cache.setFindExpirationTimeFn(token -> new Date(System.currentTimeMillis() + 60000L));
+    try {
+      cache.putAccessToken("1234", "token");
+      assertEquals("token", cache.findAccessToken("1234").orElse(null));
+      verify(connection, never()).get(any());
+
+    } finally {
+      cache.destroy();
+    }
+  }
+
+  /**
+   * Keyspace notification.
+   */
+  @Test
+  void keyspaceNotification() {
+    JwtCache properties = new JwtCache();
+    assertEquals("__keyspace@*__:jwt:*",
+        RedisAccessTokenCache.keyspaceNotificationPattern(properties));
+    assertEquals("jwt:1234",
+        RedisAccessTokenCache.keyOfKeyspaceNotification("__keyspace@0__:jwt:1234", "del"));
+    assertEquals("jwt:1234",
+        RedisAccessTokenCache.keyOfKeyspaceNotification("__keyspace@0__:jwt:1234", "expired"));
+    assertNull(
+        RedisAccessTokenCache.keyOfKeyspaceNotification("__keyspace@0__:jwt:1234", "set"));
+    assertNull(RedisAccessTokenCache.keyOfKeyspaceNotification("invalid", "del"));
+  }
+
+}
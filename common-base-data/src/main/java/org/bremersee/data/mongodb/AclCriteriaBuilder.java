@@ -0,0 +1,312 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.data.mongodb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.validation.constraints.NotNull;
+import lombok.ToString;
+import org.bremersee.security.access.PrincipalHierarchy;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * The acl criteria builder creates mongo criteria with the same semantics as {@code
+ * AccessController.hasPermission(user, roles, groups, permission)}. So the permissions can be
+ * checked by the database (and it's indexes) instead of loading all documents. The document
+ * structure of the acl is described by {@link AclFieldPaths}.
+ *
+ * @author Christian Bremer
+ */
+@ToString
+public class AclCriteriaBuilder {
+
+  private final AclFieldPaths paths;
+
+  private final PrincipalHierarchy roleHierarchy;
+
+  private final PrincipalHierarchy groupHierarchy;
+
+  /**
+   * Instantiates a new acl criteria builder for an acl, that is stored with the default
+   * structure.
+   *
+   * @param aclPath the path of the acl in the document, can be {@code null} or empty, if the acl
+   *     fields are stored in the root of the document
+   */
+  public AclCriteriaBuilder(@Nullable String aclPath) {
+    this(new AclFieldPaths(aclPath));
+  }
+
+  /**
+   * Instantiates a new acl criteria builder.
+   *
+   * @param paths the field paths of the acl
+   */
+  public AclCriteriaBuilder(@NotNull AclFieldPaths paths) {
+    this(paths, null, null);
+  }
+
+  private AclCriteriaBuilder(
+      AclFieldPaths paths,
+      PrincipalHierarchy roleHierarchy,
+      PrincipalHierarchy groupHierarchy) {
+    Assert.notNull(paths, "Acl field paths must not be null.");
+    this.paths = paths;
+    this.roleHierarchy = roleHierarchy;
+    this.groupHierarchy = groupHierarchy;
+  }
+
+  /**
+   * Returns a new acl criteria builder, that expands the roles and groups by the given
+   * hierarchies before it creates the criteria. So the criteria have the same semantics as
+   * {@code AccessController.withHierarchies(roleHierarchy, groupHierarchy).hasPermission(user,
+   * roles, groups, permission)}.
+   *
+   * @param roleHierarchy the role hierarchy
+   * @param groupHierarchy the group hierarchy
+   * @return the acl criteria builder
+   */
+  public AclCriteriaBuilder withHierarchies(
+      @Nullable PrincipalHierarchy roleHierarchy,
+      @Nullable PrincipalHierarchy groupHierarchy) {
+    if (roleHierarchy == null && groupHierarchy == null) {
+      return this;
+    }
+    return new AclCriteriaBuilder(paths, roleHierarchy, groupHierarchy);
+  }
+
+  /**
+   * Creates the criteria, that matches all documents where the given user with the given roles
+   * and groups has the specified permission.
+   *
+   * @param user the user
+   * @param roles the roles
+   * @param groups the groups
+   * @param permission the permission
+   * @return the criteria
+   */
+  public Criteria hasPermission(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable String permission) {
+    return hasAnyPermission(user, roles, groups, Collections.singletonList(permission));
+  }
+
+  /**
+   * Creates the criteria, that matches all documents where the given user with the given roles
+   * and groups has at least one of the specified permissions.
+   *
+   * @param user the user
+   * @param roles the roles
+   * @param groups the groups
+   * @param permissions the permissions
+   * @return the criteria
+   */
+  public Criteria hasAnyPermission(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable String... permissions) {
+    return hasAnyPermission(
+        user,
+        roles,
+        groups,
+        permissions != null ? Arrays.asList(permissions) : Collections.emptyList());
+  }
+
+  /**
+   * Creates the criteria, that matches all documents where the given user with the given roles
+   * and groups has at least one of the specified permissions.
+   *
+   * @param user the user
+   * @param roles the roles
+   * @param groups the groups
+   * @param permissions the permissions
+   * @return the criteria
+   */
+  public Criteria hasAnyPermission(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable Collection<String> permissions) {
+
+    final Set<String> normalizedPermissions = normalize(permissions);
+    if (normalizedPermissions.isEmpty()) {
+      return nothing();
+    }
+    final Set<String> normalizedRoles = values(expand(roleHierarchy, roles));
+    final Set<String> normalizedGroups = values(expand(groupHierarchy, groups));
+    final List<Criteria> criteriaList = new ArrayList<>();
+    if (StringUtils.hasText(user)) {
+      criteriaList.add(Criteria.where(paths.getOwnerPath()).is(user));
+    }
+    for (String permission : normalizedPermissions) {
+      criteriaList.addAll(entryCriteria(user, normalizedRoles, normalizedGroups, permission));
+    }
+    return or(criteriaList);
+  }
+
+  /**
+   * Creates the criteria, that matches all documents where the given user with the given roles
+   * and groups has all specified permissions.
+   *
+   * @param user the user
+   * @param roles the roles
+   * @param groups the groups
+   * @param permissions the permissions
+   * @return the criteria
+   */
+  public Criteria hasAllPermissions(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable String... permissions) {
+    return hasAllPermissions(
+        user,
+        roles,
+        groups,
+        permissions != null ? Arrays.asList(permissions) : Collections.emptyList());
+  }
+
+  /**
+   * Creates the criteria, that matches all documents where the given user with the given roles
+   * and groups has all specified permissions.
+   *
+   * @param user the user
+   * @param roles the roles
+   * @param groups the groups
+   * @param permissions the permissions
+   * @return the criteria
+   */
+  public Criteria hasAllPermissions(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable Collection<String> permissions) {
+
+    final Set<String> normalizedPermissions = normalize(permissions);
+    if (normalizedPermissions.isEmpty()) {
+      return nothing();
+    }
+    if (normalizedPermissions.size() == 1) {
+      return hasAnyPermission(user, roles, groups, normalizedPermissions);
+    }
+    final Set<String> normalizedRoles = values(expand(roleHierarchy, roles));
+    final Set<String> normalizedGroups = values(expand(groupHierarchy, groups));
+    final List<Criteria> permissionCriteriaList = new ArrayList<>(normalizedPermissions.size());
+    for (String permission : normalizedPermissions) {
+      permissionCriteriaList.add(
+          or(entryCriteria(user, normalizedRoles, normalizedGroups, permission)));
+    }
+    final Criteria allPermissions = new Criteria()
+        .andOperator(permissionCriteriaList.toArray(new Criteria[0]));
+    if (StringUtils.hasText(user)) {
+      return or(Arrays.asList(Criteria.where(paths.getOwnerPath()).is(user), allPermissions));
+    }
+    return allPermissions;
+  }
+
+  /**
+   * Creates the index definitions, that should exist to make the criteria of the given
+   * permissions fast.
+   *
+   * @param permissions the permissions
+   * @return the index definitions
+   */
+  public List<Index> indexes(@Nullable String... permissions) {
+    final List<Index> indexes = new ArrayList<>();
+    indexes.add(new Index().on(paths.getOwnerPath(), Direction.ASC));
+    for (String permission : normalize(
+        permissions != null ? Arrays.asList(permissions) : null)) {
+      indexes.add(new Index().on(paths.guestPath(permission), Direction.ASC));
+      indexes.add(new Index().on(paths.usersPath(permission), Direction.ASC));
+      indexes.add(new Index().on(paths.rolesPath(permission), Direction.ASC));
+      indexes.add(new Index().on(paths.groupsPath(permission), Direction.ASC));
+    }
+    return indexes;
+  }
+
+  private List<Criteria> entryCriteria(
+      String user,
+      Set<String> roles,
+      Set<String> groups,
+      String permission) {
+
+    final List<Criteria> criteriaList = new ArrayList<>(4);
+    criteriaList.add(Criteria.where(paths.guestPath(permission)).is(true));
+    if (StringUtils.hasText(user)) {
+      criteriaList.add(Criteria.where(paths.usersPath(permission)).is(user));
+    }
+    if (!roles.isEmpty()) {
+      criteriaList.add(Criteria.where(paths.rolesPath(permission)).in(roles));
+    }
+    if (!groups.isEmpty()) {
+      criteriaList.add(Criteria.where(paths.groupsPath(permission)).in(groups));
+    }
+    return criteriaList;
+  }
+
+  private static Criteria or(List<Criteria> criteriaList) {
+    if (criteriaList.size() == 1) {
+      return criteriaList.get(0);
+    }
+    return new Criteria().orOperator(criteriaList.toArray(new Criteria[0]));
+  }
+
+  private Criteria nothing() {
+    return Criteria.where(paths.getOwnerPath()).in(Collections.emptyList());
+  }
+
+  private static Set<String> normalize(Collection<String> permissions) {
+    if (permissions == null) {
+      return Collections.emptySet();
+    }
+    return permissions.stream()
+        .filter(StringUtils::hasText)
+        .map(String::toLowerCase)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  private static Collection<String> expand(
+      PrincipalHierarchy hierarchy,
+      Collection<String> principals) {
+    return hierarchy != null ? hierarchy.expand(principals) : principals;
+  }
+
+  private static Set<String> values(Collection<String> values) {
+    if (values == null) {
+      return Collections.emptySet();
+    }
+    return values.stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+}
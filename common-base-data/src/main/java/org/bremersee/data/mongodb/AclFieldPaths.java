@@ -0,0 +1,210 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.data.mongodb;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * The field paths of an access control list, that is stored in a mongo document. The default
+ * document structure of an acl is
+ * <pre>
+ * {
+ *   "owner": "anna",
+ *   "entries": {
+ *     "read": {
+ *       "guest": false,
+ *       "users": ["stephan"],
+ *       "roles": ["ROLE_ADMIN"],
+ *       "groups": ["friends"]
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>A permission is a field name of the entry map, so it must not be empty, must not contain a
+ * dot and must not start with a dollar sign; otherwise an {@link IllegalArgumentException} is
+ * thrown.
+ *
+ * @author Christian Bremer
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class AclFieldPaths {
+
+  /**
+   * The constant DEFAULT_OWNER_FIELD.
+   */
+  public static final String DEFAULT_OWNER_FIELD = "owner";
+
+  /**
+   * The constant DEFAULT_ENTRIES_FIELD.
+   */
+  public static final String DEFAULT_ENTRIES_FIELD = "entries";
+
+  /**
+   * The constant DEFAULT_GUEST_FIELD.
+   */
+  public static final String DEFAULT_GUEST_FIELD = "guest";
+
+  /**
+   * The constant DEFAULT_USERS_FIELD.
+   */
+  public static final String DEFAULT_USERS_FIELD = "users";
+
+  /**
+   * The constant DEFAULT_ROLES_FIELD.
+   */
+  public static final String DEFAULT_ROLES_FIELD = "roles";
+
+  /**
+   * The constant DEFAULT_GROUPS_FIELD.
+   */
+  public static final String DEFAULT_GROUPS_FIELD = "groups";
+
+  private final String ownerPath;
+
+  private final String entriesPath;
+
+  private final String guestField;
+
+  private final String usersField;
+
+  private final String rolesField;
+
+  private final String groupsField;
+
+  /**
+   * Instantiates the field paths of an acl, that is stored with the default structure.
+   *
+   * @param aclPath the path of the acl in the document, can be {@code null} or empty, if the acl
+   *     fields are stored in the root of the document
+   */
+  public AclFieldPaths(@Nullable String aclPath) {
+    this(
+        path(aclPath, DEFAULT_OWNER_FIELD),
+        path(aclPath, DEFAULT_ENTRIES_FIELD),
+        DEFAULT_GUEST_FIELD,
+        DEFAULT_USERS_FIELD,
+        DEFAULT_ROLES_FIELD,
+        DEFAULT_GROUPS_FIELD);
+  }
+
+  /**
+   * Instantiates the field paths of an acl.
+   *
+   * @param ownerPath the full path of the owner field
+   * @param entriesPath the full path of the entry map, can be {@code null} or empty, if the
+   *     permissions are stored in the root of the document
+   * @param guestField the name of the guest field of an entry
+   * @param usersField the name of the users field of an entry
+   * @param rolesField the name of the roles field of an entry
+   * @param groupsField the name of the groups field of an entry
+   */
+  public AclFieldPaths(
+      @Nullable String ownerPath,
+      @Nullable String entriesPath,
+      @Nullable String guestField,
+      @Nullable String usersField,
+      @Nullable String rolesField,
+      @Nullable String groupsField) {
+    this.ownerPath = StringUtils.hasText(ownerPath) ? ownerPath : DEFAULT_OWNER_FIELD;
+    this.entriesPath = StringUtils.hasText(entriesPath) ? entriesPath : null;
+    this.guestField = StringUtils.hasText(guestField) ? guestField : DEFAULT_GUEST_FIELD;
+    this.usersField = StringUtils.hasText(usersField) ? usersField : DEFAULT_USERS_FIELD;
+    this.rolesField = StringUtils.hasText(rolesField) ? rolesField : DEFAULT_ROLES_FIELD;
+    this.groupsField = StringUtils.hasText(groupsField) ? groupsField : DEFAULT_GROUPS_FIELD;
+  }
+
+  private static String path(String parent, String field) {
+    return StringUtils.hasText(parent) ? parent + "." + field : field;
+  }
+
+  /**
+   * Gets the full path of the entry of the given permission.
+   *
+   * @param permission the (normalized) permission
+   * @return the path
+   * @throws IllegalArgumentException if the permission is not a valid field name
+   */
+  public String entryPath(String permission) {
+    validatePermission(permission);
+    return path(entriesPath, permission);
+  }
+
+  /**
+   * Checks, whether the given permission can be used as field name of the entry map.
+   *
+   * @param permission the permission
+   * @throws IllegalArgumentException if the permission is empty, contains a dot, a null
+   *     character or starts with a dollar sign
+   */
+  public static void validatePermission(@Nullable String permission) {
+    Assert.hasText(permission, "Permission must not be empty.");
+    Assert.isTrue(
+        permission.indexOf('.') < 0
+            && permission.indexOf('\0') < 0
+            && !permission.startsWith("$"),
+        "Permission [" + permission + "] is not a valid field name.");
+  }
+
+  /**
+   * Gets the full path of the guest field of the given permission.
+   *
+   * @param permission the (normalized) permission
+   * @return the path
+   */
+  public String guestPath(String permission) {
+    return path(entryPath(permission), guestField);
+  }
+
+  /**
+   * Gets the full path of the users field of the given permission.
+   *
+   * @param permission the (normalized) permission
+   * @return the path
+   */
+  public String usersPath(String permission) {
+    return path(entryPath(permission), usersField);
+  }
+
+  /**
+   * Gets the full path of the roles field of the given permission.
+   *
+   * @param permission the (normalized) permission
+   * @return the path
+   */
+  public String rolesPath(String permission) {
+    return path(entryPath(permission), rolesField);
+  }
+
+  /**
+   * Gets the full path of the groups field of the given permission.
+   *
+   * @param permission the (normalized) permission
+   * @return the path
+   */
+  public String groupsPath(String permission) {
+    return path(entryPath(permission), groupsField);
+  }
+
+}
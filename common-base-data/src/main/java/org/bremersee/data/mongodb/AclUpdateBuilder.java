@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.data.mongodb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.validation.constraints.NotNull;
+import lombok.ToString;
+import org.bremersee.security.access.AclDelta;
+import org.bremersee.security.access.AclDelta.AceDelta;
+import org.bremersee.security.access.ReadOnlyAce;
+import org.bremersee.security.access.ReadOnlyAcl;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * The acl update builder renders an {@link AclDelta} as targeted mongo updates ({@code $set},
+ * {@code $addToSet} and {@code $pullAll}), so that only the changes of an access control list
+ * are written instead of the whole access control list.
+ *
+ * <p>Mongo doesn't allow to add and to remove values of the same array in one update. If this
+ * happens, the removals are rendered in a second update. So the returned updates must be applied
+ * in the given order.
+ *
+ * <p>Entries are never unset. If the last principal of an entry is revoked, the entry remains as
+ * an empty entry (no guest access, empty users, roles and groups), which grants nothing. This is
+ * the same result as {@link AclDelta#applyTo(ReadOnlyAcl)} produces in memory.
+ *
+ * @author Christian Bremer
+ */
+@ToString
+public class AclUpdateBuilder {
+
+  private final AclFieldPaths paths;
+
+  /**
+   * Instantiates a new acl update builder for an acl, that is stored with the default
+   * structure.
+   *
+   * @param aclPath the path of the acl in the document, can be {@code null} or empty, if the acl
+   *     fields are stored in the root of the document
+   */
+  public AclUpdateBuilder(@Nullable String aclPath) {
+    this(new AclFieldPaths(aclPath));
+  }
+
+  /**
+   * Instantiates a new acl update builder.
+   *
+   * @param paths the field paths of the acl
+   */
+  public AclUpdateBuilder(@NotNull AclFieldPaths paths) {
+    Assert.notNull(paths, "Acl field paths must not be null.");
+    this.paths = paths;
+  }
+
+  /**
+   * Builds the updates, that change the old access control list into the new one.
+   *
+   * @param oldAcl the old (persisted) access control list
+   * @param newAcl the new access control list
+   * @return the updates (can be empty)
+   */
+  public List<Update> build(
+      @Nullable ReadOnlyAcl<? extends ReadOnlyAce> oldAcl,
+      @Nullable ReadOnlyAcl<? extends ReadOnlyAce> newAcl) {
+    return build(AclDelta.between(oldAcl, newAcl));
+  }
+
+  /**
+   * Builds the updates of the given delta.
+   *
+   * @param delta the delta
+   * @return the updates (can be empty)
+   */
+  public List<Update> build(@Nullable AclDelta delta) {
+    if (delta == null || delta.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final Update update = new Update();
+    Update removals = null;
+    if (delta.isOwnerChanged()) {
+      if (delta.getOwner() != null) {
+        update.set(paths.getOwnerPath(), delta.getOwner());
+      } else {
+        update.unset(paths.getOwnerPath());
+      }
+    }
+    for (Map.Entry<String, AceDelta> entry : delta.getEntries().entrySet()) {
+      final String permission = entry.getKey();
+      final AceDelta aceDelta = entry.getValue();
+      if (aceDelta.getGuest() != null) {
+        update.set(paths.guestPath(permission), aceDelta.getGuest());
+      }
+      removals = render(update, removals, paths.usersPath(permission),
+          aceDelta.getAddedUsers(), aceDelta.getRemovedUsers());
+      removals = render(update, removals, paths.rolesPath(permission),
+          aceDelta.getAddedRoles(), aceDelta.getRemovedRoles());
+      removals = render(update, removals, paths.groupsPath(permission),
+          aceDelta.getAddedGroups(), aceDelta.getRemovedGroups());
+    }
+    final List<Update> updates = new ArrayList<>(2);
+    updates.add(update);
+    if (removals != null) {
+      updates.add(removals);
+    }
+    return updates;
+  }
+
+  private static Update render(
+      Update update,
+      Update removals,
+      String path,
+      Set<String> added,
+      Set<String> removed) {
+
+    if (!added.isEmpty()) {
+      update.addToSet(path).each(added.toArray());
+    }
+    if (!removed.isEmpty()) {
+      if (added.isEmpty()) {
+        update.pullAll(path, removed.toArray());
+      } else {
+        final Update result = removals != null ? removals : new Update();
+        result.pullAll(path, removed.toArray());
+        return result;
+      }
+    }
+    return removals;
+  }
+
+}
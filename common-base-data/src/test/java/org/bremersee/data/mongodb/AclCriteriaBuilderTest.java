@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.data.mongodb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import org.bremersee.security.access.DefaultPrincipalHierarchy;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * The acl criteria builder test.
+ *
+ * @author Christian Bremer
+ */
+class AclCriteriaBuilderTest {
+
+  private final AclCriteriaBuilder builder = new AclCriteriaBuilder("acl");
+
+  /**
+   * Has permission.
+   */
+  @Test
+  void hasPermission() {
+    Document actual = builder
+        .hasPermission("anna", List.of("ROLE_USER"), Set.of("friends"), "READ")
+        .getCriteriaObject();
+    Document expected = new Criteria().orOperator(
+        Criteria.where("acl.owner").is("anna"),
+        Criteria.where("acl.entries.read.guest").is(true),
+        Criteria.where("acl.entries.read.users").is("anna"),
+        Criteria.where("acl.entries.read.roles").in(Set.of("ROLE_USER")),
+        Criteria.where("acl.entries.read.groups").in(Set.of("friends")))
+        .getCriteriaObject();
+    assertEquals(expected.toJson(), actual.toJson());
+  }
+
+  /**
+   * Has permission with hierarchies.
+   */
+  @Test
+  void hasPermissionWithHierarchies() {
+    String json = builder
+        .withHierarchies(DefaultPrincipalHierarchy.fromString("ROLE_ADMIN > ROLE_USER"), null)
+        .hasPermission("anna", List.of("ROLE_ADMIN"), null, "read")
+        .getCriteriaObject()
+        .toJson();
+    assertTrue(json.contains("ROLE_ADMIN"));
+    assertTrue(json.contains("ROLE_USER"));
+    assertSame(builder, builder.withHierarchies(null, null));
+  }
+
+  /**
+   * Has permission with invalid permission.
+   */
+  @Test
+  void hasPermissionWithInvalidPermission() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> builder.hasPermission("anna", null, null, "read.guest"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> builder.hasPermission("anna", null, null, "$where"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> builder.indexes("read", "a.b"));
+  }
+
+  /**
+   * Has permission as guest.
+   */
+  @Test
+  void hasPermissionAsGuest() {
+    assertEquals(
+        Criteria.where("entries.read.guest").is(true).getCriteriaObject(),
+        new AclCriteriaBuilder(null)
+            .hasPermission(null, null, null, "read")
+            .getCriteriaObject());
+  }
+
+  /**
+   * Has any permission.
+   */
+  @Test
+  void hasAnyPermission() {
+    String json = builder
+        .hasAnyPermission("anna", null, null, "read", "write")
+        .getCriteriaObject()
+        .toJson();
+    assertTrue(json.contains("acl.entries.read.users"));
+    assertTrue(json.contains("acl.entries.write.users"));
+    assertTrue(json.contains("$or"));
+  }
+
+  /**
+   * Has all permissions.
+   */
+  @Test
+  void hasAllPermissions() {
+    String json = builder
+        .hasAllPermissions("anna", null, null, "read", "write")
+        .getCriteriaObject()
+        .toJson();
+    assertTrue(json.contains("$and"));
+    assertTrue(json.contains("acl.owner"));
+  }
+
+  /**
+   * Indexes.
+   */
+  @Test
+  void indexes() {
+    assertEquals(9, builder.indexes("read", "WRITE").size());
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.data.mongodb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.bremersee.security.access.ImmutableAcl;
+import org.bremersee.security.access.PermissionConstants;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * The acl update builder test.
+ *
+ * @author Christian Bremer
+ */
+class AclUpdateBuilderTest {
+
+  private static final ImmutableAcl ACL = ImmutableAcl.empty()
+      .withOwner("owner")
+      .addUser("anna", PermissionConstants.READ, PermissionConstants.WRITE)
+      .addGroup("friends", PermissionConstants.READ);
+
+  private final AclUpdateBuilder builder = new AclUpdateBuilder("acl");
+
+  /**
+   * No changes.
+   */
+  @Test
+  void noChanges() {
+    assertTrue(builder.build(ACL, ACL).isEmpty());
+  }
+
+  /**
+   * Add group.
+   */
+  @Test
+  void addGroup() {
+    List<Update> updates = builder.build(ACL, ACL.addGroup("colleagues", "read"));
+    assertEquals(1, updates.size());
+    Document document = updates.get(0).getUpdateObject();
+    assertEquals(1, document.size());
+    Document addToSet = document.get("$addToSet", Document.class);
+    assertTrue(addToSet.containsKey("acl.entries.read.groups"));
+  }
+
+  /**
+   * Owner, guest and removals.
+   */
+  @Test
+  void ownerGuestAndRemovals() {
+    List<Update> updates = builder.build(ACL, ACL
+        .withOwner("anna")
+        .guest(true, "write")
+        .removeUser("anna", "read"));
+    assertEquals(1, updates.size());
+    Document document = updates.get(0).getUpdateObject();
+    Document set = document.get("$set", Document.class);
+    assertEquals("anna", set.get("acl.owner"));
+    assertEquals(true, set.get("acl.entries.write.guest"));
+    assertTrue(document.get("$pullAll", Document.class).containsKey("acl.entries.read.users"));
+  }
+
+  /**
+   * Conflicting add and remove.
+   */
+  @Test
+  void conflictingAddAndRemove() {
+    List<Update> updates = builder.build(ACL, ACL
+        .addUser("stephan", "read")
+        .removeUser("anna", "read"));
+    assertEquals(2, updates.size());
+    assertTrue(updates.get(0).getUpdateObject().containsKey("$addToSet"));
+    assertTrue(updates.get(1).getUpdateObject().containsKey("$pullAll"));
+  }
+
+  /**
+   * Revoke last principal.
+   */
+  @Test
+  void revokeLastPrincipal() {
+    List<Update> updates = builder.build(ACL, ACL.removeUser("anna", "write"));
+    assertEquals(1, updates.size());
+    Document document = updates.get(0).getUpdateObject();
+    assertEquals(1, document.size());
+    assertTrue(document.get("$pullAll", Document.class).containsKey("acl.entries.write.users"));
+  }
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * A bounded cache, whose values have an expiration time. An expired value is never returned.
+ *
+ * <p>The entries are indexed by their expiration time. If the maximum size is exceeded, the
+ * values, that expire first, are evicted (so expired values are evicted before all others), which
+ * costs a logarithmic time per evicted value instead of a scan of all values. Lookups don't lock
+ * the cache.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Christian Bremer
+ */
+public class ExpiringCache<K, V> {
+
+  private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+
+  private final ConcurrentSkipListSet<Entry<K, V>> expiryIndex = new ConcurrentSkipListSet<>();
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  private final int maximumSize;
+
+  private final LongSupplier currentTimeMillis;
+
+  /**
+   * Instantiates a new expiring cache.
+   *
+   * @param maximumSize the maximum size
+   */
+  public ExpiringCache(int maximumSize) {
+    this(maximumSize, System::currentTimeMillis);
+  }
+
+  /**
+   * Instantiates a new expiring cache.
+   *
+   * @param maximumSize the maximum size
+   * @param currentTimeMillis the source of the current time in milliseconds
+   */
+  public ExpiringCache(int maximumSize, LongSupplier currentTimeMillis) {
+    Assert.isTrue(maximumSize > 0, "Maximum size must be greater than zero.");
+    this.maximumSize = maximumSize;
+    this.currentTimeMillis = Objects
+        .requireNonNull(currentTimeMillis, "Current time millis must be present.");
+  }
+
+  /**
+   * Gets the maximum size.
+   *
+   * @return the maximum size
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Gets the current time in milliseconds of this cache.
+   *
+   * @return the current time in milliseconds
+   */
+  public long currentTimeMillis() {
+    return currentTimeMillis.getAsLong();
+  }
+
+  /**
+   * Gets the value of the given key. An expired value is removed.
+   *
+   * @param key the key
+   * @return the value or {@code null}, if it is not present or expired
+   */
+  @Nullable
+  public V get(@Nullable K key) {
+    if (key == null) {
+      return null;
+    }
+    final Entry<K, V> entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAt <= currentTimeMillis()) {
+      remove(entry);
+      return null;
+    }
+    return entry.value;
+  }
+
+  /**
+   * Puts the value of the given key into the cache. Nothing is cached, if the value is already
+   * expired.
+   *
+   * @param key the key
+   * @param value the value
+   * @param expiresAt the expiration time in milliseconds
+   */
+  public void put(@Nullable K key, @Nullable V value, long expiresAt) {
+    if (key == null || value == null || expiresAt <= currentTimeMillis()) {
+      return;
+    }
+    final Entry<K, V> entry = new Entry<>(key, value, expiresAt, sequence.incrementAndGet());
+    // index after the put, so that a concurrent eviction can't leave an unindexed entry
+    final Entry<K, V> old = entries.put(key, entry);
+    if (old != null) {
+      expiryIndex.remove(old);
+    }
+    expiryIndex.add(entry);
+    if (entries.size() > maximumSize) {
+      evict();
+    }
+  }
+
+  /**
+   * Removes the value of the given key.
+   *
+   * @param key the key
+   * @return the removed value or {@code null}
+   */
+  @Nullable
+  public V remove(@Nullable K key) {
+    if (key == null) {
+      return null;
+    }
+    final Entry<K, V> entry = entries.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    expiryIndex.remove(entry);
+    return entry.value;
+  }
+
+  private void remove(Entry<K, V> entry) {
+    if (entries.remove(entry.key, entry)) {
+      expiryIndex.remove(entry);
+    }
+  }
+
+  /**
+   * Removes all expired values and evicts the values, that expire first, if the maximum size is
+   * exceeded.
+   *
+   * @return the number of removed expired values
+   */
+  public int removeExpired() {
+    final long now = currentTimeMillis();
+    int removed = 0;
+    for (Entry<K, V> entry : expiryIndex) {
+      if (entry.expiresAt > now) {
+        break;
+      }
+      if (expiryIndex.remove(entry) && entries.remove(entry.key, entry)) {
+        removed++;
+      }
+    }
+    evict();
+    return removed;
+  }
+
+  private void evict() {
+    while (entries.size() > maximumSize) {
+      final Entry<K, V> entry = expiryIndex.pollFirst();
+      if (entry == null) {
+        return;
+      }
+      entries.remove(entry.key, entry);
+    }
+  }
+
+  /**
+   * Gets the number of cached values (including expired ones, that are not yet removed).
+   *
+   * @return the size
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Removes all values.
+   */
+  public void clear() {
+    entries.clear();
+    expiryIndex.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "ExpiringCache {maximumSize = " + maximumSize
+        + ", size = " + entries.size()
+        + '}';
+  }
+
+  /**
+   * The cache entry.
+   *
+   * @param <K> the type of the key
+   * @param <V> the type of the value
+   */
+  private static final class Entry<K, V> implements Comparable<Entry<K, V>> {
+
+    private final K key;
+
+    private final V value;
+
+    private final long expiresAt;
+
+    private final long sequence;
+
+    private Entry(K key, V value, long expiresAt, long sequence) {
+      this.key = key;
+      this.value = value;
+      this.expiresAt = expiresAt;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(Entry<K, V> other) {
+      final int result = Long.compare(expiresAt, other.expiresAt);
+      return result != 0 ? result : Long.compare(sequence, other.sequence);
+    }
+  }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security;
+
+import java.util.Arrays;
+import org.springframework.lang.Nullable;
+
+/**
+ * A strict parser of ip address literals. It never calls the resolver, so a host name is
+ * rejected and is never looked up, which would block the calling thread.
+ *
+ * <p>Supported are IPv4 addresses in dotted decimal notation (e.g. {@code 192.168.1.23}), IPv6
+ * addresses with compressed zeros and embedded IPv4 addresses (e.g. {@code fd00::1},
+ * {@code ::ffff:192.168.1.23}), optionally enclosed in brackets and with a zone id (e.g.
+ * {@code fe80::1%eth0}); the zone id is ignored. Like {@link java.net.InetAddress}, an IPv4-mapped
+ * IPv6 address is returned as IPv4 address.
+ *
+ * @author Christian Bremer
+ */
+public final class IpAddressLiteral {
+
+  private IpAddressLiteral() {
+  }
+
+  /**
+   * Parses the given ip address literal.
+   *
+   * @param literal the ip address literal
+   * @return the address (4 bytes for IPv4, 16 bytes for IPv6)
+   * @throws IllegalArgumentException if the value is not an ip address literal
+   */
+  public static byte[] parse(@Nullable String literal) {
+    final byte[] address = parseOrNull(literal);
+    if (address == null) {
+      throw new IllegalArgumentException("Not an ip address literal: " + literal);
+    }
+    return address;
+  }
+
+  /**
+   * Determines whether the given value is an ip address literal.
+   *
+   * @param value the value
+   * @return {@code true} if the value is an ip address literal, otherwise {@code false}
+   */
+  public static boolean isLiteral(@Nullable String value) {
+    return parseOrNull(value) != null;
+  }
+
+  @Nullable
+  private static byte[] parseOrNull(@Nullable String literal) {
+    if (literal == null || literal.isEmpty()) {
+      return null;
+    }
+    int from = 0;
+    int to = literal.length();
+    final boolean bracketed = literal.charAt(0) == '[';
+    if (bracketed) {
+      if (to < 3 || literal.charAt(to - 1) != ']') {
+        return null;
+      }
+      from = 1;
+      to--;
+    }
+    if (literal.indexOf(':', from) < 0) {
+      return bracketed ? null : parseIpv4(literal, from, to);
+    }
+    final int zone = literal.indexOf('%', from);
+    if (zone >= 0) {
+      if (!isZoneId(literal, zone + 1, to)) {
+        return null;
+      }
+      to = zone;
+    }
+    final byte[] address = parseIpv6(literal, from, to);
+    return address != null && isIpv4Mapped(address)
+        ? Arrays.copyOfRange(address, 12, 16)
+        : address;
+  }
+
+  @Nullable
+  private static byte[] parseIpv4(String value, int from, int to) {
+    final byte[] address = new byte[4];
+    int part = 0;
+    int number = 0;
+    int digits = 0;
+    for (int i = from; i < to; i++) {
+      final char c = value.charAt(i);
+      if (c >= '0' && c <= '9') {
+        number = number * 10 + (c - '0');
+        if (++digits > 3 || number > 255) {
+          return null;
+        }
+      } else if (c == '.') {
+        if (digits == 0 || part == 3) {
+          return null;
+        }
+        address[part++] = (byte) number;
+        number = 0;
+        digits = 0;
+      } else {
+        return null;
+      }
+    }
+    if (digits == 0 || part != 3) {
+      return null;
+    }
+    address[3] = (byte) number;
+    return address;
+  }
+
+  @Nullable
+  private static byte[] parseIpv6(String value, int from, int to) {
+    if (to - from < 2) {
+      return null;
+    }
+    final byte[] address = new byte[16];
+    int index = 0;
+    int compressed = -1;
+    int i = from;
+    if (value.charAt(i) == ':') {
+      if (value.charAt(i + 1) != ':') {
+        return null;
+      }
+      compressed = 0;
+      i += 2;
+    }
+    while (i < to) {
+      if (index == 16) {
+        return null;
+      }
+      final int start = i;
+      int group = 0;
+      int digit;
+      while (i < to && (digit = hexDigit(value.charAt(i))) >= 0) {
+        group = (group << 4) | digit;
+        if (++i - start > 4) {
+          return null;
+        }
+      }
+      if (i < to && value.charAt(i) == '.') {
+        final byte[] ipv4 = index <= 12 ? parseIpv4(value, start, to) : null;
+        if (ipv4 == null) {
+          return null;
+        }
+        System.arraycopy(ipv4, 0, address, index, 4);
+        index += 4;
+        break;
+      }
+      if (i == start) {
+        return null;
+      }
+      address[index++] = (byte) (group >>> 8);
+      address[index++] = (byte) group;
+      if (i == to) {
+        break;
+      }
+      if (value.charAt(i++) != ':' || i == to) {
+        return null;
+      }
+      if (value.charAt(i) == ':') {
+        if (compressed >= 0) {
+          return null;
+        }
+        compressed = index;
+        i++;
+      }
+    }
+    if (compressed < 0) {
+      return index == 16 ? address : null;
+    }
+    if (index == 16) {
+      return null;
+    }
+    final int tail = index - compressed;
+    System.arraycopy(address, compressed, address, 16 - tail, tail);
+    Arrays.fill(address, compressed, 16 - tail, (byte) 0);
+    return address;
+  }
+
+  private static boolean isZoneId(String value, int from, int to) {
+    if (from >= to) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      final char c = value.charAt(i);
+      if (!isAsciiLetterOrDigit(c) && c != '.' && c != '_' && c != '-') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hexDigit(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    }
+    if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    }
+    if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+    return -1;
+  }
+
+  private static boolean isAsciiLetterOrDigit(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isIpv4Mapped(byte[] address) {
+    for (int i = 0; i < 10; i++) {
+      if (address[i] != 0) {
+        return false;
+      }
+    }
+    return address[10] == (byte) 0xff && address[11] == (byte) 0xff;
+  }
+
+}
@@ -16,8 +16,7 @@
 
 package org.bremersee.security;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.util.Arrays;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -32,13 +31,16 @@ import org.springframework.util.StringUtils;
  * method {@code boolean matches(HttpServletRequest request)} skipped and ths class does not implements {@code
  * org.springframework.security.web.util.matcher.RequestMatcher},
  *
+ * <p>The addresses must be ip address literals, they are parsed by {@link IpAddressLiteral} without
+ * calling the resolver. A host name is rejected when the matcher is created.
+ *
  * @author Luke Taylor
  */
 public class IpAddressMatcher {
 
   private final int numMaskBits;
 
-  private final InetAddress requiredAddress;
+  private final byte[] requiredAddress;
 
   /**
    * Takes a specific IP address or a range specified using the IP/Netmask (e.g. 192.168.1.0/24 or 202.24.0.0/14).
@@ -56,7 +58,7 @@ public class IpAddressMatcher {
       numMaskBits = -1;
     }
     requiredAddress = parseAddress(ipAddress);
-    Assert.isTrue(requiredAddress.getAddress().length * 8 >= numMaskBits,
+    Assert.isTrue(requiredAddress.length * 8 >= numMaskBits,
         String.format("IP address %s is too short for bitmask of length %d",
             ipAddress, numMaskBits));
   }
@@ -68,19 +70,17 @@ public class IpAddressMatcher {
    * @return the {@code true} id the given address matches an IPv6 and IPv4 address, otherwise {@code false}
    */
   public boolean matches(String address) {
-    InetAddress remoteAddress = parseAddress(address);
+    byte[] remAddr = parseAddress(address);
+    byte[] reqAddr = requiredAddress;
 
-    if (!requiredAddress.getClass().equals(remoteAddress.getClass())) {
+    if (remAddr.length != reqAddr.length) {
       return false;
     }
 
     if (numMaskBits < 0) {
-      return remoteAddress.equals(requiredAddress);
+      return Arrays.equals(remAddr, reqAddr);
     }
 
-    byte[] remAddr = remoteAddress.getAddress();
-    byte[] reqAddr = requiredAddress.getAddress();
-
     int numMaskFullBytes = numMaskBits / 8;
     byte finalByte = (byte) (0xFF00 >> (numMaskBits & 0x07));
 
@@ -99,11 +99,7 @@ public class IpAddressMatcher {
     return true;
   }
 
-  private InetAddress parseAddress(String address) {
-    try {
-      return InetAddress.getByName(address);
-    } catch (UnknownHostException e) {
-      throw new IllegalArgumentException("Failed to parse address" + address, e);
-    }
+  private byte[] parseAddress(String address) {
+    return IpAddressLiteral.parse(address);
   }
 }
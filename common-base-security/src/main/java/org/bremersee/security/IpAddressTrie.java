@@ -0,0 +1,293 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * A compiled matcher of ip addresses and ranges (e.g. {@code 192.168.1.0/24} or
+ * {@code fd00::/8}). The addresses and ranges are parsed only once into a binary trie per address
+ * family; a lookup walks at most as many nodes as the longest prefix has bits and does not
+ * allocate any objects.
+ *
+ * <p>Like the {@link IpAddressMatcher}, a range of IPv4 addresses never matches an IPv6 address,
+ * and vice-versa.
+ *
+ * @author Christian Bremer
+ */
+public final class IpAddressTrie {
+
+  private static final IpAddressTrie EMPTY = new IpAddressTrie(Collections.emptyList());
+
+  private final List<String> ipAddresses;
+
+  private final Trie ipv4;
+
+  private final Trie ipv6;
+
+  private IpAddressTrie(List<String> ipAddresses) {
+    this.ipAddresses = Collections.unmodifiableList(ipAddresses);
+    final Trie.Builder ipv4Builder = new Trie.Builder();
+    final Trie.Builder ipv6Builder = new Trie.Builder();
+    for (String ipAddress : ipAddresses) {
+      final int index = ipAddress.indexOf('/');
+      final byte[] address = parseAddress(index > 0 ? ipAddress.substring(0, index) : ipAddress);
+      final int maxBits = address.length * 8;
+      final int prefixLength;
+      try {
+        prefixLength = index > 0 ? Integer.parseInt(ipAddress.substring(index + 1)) : maxBits;
+
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Illegal mask of ip address " + ipAddress, e);
+      }
+      if (prefixLength < 0 || prefixLength > maxBits) {
+        throw new IllegalArgumentException(String.format(
+            "IP address %s is too short for bitmask of length %d", ipAddress, prefixLength));
+      }
+      (address.length == 4 ? ipv4Builder : ipv6Builder).insert(address, prefixLength);
+    }
+    this.ipv4 = ipv4Builder.build();
+    this.ipv6 = ipv6Builder.build();
+  }
+
+  /**
+   * Returns the matcher, that matches no address.
+   *
+   * @return the empty matcher
+   */
+  public static IpAddressTrie empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Compiles the given ip addresses and ranges. Empty values are ignored.
+   *
+   * @param ipAddresses the ip addresses and ranges
+   * @return the compiled matcher
+   * @throws IllegalArgumentException if an ip address or range is illegal
+   */
+  public static IpAddressTrie compile(@Nullable Collection<String> ipAddresses) {
+    if (ipAddresses == null || ipAddresses.isEmpty()) {
+      return EMPTY;
+    }
+    return new IpAddressTrie(ipAddresses.stream()
+        .filter(StringUtils::hasText)
+        .map(String::trim)
+        .distinct()
+        .collect(Collectors.toList()));
+  }
+
+  /**
+   * Compiles the given ip addresses and ranges. Empty values are ignored.
+   *
+   * @param ipAddresses the ip addresses and ranges
+   * @return the compiled matcher
+   * @throws IllegalArgumentException if an ip address or range is illegal
+   */
+  public static IpAddressTrie compile(@Nullable String... ipAddresses) {
+    return ipAddresses == null ? EMPTY : compile(Arrays.asList(ipAddresses));
+  }
+
+  /**
+   * Determines whether this matcher contains no ip address or range.
+   *
+   * @return {@code true} if it is empty, otherwise {@code false}
+   */
+  public boolean isEmpty() {
+    return ipv4.isEmpty() && ipv6.isEmpty();
+  }
+
+  /**
+   * Gets the compiled ip addresses and ranges.
+   *
+   * @return the ip addresses and ranges
+   */
+  public List<String> getIpAddresses() {
+    return ipAddresses;
+  }
+
+  /**
+   * Checks whether the given address (4 or 16 bytes) matches.
+   *
+   * @param address the address
+   * @return {@code true} if the address matches, otherwise {@code false}
+   */
+  public boolean matches(@Nullable byte[] address) {
+    if (address == null) {
+      return false;
+    }
+    if (address.length == 4) {
+      return ipv4.matches(address);
+    }
+    return address.length == 16 && ipv6.matches(address);
+  }
+
+  /**
+   * Checks whether the given address matches.
+   *
+   * @param address the address
+   * @return {@code true} if the address matches, otherwise {@code false}
+   */
+  public boolean matches(@Nullable InetAddress address) {
+    if (address == null || isEmpty()) {
+      return false;
+    }
+    final byte[] bytes = address.getAddress();
+    return bytes != null ? matches(bytes) : matches(address.getHostAddress());
+  }
+
+  /**
+   * Checks whether the given address matches.
+   *
+   * @param address the address
+   * @return {@code true} if the address matches, otherwise {@code false} (also if the address is
+   *     illegal)
+   */
+  public boolean matches(@Nullable String address) {
+    if (!StringUtils.hasText(address) || isEmpty()) {
+      return false;
+    }
+    try {
+      return matches(parseAddress(address));
+
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static byte[] parseAddress(String address) {
+    return IpAddressLiteral.parse(address);
+  }
+
+  @Override
+  public String toString() {
+    return "IpAddressTrie " + ipAddresses;
+  }
+
+  /**
+   * The binary trie of one address family. The nodes are stored in arrays; node 0 is the root
+   * and a child index of 0 means, that there is no child.
+   */
+  private static final class Trie {
+
+    private final int[] zero;
+
+    private final int[] one;
+
+    private final boolean[] terminal;
+
+    private Trie(int[] zero, int[] one, boolean[] terminal) {
+      this.zero = zero;
+      this.one = one;
+      this.terminal = terminal;
+    }
+
+    private boolean isEmpty() {
+      return terminal.length == 0;
+    }
+
+    private boolean matches(byte[] address) {
+      if (terminal.length == 0) {
+        return false;
+      }
+      final int bits = address.length * 8;
+      int node = 0;
+      for (int i = 0; i < bits; i++) {
+        if (terminal[node]) {
+          return true;
+        }
+        node = bit(address, i) == 0 ? zero[node] : one[node];
+        if (node == 0) {
+          return false;
+        }
+      }
+      return terminal[node];
+    }
+
+    private static int bit(byte[] address, int index) {
+      return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * The builder of the trie.
+     */
+    private static final class Builder {
+
+      private int[] zero = new int[16];
+
+      private int[] one = new int[16];
+
+      private boolean[] terminal = new boolean[16];
+
+      private int size = 1;
+
+      private boolean empty = true;
+
+      private void insert(byte[] address, int prefixLength) {
+        empty = false;
+        int node = 0;
+        for (int i = 0; i < prefixLength; i++) {
+          if (terminal[node]) {
+            return;
+          }
+          if (bit(address, i) == 0) {
+            if (zero[node] == 0) {
+              final int child = newNode();
+              zero[node] = child;
+            }
+            node = zero[node];
+          } else {
+            if (one[node] == 0) {
+              final int child = newNode();
+              one[node] = child;
+            }
+            node = one[node];
+          }
+        }
+        terminal[node] = true;
+      }
+
+      private int newNode() {
+        if (size == terminal.length) {
+          final int capacity = size << 1;
+          zero = Arrays.copyOf(zero, capacity);
+          one = Arrays.copyOf(one, capacity);
+          terminal = Arrays.copyOf(terminal, capacity);
+        }
+        return size++;
+      }
+
+      private Trie build() {
+        if (empty) {
+          return new Trie(new int[0], new int[0], new boolean[0]);
+        }
+        return new Trie(
+            Arrays.copyOf(zero, size),
+            Arrays.copyOf(one, size),
+            Arrays.copyOf(terminal, size));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * A segment trie of path rules (an optional http method and an ant pattern). The rules are
+ * numbered in the order they were added. The trie returns the numbers of the rules, whose pattern
+ * may match a path, so the cost of a lookup grows with the depth of the path and not with the
+ * number of rules.
+ *
+ * <p>Each segment of a pattern is a node: literal segments are looked up in a hash map, segments
+ * with wildcards (e.g. {@code *.json} or {@code {id}}) are matched one by one and {@code **} (or
+ * {@code {*path}}) matches zero or more segments. The rules, that end in a node, are indexed by
+ * the http method.
+ *
+ * <p>The trie is lenient: empty segments and trailing slashes are ignored. So the candidates are
+ * a superset of the matching rules and the caller should confirm them with the exact matcher in
+ * ascending order; the first confirmed candidate is the first matching rule.
+ *
+ * @author Christian Bremer
+ */
+public final class PathRuleTrie {
+
+  private static final String PATH_SEPARATOR = "/";
+
+  private static final String DOUBLE_WILDCARD = "**";
+
+  private final Node root;
+
+  private final int size;
+
+  private PathRuleTrie(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Creates a new builder.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the number of rules.
+   *
+   * @return the number of rules
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the numbers of the rules, whose pattern may match the given path.
+   *
+   * @param method the http method of the request
+   * @param path the path of the request
+   * @return the numbers of the candidates
+   */
+  public BitSet candidates(@Nullable HttpMethod method, @Nullable String path) {
+    return candidates(method, segments(path));
+  }
+
+  /**
+   * Finds the numbers of the rules, whose pattern may match the given path segments.
+   *
+   * @param method the http method of the request
+   * @param segments the (not empty) segments of the path
+   * @return the numbers of the candidates
+   */
+  public BitSet candidates(@Nullable HttpMethod method, List<String> segments) {
+    final BitSet candidates = new BitSet(size);
+    collect(root, segments, 0, method, candidates);
+    return candidates;
+  }
+
+  private static void collect(
+      Node node,
+      List<String> segments,
+      int index,
+      @Nullable HttpMethod method,
+      BitSet candidates) {
+
+    if (node.doubleWildcard != null) {
+      for (int i = index; i <= segments.size(); i++) {
+        collect(node.doubleWildcard, segments, i, method, candidates);
+      }
+    }
+    if (index == segments.size()) {
+      node.addRules(method, candidates);
+      // a trailing wildcard may match an empty segment (e.g. '/api/*' matches '/api/')
+      for (Wildcard wildcard : node.wildcards) {
+        wildcard.node.addRules(method, candidates);
+      }
+      return;
+    }
+    final String segment = segments.get(index);
+    final Node literal = node.literals.get(segment);
+    if (literal != null) {
+      collect(literal, segments, index + 1, method, candidates);
+    }
+    for (Wildcard wildcard : node.wildcards) {
+      if (wildcard.matches(segment)) {
+        collect(wildcard.node, segments, index + 1, method, candidates);
+      }
+    }
+  }
+
+  private static List<String> segments(@Nullable String path) {
+    if (!StringUtils.hasText(path)) {
+      return Collections.emptyList();
+    }
+    final List<String> segments = new ArrayList<>();
+    int start = 0;
+    while (start < path.length()) {
+      int end = path.indexOf(PATH_SEPARATOR, start);
+      if (end < 0) {
+        end = path.length();
+      }
+      if (end > start) {
+        segments.add(path.substring(start, end));
+      }
+      start = end + 1;
+    }
+    return segments;
+  }
+
+  private static boolean isDoubleWildcard(String segment) {
+    return DOUBLE_WILDCARD.equals(segment)
+        || (segment.startsWith("{*") && segment.endsWith("}"));
+  }
+
+  private static boolean isWildcard(String segment) {
+    return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0;
+  }
+
+  @Override
+  public String toString() {
+    return "PathRuleTrie {size = " + size + '}';
+  }
+
+  /**
+   * The builder of the path rule trie.
+   */
+  public static final class Builder {
+
+    private final AntPathMatcher segmentMatcher = new AntPathMatcher();
+
+    private final Node root = new Node();
+
+    private int size;
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a rule. The number of the rule is the number of rules, that were added before.
+     *
+     * @param method the http method, {@code null} means any method
+     * @param antPattern the ant pattern, {@code null} means any path
+     * @return the builder
+     */
+    public Builder add(@Nullable HttpMethod method, @Nullable String antPattern) {
+      Node node = root;
+      for (String segment : segments(antPattern != null ? antPattern : DOUBLE_WILDCARD)) {
+        node = node.child(segment, segmentMatcher);
+      }
+      node.add(method, size++);
+      return this;
+    }
+
+    /**
+     * Builds the path rule trie.
+     *
+     * @return the path rule trie
+     */
+    public PathRuleTrie build() {
+      root.index();
+      return new PathRuleTrie(root, size);
+    }
+  }
+
+  /**
+   * A node of the trie.
+   */
+  private static final class Node {
+
+    private final Map<String, Node> literals = new HashMap<>();
+
+    private final List<Wildcard> wildcards = new ArrayList<>();
+
+    private Node doubleWildcard;
+
+    private BitSet anyMethod;
+
+    private final Map<HttpMethod, BitSet> byMethod = new EnumMap<>(HttpMethod.class);
+
+    private Node child(String segment, AntPathMatcher segmentMatcher) {
+      if (isDoubleWildcard(segment)) {
+        if (doubleWildcard == null) {
+          doubleWildcard = new Node();
+        }
+        return doubleWildcard;
+      }
+      if (!isWildcard(segment)) {
+        return literals.computeIfAbsent(segment, s -> new Node());
+      }
+      for (Wildcard wildcard : wildcards) {
+        if (wildcard.pattern.equals(segment)) {
+          return wildcard.node;
+        }
+      }
+      final Wildcard wildcard = new Wildcard(segment, segmentMatcher);
+      wildcards.add(wildcard);
+      return wildcard.node;
+    }
+
+    private void add(@Nullable HttpMethod method, int rule) {
+      if (method == null) {
+        if (anyMethod == null) {
+          anyMethod = new BitSet();
+        }
+        anyMethod.set(rule);
+      } else {
+        byMethod.computeIfAbsent(method, m -> new BitSet()).set(rule);
+      }
+    }
+
+    /**
+     * Adds the rules of any method to the rules of each method, so that a lookup needs only one
+     * bit set per node.
+     */
+    private void index() {
+      if (anyMethod != null) {
+        byMethod.values().forEach(rules -> rules.or(anyMethod));
+      }
+      literals.values().forEach(Node::index);
+      wildcards.forEach(wildcard -> wildcard.node.index());
+      if (doubleWildcard != null) {
+        doubleWildcard.index();
+      }
+    }
+
+    private void addRules(@Nullable HttpMethod method, BitSet candidates) {
+      final BitSet rules = method != null ? byMethod.get(method) : null;
+      if (rules != null) {
+        candidates.or(rules);
+      } else if (anyMethod != null) {
+        candidates.or(anyMethod);
+      }
+    }
+  }
+
+  /**
+   * A segment with wildcards and its node.
+   */
+  private static final class Wildcard {
+
+    private final String pattern;
+
+    private final AntPathMatcher segmentMatcher;
+
+    private final Node node = new Node();
+
+    private Wildcard(String pattern, AntPathMatcher segmentMatcher) {
+      this.pattern = pattern;
+      this.segmentMatcher = segmentMatcher;
+    }
+
+    private boolean matches(String segment) {
+      return segmentMatcher.match(pattern, segment);
+    }
+  }
+
+}
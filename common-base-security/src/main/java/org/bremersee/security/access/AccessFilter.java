@@ -0,0 +1,307 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.springframework.util.Assert.notNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.constraints.NotNull;
+import lombok.ToString;
+import org.bremersee.common.model.AccessControlEntry;
+import org.bremersee.common.model.AccessControlList;
+import org.bremersee.security.core.UserContext;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The access filter checks many access control lists against one user context. The roles, groups
+ * and the permissions are prepared only once, the access control lists are checked directly
+ * without copying them. An object passes the filter, if the user has at least one of the
+ * permissions.
+ *
+ * <p>The requested permissions are lower-cased once, when the filter is created. The permissions
+ * of an {@link Acl} are expected to be lower-case, like the {@link AclBuilder} and the
+ * {@link ImmutableAcl} build them, so each requested permission costs a single map lookup. The
+ * entries of an {@link AccessControlList} (dto) are compared case insensitive.
+ *
+ * @author Christian Bremer
+ */
+@ToString
+public class AccessFilter {
+
+  /**
+   * The constant NO_PARALLEL_PROCESSING.
+   */
+  public static final int NO_PARALLEL_PROCESSING = Integer.MAX_VALUE;
+
+  private final String userId;
+
+  private final Set<String> roles;
+
+  private final Set<String> groups;
+
+  private final String[] permissions;
+
+  private final int parallelThreshold;
+
+  private AccessFilter(
+      String userId,
+      Set<String> roles,
+      Set<String> groups,
+      String[] permissions,
+      int parallelThreshold) {
+    this.userId = userId;
+    this.roles = roles;
+    this.groups = groups;
+    this.permissions = permissions;
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * Creates a new access filter for the given user context.
+   *
+   * @param userContext the user context
+   * @param permissions the permissions
+   * @return the access filter
+   */
+  public static AccessFilter of(@NotNull UserContext userContext, @Nullable String... permissions) {
+    notNull(userContext, "User context must not be null.");
+    return new AccessFilter(
+        userContext.getUserId(),
+        toSet(userContext.getRoles()),
+        toSet(userContext.getGroups()),
+        normalize(permissions),
+        NO_PARALLEL_PROCESSING);
+  }
+
+  /**
+   * Filters the given objects.
+   *
+   * @param <T> the type of the objects
+   * @param objects the objects
+   * @param aclFn the function that returns the access control list of an object
+   * @param userContext the user context
+   * @param permissions the permissions
+   * @return the objects, the user has access to
+   */
+  public static <T> List<T> filter(
+      @Nullable Collection<T> objects,
+      @NotNull Function<? super T, ? extends ReadOnlyAcl<? extends ReadOnlyAce>> aclFn,
+      @NotNull UserContext userContext,
+      @Nullable String... permissions) {
+    return of(userContext, permissions).filter(objects, aclFn);
+  }
+
+  private static Set<String> toSet(Set<String> values) {
+    if (values == null || values.isEmpty()) {
+      return Collections.emptySet();
+    }
+    return values;
+  }
+
+  private static String[] normalize(String[] permissions) {
+    if (permissions == null) {
+      return new String[0];
+    }
+    final List<String> list = new ArrayList<>(permissions.length);
+    for (String permission : permissions) {
+      if (StringUtils.hasText(permission)) {
+        final String normalized = permission.toLowerCase().intern();
+        if (!list.contains(normalized)) {
+          list.add(normalized);
+        }
+      }
+    }
+    return list.toArray(new String[0]);
+  }
+
+  /**
+   * Returns a new access filter, that processes collections with at least the given size in
+   * parallel (on the common fork join pool).
+   *
+   * @param parallelThreshold the minimum size of a collection, that will be processed in
+   *     parallel
+   * @return the access filter
+   */
+  public AccessFilter withParallelThreshold(int parallelThreshold) {
+    return new AccessFilter(
+        userId,
+        roles,
+        groups,
+        permissions,
+        Math.max(1, parallelThreshold));
+  }
+
+  /**
+   * Returns a new access filter, that expands the roles and groups of the user by the given
+   * hierarchies (see {@link AccessController#withHierarchies(PrincipalHierarchy,
+   * PrincipalHierarchy)}). The expanded sets are views of the hierarchies, they are not copied.
+   *
+   * @param roleHierarchy the role hierarchy
+   * @param groupHierarchy the group hierarchy
+   * @return the access filter
+   */
+  public AccessFilter withHierarchies(
+      @Nullable PrincipalHierarchy roleHierarchy,
+      @Nullable PrincipalHierarchy groupHierarchy) {
+    if (roleHierarchy == null && groupHierarchy == null) {
+      return this;
+    }
+    return new AccessFilter(
+        userId,
+        roleHierarchy != null ? toSet(roleHierarchy.expand(roles)) : roles,
+        groupHierarchy != null ? toSet(groupHierarchy.expand(groups)) : groups,
+        permissions,
+        parallelThreshold);
+  }
+
+  /**
+   * Filters the given objects.
+   *
+   * @param <T> the type of the objects
+   * @param objects the objects
+   * @param aclFn the function that returns the access control list of an object
+   * @return the objects, the user has access to
+   */
+  public <T> List<T> filter(
+      @Nullable Collection<T> objects,
+      @NotNull Function<? super T, ? extends ReadOnlyAcl<? extends ReadOnlyAce>> aclFn) {
+
+    notNull(aclFn, "Acl function must not be null.");
+    if (objects == null || objects.isEmpty() || permissions.length == 0) {
+      return new ArrayList<>();
+    }
+    if (objects.size() >= parallelThreshold) {
+      return objects.parallelStream()
+          .filter(obj -> test(aclFn.apply(obj)))
+          .collect(Collectors.toList());
+    }
+    final List<T> result = new ArrayList<>(objects.size());
+    for (T obj : objects) {
+      if (test(aclFn.apply(obj))) {
+        result.add(obj);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Determines whether the user has at least one of the permissions. The permissions of the
+   * access control list must be lower-case.
+   *
+   * @param acl the access control list
+   * @return {@code true} if the user has access, otherwise {@code false}
+   */
+  public boolean test(@Nullable ReadOnlyAcl<? extends ReadOnlyAce> acl) {
+    if (acl == null || permissions.length == 0) {
+      return false;
+    }
+    if (userId != null && userId.equals(acl.getOwner())) {
+      return true;
+    }
+    final Map<String, ? extends ReadOnlyAce> entryMap = acl.entryMap();
+    if (entryMap == null || entryMap.isEmpty()) {
+      return false;
+    }
+    for (String permission : permissions) {
+      if (grants(entryMap.get(permission))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean grants(ReadOnlyAce ace) {
+    return ace != null
+        && (ace.isGuest()
+        || (userId != null && ace.getUsers().contains(userId))
+        || intersects(ace.getRoles(), roles)
+        || intersects(ace.getGroups(), groups));
+  }
+
+  /**
+   * Determines whether the user has at least one of the permissions.
+   *
+   * @param acl the access control list (dto)
+   * @return {@code true} if the user has access, otherwise {@code false}
+   */
+  public boolean test(@Nullable AccessControlList acl) {
+    if (acl == null || permissions.length == 0) {
+      return false;
+    }
+    if (userId != null && userId.equals(acl.getOwner())) {
+      return true;
+    }
+    if (acl.getEntries() == null) {
+      return false;
+    }
+    for (AccessControlEntry entry : acl.getEntries()) {
+      if (entry != null
+          && isRequested(entry.getPermission())
+          && (Boolean.TRUE.equals(entry.getGuest())
+          || (userId != null && contains(entry.getUsers(), userId))
+          || intersects(entry.getRoles(), roles)
+          || intersects(entry.getGroups(), groups))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isRequested(String permission) {
+    if (permission != null) {
+      for (String requested : permissions) {
+        if (requested.equalsIgnoreCase(permission)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean contains(Collection<String> values, String value) {
+    return values != null && values.contains(value);
+  }
+
+  private static boolean intersects(Collection<String> values, Set<String> indexed) {
+    if (values == null || values.isEmpty() || indexed.isEmpty()) {
+      return false;
+    }
+    if (values instanceof Set && values.size() > indexed.size()) {
+      for (String value : indexed) {
+        if (values.contains(value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    for (String value : values) {
+      if (value != null && indexed.contains(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -156,6 +156,22 @@ public interface AccessTokenCache {
      */
     Builder withKeyPrefix(String keyPrefix);
 
+    /**
+     * With maximum size of the internal cache, that is used, if no external cache is given.
+     *
+     * @param maximumSize the maximum size
+     * @return the builder
+     */
+    Builder withInternalCacheMaximumSize(int maximumSize);
+
+    /**
+     * With sweep interval of the internal cache, that is used, if no external cache is given.
+     *
+     * @param sweepInterval the sweep interval
+     * @return the builder
+     */
+    Builder withInternalCacheSweepInterval(Duration sweepInterval);
+
     /**
      * Build access token cache.
      *
@@ -174,6 +190,10 @@ public interface AccessTokenCache {
 
       private String keyPrefix;
 
+      private int internalCacheMaximumSize = InMemoryAccessTokenCache.DEFAULT_MAXIMUM_SIZE;
+
+      private Duration internalCacheSweepInterval = InMemoryAccessTokenCache.DEFAULT_SWEEP_INTERVAL;
+
       @Override
       public Builder withExternalCache(Cache externalCache) {
         this.externalCache = externalCache;
@@ -192,9 +212,26 @@ public interface AccessTokenCache {
         return this;
       }
 
+      @Override
+      public Builder withInternalCacheMaximumSize(int maximumSize) {
+        this.internalCacheMaximumSize = maximumSize;
+        return this;
+      }
+
+      @Override
+      public Builder withInternalCacheSweepInterval(Duration sweepInterval) {
+        this.internalCacheSweepInterval = sweepInterval;
+        return this;
+      }
+
       @Override
       public AccessTokenCache build() {
-        return new AccessTokenCacheImpl(externalCache, expirationTimeThreshold, keyPrefix);
+        return new AccessTokenCacheImpl(
+            externalCache,
+            expirationTimeThreshold,
+            keyPrefix,
+            internalCacheMaximumSize,
+            internalCacheSweepInterval);
       }
     }
   }
@@ -19,27 +19,23 @@ package org.bremersee.security.authentication;
 import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.function.BiFunction;
 import javax.validation.constraints.NotNull;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cache.Cache;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.util.StringUtils;
 
 /**
- * The access token cache implementation.
+ * The access token cache implementation. If no external cache is given, the access tokens are
+ * stored in an {@link InMemoryAccessTokenCache}.
  *
  * @author Christian Bremer
  */
 @Slf4j
 public class AccessTokenCacheImpl implements AccessTokenCache, DisposableBean {
 
-  private Timer internalCacheTimer;
+  private final InMemoryAccessTokenCache internalCache;
 
   private final Cache cache;
 
@@ -47,7 +43,6 @@ public class AccessTokenCacheImpl implements AccessTokenCache, DisposableBean {
 
   private final String keyPrefix;
 
-  @Setter
   @NotNull
   private BiFunction<String, Duration, Boolean> expiredBiFn = AccessTokenCache::isExpired;
 
@@ -90,33 +85,58 @@ public class AccessTokenCacheImpl implements AccessTokenCache, DisposableBean {
       Cache cache,
       Duration expirationTimeThreshold,
       String keyPrefix) {
+    this(
+        cache,
+        expirationTimeThreshold,
+        keyPrefix,
+        InMemoryAccessTokenCache.DEFAULT_MAXIMUM_SIZE,
+        InMemoryAccessTokenCache.DEFAULT_SWEEP_INTERVAL);
+  }
+
+  /**
+   * Instantiates a new access token cache.
+   *
+   * @param cache the cache
+   * @param expirationTimeThreshold the expiration time threshold
+   * @param keyPrefix the key prefix
+   * @param internalCacheMaximumSize the maximum size of the internal cache
+   * @param internalCacheSweepInterval the sweep interval of the internal cache
+   */
+  public AccessTokenCacheImpl(
+      Cache cache,
+      Duration expirationTimeThreshold,
+      String keyPrefix,
+      int internalCacheMaximumSize,
+      Duration internalCacheSweepInterval) {
+    this.expirationTimeThreshold = Objects
+        .requireNonNullElseGet(expirationTimeThreshold, () -> Duration.ofSeconds(20L));
+    this.keyPrefix = keyPrefix;
     if (cache != null) {
       log.info("Creating access token cache with given cache.");
       this.cache = cache;
+      this.internalCache = null;
     } else {
       log.info("Creating access token cache with internal in memory cache.");
-      this.cache = createInternalCache();
+      this.cache = null;
+      this.internalCache = new InMemoryAccessTokenCache(
+          this.expirationTimeThreshold,
+          keyPrefix,
+          internalCacheMaximumSize,
+          internalCacheSweepInterval);
     }
-    this.expirationTimeThreshold = Objects
-        .requireNonNullElseGet(expirationTimeThreshold, () -> Duration.ofSeconds(20L));
-    this.keyPrefix = keyPrefix;
   }
 
-  private ConcurrentMapCache createInternalCache() {
-    final long period = 1000L * 60L * 30L;
-    ConcurrentMapCache internalCache = new ConcurrentMapCache(CACHE_NAME);
-    internalCacheTimer = new Timer();
-    internalCacheTimer.schedule(new TimerTask() {
-      @Override
-      public void run() {
-        Set<Object> keys = internalCache.getNativeCache().keySet();
-        log.trace("Removing obsolete jwt entries from internal cache (sze = {}).", keys.size());
-        keys.forEach(key -> findAccessToken(String.valueOf(key))
-            .filter(token -> expiredBiFn.apply(token, expirationTimeThreshold))
-            .ifPresent(token -> internalCache.evict(key)));
-      }
-    }, period, period);
-    return internalCache;
+  /**
+   * Sets the function, that decides whether an access token is expired. The internal cache uses
+   * it only for access tokens without expiration time.
+   *
+   * @param expiredBiFn the expired function
+   */
+  public void setExpiredBiFn(@NotNull BiFunction<String, Duration, Boolean> expiredBiFn) {
+    this.expiredBiFn = expiredBiFn;
+    if (internalCache != null) {
+      internalCache.setExpiredBiFn(expiredBiFn);
+    }
   }
 
   private String addKeyPrefix(String givenKey) {
@@ -128,6 +148,9 @@ public class AccessTokenCacheImpl implements AccessTokenCache, DisposableBean {
 
   @Override
   public Optional<String> findAccessToken(String key) {
+    if (internalCache != null) {
+      return internalCache.findAccessToken(key);
+    }
     try {
       return Optional.ofNullable(cache.get(addKeyPrefix(key), String.class))
           .filter(token -> !expiredBiFn.apply(token, expirationTimeThreshold));
@@ -140,6 +163,10 @@ public class AccessTokenCacheImpl implements AccessTokenCache, DisposableBean {
 
   @Override
   public void putAccessToken(String key, String accessToken) {
+    if (internalCache != null) {
+      internalCache.putAccessToken(key, accessToken);
+      return;
+    }
     try {
       cache.put(addKeyPrefix(key), accessToken);
 
@@ -150,15 +177,15 @@ public class AccessTokenCacheImpl implements AccessTokenCache, DisposableBean {
 
   @Override
   public void destroy() {
-    if (internalCacheTimer != null) {
-      internalCacheTimer.cancel();
+    if (internalCache != null) {
+      internalCache.destroy();
     }
   }
 
   @Override
   public String toString() {
     return "AccessTokenCacheImpl {cache = "
-        + (internalCacheTimer != null ? "INTERNAL" : "EXTERNAL")
+        + (internalCache != null ? "INTERNAL" : "EXTERNAL")
         + ", keyPrefix = " + keyPrefix
         + ", expirationTimeThreshold (in secs) = " + expirationTimeThreshold.toSeconds()
         + '}';
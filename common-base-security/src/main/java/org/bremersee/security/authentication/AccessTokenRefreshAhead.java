@@ -0,0 +1,203 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+/**
+ * The refresh ahead policy of cached access tokens. An access token, that is found in the cache,
+ * is due for renewal, when the configured fraction of its lifetime (from issue time to expiration
+ * time) has elapsed. A random jitter moves the renewal time a little bit forward, so that not all
+ * instances renew the same token at the same time. Only access tokens, that are used, are
+ * renewed.
+ *
+ * <p>The renewal time is computed once per access token (the token is parsed only when it is
+ * seen the first time). The retriever, that renews the token in the background, must call
+ * {@link #refreshFailed(String)}, if the renewal fails, so that it can be tried again.
+ *
+ * @author Christian Bremer
+ */
+@Slf4j
+public class AccessTokenRefreshAhead {
+
+  /**
+   * The default lifetime fraction.
+   */
+  public static final double DEFAULT_LIFETIME_FRACTION = 0.75;
+
+  /**
+   * The default jitter.
+   */
+  public static final double DEFAULT_JITTER = 0.1;
+
+  private static final int MAXIMUM_SIZE = 10000;
+
+  private static final long EVICTION_INTERVAL_MILLIS = 1000L;
+
+  private static final long RETRY_DELAY_MILLIS = 5000L;
+
+  private final Map<String, Deadline> deadlines = new ConcurrentHashMap<>();
+
+  private volatile long nextEvictionAt;
+
+  private final double lifetimeFraction;
+
+  private final double jitter;
+
+  /**
+   * Instantiates a new refresh ahead policy with default values.
+   */
+  public AccessTokenRefreshAhead() {
+    this(DEFAULT_LIFETIME_FRACTION, DEFAULT_JITTER);
+  }
+
+  /**
+   * Instantiates a new refresh ahead policy.
+   *
+   * @param lifetimeFraction the fraction of the lifetime, after which the access token is
+   *     renewed (a value greater than 0 and less or equal to 1)
+   * @param jitter the maximum fraction of the lifetime, by which the renewal is moved forward
+   *     randomly (a value greater or equal to 0 and less than the lifetime fraction)
+   */
+  public AccessTokenRefreshAhead(double lifetimeFraction, double jitter) {
+    Assert.isTrue(lifetimeFraction > 0. && lifetimeFraction <= 1.,
+        "Lifetime fraction must be greater than 0 and less or equal to 1.");
+    Assert.isTrue(jitter >= 0. && jitter < lifetimeFraction,
+        "Jitter must be greater or equal to 0 and less than the lifetime fraction.");
+    this.lifetimeFraction = lifetimeFraction;
+    this.jitter = jitter;
+  }
+
+  /**
+   * Determines whether the given cached access token is due for renewal. If it is, the renewal
+   * is claimed by the caller, so that all other callers get {@code false} until the renewal
+   * fails or a new access token is found in the cache.
+   *
+   * @param cacheKey the cache key
+   * @param accessToken the cached access token
+   * @return {@code true} if the caller should renew the access token, otherwise {@code false}
+   */
+  public boolean isRefreshDue(String cacheKey, String accessToken) {
+    final long now = System.currentTimeMillis();
+    Deadline deadline = deadlines.get(cacheKey);
+    if (deadline == null || !deadline.accessToken.equals(accessToken)) {
+      if (deadline == null && deadlines.size() >= MAXIMUM_SIZE && !evictExpired(now)) {
+        log.debug("Too many access tokens, access token is not renewed ahead.");
+        return false;
+      }
+      deadline = deadlines.merge(
+          cacheKey,
+          deadline(accessToken),
+          (current, value) -> current.accessToken.equals(accessToken) ? current : value);
+    }
+    return deadline.refreshAt <= now
+        && deadlines.replace(cacheKey, deadline, deadline.claimed());
+  }
+
+  /**
+   * Removes the deadlines of expired access tokens. The deadlines are scanned at most once per
+   * eviction interval, so that a full map of valid access tokens doesn't cause a scan on every
+   * call.
+   *
+   * @param now the current time in millis
+   * @return {@code true} if there is space for a new deadline, otherwise {@code false}
+   */
+  private boolean evictExpired(long now) {
+    if (now >= nextEvictionAt) {
+      nextEvictionAt = now + EVICTION_INTERVAL_MILLIS;
+      deadlines.values().removeIf(deadline -> deadline.expiresAt <= now);
+    }
+    return deadlines.size() < MAXIMUM_SIZE;
+  }
+
+  /**
+   * Releases the claimed renewal of the access token with the given cache key, so that it can be
+   * tried again. The next renewal is due after a short delay (at most half of the remaining
+   * lifetime of the access token), so that a failing token endpoint is not called on every
+   * request.
+   *
+   * @param cacheKey the cache key
+   */
+  public void refreshFailed(String cacheKey) {
+    final long now = System.currentTimeMillis();
+    deadlines.computeIfPresent(cacheKey, (key, deadline) -> deadline.retryAt(
+        now + Math.min(Math.max(deadline.expiresAt - now, 0L) / 2L, RETRY_DELAY_MILLIS)));
+  }
+
+  private Deadline deadline(String accessToken) {
+    try {
+      final JWTClaimsSet claims = AccessTokenCache.parse(accessToken).getJWTClaimsSet();
+      final Date expirationTime = claims != null ? claims.getExpirationTime() : null;
+      if (expirationTime == null) {
+        return new Deadline(accessToken, Long.MAX_VALUE, Long.MAX_VALUE);
+      }
+      final long expiresAt = expirationTime.getTime();
+      final long issuedAt = claims.getIssueTime() != null
+          ? claims.getIssueTime().getTime()
+          : System.currentTimeMillis();
+      final double fraction = lifetimeFraction
+          - (jitter > 0. ? ThreadLocalRandom.current().nextDouble(jitter) : 0.);
+      return new Deadline(
+          accessToken, issuedAt + (long) ((expiresAt - issuedAt) * fraction), expiresAt);
+
+    } catch (ParseException | RuntimeException e) {
+      log.debug("Access token cannot be renewed ahead, because it has no expiration time.", e);
+      return new Deadline(accessToken, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AccessTokenRefreshAhead {lifetimeFraction = " + lifetimeFraction
+        + ", jitter = " + jitter
+        + '}';
+  }
+
+  /**
+   * The renewal time of an access token.
+   */
+  private static final class Deadline {
+
+    private final String accessToken;
+
+    private final long refreshAt;
+
+    private final long expiresAt;
+
+    private Deadline(String accessToken, long refreshAt, long expiresAt) {
+      this.accessToken = accessToken;
+      this.refreshAt = refreshAt;
+      this.expiresAt = expiresAt;
+    }
+
+    private Deadline claimed() {
+      return retryAt(Long.MAX_VALUE);
+    }
+
+    private Deadline retryAt(long refreshAt) {
+      return new Deadline(accessToken, refreshAt, expiresAt);
+    }
+  }
+
+}
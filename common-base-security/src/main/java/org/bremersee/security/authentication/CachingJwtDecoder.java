@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bremersee.security.authentication;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.util.Assert;
+
+/**
+ * A jwt decoder, that caches the decoded jwts, so that the signature of a token is verified only
+ * once and not on every request.
+ *
+ * @author Christian Bremer
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+  private final JwtDecoder delegate;
+
+  private final JwtDecodeCache cache;
+
+  /**
+   * Instantiates a new caching jwt decoder.
+   *
+   * @param delegate the delegate
+   */
+  public CachingJwtDecoder(JwtDecoder delegate) {
+    this(delegate, new JwtDecodeCache());
+  }
+
+  /**
+   * Instantiates a new caching jwt decoder.
+   *
+   * @param delegate the delegate
+   * @param cache the cache
+   */
+  public CachingJwtDecoder(JwtDecoder delegate, JwtDecodeCache cache) {
+    Assert.notNull(delegate, "Jwt decoder must be present.");
+    Assert.notNull(cache, "Jwt decode cache must be present.");
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the cache.
+   *
+   * @return the cache
+   */
+  public JwtDecodeCache getCache() {
+    return cache;
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    Jwt jwt = cache.get(token);
+    if (jwt == null) {
+      jwt = delegate.decode(token);
+      cache.put(token, jwt);
+    }
+    return jwt;
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bremersee.security.authentication;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+
+/**
+ * A json path, that is compiled once and evaluated against the claims of a jwt without
+ * serializing them. Simple dotted paths (like {@code $.realm_access.roles}) are evaluated by
+ * walking the claims map; all other expressions are evaluated by {@link JsonPath}.
+ *
+ * @author Christian Bremer
+ */
+final class CompiledJsonPath {
+
+  private static final Configuration jsonPathConf = Configuration.builder()
+      .options(Option.SUPPRESS_EXCEPTIONS)
+      .build();
+
+  private static final Pattern SIMPLE_PATH = Pattern
+      .compile("^\\$(\\.[A-Za-z_][A-Za-z0-9_\\-]*)+$");
+
+  private final String path;
+
+  private final String[] segments;
+
+  private final JsonPath jsonPath;
+
+  private CompiledJsonPath(String path) {
+    this.path = path;
+    this.segments = SIMPLE_PATH.matcher(path).matches()
+        ? path.substring(2).split("\\.")
+        : null;
+    this.jsonPath = JsonPath.compile(path);
+  }
+
+  /**
+   * Compiles the given json path.
+   *
+   * @param path the json path
+   * @return the compiled json path
+   */
+  static CompiledJsonPath compile(String path) {
+    Assert.hasText(path, "Json path must be present.");
+    return new CompiledJsonPath(path);
+  }
+
+  /**
+   * Determines whether this path is evaluated by walking the claims map.
+   *
+   * @return {@code true} if this path is a simple dotted path, otherwise {@code false}
+   */
+  boolean isSimple() {
+    return segments != null;
+  }
+
+  /**
+   * Read the value of this json path from the claims of the given jwt.
+   *
+   * @param <T> the type of the result
+   * @param jwt the jwt
+   * @param resultClass the result class
+   * @return the value or {@code null}
+   */
+  @Nullable
+  <T> T read(Jwt jwt, Class<T> resultClass) {
+    return read(jwt.getClaims(), resultClass);
+  }
+
+  /**
+   * Read the value of this json path from the given claims.
+   *
+   * @param <T> the type of the result
+   * @param claims the claims
+   * @param resultClass the result class
+   * @return the value or {@code null}
+   */
+  @Nullable
+  <T> T read(@Nullable Map<String, Object> claims, Class<T> resultClass) {
+    if (claims == null) {
+      return null;
+    }
+    if (segments != null) {
+      Object value = claims;
+      for (String segment : segments) {
+        if (!(value instanceof Map)) {
+          return null;
+        }
+        value = ((Map<?, ?>) value).get(segment);
+      }
+      if (value == null || resultClass.isInstance(value)) {
+        return resultClass.cast(value);
+      }
+      if (resultClass == String.class
+          && !(value instanceof Map) && !(value instanceof Collection)) {
+        return resultClass.cast(value.toString());
+      }
+    }
+    return JsonPath.using(jsonPathConf).parse(claims).read(jsonPath, resultClass);
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+}
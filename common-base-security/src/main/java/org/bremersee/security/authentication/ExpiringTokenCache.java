@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.bremersee.security.ExpiringCache;
+import org.springframework.lang.Nullable;
+
+/**
+ * A bounded cache of values, that are derived from a token. The key is the token value itself;
+ * a value is cached until the token expires and an expired value is never returned. If the
+ * maximum size is exceeded, the values, that expire first, are evicted (see {@link
+ * ExpiringCache}).
+ *
+ * @param <V> the type of the cached values
+ * @author Christian Bremer
+ */
+public class ExpiringTokenCache<V> {
+
+  /**
+   * The default maximum size.
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+  private final ExpiringCache<String, V> cache;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Instantiates a new expiring token cache with default maximum size.
+   */
+  public ExpiringTokenCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Instantiates a new expiring token cache.
+   *
+   * @param maximumSize the maximum size
+   */
+  public ExpiringTokenCache(int maximumSize) {
+    this.cache = new ExpiringCache<>(maximumSize);
+  }
+
+  /**
+   * Gets the cached value of the given token.
+   *
+   * @param token the token value
+   * @return the value or {@code null}, if it is not cached or expired
+   */
+  @Nullable
+  public V get(@Nullable String token) {
+    if (token == null) {
+      return null;
+    }
+    final V value = cache.get(token);
+    if (value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Gets the cached value of the given token or, if it is not present, loads and caches it.
+   *
+   * @param token the token value
+   * @param expiresAt the expiration time of the token
+   * @param loader the loader of the value
+   * @return the value
+   */
+  public V get(@Nullable String token, @Nullable Instant expiresAt, Supplier<V> loader) {
+    V value = get(token);
+    if (value == null) {
+      value = loader.get();
+      put(token, value, expiresAt);
+    }
+    return value;
+  }
+
+  /**
+   * Puts the value of the given token into the cache. Nothing is cached, if the token has no
+   * expiration time or is already expired.
+   *
+   * @param token the token value
+   * @param value the value
+   * @param expiresAt the expiration time of the token
+   */
+  public void put(@Nullable String token, @Nullable V value, @Nullable Instant expiresAt) {
+    if (expiresAt != null) {
+      cache.put(token, value, expiresAt.toEpochMilli());
+    }
+  }
+
+  /**
+   * Gets the number of cached values.
+   *
+   * @return the size
+   */
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * Removes all cached values.
+   */
+  public void clear() {
+    cache.clear();
+  }
+
+  /**
+   * Gets the number of cache hits.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Gets the number of cache misses.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + " {maximumSize = " + cache.getMaximumSize()
+        + ", size = " + cache.size()
+        + ", hits = " + hits.sum()
+        + ", misses = " + misses.sum()
+        + '}';
+  }
+
+}
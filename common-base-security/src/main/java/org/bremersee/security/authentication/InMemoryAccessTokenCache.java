@@ -0,0 +1,215 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.validation.constraints.NotNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.bremersee.security.ExpiringCache;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.StringUtils;
+
+/**
+ * The in memory access token cache. The expiration time of an access token is decoded only once,
+ * when the token is put into the cache; it is stored next to the token, so that finding an
+ * access token never parses it.
+ *
+ * <p>The entries are stored in an {@link ExpiringCache}. A scheduled sweep removes the expired
+ * entries and, if the maximum size is exceeded, the entries that expire first are evicted.
+ *
+ * @author Christian Bremer
+ */
+@Slf4j
+public class InMemoryAccessTokenCache implements AccessTokenCache, DisposableBean {
+
+  /**
+   * The default maximum size.
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+  /**
+   * The default sweep interval.
+   */
+  public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1L);
+
+  private final ExpiringCache<String, String> entries;
+
+  private final Duration expirationTimeThreshold;
+
+  private final String keyPrefix;
+
+  private final ScheduledExecutorService sweeper;
+
+  /**
+   * The function to find the expiration time of an access token. It is called only when the
+   * access token is put into the cache.
+   */
+  @Setter
+  @NotNull
+  private Function<String, Date> findExpirationTimeFn = AccessTokenCache::getExpirationTime;
+
+  /**
+   * The function to decide whether an access token without expiration time is expired. It is
+   * called only when the access token is put into the cache. The default implementation says,
+   * that such tokens are always expired.
+   */
+  @Setter
+  @NotNull
+  private BiFunction<String, Duration, Boolean> expiredBiFn = AccessTokenCache::isExpired;
+
+  /**
+   * Instantiates a new in memory access token cache with default values.
+   */
+  public InMemoryAccessTokenCache() {
+    this(null, null, DEFAULT_MAXIMUM_SIZE, DEFAULT_SWEEP_INTERVAL);
+  }
+
+  /**
+   * Instantiates a new in memory access token cache.
+   *
+   * @param expirationTimeThreshold the expiration time threshold
+   * @param keyPrefix the key prefix
+   * @param maximumSize the maximum size
+   * @param sweepInterval the sweep interval
+   */
+  public InMemoryAccessTokenCache(
+      Duration expirationTimeThreshold,
+      String keyPrefix,
+      int maximumSize,
+      Duration sweepInterval) {
+
+    this.expirationTimeThreshold = Objects
+        .requireNonNullElseGet(expirationTimeThreshold, () -> Duration.ofSeconds(20L));
+    this.keyPrefix = keyPrefix;
+    this.entries = new ExpiringCache<>(maximumSize > 0 ? maximumSize : DEFAULT_MAXIMUM_SIZE);
+    final long period = Optional.ofNullable(sweepInterval)
+        .filter(interval -> !interval.isNegative() && !interval.isZero())
+        .orElse(DEFAULT_SWEEP_INTERVAL)
+        .toMillis();
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "access-token-cache-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  private String addKeyPrefix(String givenKey) {
+    if (StringUtils.hasText(keyPrefix) && !givenKey.startsWith(keyPrefix)) {
+      return keyPrefix + givenKey;
+    }
+    return givenKey;
+  }
+
+  @Override
+  public Optional<String> findAccessToken(String key) {
+    return Optional.ofNullable(entries.get(addKeyPrefix(key)));
+  }
+
+  @Override
+  public void putAccessToken(String key, String accessToken) {
+    final long expiresAt = expiresAt(accessToken);
+    if (expiresAt <= System.currentTimeMillis()) {
+      log.debug("Access token is already expired, it won't be cached.");
+      return;
+    }
+    entries.put(addKeyPrefix(key), accessToken, expiresAt);
+  }
+
+  /**
+   * Removes the access token with the given key.
+   *
+   * @param key the key
+   */
+  public void removeAccessToken(String key) {
+    entries.remove(addKeyPrefix(key));
+  }
+
+  private long expiresAt(String accessToken) {
+    final Date expirationTime = findExpirationTime(accessToken);
+    if (expirationTime != null) {
+      return expirationTime.getTime() - expirationTimeThreshold.toMillis();
+    }
+    try {
+      return Boolean.TRUE.equals(expiredBiFn.apply(accessToken, expirationTimeThreshold))
+          ? Long.MIN_VALUE
+          : Long.MAX_VALUE;
+
+    } catch (RuntimeException e) {
+      log.debug("Access token without expiration time is treated as expired.", e);
+      return Long.MIN_VALUE;
+    }
+  }
+
+  private Date findExpirationTime(String accessToken) {
+    try {
+      return findExpirationTimeFn.apply(accessToken);
+
+    } catch (RuntimeException e) {
+      log.debug("Getting expiration time of access token failed.", e);
+      return null;
+    }
+  }
+
+  /**
+   * Removes all expired entries and evicts the entries, that expire first, if the maximum size
+   * is exceeded.
+   */
+  void sweep() {
+    try {
+      final int removed = entries.removeExpired();
+      log.trace("Removed {} expired access tokens from in memory cache (size = {}).",
+          removed, entries.size());
+
+    } catch (RuntimeException e) {
+      log.error("Removing expired access tokens from in memory cache failed.", e);
+    }
+  }
+
+  /**
+   * Returns the number of cached access tokens.
+   *
+   * @return the size
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public void destroy() {
+    sweeper.shutdownNow();
+  }
+
+  @Override
+  public String toString() {
+    return "InMemoryAccessTokenCache {keyPrefix = " + keyPrefix
+        + ", expirationTimeThreshold (in secs) = " + expirationTimeThreshold.toSeconds()
+        + ", maximumSize = " + entries.getMaximumSize()
+        + ", size = " + entries.size()
+        + '}';
+  }
+
+}
@@ -25,19 +25,28 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.util.StringUtils;
 
 /**
- * The json path jwt authentication details.
+ * The json path jwt authentication details. The preferred language and time zone of a token are
+ * cached until the token expires.
  *
  * @author Christian Bremer
  */
 public class JsonPathJwtAuthenticationDetails implements AuthenticationDetails {
 
+  private static final int CACHE_MAXIMUM_SIZE = 1000;
+
   private final Locale defaultLocale;
 
   private final TimeZone defaultTimeZone;
 
-  private final String preferredLanguageJsonPath;
+  private final CompiledJsonPath preferredLanguagePath;
+
+  private final CompiledJsonPath preferredTimeZonePath;
+
+  private final ExpiringTokenCache<Optional<Locale>> languages = new ExpiringTokenCache<>(
+      CACHE_MAXIMUM_SIZE);
 
-  private final String preferredTimeZoneJsonPath;
+  private final ExpiringTokenCache<Optional<TimeZone>> timeZones = new ExpiringTokenCache<>(
+      CACHE_MAXIMUM_SIZE);
 
   /**
    * Instantiates a new json path jwt authentication details.
@@ -54,8 +63,12 @@ public class JsonPathJwtAuthenticationDetails implements AuthenticationDetails {
       String preferredTimeZoneJsonPath) {
     this.defaultLocale = defaultLocale != null ? defaultLocale : Locale.getDefault();
     this.defaultTimeZone = defaultTimeZone != null ? defaultTimeZone : TimeZone.getDefault();
-    this.preferredLanguageJsonPath = preferredLanguageJsonPath;
-    this.preferredTimeZoneJsonPath = preferredTimeZoneJsonPath;
+    this.preferredLanguagePath = StringUtils.hasText(preferredLanguageJsonPath)
+        ? CompiledJsonPath.compile(preferredLanguageJsonPath)
+        : null;
+    this.preferredTimeZonePath = StringUtils.hasText(preferredTimeZoneJsonPath)
+        ? CompiledJsonPath.compile(preferredTimeZoneJsonPath)
+        : null;
   }
 
   @Override
@@ -71,26 +84,26 @@ public class JsonPathJwtAuthenticationDetails implements AuthenticationDetails {
   @Override
   public Optional<Locale> getPreferredLanguage(Authentication authentication) {
     return Optional.ofNullable(authentication)
-        .filter(auth -> StringUtils.hasText(preferredLanguageJsonPath)
-            && auth instanceof JwtAuthenticationToken)
+        .filter(auth -> preferredLanguagePath != null && auth instanceof JwtAuthenticationToken)
         .map(auth -> ((JwtAuthenticationToken) auth).getToken())
-        .map(JsonPathJwtParser::new)
-        .map(parser -> parser.read(preferredLanguageJsonPath, String.class))
-        .map(language -> JavaLocale.fromValue(language).toLocale());
+        .flatMap(jwt -> languages.get(
+            jwt.getTokenValue(),
+            jwt.getExpiresAt(),
+            () -> Optional.ofNullable(preferredLanguagePath.read(jwt, String.class))
+                .map(language -> JavaLocale.fromValue(language).toLocale())));
   }
 
   @Override
   public Optional<TimeZone> getPreferredTimeZone(Authentication authentication) {
-    if (!StringUtils.hasText(preferredTimeZoneJsonPath)) {
-      return Optional.empty();
-    }
     return Optional.ofNullable(authentication)
-        .filter(auth -> StringUtils.hasText(preferredTimeZoneJsonPath)
-            && auth instanceof JwtAuthenticationToken)
+        .filter(auth -> preferredTimeZonePath != null && auth instanceof JwtAuthenticationToken)
         .map(auth -> ((JwtAuthenticationToken) auth).getToken())
-        .map(JsonPathJwtParser::new)
-        .map(parser -> parser.read(preferredTimeZoneJsonPath, String.class))
-        .map(TimeZone::getTimeZone);
+        .flatMap(jwt -> timeZones.get(
+            jwt.getTokenValue(),
+            jwt.getExpiresAt(),
+            () -> Optional.ofNullable(preferredTimeZonePath.read(jwt, String.class))
+                .map(TimeZone::getTimeZone)))
+        .map(timeZone -> (TimeZone) timeZone.clone());
   }
 
 }
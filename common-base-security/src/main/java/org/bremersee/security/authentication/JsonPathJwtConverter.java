@@ -18,9 +18,12 @@ package org.bremersee.security.authentication;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -33,14 +36,27 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.util.StringUtils;
 
 /**
- * The json path jwt converter.
+ * The json path jwt converter. The json paths are compiled, when they are set.
+ *
+ * <p>The authorities and the name of a token are cached until the token expires, the granted
+ * authorities are shared across tokens. A new authentication token is created on every
+ * conversion, because it is mutable (e. g. the details are set per request).
  *
  * @author Christian Bremer
  */
-@ToString(doNotUseGetters = true)
-@EqualsAndHashCode(doNotUseGetters = true)
+@ToString(doNotUseGetters = true, exclude = {"rolesPath", "namePath", "cache"})
+@EqualsAndHashCode(doNotUseGetters = true, exclude = {"rolesPath", "namePath", "cache"})
 public class JsonPathJwtConverter implements Converter<Jwt, JwtAuthenticationToken> {
 
+  /**
+   * The default maximum number of tokens, whose authorities and name are cached.
+   */
+  public static final int DEFAULT_CACHE_MAXIMUM_SIZE = 1000;
+
+  private static final int MAXIMUM_INTERNED_AUTHORITIES = 10000;
+
+  private static final Map<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
   private String rolesJsonPath = "$.scope";
 
   private boolean rolesValueList = false;
@@ -51,6 +67,13 @@ public class JsonPathJwtConverter implements Converter<Jwt, JwtAuthenticationTok
 
   private String nameJsonPath = "$.sub";
 
+  private CompiledJsonPath rolesPath = CompiledJsonPath.compile(rolesJsonPath);
+
+  private CompiledJsonPath namePath = CompiledJsonPath.compile(nameJsonPath);
+
+  private ExpiringTokenCache<Conversion> cache = new ExpiringTokenCache<>(
+      DEFAULT_CACHE_MAXIMUM_SIZE);
+
   /**
    * Sets roles json path.
    *
@@ -58,7 +81,9 @@ public class JsonPathJwtConverter implements Converter<Jwt, JwtAuthenticationTok
    */
   public void setRolesJsonPath(String rolesJsonPath) {
     if (StringUtils.hasText(rolesJsonPath)) {
+      this.rolesPath = CompiledJsonPath.compile(rolesJsonPath);
       this.rolesJsonPath = rolesJsonPath;
+      clearCache();
     }
   }
 
@@ -69,6 +94,7 @@ public class JsonPathJwtConverter implements Converter<Jwt, JwtAuthenticationTok
    */
   public void setRolesValueList(boolean rolesValueList) {
     this.rolesValueList = rolesValueList;
+    clearCache();
   }
 
   /**
@@ -79,6 +105,7 @@ public class JsonPathJwtConverter implements Converter<Jwt, JwtAuthenticationTok
   public void setRolesValueSeparator(String rolesValueSeparator) {
     if (rolesValueSeparator != null) {
       this.rolesValueSeparator = rolesValueSeparator;
+      clearCache();
     }
   }
 
@@ -90,6 +117,7 @@ public class JsonPathJwtConverter implements Converter<Jwt, JwtAuthenticationTok
   public void setRolePrefix(String rolePrefix) {
     if (rolePrefix != null) {
       this.rolePrefix = rolePrefix;
+      clearCache();
     }
   }
 
@@ -100,17 +128,44 @@ public class JsonPathJwtConverter implements Converter<Jwt, JwtAuthenticationTok
    */
   public void setNameJsonPath(String nameJsonPath) {
     if (StringUtils.hasText(nameJsonPath)) {
+      this.namePath = CompiledJsonPath.compile(nameJsonPath);
       this.nameJsonPath = nameJsonPath;
+      clearCache();
     }
   }
 
+  private void clearCache() {
+    final ExpiringTokenCache<Conversion> conversions = cache;
+    if (conversions != null) {
+      conversions.clear();
+    }
+  }
+
+  /**
+   * Sets the maximum number of tokens, whose authorities and name are cached until the tokens
+   * expire. A value less or equal to zero disables the cache.
+   *
+   * @param cacheMaximumSize the cache maximum size
+   */
+  public void setCacheMaximumSize(int cacheMaximumSize) {
+    this.cache = cacheMaximumSize > 0 ? new ExpiringTokenCache<>(cacheMaximumSize) : null;
+  }
+
   @NonNull
   @Override
   public JwtAuthenticationToken convert(@NonNull final Jwt source) {
-    final JsonPathJwtParser parser = new JsonPathJwtParser(source);
+    final ExpiringTokenCache<Conversion> conversions = cache;
+    final Conversion conversion = conversions != null
+        ? conversions.get(source.getTokenValue(), source.getExpiresAt(), () -> doConvert(source))
+        : doConvert(source);
+    return new JwtAuthenticationToken(source, conversion.authorities, conversion.name);
+  }
+
+  private Conversion doConvert(final Jwt source) {
+    final Map<String, Object> claims = source.getClaims();
     final List<String> roleValues;
     if (rolesValueList) {
-      final List<?> rawList = parser.read(rolesJsonPath, List.class);
+      final List<?> rawList = rolesPath.read(claims, List.class);
       roleValues = rawList == null
           ? Collections.emptyList()
           : rawList.stream()
@@ -118,23 +173,51 @@ public class JsonPathJwtConverter implements Converter<Jwt, JwtAuthenticationTok
               .map(Object::toString)
               .collect(Collectors.toList());
     } else {
-      final String roleValue = parser.read(rolesJsonPath, String.class);
+      final String roleValue = rolesPath.read(claims, String.class);
       if (StringUtils.hasText(roleValue)) {
         roleValues = Arrays.asList(roleValue.split(rolesValueSeparator));
       } else {
         roleValues = Collections.emptyList();
       }
     }
-    final Set<GrantedAuthority> authorities = roleValues.stream()
-        .filter(roleName -> roleName.trim().length() > 0)
-        .map(roleName -> roleName.startsWith(rolePrefix) ? roleName : rolePrefix + roleName)
-        .map(SimpleGrantedAuthority::new)
-        .collect(Collectors.toSet());
-    final String name = parser.read(nameJsonPath, String.class);
-    return new JwtAuthenticationToken(
-        source,
-        authorities,
+    final Set<GrantedAuthority> authorities = new HashSet<>();
+    for (String roleName : roleValues) {
+      if (roleName.trim().length() > 0) {
+        authorities.add(authority(roleName.startsWith(rolePrefix)
+            ? roleName
+            : rolePrefix + roleName));
+      }
+    }
+    final String name = namePath.read(claims, String.class);
+    return new Conversion(
+        Collections.unmodifiableSet(authorities),
         StringUtils.hasText(name) ? name : source.getSubject());
   }
 
+  private static GrantedAuthority authority(String role) {
+    final GrantedAuthority authority = AUTHORITIES.get(role);
+    if (authority != null) {
+      return authority;
+    }
+    if (AUTHORITIES.size() >= MAXIMUM_INTERNED_AUTHORITIES) {
+      return new SimpleGrantedAuthority(role);
+    }
+    return AUTHORITIES.computeIfAbsent(role, SimpleGrantedAuthority::new);
+  }
+
+  /**
+   * The result of a conversion, that doesn't depend on the request.
+   */
+  private static final class Conversion {
+
+    private final Set<GrantedAuthority> authorities;
+
+    private final String name;
+
+    private Conversion(Set<GrantedAuthority> authorities, String name) {
+      this.authorities = authorities;
+      this.name = name;
+    }
+  }
+
 }
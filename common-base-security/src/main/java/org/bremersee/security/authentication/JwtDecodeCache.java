@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * The cache of decoded (and verified) jwts. The key is the token value itself, so that a cached
+ * jwt is only returned for exactly the same token; the lookup uses the (fast, non cryptographic)
+ * hash code of the token value. A jwt is cached until it expires, jwts without expiration time
+ * are not cached. An expired jwt is never returned.
+ *
+ * <p>The cache is bounded. If the maximum size is exceeded, the jwts, that expire first, are
+ * evicted.
+ *
+ * @author Christian Bremer
+ */
+public class JwtDecodeCache extends ExpiringTokenCache<Jwt> {
+
+  /**
+   * Instantiates a new jwt decode cache with default maximum size.
+   */
+  public JwtDecodeCache() {
+    super();
+  }
+
+  /**
+   * Instantiates a new jwt decode cache.
+   *
+   * @param maximumSize the maximum size
+   */
+  public JwtDecodeCache(int maximumSize) {
+    super(maximumSize);
+  }
+
+  /**
+   * Puts the decoded jwt into the cache.
+   *
+   * @param token the token value
+   * @param jwt the decoded jwt
+   */
+  public void put(@Nullable String token, @Nullable Jwt jwt) {
+    put(token, jwt, jwt != null ? jwt.getExpiresAt() : null);
+  }
+
+}
@@ -17,10 +17,26 @@
 package org.bremersee.security.authentication;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
 import net.minidev.json.JSONObject;
 import net.minidev.json.JSONValue;
 import org.bremersee.exception.AccessTokenRetrieverAuthenticationException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -28,21 +44,60 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
 /**
- * The rest template access token retriever.
+ * The rest template access token retriever. Concurrent retrievals of the same access token (same
+ * cache key) are coalesced: only one request is sent to the token endpoint, the other callers
+ * wait for its result.
+ *
+ * <p>If a {@link AccessTokenRefreshAhead refresh ahead policy} is set, cached access tokens,
+ * that are due for renewal, are renewed in the background, so that the callers don't have to
+ * wait for the token endpoint.
+ *
+ * <p>If a {@link TokenEndpointGuard token endpoint guard} is set, the number of concurrent
+ * requests to the token endpoint is limited and they fail fast, while the token endpoint is
+ * down.
  *
  * @author Christian Bremer
  */
-public class RestTemplateAccessTokenRetriever implements AccessTokenRetriever<String> {
+@Slf4j
+public class RestTemplateAccessTokenRetriever
+    implements AccessTokenRetriever<String>, DisposableBean {
+
+  /**
+   * The default time a caller waits for the result of a concurrent retrieval of the same access
+   * token.
+   */
+  public static final Duration DEFAULT_AWAIT_TIMEOUT = Duration.ofSeconds(15L);
+
+  private static final int REFRESH_THREADS = 2;
+
+  private static final int REFRESH_QUEUE_CAPACITY = 64;
 
   private final RestTemplate restTemplate;
 
   private final AccessTokenCache accessTokenCache;
 
+  private final Map<String, CompletableFuture<String>> inFlightRequests
+      = new ConcurrentHashMap<>();
+
+  private AccessTokenRefreshAhead refreshAhead;
+
+  private TokenEndpointGuard tokenEndpointGuard;
+
+  private Duration awaitTimeout = DEFAULT_AWAIT_TIMEOUT;
+
+  private ExecutorService defaultRefreshExecutor;
+
+  private Executor refreshExecutor;
+
+  private boolean destroyed;
+
   /**
    * Instantiates a new rest template access token retriever.
    *
@@ -67,36 +122,215 @@ public class RestTemplateAccessTokenRetriever implements AccessTokenRetriever<St
     this.accessTokenCache = accessTokenCache;
   }
 
+  /**
+   * Sets the refresh ahead policy. If it is set (and there is an access token cache), a cached
+   * access token, that is due for renewal, is returned and renewed in the background.
+   *
+   * @param refreshAhead the refresh ahead policy, {@code null} disables refresh ahead
+   */
+  public void setRefreshAhead(@Nullable AccessTokenRefreshAhead refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  /**
+   * Sets the executor, that renews the access tokens in the background. The default executor
+   * is created, when the first access token is renewed; it uses at most two daemon threads, that
+   * are created on demand, and rejects renewals, if too many are waiting. An executor, that is set
+   * here, is not shut down by {@link #destroy()}.
+   *
+   * @param refreshExecutor the refresh executor
+   */
+  public synchronized void setRefreshExecutor(@NonNull Executor refreshExecutor) {
+    Assert.notNull(refreshExecutor, "Refresh executor must be present.");
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  private synchronized Executor getRefreshExecutor() {
+    if (refreshExecutor == null) {
+      if (destroyed) {
+        throw new RejectedExecutionException("Access token retriever is destroyed.");
+      }
+      defaultRefreshExecutor = createRefreshExecutor();
+      refreshExecutor = defaultRefreshExecutor;
+    }
+    return refreshExecutor;
+  }
+
+  /**
+   * Sets the time a caller waits for the result of a concurrent retrieval of the same access
+   * token. It should be the connect timeout plus the read timeout of the rest template, because
+   * the concurrent retrieval doesn't take longer.
+   *
+   * @param awaitTimeout the await timeout
+   */
+  public void setAwaitTimeout(@NonNull Duration awaitTimeout) {
+    Assert.isTrue(
+        awaitTimeout != null && !awaitTimeout.isNegative() && !awaitTimeout.isZero(),
+        "Await timeout must be positive.");
+    this.awaitTimeout = awaitTimeout;
+  }
+
+  /**
+   * Sets the token endpoint guard.
+   *
+   * @param tokenEndpointGuard the token endpoint guard, {@code null} disables it
+   */
+  public void setTokenEndpointGuard(@Nullable TokenEndpointGuard tokenEndpointGuard) {
+    this.tokenEndpointGuard = tokenEndpointGuard;
+  }
+
+  /**
+   * Shuts down the default executor, that renews the access tokens in the background.
+   */
+  @Override
+  public synchronized void destroy() {
+    destroyed = true;
+    if (defaultRefreshExecutor != null) {
+      defaultRefreshExecutor.shutdownNow();
+    }
+  }
+
+  private static ExecutorService createRefreshExecutor() {
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        REFRESH_THREADS,
+        REFRESH_THREADS,
+        60L,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+        runnable -> {
+          Thread thread = new Thread(runnable, "access-token-refresher");
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   @Override
   public String retrieveAccessToken(AccessTokenRetrieverProperties input) {
     final String cacheKey = input.createCacheKeyHashed();
-    return Optional.ofNullable(accessTokenCache)
-        .flatMap(cache -> cache.findAccessToken(cacheKey))
-        .orElseGet(() -> {
-          final HttpHeaders headers = new HttpHeaders();
-          headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-          input.getBasicAuthProperties()
-              .ifPresent(basicAuthProperties -> headers.setBasicAuth(
-                  basicAuthProperties.getUsername(),
-                  basicAuthProperties.getPassword()));
-          final HttpEntity<?> request = new HttpEntity<>(input.createBody(), headers);
-          final String response = restTemplate.exchange(
-                  input.getTokenEndpoint(),
-                  HttpMethod.POST,
-                  request,
-                  String.class)
-              .getBody();
-          final JSONObject json = (JSONObject) JSONValue.parse(response);
-          final String accessToken = json.getAsString("access_token");
-          if (StringUtils.hasText(accessToken)) {
-            if (accessTokenCache != null) {
-              accessTokenCache.putAccessToken(cacheKey, accessToken);
-            }
-            return accessToken;
+    return findAccessToken(cacheKey)
+        .map(accessToken -> refreshAheadIfDue(cacheKey, input, accessToken))
+        .orElseGet(() -> coalesce(cacheKey, () -> findAccessToken(cacheKey)
+            .orElseGet(() -> requestAccessToken(cacheKey, input))));
+  }
+
+  private String refreshAheadIfDue(
+      String cacheKey,
+      AccessTokenRetrieverProperties input,
+      String accessToken) {
+
+    final AccessTokenRefreshAhead policy = refreshAhead;
+    final TokenEndpointGuard guard = tokenEndpointGuard;
+    if (policy != null
+        && (guard == null || !guard.isOpen())
+        && policy.isRefreshDue(cacheKey, accessToken)) {
+      try {
+        getRefreshExecutor().execute(() -> {
+          try {
+            coalesce(cacheKey, () -> requestAccessToken(cacheKey, input));
+
+          } catch (RuntimeException e) {
+            log.warn("Renewing access token in the background failed.", e);
+            policy.refreshFailed(cacheKey);
           }
-          throw new AccessTokenRetrieverAuthenticationException(HttpStatus.UNAUTHORIZED,
-              "There is no access token in the response: " + accessToken);
         });
+
+      } catch (RejectedExecutionException e) {
+        log.warn("Renewing access token in the background was rejected.", e);
+        policy.refreshFailed(cacheKey);
+      }
+    }
+    return accessToken;
+  }
+
+  private String coalesce(String cacheKey, Supplier<String> request) {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final CompletableFuture<String> inFlightRequest = inFlightRequests
+        .putIfAbsent(cacheKey, future);
+    if (inFlightRequest != null) {
+      return await(inFlightRequest);
+    }
+    try {
+      final String accessToken = request.get();
+      future.complete(accessToken);
+      return accessToken;
+
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+
+    } finally {
+      inFlightRequests.remove(cacheKey, future);
+    }
+  }
+
+  private Optional<String> findAccessToken(String cacheKey) {
+    return Optional.ofNullable(accessTokenCache)
+        .flatMap(cache -> cache.findAccessToken(cacheKey));
+  }
+
+  private String requestAccessToken(String cacheKey, AccessTokenRetrieverProperties input) {
+    final HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+    input.getBasicAuthProperties()
+        .ifPresent(basicAuthProperties -> headers.setBasicAuth(
+            basicAuthProperties.getUsername(),
+            basicAuthProperties.getPassword()));
+    final HttpEntity<?> request = new HttpEntity<>(input.createBody(), headers);
+    final JSONObject json = (JSONObject) JSONValue.parse(exchange(input, request));
+    final String accessToken = json.getAsString("access_token");
+    if (StringUtils.hasText(accessToken)) {
+      if (accessTokenCache != null) {
+        accessTokenCache.putAccessToken(cacheKey, accessToken);
+      }
+      return accessToken;
+    }
+    throw new AccessTokenRetrieverAuthenticationException(HttpStatus.UNAUTHORIZED,
+        "There is no access token in the response: " + accessToken);
+  }
+
+  private String exchange(AccessTokenRetrieverProperties input, HttpEntity<?> request) {
+    final TokenEndpointGuard guard = tokenEndpointGuard;
+    if (guard != null) {
+      guard.acquire();
+    }
+    Throwable error = null;
+    try {
+      return restTemplate
+          .exchange(input.getTokenEndpoint(), HttpMethod.POST, request, String.class)
+          .getBody();
+
+    } catch (RuntimeException e) {
+      error = e;
+      throw e;
+
+    } finally {
+      if (guard != null) {
+        guard.release(error);
+      }
+    }
+  }
+
+  private String await(CompletableFuture<String> inFlightRequest) {
+    try {
+      return inFlightRequest.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new CompletionException(e.getCause());
+
+    } catch (TimeoutException e) {
+      throw new AccessTokenRetrieverAuthenticationException(HttpStatus.GATEWAY_TIMEOUT,
+          "Waiting for the access token of a concurrent request timed out.");
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AccessTokenRetrieverAuthenticationException(HttpStatus.SERVICE_UNAVAILABLE,
+          "Waiting for the access token of a concurrent request was interrupted.");
+    }
   }
 
   private static class ErrorHandler extends DefaultResponseErrorHandler {
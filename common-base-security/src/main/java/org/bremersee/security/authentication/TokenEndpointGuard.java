@@ -0,0 +1,266 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.bremersee.exception.AccessTokenRetrieverAuthenticationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * The token endpoint guard protects the application, when the token endpoint degrades. It limits
+ * the number of concurrent requests to the token endpoint and it is a circuit breaker: after a
+ * number of consecutive failures the circuit opens and every request fails fast for the open
+ * duration. Then one trial request is let through; if it succeeds, the circuit is closed again.
+ *
+ * <p>Only server errors (status 5xx), timeouts and connection errors are failures. A client error
+ * (like bad credentials) proves, that the token endpoint is working.
+ *
+ * <p>The access token retrievers don't renew cached access tokens in the background, while the
+ * circuit is open, so that they keep serving the cached access tokens, as long as they are valid.
+ *
+ * @author Christian Bremer
+ */
+@Slf4j
+public class TokenEndpointGuard {
+
+  /**
+   * The default maximum number of concurrent requests.
+   */
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 16;
+
+  /**
+   * The default time to wait for a permit.
+   */
+  public static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(5L);
+
+  /**
+   * The default number of consecutive failures, that opens the circuit.
+   */
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+  /**
+   * The default duration, the circuit stays open.
+   */
+  public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30L);
+
+  private final Semaphore permits;
+
+  private final long acquireTimeoutMillis;
+
+  private final int failureThreshold;
+
+  private final long openDurationMillis;
+
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+  private final AtomicBoolean trialRequest = new AtomicBoolean();
+
+  private volatile long openUntil;
+
+  private final LongSupplier currentTimeMillis;
+
+  /**
+   * Instantiates a new token endpoint guard with default values.
+   */
+  public TokenEndpointGuard() {
+    this(DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_ACQUIRE_TIMEOUT, DEFAULT_FAILURE_THRESHOLD,
+        DEFAULT_OPEN_DURATION);
+  }
+
+  /**
+   * Instantiates a new token endpoint guard.
+   *
+   * @param maxConcurrentRequests the maximum number of concurrent requests
+   * @param acquireTimeout the time to wait for a permit (blocking callers only)
+   * @param failureThreshold the number of consecutive failures, that opens the circuit
+   * @param openDuration the duration, the circuit stays open
+   */
+  public TokenEndpointGuard(
+      int maxConcurrentRequests,
+      @Nullable Duration acquireTimeout,
+      int failureThreshold,
+      @Nullable Duration openDuration) {
+    this(maxConcurrentRequests, acquireTimeout, failureThreshold, openDuration,
+        System::currentTimeMillis);
+  }
+
+  /**
+   * Instantiates a new token endpoint guard with the given source of the current time.
+   *
+   * @param maxConcurrentRequests the maximum number of concurrent requests
+   * @param acquireTimeout the time to wait for a permit (blocking callers only)
+   * @param failureThreshold the number of consecutive failures, that opens the circuit
+   * @param openDuration the duration, the circuit stays open
+   * @param currentTimeMillis the source of the current time in milliseconds
+   */
+  TokenEndpointGuard(
+      int maxConcurrentRequests,
+      @Nullable Duration acquireTimeout,
+      int failureThreshold,
+      @Nullable Duration openDuration,
+      LongSupplier currentTimeMillis) {
+
+    Assert.isTrue(maxConcurrentRequests > 0, "Max concurrent requests must be greater than zero.");
+    Assert.isTrue(failureThreshold > 0, "Failure threshold must be greater than zero.");
+    this.permits = new Semaphore(maxConcurrentRequests, true);
+    this.acquireTimeoutMillis = Objects
+        .requireNonNullElse(acquireTimeout, DEFAULT_ACQUIRE_TIMEOUT).toMillis();
+    this.failureThreshold = failureThreshold;
+    this.openDurationMillis = Objects
+        .requireNonNullElse(openDuration, DEFAULT_OPEN_DURATION).toMillis();
+    this.currentTimeMillis = currentTimeMillis;
+  }
+
+  /**
+   * Determines whether the circuit is open, i.e. requests to the token endpoint fail fast.
+   *
+   * @return {@code true} if the circuit is open, otherwise {@code false}
+   */
+  public boolean isOpen() {
+    final long until = openUntil;
+    return until != 0L && (currentTimeMillis.getAsLong() < until || trialRequest.get());
+  }
+
+  /**
+   * Acquires a permit for a request to the token endpoint. It waits for the acquire timeout, if
+   * the maximum number of concurrent requests is reached. The permit must be released by
+   * {@link #release(Throwable)}.
+   *
+   * @throws AccessTokenRetrieverAuthenticationException with status 503, if the circuit is open
+   *     or no permit could be acquired in time
+   */
+  public void acquire() {
+    final boolean trial = enter();
+    try {
+      if (permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        return;
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    leave(trial);
+    throw unavailable("Too many concurrent requests to the token endpoint.");
+  }
+
+  /**
+   * Acquires a permit for a request to the token endpoint without waiting. This should be used
+   * by non blocking callers. The permit must be released by {@link #release(Throwable)}.
+   *
+   * @throws AccessTokenRetrieverAuthenticationException with status 503, if the circuit is open
+   *     or the maximum number of concurrent requests is reached
+   */
+  public void acquireWithoutWaiting() {
+    final boolean trial = enter();
+    if (!permits.tryAcquire()) {
+      leave(trial);
+      throw unavailable("Too many concurrent requests to the token endpoint.");
+    }
+  }
+
+  private boolean enter() {
+    final long until = openUntil;
+    if (until == 0L) {
+      return false;
+    }
+    if (currentTimeMillis.getAsLong() < until || !trialRequest.compareAndSet(false, true)) {
+      throw unavailable("The circuit of the token endpoint is open.");
+    }
+    log.info("Sending trial request to the token endpoint.");
+    return true;
+  }
+
+  private void leave(boolean trial) {
+    if (trial) {
+      trialRequest.set(false);
+    }
+  }
+
+  /**
+   * Releases the permit and records the result of the request.
+   *
+   * @param error the error of the request or {@code null}, if it was successful
+   */
+  public void release(@Nullable Throwable error) {
+    permits.release();
+    if (error == null || !isFailure(error)) {
+      consecutiveFailures.set(0);
+      if (openUntil != 0L) {
+        openUntil = 0L;
+        trialRequest.set(false);
+        log.info("The circuit of the token endpoint is closed.");
+      }
+      return;
+    }
+    final int failures = consecutiveFailures.incrementAndGet();
+    if (failures >= failureThreshold || trialRequest.get()) {
+      openUntil = currentTimeMillis.getAsLong() + openDurationMillis;
+      trialRequest.set(false);
+      log.warn("The circuit of the token endpoint is open for {} ms after {} failures.",
+          openDurationMillis, failures);
+    }
+  }
+
+  /**
+   * Releases the permit of a cancelled request without recording a result. A cancellation says
+   * nothing about the token endpoint, so neither the failures are reset nor counted. If the
+   * cancelled request was the trial request, another trial request can be sent.
+   */
+  public void releaseCancelled() {
+    permits.release();
+    if (openUntil != 0L) {
+      trialRequest.set(false);
+    }
+  }
+
+  /**
+   * Determines whether the given error is a failure of the token endpoint.
+   *
+   * @param error the error
+   * @return {@code true} if it is a failure, otherwise {@code false}
+   */
+  static boolean isFailure(Throwable error) {
+    if (error instanceof AccessTokenRetrieverAuthenticationException) {
+      return ((AccessTokenRetrieverAuthenticationException) error).status() >= 500;
+    }
+    return true;
+  }
+
+  private static AccessTokenRetrieverAuthenticationException unavailable(String message) {
+    return new AccessTokenRetrieverAuthenticationException(HttpStatus.SERVICE_UNAVAILABLE, message);
+  }
+
+  @Override
+  public String toString() {
+    return "TokenEndpointGuard {availablePermits = " + permits.availablePermits()
+        + ", acquireTimeout (in millis) = " + acquireTimeoutMillis
+        + ", failureThreshold = " + failureThreshold
+        + ", openDuration (in millis) = " + openDurationMillis
+        + ", open = " + isOpen()
+        + '}';
+  }
+
+}
@@ -27,6 +27,7 @@ import javax.validation.constraints.NotNull;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
+import org.bremersee.security.access.PrincipalHierarchy;
 import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -187,6 +188,30 @@ public interface UserContext extends Principal {
         .orElse(false);
   }
 
+  /**
+   * Returns a user context, whose roles and groups are expanded by the given hierarchies. The
+   * expanded sets are taken as they are returned by the hierarchies (they are not copied), so
+   * that the fast {@code contains} method of their views is kept.
+   *
+   * @param roleHierarchy the role hierarchy
+   * @param groupHierarchy the group hierarchy
+   * @return the user context with the expanded roles and groups
+   */
+  default UserContext expand(
+      @Nullable PrincipalHierarchy roleHierarchy,
+      @Nullable PrincipalHierarchy groupHierarchy) {
+    if (roleHierarchy == null && groupHierarchy == null) {
+      return this;
+    }
+    return new Impl(
+        getUserId(),
+        Collections.unmodifiableSet(
+            roleHierarchy != null ? roleHierarchy.expand(getRoles()) : getRoles()),
+        Collections.unmodifiableSet(
+            groupHierarchy != null ? groupHierarchy.expand(getGroups()) : getGroups()),
+        false);
+  }
+
   /**
    * The default implementation.
    */
@@ -239,6 +264,12 @@ public interface UserContext extends Principal {
       this.roles = roles != null ? Set.copyOf(roles) : Collections.emptySet();
       this.groups = groups != null ? Set.copyOf(groups) : Collections.emptySet();
     }
+
+    private Impl(String userId, Set<String> roles, Set<String> groups, boolean copy) {
+      this.userId = userId;
+      this.roles = copy ? Set.copyOf(roles) : roles;
+      this.groups = copy ? Set.copyOf(groups) : groups;
+    }
   }
 
 
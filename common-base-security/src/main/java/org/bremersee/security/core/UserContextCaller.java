@@ -23,15 +23,27 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.validation.constraints.NotNull;
 import org.bremersee.exception.ServiceException;
+import org.bremersee.security.access.PrincipalHierarchy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.ObjectUtils;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * The user context caller.
  *
+ * <p>Within a request the user context is built only once per caller: it is stored as a request
+ * attribute and reused by the following calls, as long as the authentication doesn't change.
+ * Without a request (no request attributes are bound to the thread) the user context is built on
+ * every call.
+ *
+ * <p>If a role or group hierarchy is set, the roles or groups of the user context are expanded
+ * by it.
+ *
  * @author Christian Bremer
  */
 @Validated
@@ -47,10 +59,23 @@ public class UserContextCaller {
    */
   public static final Supplier<ServiceException> FORBIDDEN_SUPPLIER = ServiceException::forbidden;
 
+  /**
+   * The prefix of the request attribute, that stores the user context.
+   */
+  public static final String USER_CONTEXT_ATTRIBUTE_PREFIX = UserContextCaller.class.getName()
+      + ".USER_CONTEXT.";
+
+  private final String userContextAttribute = USER_CONTEXT_ATTRIBUTE_PREFIX
+      + ObjectUtils.getIdentityHexString(this);
+
   private final Function<Authentication, Set<String>> groupsFn;
 
   private final Supplier<ServiceException> unauthenticatedExceptionSupplier;
 
+  private PrincipalHierarchy roleHierarchy;
+
+  private PrincipalHierarchy groupHierarchy;
+
   /**
    * Instantiates a new user context caller.
    */
@@ -109,6 +134,44 @@ public class UserContextCaller {
         : FORBIDDEN_SUPPLIER;
   }
 
+  /**
+   * Sets the role hierarchy, that expands the roles of the user context.
+   *
+   * @param roleHierarchy the role hierarchy
+   */
+  public void setRoleHierarchy(@Nullable PrincipalHierarchy roleHierarchy) {
+    this.roleHierarchy = roleHierarchy;
+  }
+
+  /**
+   * Sets the group hierarchy, that expands the groups of the user context.
+   *
+   * @param groupHierarchy the group hierarchy
+   */
+  public void setGroupHierarchy(@Nullable PrincipalHierarchy groupHierarchy) {
+    this.groupHierarchy = groupHierarchy;
+  }
+
+  /**
+   * Gets the role hierarchy, that expands the roles of the user context.
+   *
+   * @return the role hierarchy
+   */
+  @Nullable
+  public PrincipalHierarchy getRoleHierarchy() {
+    return roleHierarchy;
+  }
+
+  /**
+   * Gets the group hierarchy, that expands the groups of the user context.
+   *
+   * @return the group hierarchy
+   */
+  @Nullable
+  public PrincipalHierarchy getGroupHierarchy() {
+    return groupHierarchy;
+  }
+
   /**
    * Call with required user context.
    *
@@ -121,7 +184,7 @@ public class UserContextCaller {
     if (authentication == null || !authentication.isAuthenticated()) {
       throw unauthenticatedExceptionSupplier.get();
     }
-    return function.apply(UserContext.newInstance(authentication, groupsFn.apply(authentication)));
+    return function.apply(userContext(authentication));
   }
 
   /**
@@ -136,7 +199,32 @@ public class UserContextCaller {
     if (authentication == null || !authentication.isAuthenticated()) {
       return function.apply(UserContext.newInstance());
     }
-    return function.apply(UserContext.newInstance(authentication, groupsFn.apply(authentication)));
+    return function.apply(userContext(authentication));
+  }
+
+  private UserContext userContext(Authentication authentication) {
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    if (requestAttributes == null) {
+      return buildUserContext(authentication);
+    }
+    Object value = requestAttributes
+        .getAttribute(userContextAttribute, RequestAttributes.SCOPE_REQUEST);
+    if (value instanceof MemoizedUserContext
+        && ((MemoizedUserContext) value).authentication == authentication) {
+      return ((MemoizedUserContext) value).userContext;
+    }
+    UserContext userContext = buildUserContext(authentication);
+    requestAttributes.setAttribute(
+        userContextAttribute,
+        new MemoizedUserContext(authentication, userContext),
+        RequestAttributes.SCOPE_REQUEST);
+    return userContext;
+  }
+
+  private UserContext buildUserContext(Authentication authentication) {
+    return UserContext
+        .newInstance(authentication, groupsFn.apply(authentication))
+        .expand(roleHierarchy, groupHierarchy);
   }
 
   /**
@@ -184,4 +272,16 @@ public class UserContextCaller {
     }
   }
 
+  private static final class MemoizedUserContext {
+
+    private final Authentication authentication;
+
+    private final UserContext userContext;
+
+    private MemoizedUserContext(Authentication authentication, UserContext userContext) {
+      this.authentication = authentication;
+      this.userContext = userContext;
+    }
+  }
+
 }
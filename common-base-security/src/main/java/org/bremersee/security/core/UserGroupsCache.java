@@ -0,0 +1,170 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.core;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.validation.constraints.NotNull;
+import lombok.ToString;
+import org.bremersee.security.ExpiringCache;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.Assert;
+
+/**
+ * The user groups cache stores the groups of a user (keyed by the user name) for a time to live.
+ * It is bounded: if it is full, the entries, that expire first, are evicted. Because all entries
+ * have the same time to live, these are the oldest entries (see {@link ExpiringCache}). Use it
+ * to avoid repeated (remote) group lookups of the user context callers, for example:
+ * <pre>
+ * new UserContextCaller(userGroupsCache.cache(groupService::findGroupsOfUser))
+ * </pre>
+ *
+ * @author Christian Bremer
+ */
+@ToString(of = {"maximumSize", "timeToLiveMillis"})
+public class UserGroupsCache {
+
+  /**
+   * The default maximum size.
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+  /**
+   * The default time to live.
+   */
+  public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1L);
+
+  private final int maximumSize;
+
+  private final long timeToLiveMillis;
+
+  private final ExpiringCache<String, Set<String>> entries;
+
+  /**
+   * Instantiates a new user groups cache with default maximum size and time to live.
+   */
+  public UserGroupsCache() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_TIME_TO_LIVE);
+  }
+
+  /**
+   * Instantiates a new user groups cache.
+   *
+   * @param maximumSize the maximum number of cached users
+   * @param timeToLive the time to live of the cached groups
+   */
+  public UserGroupsCache(int maximumSize, @Nullable Duration timeToLive) {
+    this(maximumSize, timeToLive, System::currentTimeMillis);
+  }
+
+  /**
+   * Instantiates a new user groups cache with the given source of the current time.
+   *
+   * @param maximumSize the maximum number of cached users
+   * @param timeToLive the time to live of the cached groups
+   * @param currentTimeMillis the source of the current time in milliseconds
+   */
+  UserGroupsCache(
+      int maximumSize,
+      @Nullable Duration timeToLive,
+      LongSupplier currentTimeMillis) {
+    this.maximumSize = maximumSize;
+    this.timeToLiveMillis = Objects.requireNonNullElse(timeToLive, DEFAULT_TIME_TO_LIVE)
+        .toMillis();
+    this.entries = new ExpiringCache<>(maximumSize, currentTimeMillis);
+  }
+
+  /**
+   * Gets the cached groups of the user.
+   *
+   * @param userName the user name
+   * @return the groups or {@code null}, if they are not cached or expired
+   */
+  @Nullable
+  public Set<String> getIfPresent(@Nullable String userName) {
+    return entries.get(userName);
+  }
+
+  /**
+   * Caches the groups of the user.
+   *
+   * @param userName the user name
+   * @param groups the groups
+   */
+  public void put(@Nullable String userName, @Nullable Collection<String> groups) {
+    if (userName == null || timeToLiveMillis <= 0L) {
+      return;
+    }
+    entries.put(
+        userName,
+        groups != null ? Set.copyOf(groups) : Collections.emptySet(),
+        entries.currentTimeMillis() + timeToLiveMillis);
+  }
+
+  /**
+   * Removes the cached groups of the user.
+   *
+   * @param userName the user name
+   */
+  public void evict(@Nullable String userName) {
+    entries.remove(userName);
+  }
+
+  /**
+   * Removes all cached groups.
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Gets the number of cached users (including expired ones, that are not yet removed).
+   *
+   * @return the size
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns a groups function, that looks up the groups of the authenticated user in this cache
+   * and calls the given groups function only, if they are not present.
+   *
+   * @param groupsFn the groups function
+   * @return the caching groups function
+   */
+  public Function<Authentication, Set<String>> cache(
+      @NotNull Function<Authentication, Set<String>> groupsFn) {
+    Assert.notNull(groupsFn, "Groups function must be present.");
+    return authentication -> {
+      String userName = authentication.getName();
+      Set<String> groups = getIfPresent(userName);
+      if (groups == null) {
+        groups = groupsFn.apply(authentication);
+        put(userName, groups);
+      }
+      return groups;
+    };
+  }
+
+}
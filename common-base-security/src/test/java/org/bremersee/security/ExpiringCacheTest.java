@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The expiring cache test.
+ *
+ * @author Christian Bremer
+ */
+class ExpiringCacheTest {
+
+  /**
+   * Get, put and remove.
+   */
+  @Test
+  void getPutAndRemove() {
+    AtomicLong now = new AtomicLong(1000L);
+    ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+    cache.put("k1", "v1", 2000L);
+    cache.put("k2", "v2", 1000L);
+    cache.put(null, "v3", 2000L);
+    cache.put("k4", null, 2000L);
+    assertEquals(1, cache.size());
+    assertEquals("v1", cache.get("k1"));
+    assertNull(cache.get("k2"));
+    assertNull(cache.get(null));
+
+    cache.put("k1", "v2", 3000L);
+    assertEquals(1, cache.size());
+    now.set(2000L);
+    assertEquals("v2", cache.get("k1"));
+
+    assertEquals("v2", cache.remove("k1"));
+    assertNull(cache.remove("k1"));
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Expired values are removed.
+   */
+  @Test
+  void removeExpired() {
+    AtomicLong now = new AtomicLong(1000L);
+    ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+    cache.put("k1", "v1", 2000L);
+    cache.put("k2", "v2", 3000L);
+    now.set(2000L);
+    assertEquals(1, cache.removeExpired());
+    assertEquals(1, cache.size());
+    assertNull(cache.get("k1"));
+    assertEquals("v2", cache.get("k2"));
+
+    now.set(3000L);
+    assertNull(cache.get("k2"));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.removeExpired());
+  }
+
+  /**
+   * The values, that expire first, are evicted.
+   */
+  @Test
+  void eviction() {
+    ExpiringCache<String, String> cache = new ExpiringCache<>(2, () -> 0L);
+    cache.put("late", "v1", 3000L);
+    cache.put("early", "v2", 1000L);
+    cache.put("middle", "v3", 2000L);
+    assertEquals(2, cache.size());
+    assertNull(cache.get("early"));
+    assertEquals("v1", cache.get("late"));
+    assertEquals("v3", cache.get("middle"));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Concurrent puts never exceed the maximum size and every cached value can be evicted.
+   */
+  @Test
+  void concurrentPuts() throws Exception {
+    ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(16);
+    long expiresAt = System.currentTimeMillis() + 60000L;
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t * 1000;
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          cache.put(offset + i, i, expiresAt + i);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(cache.size() <= 16);
+    for (int i = 0; i < 16; i++) {
+      cache.put(10000 + i, i, expiresAt + 10000L);
+    }
+    assertEquals(16, cache.size());
+    for (int i = 0; i < 16; i++) {
+      assertEquals(i, cache.get(10000 + i));
+    }
+  }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.Random;
+import java.util.StringJoiner;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The ip address literal test.
+ *
+ * @author Christian Bremer
+ */
+class IpAddressLiteralTest {
+
+  /**
+   * Parse ipv 4.
+   */
+  @Test
+  void parseIpv4() {
+    assertArrayEquals(
+        new byte[]{(byte) 192, (byte) 168, 1, 23},
+        IpAddressLiteral.parse("192.168.1.23"));
+    assertArrayEquals(new byte[]{0, 0, 0, 0}, IpAddressLiteral.parse("0.0.0.0"));
+    assertArrayEquals(new byte[]{10, 0, 0, 1}, IpAddressLiteral.parse("010.000.000.001"));
+  }
+
+  /**
+   * Parse ipv 6.
+   */
+  @Test
+  void parseIpv6() {
+    byte[] loopback = new byte[16];
+    loopback[15] = 1;
+    assertArrayEquals(loopback, IpAddressLiteral.parse("::1"));
+    assertArrayEquals(loopback, IpAddressLiteral.parse("[::1]"));
+    assertArrayEquals(loopback, IpAddressLiteral.parse("0:0:0:0:0:0:0:1"));
+    assertArrayEquals(new byte[16], IpAddressLiteral.parse("::"));
+
+    byte[] linkLocal = new byte[16];
+    linkLocal[0] = (byte) 0xfe;
+    linkLocal[1] = (byte) 0x80;
+    linkLocal[15] = 1;
+    assertArrayEquals(linkLocal, IpAddressLiteral.parse("fe80::1%eth0"));
+    assertArrayEquals(linkLocal, IpAddressLiteral.parse("[FE80::1%2]"));
+
+    byte[] compatible = new byte[16];
+    compatible[12] = 10;
+    compatible[15] = 1;
+    assertArrayEquals(compatible, IpAddressLiteral.parse("::10.0.0.1"));
+  }
+
+  /**
+   * Parse ipv 4 mapped ipv 6.
+   */
+  @Test
+  void parseIpv4MappedIpv6() {
+    assertArrayEquals(new byte[]{10, 0, 0, 1}, IpAddressLiteral.parse("::ffff:10.0.0.1"));
+    assertArrayEquals(new byte[]{10, 0, 0, 1}, IpAddressLiteral.parse("::ffff:a00:1"));
+    assertArrayEquals(
+        new byte[]{10, 0, 0, 1},
+        IpAddressLiteral.parse("0:0:0:0:0:ffff:10.0.0.1"));
+  }
+
+  /**
+   * Reject non literals.
+   */
+  @Test
+  void rejectNonLiterals() {
+    String[] values = {
+        null, "", "localhost", "example.org", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1.2.3.4.",
+        ".1.2.3", "1..2.3", "1234.1.1.1", "+1.2.3.4", "[1.2.3.4]", "1.2.3.4%eth0", ":", ":::",
+        "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7::8", "1::2::3", ":1::2", "1::2:",
+        "12345::1", "g::1", "::1%", "::1%eth 0", "[::1", "::1]", "[]", "::1.2.3", "::1.2.3.4:5",
+        "1:2:3:4:5:6:7:1.2.3.4", "::ffff:256.0.0.1", "\uff11::1", "::\u0661", "\uff41::1",
+        "::1%eth\u00e9", "::1%\u0661"
+    };
+    for (String value : values) {
+      assertFalse(IpAddressLiteral.isLiteral(value), "Literal: " + value);
+      assertThrows(IllegalArgumentException.class, () -> IpAddressLiteral.parse(value));
+    }
+  }
+
+  /**
+   * Parse random literals like inet address.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void parseRandomLiteralsLikeInetAddress() throws Exception {
+    Random random = new Random(4711L);
+    for (int n = 0; n < 10000; n++) {
+      String literal = randomLiteral(random);
+      assertTrue(IpAddressLiteral.isLiteral(literal), "Literal: " + literal);
+      assertArrayEquals(
+          InetAddress.getByName(literal).getAddress(),
+          IpAddressLiteral.parse(literal),
+          "Literal: " + literal);
+    }
+  }
+
+  /**
+   * Fuzz with random strings.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void fuzzWithRandomStrings() throws Exception {
+    String alphabet = "0123456789abcdefABCDEFgx.:%[]";
+    Random random = new Random(815L);
+    int literals = 0;
+    for (int n = 0; n < 100000; n++) {
+      StringBuilder value = new StringBuilder();
+      int length = random.nextInt(24);
+      for (int i = 0; i < length; i++) {
+        value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      String candidate = value.toString();
+      if (IpAddressLiteral.isLiteral(candidate)) {
+        literals++;
+        // an accepted value is a literal, so the inet address does not call the resolver
+        if (candidate.indexOf('%') < 0) {
+          assertArrayEquals(
+              InetAddress.getByName(candidate).getAddress(),
+              IpAddressLiteral.parse(candidate),
+              "Literal: " + candidate);
+        }
+      }
+    }
+    assertTrue(literals > 0);
+  }
+
+  /**
+   * Mutated literals.
+   */
+  @Test
+  void mutatedLiterals() {
+    Random random = new Random(42L);
+    for (int n = 0; n < 10000; n++) {
+      String literal = randomLiteral(random);
+      int index = random.nextInt(literal.length());
+      String mutated = literal.substring(0, index) + 'z' + literal.substring(index + 1);
+      assertFalse(IpAddressLiteral.isLiteral(mutated), "Literal: " + mutated);
+    }
+    assertEquals(4, IpAddressLiteral.parse("::ffff:127.0.0.1").length);
+  }
+
+  private static String randomLiteral(Random random) {
+    switch (random.nextInt(4)) {
+      case 0:
+        return randomIpv4(random);
+      case 1:
+        return "::ffff:" + randomIpv4(random);
+      default:
+        return randomIpv6(random);
+    }
+  }
+
+  private static String randomIpv4(Random random) {
+    return random.nextInt(256) + "." + random.nextInt(256) + "."
+        + random.nextInt(256) + "." + random.nextInt(256);
+  }
+
+  private static String randomIpv6(Random random) {
+    String[] groups = new String[8];
+    for (int i = 0; i < groups.length; i++) {
+      groups[i] = random.nextInt(3) == 0 ? "0" : Integer.toHexString(random.nextInt(0x10000));
+    }
+    int from = random.nextInt(9);
+    int to = from + random.nextInt(9 - from);
+    if (to - from < 1 || random.nextBoolean()) {
+      StringJoiner joiner = new StringJoiner(":");
+      for (String group : groups) {
+        joiner.add(random.nextBoolean() ? group.toUpperCase() : group);
+      }
+      return joiner.toString();
+    }
+    StringJoiner head = new StringJoiner(":");
+    for (int i = 0; i < from; i++) {
+      head.add(groups[i]);
+    }
+    StringJoiner tail = new StringJoiner(":");
+    for (int i = to; i < groups.length; i++) {
+      tail.add(groups[i]);
+    }
+    return head + "::" + tail;
+  }
+
+}
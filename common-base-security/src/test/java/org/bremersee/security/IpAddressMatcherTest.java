@@ -17,6 +17,7 @@
 package org.bremersee.security;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
@@ -53,4 +54,31 @@ class IpAddressMatcherTest {
     assertFalse(matcher.matches("192.169.2.24"));
   }
 
-}
\ No newline at end of file
+  /**
+   * Matches ipv 6.
+   */
+  @Test
+  void matchesIpv6() {
+    IpAddressMatcher matcher = new IpAddressMatcher("fd00::/8");
+    assertTrue(matcher.matches("fd00::1"));
+    assertTrue(matcher.matches("fdff:1:2::3%eth0"));
+    assertFalse(matcher.matches("fe80::1"));
+    assertFalse(matcher.matches("192.168.1.23"));
+
+    matcher = new IpAddressMatcher("192.168.1.0/24");
+    assertTrue(matcher.matches("::ffff:192.168.1.23"));
+    assertFalse(matcher.matches("fd00::1"));
+  }
+
+  /**
+   * Rejects host names.
+   */
+  @Test
+  void rejectsHostNames() {
+    assertThrows(IllegalArgumentException.class, () -> new IpAddressMatcher("localhost"));
+    assertThrows(IllegalArgumentException.class, () -> new IpAddressMatcher("example.org/24"));
+    IpAddressMatcher matcher = new IpAddressMatcher("127.0.0.1");
+    assertThrows(IllegalArgumentException.class, () -> matcher.matches("localhost"));
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The ip address trie test.
+ *
+ * @author Christian Bremer
+ */
+class IpAddressTrieTest {
+
+  /**
+   * Matches ip and net.
+   */
+  @Test
+  void matchesIpAndNet() {
+    IpAddressTrie trie = IpAddressTrie.compile(
+        "192.168.1.23", "10.0.0.0/8", "172.16.0.0/12", "", null);
+    assertTrue(trie.matches("192.168.1.23"));
+    assertFalse(trie.matches("192.168.1.24"));
+    assertTrue(trie.matches("10.255.1.2"));
+    assertTrue(trie.matches("172.31.255.255"));
+    assertFalse(trie.matches("172.32.0.1"));
+    assertFalse(trie.matches("11.0.0.1"));
+    assertEquals(Arrays.asList("192.168.1.23", "10.0.0.0/8", "172.16.0.0/12"),
+        trie.getIpAddresses());
+  }
+
+  /**
+   * Matches ipv6.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void matchesIpv6() throws Exception {
+    IpAddressTrie trie = IpAddressTrie.compile("fd00::/8", "2001:db8::1");
+    assertTrue(trie.matches("fd12:3456::1"));
+    assertTrue(trie.matches(InetAddress.getByName("2001:db8:0:0:0:0:0:1")));
+    assertFalse(trie.matches("2001:db8::2"));
+    assertFalse(trie.matches("10.0.0.1"));
+    assertFalse(IpAddressTrie.compile("0.0.0.0/0").matches("::1"));
+    assertTrue(IpAddressTrie.compile("0.0.0.0/0").matches("8.8.8.8"));
+  }
+
+  /**
+   * Empty and illegal values.
+   */
+  @Test
+  void emptyAndIllegalValues() {
+    assertTrue(IpAddressTrie.empty().isEmpty());
+    assertFalse(IpAddressTrie.empty().matches("127.0.0.1"));
+    assertFalse(IpAddressTrie.compile("127.0.0.1").matches((String) null));
+    assertFalse(IpAddressTrie.compile("127.0.0.1").matches(new byte[]{127, 0, 0}));
+    assertThrows(IllegalArgumentException.class, () -> IpAddressTrie.compile("10.0.0.0/33"));
+    assertThrows(IllegalArgumentException.class, () -> IpAddressTrie.compile("10.0.0.0/x"));
+  }
+
+  /**
+   * The trie returns the same results as the ip address matcher.
+   */
+  @Test
+  void sameResultsAsIpAddressMatcher() {
+    Random random = new Random(42L);
+    String[] ranges = new String[32];
+    for (int i = 0; i < ranges.length; i++) {
+      ranges[i] = randomIpv4(random) + "/" + (8 + random.nextInt(25));
+    }
+    IpAddressTrie trie = IpAddressTrie.compile(ranges);
+    for (int i = 0; i < 2000; i++) {
+      String address = i % 2 == 0
+          ? randomIpv4(random)
+          : ranges[random.nextInt(ranges.length)].split("/")[0];
+      boolean expected = Arrays.stream(ranges)
+          .anyMatch(range -> new IpAddressMatcher(range).matches(address));
+      assertEquals(expected, trie.matches(address), address);
+    }
+  }
+
+  private static String randomIpv4(Random random) {
+    return random.nextInt(256) + "." + random.nextInt(256) + "."
+        + random.nextInt(256) + "." + random.nextInt(256);
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * The path rule trie test.
+ *
+ * @author Christian Bremer
+ */
+class PathRuleTrieTest {
+
+  private static final AntPathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+  private static final String[] SEGMENTS = {
+      "api", "admin", "items", "public", "health", "v1", "x.json", "*", "*.json", "{id}", "**"
+  };
+
+  private static final HttpMethod[] METHODS = {null, HttpMethod.GET, HttpMethod.POST};
+
+  /**
+   * Candidates.
+   */
+  @Test
+  void candidates() {
+    PathRuleTrie trie = PathRuleTrie.builder()
+        .add(HttpMethod.GET, "/api/admin/**")
+        .add(null, "/api/*/items/{id}")
+        .add(HttpMethod.POST, "/api/**")
+        .add(null, "/public/*.json")
+        .add(null, "/**/health")
+        .add(null, null)
+        .build();
+    assertEquals(6, trie.size());
+
+    assertEquals(bits(0, 5), trie.candidates(HttpMethod.GET, "/api/admin/users"));
+    assertEquals(bits(2, 5), trie.candidates(HttpMethod.POST, "/api/admin/users"));
+    assertEquals(bits(0, 1, 5), trie.candidates(HttpMethod.GET, "/api/admin/items/42"));
+    assertEquals(bits(1, 5), trie.candidates(HttpMethod.PUT, "/api/v1/items/42"));
+    assertEquals(bits(3, 5), trie.candidates(HttpMethod.GET, "/public/data.json"));
+    assertEquals(bits(5), trie.candidates(HttpMethod.GET, "/public/data.xml"));
+    assertEquals(bits(4, 5), trie.candidates(HttpMethod.GET, "/health"));
+    assertEquals(bits(2, 4, 5), trie.candidates(HttpMethod.POST, "/api/v1/health/"));
+    assertEquals(bits(5), trie.candidates(null, "/"));
+    assertEquals(bits(5), trie.candidates(null, (String) null));
+  }
+
+  /**
+   * Trailing wildcard.
+   */
+  @Test
+  void trailingWildcard() {
+    PathRuleTrie trie = PathRuleTrie.builder()
+        .add(null, "/api/*")
+        .build();
+    assertEquals(bits(0), trie.candidates(HttpMethod.GET, "/api/"));
+    assertEquals(bits(0), trie.candidates(HttpMethod.GET, "/api/x"));
+    assertEquals(bits(), trie.candidates(HttpMethod.GET, "/api/x/y"));
+  }
+
+  /**
+   * First match is equal to linear scan.
+   */
+  @Test
+  void firstMatchIsEqualToLinearScan() {
+    Random random = new Random(4711L);
+    for (int n = 0; n < 200; n++) {
+      List<HttpMethod> methods = new ArrayList<>();
+      List<String> patterns = new ArrayList<>();
+      PathRuleTrie.Builder builder = PathRuleTrie.builder();
+      int size = 1 + random.nextInt(150);
+      for (int i = 0; i < size; i++) {
+        HttpMethod method = METHODS[random.nextInt(METHODS.length)];
+        String pattern = randomPath(random, SEGMENTS);
+        methods.add(method);
+        patterns.add(pattern);
+        builder.add(method, pattern);
+      }
+      PathRuleTrie trie = builder.build();
+      for (int m = 0; m < 100; m++) {
+        HttpMethod method = random.nextBoolean() ? HttpMethod.GET : HttpMethod.POST;
+        String path = randomPath(random, new String[]{
+            "api", "admin", "items", "public", "health", "v1", "x.json", "42"});
+        int expected = -1;
+        for (int i = 0; i < size && expected < 0; i++) {
+          if (matches(methods.get(i), patterns.get(i), method, path)) {
+            expected = i;
+          }
+        }
+        BitSet candidates = trie.candidates(method, path);
+        int actual = -1;
+        for (int i = candidates.nextSetBit(0); i >= 0 && actual < 0;
+            i = candidates.nextSetBit(i + 1)) {
+          if (matches(methods.get(i), patterns.get(i), method, path)) {
+            actual = i;
+          }
+        }
+        assertEquals(expected, actual, "Path: " + method + " " + path + " in " + patterns);
+        assertTrue(candidates.cardinality() <= size);
+      }
+    }
+  }
+
+  private static boolean matches(
+      HttpMethod ruleMethod,
+      String pattern,
+      HttpMethod method,
+      String path) {
+    return (ruleMethod == null || ruleMethod == method) && ANT_PATH_MATCHER.match(pattern, path);
+  }
+
+  private static String randomPath(Random random, String[] segments) {
+    StringBuilder path = new StringBuilder();
+    int depth = random.nextInt(5);
+    for (int i = 0; i < depth; i++) {
+      path.append('/').append(segments[random.nextInt(segments.length)]);
+    }
+    if (depth == 0 || random.nextInt(5) == 0) {
+      path.append('/');
+    }
+    return path.toString();
+  }
+
+  private static BitSet bits(int... indexes) {
+    BitSet bits = new BitSet();
+    for (int index : indexes) {
+      bits.set(index);
+    }
+    return bits;
+  }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.bremersee.security.core.UserContext;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The access filter test.
+ *
+ * @author Christian Bremer
+ */
+class AccessFilterTest {
+
+  private static final UserContext USER = UserContext.newInstance(
+      "user", Collections.singleton("role"), Collections.singleton("group"));
+
+  private static final Acl<? extends Ace> OWNED = AclBuilder.builder()
+      .owner("user")
+      .buildAcl();
+
+  private static final Acl<? extends Ace> SHARED_WITH_USER = AclBuilder.builder()
+      .owner("owner")
+      .addUser("user", PermissionConstants.READ)
+      .buildAcl();
+
+  private static final Acl<? extends Ace> SHARED_WITH_ROLE = AclBuilder.builder()
+      .owner("owner")
+      .addRole("role", PermissionConstants.READ)
+      .buildAcl();
+
+  private static final Acl<? extends Ace> SHARED_WITH_GROUP = AclBuilder.builder()
+      .owner("owner")
+      .addGroup("group", PermissionConstants.WRITE)
+      .buildAcl();
+
+  private static final Acl<? extends Ace> PUBLIC = AclBuilder.builder()
+      .owner("owner")
+      .guest(true, PermissionConstants.READ)
+      .buildAcl();
+
+  private static final Acl<? extends Ace> PRIVATE = AclBuilder.builder()
+      .owner("owner")
+      .addUser("other", PermissionConstants.READ)
+      .buildAcl();
+
+  /**
+   * Test acl.
+   */
+  @Test
+  void testAcl() {
+    AccessFilter filter = AccessFilter.of(USER, "READ");
+    assertTrue(filter.test(OWNED));
+    assertTrue(filter.test(SHARED_WITH_USER));
+    assertTrue(filter.test(SHARED_WITH_ROLE));
+    assertFalse(filter.test(SHARED_WITH_GROUP));
+    assertTrue(filter.test(PUBLIC));
+    assertFalse(filter.test(PRIVATE));
+    assertFalse(filter.test((Acl<?>) null));
+    assertTrue(AccessFilter.of(USER, "read", "write").test(SHARED_WITH_GROUP));
+    assertFalse(AccessFilter.of(USER).test(OWNED));
+  }
+
+  /**
+   * Test acl with not normalized permissions.
+   */
+  @Test
+  void testAclWithNotNormalizedPermissions() {
+    AceImpl ace = new AceImpl();
+    ace.getRoles().add("role");
+    Acl<? extends Ace> acl = AclBuilder.builder()
+        .from(new AclImpl("owner", Collections.singletonMap("Read", ace)))
+        .buildAcl();
+    assertTrue(AccessFilter.of(USER, PermissionConstants.READ).test(acl));
+    assertTrue(AccessFilter.of(USER, "READ").test(acl));
+    assertFalse(AccessFilter.of(USER, PermissionConstants.WRITE).test(acl));
+  }
+
+  /**
+   * Test acl with hierarchies.
+   */
+  @Test
+  void testAclWithHierarchies() {
+    Acl<? extends Ace> acl = AclBuilder.builder()
+        .addGroup("subgroup", PermissionConstants.WRITE)
+        .buildAcl();
+    AccessFilter filter = AccessFilter.of(USER, PermissionConstants.WRITE);
+    assertFalse(filter.test(acl));
+    assertSame(filter, filter.withHierarchies(null, null));
+    assertTrue(filter
+        .withHierarchies(null, DefaultPrincipalHierarchy.fromString("group > subgroup"))
+        .test(acl));
+    assertTrue(filter
+        .withHierarchies(DefaultPrincipalHierarchy.fromString("role > other"), null)
+        .test(AclBuilder.builder()
+            .addRole("other", PermissionConstants.WRITE)
+            .buildAcl()));
+  }
+
+  /**
+   * Test access control list.
+   */
+  @Test
+  void testAccessControlList() {
+    AccessFilter filter = AccessFilter.of(USER, PermissionConstants.READ);
+    assertTrue(filter.test(AclBuilder.builder().from(SHARED_WITH_ROLE).buildAccessControlList()));
+    assertFalse(filter.test(AclBuilder.builder().from(PRIVATE).buildAccessControlList()));
+  }
+
+  /**
+   * Filter.
+   */
+  @Test
+  void filter() {
+    List<Acl<? extends Ace>> acls = Arrays.asList(
+        OWNED, SHARED_WITH_USER, SHARED_WITH_ROLE, SHARED_WITH_GROUP, PUBLIC, PRIVATE);
+    assertEquals(
+        Arrays.asList(OWNED, SHARED_WITH_USER, SHARED_WITH_ROLE, PUBLIC),
+        AccessFilter.filter(acls, Function.identity(), USER, PermissionConstants.READ));
+  }
+
+  /**
+   * Filter in parallel.
+   */
+  @Test
+  void filterInParallel() {
+    List<Acl<? extends Ace>> acls = IntStream.range(0, 1000)
+        .mapToObj(i -> i % 2 == 0 ? PUBLIC : PRIVATE)
+        .collect(Collectors.toList());
+    List<Acl<? extends Ace>> actual = AccessFilter.of(USER, PermissionConstants.READ)
+        .withParallelThreshold(100)
+        .filter(acls, Function.identity());
+    assertEquals(500, actual.size());
+    assertTrue(actual.stream().allMatch(acl -> acl == PUBLIC));
+  }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import java.util.Date;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The access token refresh ahead test.
+ *
+ * @author Christian Bremer
+ */
+class AccessTokenRefreshAheadTest {
+
+  /**
+   * Creates a token.
+   *
+   * @param issuedSecondsAgo the seconds since the token was issued
+   * @param expiresInSeconds the seconds until the token expires
+   * @return the token
+   */
+  static String token(long issuedSecondsAgo, long expiresInSeconds) {
+    long now = System.currentTimeMillis();
+    return new PlainJWT(new JWTClaimsSet.Builder()
+        .jwtID(UUID.randomUUID().toString())
+        .issueTime(new Date(now - issuedSecondsAgo * 1000L))
+        .expirationTime(new Date(now + expiresInSeconds * 1000L))
+        .build())
+        .serialize();
+  }
+
+  /**
+   * Is refresh due.
+   */
+  @Test
+  void isRefreshDue() {
+    AccessTokenRefreshAhead refreshAhead = new AccessTokenRefreshAhead(0.75, 0.);
+    String fresh = token(10L, 90L);
+    assertFalse(refreshAhead.isRefreshDue("key", fresh));
+
+    String old = token(80L, 20L);
+    assertTrue(refreshAhead.isRefreshDue("key", old));
+    assertFalse(refreshAhead.isRefreshDue("key", old));
+
+    refreshAhead.refreshFailed("key");
+    assertFalse(refreshAhead.isRefreshDue("key", old));
+
+    assertFalse(refreshAhead.isRefreshDue("key", fresh));
+    assertTrue(refreshAhead.isRefreshDue("other", token(100L, 10L)));
+  }
+
+  /**
+   * A failed renewal is tried again after a delay, that is at most half of the remaining
+   * lifetime.
+   */
+  @Test
+  void refreshFailed() {
+    AccessTokenRefreshAhead refreshAhead = new AccessTokenRefreshAhead(0.75, 0.);
+    String expiring = token(100L, 0L);
+    assertTrue(refreshAhead.isRefreshDue("key", expiring));
+    assertFalse(refreshAhead.isRefreshDue("key", expiring));
+    refreshAhead.refreshFailed("key");
+    assertTrue(refreshAhead.isRefreshDue("key", expiring));
+
+    String old = token(80L, 20L);
+    assertTrue(refreshAhead.isRefreshDue("other", old));
+    refreshAhead.refreshFailed("other");
+    assertFalse(refreshAhead.isRefreshDue("other", old));
+
+    refreshAhead.refreshFailed("unknown");
+    assertFalse(refreshAhead.isRefreshDue("unknown", token(0L, 100L)));
+  }
+
+  /**
+   * Is refresh due with jitter.
+   */
+  @Test
+  void isRefreshDueWithJitter() {
+    AccessTokenRefreshAhead refreshAhead = new AccessTokenRefreshAhead(0.8, 0.2);
+    assertTrue(refreshAhead.isRefreshDue("key", token(80L, 20L)));
+    assertFalse(refreshAhead.isRefreshDue("key", token(50L, 50L)));
+  }
+
+  /**
+   * Token without expiration time is never due.
+   */
+  @Test
+  void tokenWithoutExpirationTime() {
+    AccessTokenRefreshAhead refreshAhead = new AccessTokenRefreshAhead();
+    assertFalse(refreshAhead.isRefreshDue("key", "opaque-token"));
+    assertFalse(refreshAhead.isRefreshDue("key", new PlainJWT(new JWTClaimsSet.Builder()
+        .subject("anna")
+        .build())
+        .serialize()));
+  }
+
+  /**
+   * Full deadlines keep the state of valid access tokens and evict expired ones.
+   */
+  @Test
+  void fullDeadlines() {
+    AccessTokenRefreshAhead refreshAhead = new AccessTokenRefreshAhead(0.75, 0.);
+    String old = token(80L, 20L);
+    assertTrue(refreshAhead.isRefreshDue("key", old));
+    for (int i = 1; i < 10000; i++) {
+      assertFalse(refreshAhead.isRefreshDue("valid-" + i, token(0L, 100L)));
+    }
+    assertFalse(refreshAhead.isRefreshDue("new", token(100L, 10L)));
+    assertFalse(refreshAhead.isRefreshDue("key", old));
+
+    refreshAhead = new AccessTokenRefreshAhead(0.75, 0.);
+    for (int i = 0; i < 10000; i++) {
+      refreshAhead.isRefreshDue("expired-" + i, token(10L, -1L));
+    }
+    assertTrue(refreshAhead.isRefreshDue("new", token(100L, 10L)));
+  }
+
+  /**
+   * Illegal arguments.
+   */
+  @Test
+  void illegalArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new AccessTokenRefreshAhead(0., 0.));
+    assertThrows(IllegalArgumentException.class, () -> new AccessTokenRefreshAhead(1.5, 0.));
+    assertThrows(IllegalArgumentException.class, () -> new AccessTokenRefreshAhead(0.5, 0.5));
+  }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * The caching jwt decoder test.
+ *
+ * @author Christian Bremer
+ */
+class CachingJwtDecoderTest {
+
+  /**
+   * Decode.
+   */
+  @Test
+  void decode() {
+    Jwt jwt = JwtDecodeCacheTest.jwt("t1", Instant.now().plusSeconds(60L));
+    JwtDecoder delegate = mock(JwtDecoder.class);
+    when(delegate.decode("t1")).thenReturn(jwt);
+    CachingJwtDecoder decoder = new CachingJwtDecoder(delegate);
+
+    assertSame(jwt, decoder.decode("t1"));
+    assertSame(jwt, decoder.decode("t1"));
+    verify(delegate, times(1)).decode("t1");
+  }
+
+  /**
+   * Decode fails.
+   */
+  @Test
+  void decodeFails() {
+    JwtDecoder delegate = mock(JwtDecoder.class);
+    when(delegate.decode("invalid")).thenThrow(new JwtException("invalid"));
+    CachingJwtDecoder decoder = new CachingJwtDecoder(delegate);
+
+    assertThrows(JwtException.class, () -> decoder.decode("invalid"));
+    assertThrows(JwtException.class, () -> decoder.decode("invalid"));
+    verify(delegate, times(2)).decode("invalid");
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The compiled json path test.
+ *
+ * @author Christian Bremer
+ */
+class CompiledJsonPathTest {
+
+  private static Map<String, Object> claims() {
+    Map<String, Object> realmAccess = new LinkedHashMap<>();
+    realmAccess.put("roles", Arrays.asList("ADMIN", "USER"));
+    Map<String, Object> claims = new LinkedHashMap<>();
+    claims.put("sub", "anna");
+    claims.put("scope", "email profile");
+    claims.put("age", 42);
+    claims.put("realm_access", realmAccess);
+    return claims;
+  }
+
+  /**
+   * Read simple path.
+   */
+  @Test
+  void readSimplePath() {
+    CompiledJsonPath path = CompiledJsonPath.compile("$.realm_access.roles");
+    assertTrue(path.isSimple());
+    assertEquals(Arrays.asList("ADMIN", "USER"), path.read(claims(), List.class));
+    assertEquals("anna", CompiledJsonPath.compile("$.sub").read(claims(), String.class));
+    assertEquals("42", CompiledJsonPath.compile("$.age").read(claims(), String.class));
+    assertNull(CompiledJsonPath.compile("$.sub.name").read(claims(), String.class));
+    assertNull(CompiledJsonPath.compile("$.unknown").read(claims(), String.class));
+    assertNull(path.read(null, List.class));
+  }
+
+  /**
+   * Read complex path.
+   */
+  @Test
+  void readComplexPath() {
+    CompiledJsonPath path = CompiledJsonPath.compile("$.realm_access.roles[0]");
+    assertFalse(path.isSimple());
+    assertEquals("ADMIN", path.read(claims(), String.class));
+    assertEquals("$.realm_access.roles[0]", path.toString());
+  }
+
+}
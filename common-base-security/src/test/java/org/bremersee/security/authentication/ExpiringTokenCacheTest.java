@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The expiring token cache test.
+ *
+ * @author Christian Bremer
+ */
+class ExpiringTokenCacheTest {
+
+  /**
+   * Get with loader.
+   */
+  @Test
+  void getWithLoader() {
+    ExpiringTokenCache<String> cache = new ExpiringTokenCache<>();
+    AtomicInteger loads = new AtomicInteger();
+    Instant expiresAt = Instant.now().plusSeconds(60L);
+    assertEquals("v1", cache.get("t1", expiresAt, () -> "v" + loads.incrementAndGet()));
+    assertEquals("v1", cache.get("t1", expiresAt, () -> "v" + loads.incrementAndGet()));
+    assertEquals(1, loads.get());
+    assertEquals(1L, cache.getHitCount());
+
+    assertEquals("v2", cache.get(null, expiresAt, () -> "v" + loads.incrementAndGet()));
+    assertEquals("v3", cache.get("t2", null, () -> "v" + loads.incrementAndGet()));
+    assertEquals(1, cache.size());
+  }
+
+  /**
+   * Expired values are not returned.
+   */
+  @Test
+  void expired() {
+    ExpiringTokenCache<String> cache = new ExpiringTokenCache<>(2);
+    cache.put("t1", "v1", Instant.now().minusSeconds(1L));
+    assertNull(cache.get("t1"));
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Eviction.
+   */
+  @Test
+  void eviction() {
+    ExpiringTokenCache<String> cache = new ExpiringTokenCache<>(2);
+    for (int i = 0; i < 5; i++) {
+      cache.put("t" + i, "v" + i, Instant.now().plusSeconds(60L));
+    }
+    assertEquals(2, cache.size());
+
+    cache.clear();
+    Instant now = Instant.now();
+    cache.put("late", "v1", now.plusSeconds(120L));
+    cache.put("early", "v2", now.plusSeconds(30L));
+    cache.put("middle", "v3", now.plusSeconds(60L));
+    assertEquals(2, cache.size());
+    assertNull(cache.get("early"));
+    assertEquals("v1", cache.get("late"));
+    assertEquals("v3", cache.get("middle"));
+  }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The in memory access token cache test.
+ *
+ * @author Christian Bremer
+ */
+class InMemoryAccessTokenCacheTest {
+
+  private final Map<String, Date> expirationTimes = new HashMap<>();
+
+  private final AtomicInteger parseCount = new AtomicInteger();
+
+  private InMemoryAccessTokenCache cache;
+
+  /**
+   * Sets up.
+   */
+  @BeforeEach
+  void setUp() {
+    cache = new InMemoryAccessTokenCache(Duration.ofSeconds(10L), "jwt:", 3, Duration.ofHours(1L));
+    cache.setFindExpirationTimeFn(token -> {
+      parseCount.incrementAndGet();
+      return expirationTimes.get(token);
+    });
+  }
+
+  /**
+   * Tear down.
+   */
+  @AfterEach
+  void tearDown() {
+    cache.destroy();
+  }
+
+  private void token(String token, long expiresInMillis) {
+    expirationTimes.put(token, new Date(System.currentTimeMillis() + expiresInMillis));
+  }
+
+  /**
+   * Put and find access token.
+   */
+  @Test
+  void putAndFindAccessToken() {
+    token("t1", 60000L);
+    cache.putAccessToken("k1", "t1");
+    Optional<String> result = cache.findAccessToken("k1");
+    assertTrue(result.isPresent());
+    assertEquals("t1", result.get());
+    assertEquals("t1", cache.findAccessToken("jwt:k1").orElse(null));
+    assertEquals(1, parseCount.get());
+  }
+
+  /**
+   * Expired access token is not cached.
+   */
+  @Test
+  void expiredAccessTokenIsNotCached() {
+    token("t1", 5000L); // expires within the threshold
+    cache.putAccessToken("k1", "t1");
+    assertFalse(cache.findAccessToken("k1").isPresent());
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Access token without expiration time.
+   */
+  @Test
+  void accessTokenWithoutExpirationTime() {
+    cache.putAccessToken("k1", "t1");
+    assertFalse(cache.findAccessToken("k1").isPresent());
+
+    cache.setExpiredBiFn((token, threshold) -> false);
+    cache.putAccessToken("k1", "t1");
+    assertEquals("t1", cache.findAccessToken("k1").orElse(null));
+  }
+
+  /**
+   * Eviction.
+   */
+  @Test
+  void eviction() {
+    token("t1", 20000L);
+    token("t2", 60000L);
+    token("t3", 40000L);
+    token("t4", 50000L);
+    cache.putAccessToken("k1", "t1");
+    cache.putAccessToken("k2", "t2");
+    cache.putAccessToken("k3", "t3");
+    cache.putAccessToken("k4", "t4");
+    assertEquals(3, cache.size());
+    assertFalse(cache.findAccessToken("k1").isPresent());
+    assertTrue(cache.findAccessToken("k2").isPresent());
+    assertTrue(cache.findAccessToken("k3").isPresent());
+    assertTrue(cache.findAccessToken("k4").isPresent());
+  }
+
+  /**
+   * Replace access token.
+   */
+  @Test
+  void replaceAccessToken() {
+    token("t1", 60000L);
+    token("t2", 60000L);
+    cache.putAccessToken("k1", "t1");
+    cache.putAccessToken("k1", "t2");
+    assertEquals(1, cache.size());
+    assertEquals("t2", cache.findAccessToken("k1").orElse(null));
+  }
+
+  /**
+   * Remove access token.
+   */
+  @Test
+  void removeAccessToken() {
+    token("t1", 60000L);
+    cache.putAccessToken("k1", "t1");
+    cache.removeAccessToken("jwt:k1");
+    assertFalse(cache.findAccessToken("k1").isPresent());
+    assertEquals(0, cache.size());
+    cache.removeAccessToken("k2");
+  }
+
+  /**
+   * Sweep.
+   */
+  @Test
+  void sweep() throws Exception {
+    token("t1", 10050L);
+    token("t2", 60000L);
+    cache.putAccessToken("k1", "t1");
+    cache.putAccessToken("k2", "t2");
+    assertEquals(2, cache.size());
+
+    Thread.sleep(100L);
+    cache.sweep();
+    assertEquals(1, cache.size());
+    assertFalse(cache.findAccessToken("k1").isPresent());
+    assertTrue(cache.findAccessToken("k2").isPresent());
+  }
+
+}
@@ -18,6 +18,7 @@ package org.bremersee.security.authentication;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.nimbusds.jwt.JWTClaimsSet;
@@ -156,10 +157,24 @@ class JsonPathJwtAuthenticationDetailsTest {
 
     JWTClaimsSet claimsSet = builder.build();
     return new Jwt(
-        "an-access-token",
+        "an-access-token-" + UUID.randomUUID(),
         iat.toInstant(),
         exp.toInstant(),
         headers,
         claimsSet.getClaims());
   }
-}
\ No newline at end of file
+
+  /**
+   * Preferred language and time zone are cached per token.
+   */
+  @Test
+  void cachedPerToken() {
+    JwtAuthenticationToken token = createJwtAuthenticationToken("de_DE", "Europe/Berlin");
+    assertEquals(Locale.GERMANY, details.getPreferredLanguage(token).orElse(null));
+    assertEquals(Locale.GERMANY, details.getPreferredLanguage(token).orElse(null));
+    TimeZone timeZone = details.getPreferredTimeZone(token).orElse(null);
+    assertEquals(TimeZone.getTimeZone("Europe/Berlin"), timeZone);
+    assertNotSame(timeZone, details.getPreferredTimeZone(token).orElse(null));
+  }
+
+}
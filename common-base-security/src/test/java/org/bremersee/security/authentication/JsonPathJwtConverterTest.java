@@ -18,6 +18,8 @@ package org.bremersee.security.authentication;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -147,4 +149,28 @@ class JsonPathJwtConverterTest {
         headers,
         claimsSet.getClaims());
   }
-}
\ No newline at end of file
+
+  /**
+   * Conversion results are cached per token.
+   */
+  @Test
+  void cachedPerToken() {
+    Jwt jwt = createJwt();
+    JsonPathJwtConverter converter = new JsonPathJwtConverter();
+    converter.setRolesValueList(true);
+    converter.setRolesJsonPath("$.realm_access.roles");
+    converter.setRolePrefix("ROLE_");
+    JwtAuthenticationToken first = converter.convert(jwt);
+    JwtAuthenticationToken second = converter.convert(jwt);
+    assertNotSame(first, second);
+    assertEquals(first.getName(), second.getName());
+    assertEquals(first.getAuthorities(), second.getAuthorities());
+    assertSame(
+        first.getAuthorities().iterator().next(),
+        second.getAuthorities().iterator().next());
+
+    converter.setCacheMaximumSize(0);
+    assertEquals(first.getAuthorities(), converter.convert(jwt).getAuthorities());
+  }
+
+}
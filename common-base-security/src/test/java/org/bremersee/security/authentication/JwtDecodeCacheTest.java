@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * The jwt decode cache test.
+ *
+ * @author Christian Bremer
+ */
+class JwtDecodeCacheTest {
+
+  /**
+   * Creates a jwt.
+   *
+   * @param token the token value
+   * @param expiresAt the expiration time
+   * @return the jwt
+   */
+  static Jwt jwt(String token, Instant expiresAt) {
+    return Jwt.withTokenValue(token)
+        .header("alg", "none")
+        .subject("anna")
+        .issuedAt(Instant.now().minusSeconds(10L))
+        .expiresAt(expiresAt)
+        .build();
+  }
+
+  /**
+   * Put and get.
+   */
+  @Test
+  void putAndGet() {
+    JwtDecodeCache cache = new JwtDecodeCache();
+    Jwt jwt = jwt("t1", Instant.now().plusSeconds(60L));
+    assertNull(cache.get("t1"));
+    cache.put("t1", jwt);
+    assertSame(jwt, cache.get(new String("t1".toCharArray())));
+    assertEquals(1L, cache.getHitCount());
+    assertEquals(1L, cache.getMissCount());
+    assertNull(cache.get(null));
+  }
+
+  /**
+   * Expired jwts are not returned.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void expired() throws Exception {
+    JwtDecodeCache cache = new JwtDecodeCache();
+    cache.put("t1", jwt("t1", Instant.now().minusSeconds(1L)));
+    assertNull(cache.get("t1"));
+    assertEquals(0, cache.size());
+
+    cache.put("t2", jwt("t2", Instant.now().plusMillis(50L)));
+    assertEquals(1, cache.size());
+    Thread.sleep(100L);
+    assertNull(cache.get("t2"));
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Jwts without expiration time are not cached.
+   */
+  @Test
+  void withoutExpirationTime() {
+    JwtDecodeCache cache = new JwtDecodeCache();
+    cache.put("t1", Jwt.withTokenValue("t1").header("alg", "none").subject("anna").build());
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Eviction.
+   */
+  @Test
+  void eviction() {
+    JwtDecodeCache cache = new JwtDecodeCache(3);
+    for (int i = 0; i < 10; i++) {
+      cache.put("t" + i, jwt("t" + i, Instant.now().plusSeconds(60L)));
+    }
+    assertEquals(3, cache.size());
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+}
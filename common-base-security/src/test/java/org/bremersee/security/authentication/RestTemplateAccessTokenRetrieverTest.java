@@ -19,16 +19,29 @@ package org.bremersee.security.authentication;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.bremersee.exception.AccessTokenRetrieverAuthenticationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -89,4 +102,213 @@ class RestTemplateAccessTokenRetrieverTest {
         () -> tokenRetriever.retrieveAccessToken(properties));
   }
 
-}
\ No newline at end of file
+  /**
+   * Concurrent retrievals of the same access token send only one request.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void retrieveAccessTokenConcurrently() throws Exception {
+    int callers = 8;
+    CountDownLatch ready = new CountDownLatch(callers);
+    CountDownLatch release = new CountDownLatch(1);
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    //noinspection unchecked
+    when(restTemplate.exchange(
+        anyString(), any(HttpMethod.class), any(HttpEntity.class), any(Class.class)))
+        .thenAnswer(invocation -> {
+          assertTrue(release.await(10L, TimeUnit.SECONDS));
+          return ResponseEntity.ok("{\"access_token\":\"junit_access_token_value\"}");
+        });
+    RestTemplateAccessTokenRetriever tokenRetriever = new RestTemplateAccessTokenRetriever(
+        restTemplate);
+
+    PasswordFlowProperties properties = PasswordFlowProperties.builder()
+        .tokenEndpoint("http://localhost/token")
+        .clientId("123")
+        .clientSecret("456")
+        .username("789")
+        .password("012")
+        .build();
+
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(executor.submit(() -> {
+          ready.countDown();
+          return tokenRetriever.retrieveAccessToken(properties);
+        }));
+      }
+      assertTrue(ready.await(10L, TimeUnit.SECONDS));
+      Thread.sleep(200L);
+      release.countDown();
+      for (Future<String> result : results) {
+        assertEquals("junit_access_token_value", result.get(10L, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    //noinspection unchecked
+    verify(restTemplate, times(1)).exchange(
+        anyString(), any(HttpMethod.class), any(HttpEntity.class), any(Class.class));
+  }
+
+  /**
+   * Waiting for a concurrent retrieval of the same access token times out.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  void retrieveAccessTokenConcurrentlyTimesOut() throws Exception {
+    CountDownLatch requested = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    //noinspection unchecked
+    when(restTemplate.exchange(
+        anyString(), any(HttpMethod.class), any(HttpEntity.class), any(Class.class)))
+        .thenAnswer(invocation -> {
+          requested.countDown();
+          assertTrue(release.await(10L, TimeUnit.SECONDS));
+          return ResponseEntity.ok("{\"access_token\":\"junit_access_token_value\"}");
+        });
+    RestTemplateAccessTokenRetriever tokenRetriever = new RestTemplateAccessTokenRetriever(
+        restTemplate);
+    tokenRetriever.setAwaitTimeout(Duration.ofMillis(100L));
+
+    PasswordFlowProperties properties = PasswordFlowProperties.builder()
+        .tokenEndpoint("http://localhost/token")
+        .clientId("123")
+        .clientSecret("456")
+        .username("789")
+        .password("012")
+        .build();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> first = executor.submit(() -> tokenRetriever.retrieveAccessToken(properties));
+      assertTrue(requested.await(10L, TimeUnit.SECONDS));
+      AccessTokenRetrieverAuthenticationException exception = assertThrows(
+          AccessTokenRetrieverAuthenticationException.class,
+          () -> tokenRetriever.retrieveAccessToken(properties));
+      assertEquals(504, exception.status());
+      release.countDown();
+      assertEquals("junit_access_token_value", first.get(10L, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Retrieve access token with refresh ahead.
+   */
+  @Test
+  void retrieveAccessTokenWithRefreshAhead() {
+    String oldToken = AccessTokenRefreshAheadTest.token(80L, 20L);
+    String newToken = AccessTokenRefreshAheadTest.token(0L, 100L);
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    //noinspection unchecked
+    when(restTemplate.exchange(
+        anyString(), any(HttpMethod.class), any(HttpEntity.class), any(Class.class)))
+        .thenReturn(ResponseEntity.ok("{\"access_token\":\"" + newToken + "\"}"));
+    InMemoryAccessTokenCache cache = new InMemoryAccessTokenCache(
+        Duration.ofSeconds(1L), null, 10, Duration.ofHours(1L));
+    RestTemplateAccessTokenRetriever tokenRetriever = new RestTemplateAccessTokenRetriever(
+        restTemplate, cache);
+    tokenRetriever.setRefreshAhead(new AccessTokenRefreshAhead(0.75, 0.));
+    tokenRetriever.setRefreshExecutor(Runnable::run);
+
+    PasswordFlowProperties properties = PasswordFlowProperties.builder()
+        .tokenEndpoint("http://localhost/token")
+        .clientId("123")
+        .clientSecret("456")
+        .username("789")
+        .password("012")
+        .build();
+    try {
+      cache.putAccessToken(properties.createCacheKeyHashed(), oldToken);
+      assertEquals(oldToken, tokenRetriever.retrieveAccessToken(properties));
+      assertEquals(newToken, tokenRetriever.retrieveAccessToken(properties));
+      assertEquals(newToken, tokenRetriever.retrieveAccessToken(properties));
+      //noinspection unchecked
+      verify(restTemplate, times(1)).exchange(
+          anyString(), any(HttpMethod.class), any(HttpEntity.class), any(Class.class));
+
+    } finally {
+      cache.destroy();
+    }
+  }
+
+  /**
+   * The default refresh executor is created on demand; after destroy the renewal is rejected and
+   * the cached access token is returned.
+   */
+  @Test
+  void retrieveAccessTokenWithRefreshAheadAfterDestroy() {
+    String oldToken = AccessTokenRefreshAheadTest.token(80L, 20L);
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    InMemoryAccessTokenCache cache = new InMemoryAccessTokenCache(
+        Duration.ofSeconds(1L), null, 10, Duration.ofHours(1L));
+    RestTemplateAccessTokenRetriever tokenRetriever = new RestTemplateAccessTokenRetriever(
+        restTemplate, cache);
+    tokenRetriever.setRefreshAhead(new AccessTokenRefreshAhead(0.75, 0.));
+    tokenRetriever.destroy();
+
+    PasswordFlowProperties properties = PasswordFlowProperties.builder()
+        .tokenEndpoint("http://localhost/token")
+        .clientId("123")
+        .clientSecret("456")
+        .username("789")
+        .password("012")
+        .build();
+    try {
+      cache.putAccessToken(properties.createCacheKeyHashed(), oldToken);
+      assertEquals(oldToken, tokenRetriever.retrieveAccessToken(properties));
+      assertEquals(oldToken, tokenRetriever.retrieveAccessToken(properties));
+      //noinspection unchecked
+      verify(restTemplate, never()).exchange(
+          anyString(), any(HttpMethod.class), any(HttpEntity.class), any(Class.class));
+
+    } finally {
+      cache.destroy();
+    }
+  }
+
+  /**
+   * Retrieve access token fails fast, when the circuit is open.
+   */
+  @Test
+  void retrieveAccessTokenWithOpenCircuit() {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    //noinspection unchecked
+    when(restTemplate.exchange(
+        anyString(), any(HttpMethod.class), any(HttpEntity.class), any(Class.class)))
+        .thenThrow(new ResourceAccessException("Read timed out"));
+    RestTemplateAccessTokenRetriever tokenRetriever = new RestTemplateAccessTokenRetriever(
+        restTemplate);
+    tokenRetriever.setTokenEndpointGuard(new TokenEndpointGuard(
+        2, Duration.ofSeconds(1L), 2, Duration.ofMinutes(1L)));
+
+    PasswordFlowProperties properties = PasswordFlowProperties.builder()
+        .tokenEndpoint("http://localhost/token")
+        .clientId("123")
+        .clientSecret("456")
+        .username("789")
+        .password("012")
+        .build();
+    assertThrows(
+        ResourceAccessException.class,
+        () -> tokenRetriever.retrieveAccessToken(properties));
+    assertThrows(
+        ResourceAccessException.class,
+        () -> tokenRetriever.retrieveAccessToken(properties));
+    AccessTokenRetrieverAuthenticationException e = assertThrows(
+        AccessTokenRetrieverAuthenticationException.class,
+        () -> tokenRetriever.retrieveAccessToken(properties));
+    assertEquals(503, e.status());
+    //noinspection unchecked
+    verify(restTemplate, times(2)).exchange(
+        anyString(), any(HttpMethod.class), any(HttpEntity.class), any(Class.class));
+  }
+
+}
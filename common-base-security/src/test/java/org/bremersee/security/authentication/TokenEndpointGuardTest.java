@@ -0,0 +1,148 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bremersee.exception.AccessTokenRetrieverAuthenticationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+/**
+ * The token endpoint guard test.
+ *
+ * @author Christian Bremer
+ */
+class TokenEndpointGuardTest {
+
+  private static final RuntimeException SERVER_ERROR
+      = new AccessTokenRetrieverAuthenticationException(HttpStatus.BAD_GATEWAY, "Bad gateway");
+
+  /**
+   * Concurrency limit.
+   */
+  @Test
+  void concurrencyLimit() {
+    TokenEndpointGuard guard = new TokenEndpointGuard(
+        1, Duration.ofMillis(10L), 3, Duration.ofSeconds(30L));
+    guard.acquire();
+    AccessTokenRetrieverAuthenticationException e = assertThrows(
+        AccessTokenRetrieverAuthenticationException.class,
+        guard::acquireWithoutWaiting);
+    assertEquals(503, e.status());
+    assertThrows(AccessTokenRetrieverAuthenticationException.class, guard::acquire);
+    guard.release(null);
+    guard.acquireWithoutWaiting();
+    guard.release(null);
+  }
+
+  /**
+   * Circuit opens and closes.
+   */
+  @Test
+  void circuitOpensAndCloses() {
+    AtomicLong now = new AtomicLong(1000L);
+    TokenEndpointGuard guard = new TokenEndpointGuard(
+        4, Duration.ofMillis(10L), 2, Duration.ofSeconds(30L), now::get);
+
+    guard.acquire();
+    guard.release(SERVER_ERROR);
+    assertFalse(guard.isOpen());
+    guard.acquire();
+    guard.release(SERVER_ERROR);
+    assertTrue(guard.isOpen());
+    assertThrows(AccessTokenRetrieverAuthenticationException.class, guard::acquire);
+
+    now.addAndGet(30000L);
+    assertFalse(guard.isOpen());
+    guard.acquire();
+    assertTrue(guard.isOpen());
+    assertThrows(AccessTokenRetrieverAuthenticationException.class, guard::acquire);
+    guard.release(null);
+    assertFalse(guard.isOpen());
+    guard.acquire();
+    guard.release(null);
+  }
+
+  /**
+   * Failed trial request opens the circuit again.
+   */
+  @Test
+  void failedTrialRequest() {
+    AtomicLong now = new AtomicLong(1000L);
+    TokenEndpointGuard guard = new TokenEndpointGuard(
+        4, Duration.ofMillis(10L), 1, Duration.ofSeconds(30L), now::get);
+
+    guard.acquire();
+    guard.release(new IllegalStateException("Connection refused"));
+    assertTrue(guard.isOpen());
+    now.addAndGet(30000L);
+    guard.acquireWithoutWaiting();
+    guard.release(SERVER_ERROR);
+    assertTrue(guard.isOpen());
+    assertThrows(AccessTokenRetrieverAuthenticationException.class, guard::acquire);
+  }
+
+  /**
+   * Cancelled requests are neutral.
+   */
+  @Test
+  void cancelledRequestsAreNeutral() {
+    AtomicLong now = new AtomicLong(1000L);
+    TokenEndpointGuard guard = new TokenEndpointGuard(
+        1, Duration.ofMillis(10L), 2, Duration.ofSeconds(30L), now::get);
+
+    guard.acquire();
+    guard.release(SERVER_ERROR);
+    guard.acquire();
+    guard.releaseCancelled();
+    guard.acquire();
+    guard.release(SERVER_ERROR);
+    assertTrue(guard.isOpen());
+
+    now.addAndGet(30000L);
+    guard.acquireWithoutWaiting();
+    assertTrue(guard.isOpen());
+    guard.releaseCancelled();
+    assertFalse(guard.isOpen());
+    guard.acquireWithoutWaiting();
+    guard.release(null);
+    assertFalse(guard.isOpen());
+  }
+
+  /**
+   * Client errors are no failures.
+   */
+  @Test
+  void clientErrorsAreNoFailures() {
+    TokenEndpointGuard guard = new TokenEndpointGuard(
+        4, Duration.ofMillis(10L), 1, Duration.ofSeconds(30L));
+    guard.acquire();
+    guard.release(new AccessTokenRetrieverAuthenticationException(
+        HttpStatus.UNAUTHORIZED, "Bad credentials"));
+    assertFalse(guard.isOpen());
+    assertFalse(TokenEndpointGuard.isFailure(new AccessTokenRetrieverAuthenticationException(
+        HttpStatus.BAD_REQUEST, "Bad request")));
+    assertTrue(TokenEndpointGuard.isFailure(SERVER_ERROR));
+  }
+
+}
@@ -18,6 +18,8 @@ package org.bremersee.security.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -25,15 +27,20 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bremersee.security.access.DefaultPrincipalHierarchy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * The authenticated user context caller test.
@@ -153,6 +160,56 @@ class AuthenticatedUserContextCallerTest {
     assertEquals(expected, actual);
   }
 
+  /**
+   * Call with memoized user context.
+   */
+  @Test
+  void callWithMemoizedUserContext() {
+    AtomicInteger calls = new AtomicInteger();
+    UserContextCaller caller = new UserContextCaller(() -> {
+      calls.incrementAndGet();
+      return Collections.singleton(group);
+    });
+    UserContext first = caller.callWithRequiredUserContext(userContext -> userContext);
+    UserContext second = caller.callWithRequiredUserContext(userContext -> userContext);
+    assertNotSame(first, second);
+    assertEquals(2, calls.get());
+
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+    try {
+      calls.set(0);
+      first = caller.callWithRequiredUserContext(userContext -> userContext);
+      second = caller.callWithOptionalUserContext(userContext -> userContext);
+      assertEquals(expected, first);
+      assertSame(first, second);
+      assertEquals(1, calls.get());
+
+      UserContextCaller otherCaller = new UserContextCaller(() -> {
+        calls.incrementAndGet();
+        return Collections.emptySet();
+      });
+      UserContext other = otherCaller.callWithRequiredUserContext(userContext -> userContext);
+      assertTrue(other.getGroups().isEmpty());
+      assertEquals(2, calls.get());
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+
+  /**
+   * Call with role hierarchy.
+   */
+  @Test
+  void callWithRoleHierarchy() {
+    UserContextCaller caller = new UserContextCaller(() -> Collections.singleton(group));
+    caller.setRoleHierarchy(DefaultPrincipalHierarchy.fromString(role + " > ROLE_GUEST"));
+    UserContext actual = caller.callWithRequiredUserContext(userContext -> userContext);
+    assertTrue(actual.hasRole(role));
+    assertTrue(actual.hasRole("ROLE_GUEST"));
+    assertTrue(actual.isInGroup(group));
+  }
+
   private UserContext serviceMethod(UserContext userContext, Object arg) {
     assertNotNull(arg);
     return userContext;
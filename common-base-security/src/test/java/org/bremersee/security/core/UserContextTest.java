@@ -28,6 +28,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.UUID;
+import org.bremersee.security.access.DefaultPrincipalHierarchy;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -169,4 +170,22 @@ class UserContextTest {
     assertTrue(userContext.getGroups().isEmpty());
   }
 
-}
\ No newline at end of file
+  /**
+   * Expand.
+   */
+  @Test
+  void expand() {
+    UserContext userContext = UserContext.newInstance(
+        "anna", Collections.singleton("ROLE_ADMIN"), Collections.singleton("friends"));
+    assertEquals(userContext, userContext.expand(null, null));
+
+    UserContext actual = userContext.expand(
+        DefaultPrincipalHierarchy.fromString("ROLE_ADMIN > ROLE_USER > ROLE_GUEST"),
+        null);
+    assertTrue(actual.hasRole("ROLE_ADMIN"));
+    assertTrue(actual.hasRole("ROLE_GUEST"));
+    assertTrue(actual.isInGroup("friends"));
+    assertFalse(actual.isInGroup("colleagues"));
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+
+/**
+ * The user groups cache test.
+ *
+ * @author Christian Bremer
+ */
+class UserGroupsCacheTest {
+
+  /**
+   * Get and put.
+   */
+  @Test
+  void getAndPut() {
+    AtomicLong now = new AtomicLong(1000L);
+    UserGroupsCache cache = new UserGroupsCache(10, Duration.ofSeconds(1L), now::get);
+
+    assertNull(cache.getIfPresent("anna"));
+    cache.put("anna", Set.of("a", "b"));
+    assertEquals(Set.of("a", "b"), cache.getIfPresent("anna"));
+    cache.put("leopold", null);
+    assertEquals(Set.of(), cache.getIfPresent("leopold"));
+    assertNull(cache.getIfPresent(null));
+
+    now.addAndGet(999L);
+    assertNotNull(cache.getIfPresent("anna"));
+    now.addAndGet(1L);
+    assertNull(cache.getIfPresent("anna"));
+    assertEquals(1, cache.size());
+
+    cache.evict("leopold");
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Put more than maximum size.
+   */
+  @Test
+  void putMoreThanMaximumSize() {
+    AtomicLong now = new AtomicLong(1000L);
+    UserGroupsCache cache = new UserGroupsCache(2, null, now::get);
+    cache.put("anna", Set.of("a"));
+    now.incrementAndGet();
+    cache.put("leopold", Set.of("l"));
+    now.incrementAndGet();
+    cache.put("anna", Set.of("a"));
+    cache.put("molly", Set.of("m"));
+    assertEquals(2, cache.size());
+    assertNull(cache.getIfPresent("leopold"));
+    assertNotNull(cache.getIfPresent("anna"));
+    assertNotNull(cache.getIfPresent("molly"));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Cache.
+   */
+  @Test
+  void cache() {
+    AtomicInteger calls = new AtomicInteger();
+    UserGroupsCache cache = new UserGroupsCache();
+    Function<Authentication, Set<String>> groupsFn = cache.cache(authentication -> {
+      calls.incrementAndGet();
+      return Set.of("group");
+    });
+    Authentication authentication = mock(Authentication.class);
+    when(authentication.getName()).thenReturn("anna");
+
+    assertEquals(Set.of("group"), groupsFn.apply(authentication));
+    assertEquals(Set.of("group"), groupsFn.apply(authentication));
+    assertEquals(1, calls.get());
+  }
+
+}
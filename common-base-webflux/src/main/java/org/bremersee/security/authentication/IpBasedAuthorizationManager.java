@@ -16,13 +16,9 @@
 
 package org.bremersee.security.authentication;
 
+import java.net.InetSocketAddress;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
-import org.bremersee.security.ReactiveIpAddressMatcher;
+import org.bremersee.security.IpAddressTrie;
 import org.springframework.security.authorization.AuthenticatedReactiveAuthorizationManager;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.ReactiveAuthorizationManager;
@@ -31,14 +27,15 @@ import org.springframework.security.web.server.authorization.AuthorizationContex
 import reactor.core.publisher.Mono;
 
 /**
- * The ip based authorization manager.
+ * The ip based authorization manager. The ip addresses are compiled once into an
+ * {@link IpAddressTrie}, that is used to check the remote address of every request.
  *
  * @author Christian Bremer
  */
 public class IpBasedAuthorizationManager
     implements ReactiveAuthorizationManager<AuthorizationContext> {
 
-  private final Set<String> ipAddresses;
+  private final IpAddressTrie ipAddresses;
 
   private final boolean withAuthenticatedFallback;
 
@@ -61,11 +58,7 @@ public class IpBasedAuthorizationManager
   public IpBasedAuthorizationManager(
       Collection<String> ipAddresses,
       boolean withAuthenticatedFallback) {
-    this.ipAddresses = Optional.ofNullable(ipAddresses)
-        .map(col -> col.stream()
-            .filter(Objects::nonNull)
-            .collect(Collectors.toSet()))
-        .orElseGet(Collections::emptySet);
+    this.ipAddresses = IpAddressTrie.compile(ipAddresses);
     this.withAuthenticatedFallback = withAuthenticatedFallback;
   }
 
@@ -88,9 +81,11 @@ public class IpBasedAuthorizationManager
   }
 
   private boolean isWhiteListedIp(AuthorizationContext context) {
-    return ipAddresses.stream()
-        .anyMatch(ip -> new ReactiveIpAddressMatcher(ip)
-            .matchesRemoteAddress(context.getExchange()));
+    if (ipAddresses.isEmpty() || context == null || context.getExchange() == null) {
+      return false;
+    }
+    final InetSocketAddress remoteAddress = context.getExchange().getRequest().getRemoteAddress();
+    return remoteAddress != null && ipAddresses.matches(remoteAddress.getAddress());
   }
 
 }
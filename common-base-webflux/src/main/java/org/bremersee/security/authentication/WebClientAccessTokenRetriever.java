@@ -16,6 +16,10 @@
 
 package org.bremersee.security.authentication;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 import net.minidev.json.JSONObject;
 import net.minidev.json.JSONValue;
@@ -24,14 +28,23 @@ import org.bremersee.web.ErrorDetectors;
 import org.bremersee.web.reactive.function.client.AbstractWebClientErrorDecoder;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 /**
- * A reactive implementation of the {@link AccessTokenRetriever}.
+ * A reactive implementation of the {@link AccessTokenRetriever}. Concurrent retrievals of the
+ * same access token (same cache key) share one request to the token endpoint. If a
+ * {@link AccessTokenRefreshAhead refresh ahead policy} is set, cached access tokens, that are due
+ * for renewal, are renewed in the background.
+ *
+ * <p>If a {@link TokenEndpointGuard token endpoint guard} is set, the number of concurrent
+ * requests to the token endpoint is limited and they fail fast, while the token endpoint is
+ * down. A request, that is not answered within the response timeout, fails, too.
  *
  * @author Christian Bremer
  */
@@ -44,6 +57,14 @@ public class WebClientAccessTokenRetriever
 
   private final ReactiveAccessTokenCache accessTokenCache;
 
+  private final Map<String, Mono<String>> inFlightRequests = new ConcurrentHashMap<>();
+
+  private AccessTokenRefreshAhead refreshAhead;
+
+  private TokenEndpointGuard tokenEndpointGuard;
+
+  private Duration responseTimeout;
+
   /**
    * Instantiates a new access token retriever that uses spring's web client.
    */
@@ -84,6 +105,34 @@ public class WebClientAccessTokenRetriever
     this.accessTokenCache = accessTokenCache;
   }
 
+  /**
+   * Sets the refresh ahead policy. If it is set (and there is an access token cache), a cached
+   * access token, that is due for renewal, is returned and renewed in the background.
+   *
+   * @param refreshAhead the refresh ahead policy, {@code null} disables refresh ahead
+   */
+  public void setRefreshAhead(@Nullable AccessTokenRefreshAhead refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  /**
+   * Sets the token endpoint guard.
+   *
+   * @param tokenEndpointGuard the token endpoint guard, {@code null} disables it
+   */
+  public void setTokenEndpointGuard(@Nullable TokenEndpointGuard tokenEndpointGuard) {
+    this.tokenEndpointGuard = tokenEndpointGuard;
+  }
+
+  /**
+   * Sets the response timeout of the token endpoint.
+   *
+   * @param responseTimeout the response timeout, {@code null} means no timeout
+   */
+  public void setResponseTimeout(@Nullable Duration responseTimeout) {
+    this.responseTimeout = responseTimeout;
+  }
+
   @Override
   public Mono<String> retrieveAccessToken(final AccessTokenRetrieverProperties properties) {
     if (log.isDebugEnabled()) {
@@ -92,22 +141,86 @@ public class WebClientAccessTokenRetriever
     final String cacheKey = properties.createCacheKeyHashed();
     return Mono.justOrEmpty(accessTokenCache)
         .flatMap(cache -> cache.findAccessToken(cacheKey))
-        .switchIfEmpty(webClient
-            .method(HttpMethod.POST)
-            .uri(properties.getTokenEndpoint())
-            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-            .headers(headers -> properties.getBasicAuthProperties()
-                .ifPresent(basicAuthProperties -> headers.setBasicAuth(
-                    basicAuthProperties.getUsername(),
-                    basicAuthProperties.getPassword())))
-            .body(BodyInserters.fromFormData(properties.createBody()))
-            .retrieve()
-            .onStatus(ErrorDetectors.DEFAULT, this)
-            .bodyToMono(String.class)
-            .map(response -> ((JSONObject) JSONValue.parse(response)).getAsString("access_token"))
-            .flatMap(accessToken -> accessTokenCache != null
-                ? accessTokenCache.putAccessToken(cacheKey, accessToken)
-                : Mono.just(accessToken)));
+        .doOnNext(accessToken -> refreshAheadIfDue(cacheKey, properties, accessToken))
+        .switchIfEmpty(Mono.defer(() -> inFlightRequest(cacheKey, properties)));
+  }
+
+  private void refreshAheadIfDue(
+      final String cacheKey,
+      final AccessTokenRetrieverProperties properties,
+      final String accessToken) {
+
+    final AccessTokenRefreshAhead policy = refreshAhead;
+    final TokenEndpointGuard guard = tokenEndpointGuard;
+    if (policy != null
+        && (guard == null || !guard.isOpen())
+        && policy.isRefreshDue(cacheKey, accessToken)) {
+      inFlightRequest(cacheKey, properties)
+          .subscribe(
+              token -> log.debug("Access token was renewed in the background."),
+              error -> {
+                log.warn("Renewing access token in the background failed.", error);
+                policy.refreshFailed(cacheKey);
+              });
+    }
+  }
+
+  private Mono<String> inFlightRequest(
+      final String cacheKey,
+      final AccessTokenRetrieverProperties properties) {
+    return inFlightRequests.computeIfAbsent(cacheKey, key -> {
+      final AtomicReference<Mono<String>> inFlightRequest = new AtomicReference<>();
+      final Mono<String> request = requestAccessToken(key, properties)
+          .doFinally(signal -> inFlightRequests.remove(key, inFlightRequest.get()))
+          .cache();
+      inFlightRequest.set(request);
+      return request;
+    });
+  }
+
+  private Mono<String> requestAccessToken(
+      final String cacheKey,
+      final AccessTokenRetrieverProperties properties) {
+    return guarded(webClient
+        .method(HttpMethod.POST)
+        .uri(properties.getTokenEndpoint())
+        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+        .headers(headers -> properties.getBasicAuthProperties()
+            .ifPresent(basicAuthProperties -> headers.setBasicAuth(
+                basicAuthProperties.getUsername(),
+                basicAuthProperties.getPassword())))
+        .body(BodyInserters.fromFormData(properties.createBody()))
+        .retrieve()
+        .onStatus(ErrorDetectors.DEFAULT, this)
+        .bodyToMono(String.class))
+        .map(response -> ((JSONObject) JSONValue.parse(response)).getAsString("access_token"))
+        .flatMap(accessToken -> accessTokenCache != null
+            ? accessTokenCache.putAccessToken(cacheKey, accessToken)
+            : Mono.just(accessToken));
+  }
+
+  private Mono<String> guarded(Mono<String> response) {
+    final Duration timeout = responseTimeout;
+    final Mono<String> request = timeout != null && !timeout.isNegative() && !timeout.isZero()
+        ? response.timeout(timeout)
+        : response;
+    final TokenEndpointGuard guard = tokenEndpointGuard;
+    if (guard == null) {
+      return request;
+    }
+    return Mono.defer(() -> {
+      guard.acquireWithoutWaiting();
+      final AtomicReference<Throwable> error = new AtomicReference<>();
+      return request
+          .doOnError(error::set)
+          .doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+              guard.releaseCancelled();
+            } else {
+              guard.release(error.get());
+            }
+          });
+    });
   }
 
   @Override
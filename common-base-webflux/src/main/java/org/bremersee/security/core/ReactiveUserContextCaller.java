@@ -17,25 +17,43 @@
 package org.bremersee.security.core;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.validation.constraints.NotNull;
 import org.bremersee.exception.ServiceException;
+import org.bremersee.security.access.AccessFilter;
+import org.bremersee.security.access.PrincipalHierarchy;
+import org.bremersee.security.access.ReadOnlyAce;
+import org.bremersee.security.access.ReadOnlyAcl;
 import org.reactivestreams.Publisher;
 import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
+import org.springframework.util.Assert;
 import org.springframework.validation.annotation.Validated;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 /**
  * The reactive user context caller.
  *
+ * <p>If the subscriber context contains a user context cache (see {@link
+ * #withUserContextCache(Context)} and {@link UserContextCacheWebFilter}), the user context is
+ * built only once per caller and cache, i.e. once per request. A failed build is not cached, so
+ * the next call of the caller builds the user context again. Otherwise it is built on every
+ * subscription.
+ *
+ * <p>If a role or group hierarchy is set, the roles or groups of the user context are expanded
+ * by it.
+ *
  * @author Christian Bremer
  */
 @Validated
@@ -59,10 +77,20 @@ public class ReactiveUserContextCaller {
   public static final Supplier<Mono<UserContext>> FORBIDDEN_SUPPLIER = () -> Mono
       .error(ServiceException::forbidden);
 
+  /**
+   * The key of the user context cache in the subscriber context.
+   */
+  public static final String USER_CONTEXT_CACHE_KEY = ReactiveUserContextCaller.class.getName()
+      + ".USER_CONTEXT_CACHE";
+
   private final Function<Authentication, Mono<Set<String>>> groupsFn;
 
   private final Supplier<Mono<UserContext>> unauthenticatedSupplier;
 
+  private PrincipalHierarchy roleHierarchy;
+
+  private PrincipalHierarchy groupHierarchy;
+
   /**
    * Instantiates a new reactive user context caller.
    */
@@ -101,6 +129,44 @@ public class ReactiveUserContextCaller {
         : FORBIDDEN_SUPPLIER;
   }
 
+  /**
+   * Sets the role hierarchy, that expands the roles of the user context.
+   *
+   * @param roleHierarchy the role hierarchy
+   */
+  public void setRoleHierarchy(@Nullable PrincipalHierarchy roleHierarchy) {
+    this.roleHierarchy = roleHierarchy;
+  }
+
+  /**
+   * Sets the group hierarchy, that expands the groups of the user context.
+   *
+   * @param groupHierarchy the group hierarchy
+   */
+  public void setGroupHierarchy(@Nullable PrincipalHierarchy groupHierarchy) {
+    this.groupHierarchy = groupHierarchy;
+  }
+
+  /**
+   * Gets the role hierarchy, that expands the roles of the user context.
+   *
+   * @return the role hierarchy
+   */
+  @Nullable
+  public PrincipalHierarchy getRoleHierarchy() {
+    return roleHierarchy;
+  }
+
+  /**
+   * Gets the group hierarchy, that expands the groups of the user context.
+   *
+   * @return the group hierarchy
+   */
+  @Nullable
+  public PrincipalHierarchy getGroupHierarchy() {
+    return groupHierarchy;
+  }
+
   private Set<String> toRoles(Authentication authentication) {
     return authentication.getAuthorities()
         .stream()
@@ -108,15 +174,7 @@ public class ReactiveUserContextCaller {
         .collect(Collectors.toSet());
   }
 
-  /**
-   * One with user context mono.
-   *
-   * @param <R> the type parameter
-   * @param function the function
-   * @return the mono
-   */
-  public <R> Mono<R> oneWithUserContext(
-      @NotNull Function<UserContext, ? extends Mono<R>> function) {
+  private Mono<UserContext> buildUserContext() {
     return ReactiveSecurityContextHolder.getContext()
         .map(SecurityContext::getAuthentication)
         .filter(Authentication::isAuthenticated)
@@ -126,7 +184,78 @@ public class ReactiveUserContextCaller {
         .map(tuple -> UserContext.newInstance(
             tuple.getT1().getName(),
             toRoles(tuple.getT1()),
-            tuple.getT2()))
+            tuple.getT2())
+            .expand(roleHierarchy, groupHierarchy));
+  }
+
+  private Mono<UserContext> userContext() {
+    return Mono.subscriberContext()
+        .flatMap(context -> context
+            .<Map<ReactiveUserContextCaller, Mono<UserContext>>>getOrEmpty(USER_CONTEXT_CACHE_KEY)
+            .map(this::cachedUserContext)
+            .orElseGet(this::buildUserContext));
+  }
+
+  private Mono<UserContext> cachedUserContext(
+      Map<ReactiveUserContextCaller, Mono<UserContext>> cache) {
+    return cache.computeIfAbsent(this, caller -> {
+      AtomicReference<Mono<UserContext>> cachedUserContext = new AtomicReference<>();
+      Mono<UserContext> userContext = buildUserContext()
+          .doOnError(error -> cache.remove(caller, cachedUserContext.get()))
+          .cache();
+      cachedUserContext.set(userContext);
+      return userContext;
+    });
+  }
+
+  /**
+   * Adds a new user context cache to the given subscriber context. The callers, that are
+   * subscribed with this context, build their user context only once.
+   *
+   * @param context the subscriber context
+   * @return the subscriber context with the user context cache
+   */
+  public static Context withUserContextCache(@NotNull Context context) {
+    Assert.notNull(context, "Context must be present.");
+    return context.put(
+        USER_CONTEXT_CACHE_KEY,
+        new ConcurrentHashMap<ReactiveUserContextCaller, Mono<UserContext>>());
+  }
+
+  /**
+   * Returns a groups function, that looks up the groups of the authenticated user in the given
+   * cache and calls the given groups function only, if they are not present.
+   *
+   * @param userGroupsCache the user groups cache
+   * @param groupsFn the groups function
+   * @return the caching groups function
+   */
+  public static Function<Authentication, Mono<Set<String>>> cachingGroupsFn(
+      @NotNull UserGroupsCache userGroupsCache,
+      @NotNull Function<Authentication, Mono<Set<String>>> groupsFn) {
+    Assert.notNull(userGroupsCache, "User groups cache must be present.");
+    Assert.notNull(groupsFn, "Groups function must be present.");
+    return authentication -> {
+      String userName = authentication.getName();
+      Set<String> groups = userGroupsCache.getIfPresent(userName);
+      if (groups != null) {
+        return Mono.just(groups);
+      }
+      return groupsFn.apply(authentication)
+          .doOnNext(value -> userGroupsCache.put(userName, value));
+    };
+  }
+
+  /**
+   * One with user context mono.
+   *
+   * @param <R> the type parameter
+   * @param function the function
+   * @return the mono
+   */
+  public <R> Mono<R> oneWithUserContext(
+      @NotNull Function<UserContext, ? extends Mono<R>> function) {
+    return userContext()
         .switchIfEmpty(unauthenticatedSupplier.get())
         .flatMap(function);
   }
@@ -174,16 +303,7 @@ public class ReactiveUserContextCaller {
    */
   public <R> Flux<R> manyWithUserContext(
       @NotNull Function<UserContext, ? extends Publisher<R>> function) {
-    return ReactiveSecurityContextHolder.getContext()
-        .map(SecurityContext::getAuthentication)
-        .filter(Authentication::isAuthenticated)
-        .zipWhen(authentication -> groupsFn
-            .apply(authentication)
-            .switchIfEmpty(EMPTY_GROUPS_SUPPLIER.get()))
-        .map(tuple -> UserContext.newInstance(
-            tuple.getT1().getName(),
-            toRoles(tuple.getT1()),
-            tuple.getT2()))
+    return userContext()
         .switchIfEmpty(unauthenticatedSupplier.get())
         .flatMapMany(function);
   }
@@ -222,4 +342,25 @@ public class ReactiveUserContextCaller {
         .manyWithUserContext(function);
   }
 
+  /**
+   * Returns an operator, that filters a flux by the access control lists of its elements. The
+   * user context is created only once per subscription. Use it like this:
+   * <pre>
+   * repository.findAll().transform(caller.accessFilter(Entity::getAcl, PermissionConstants.READ))
+   * </pre>
+   *
+   * @param <T> the type of the elements
+   * @param aclFn the function that returns the access control list of an element
+   * @param permissions the permissions (the user must have at least one of them)
+   * @return the operator
+   */
+  public <T> Function<Flux<T>, Flux<T>> accessFilter(
+      @NotNull Function<? super T, ? extends ReadOnlyAcl<? extends ReadOnlyAce>> aclFn,
+      @Nullable String... permissions) {
+    return flux -> manyWithUserContext(userContext -> {
+      final AccessFilter accessFilter = AccessFilter.of(userContext, permissions);
+      return flux.filter(obj -> accessFilter.test(aclFn.apply(obj)));
+    });
+  }
+
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bremersee.security.authentication;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * The caching reactive jwt decoder test.
+ *
+ * @author Christian Bremer
+ */
+class CachingReactiveJwtDecoderTest {
+
+  /**
+   * Decode.
+   */
+  @Test
+  void decode() {
+    Jwt jwt = Jwt.withTokenValue("t1")
+        .header("alg", "none")
+        .subject("anna")
+        .expiresAt(Instant.now().plusSeconds(60L))
+        .build();
+    ReactiveJwtDecoder delegate = mock(ReactiveJwtDecoder.class);
+    when(delegate.decode("t1")).thenReturn(Mono.just(jwt));
+    CachingReactiveJwtDecoder decoder = new CachingReactiveJwtDecoder(delegate);
+
+    StepVerifier.create(decoder.decode("t1"))
+        .expectNext(jwt)
+        .verifyComplete();
+    StepVerifier.create(decoder.decode("t1"))
+        .expectNext(jwt)
+        .verifyComplete();
+    verify(delegate, times(1)).decode("t1");
+  }
+
+}
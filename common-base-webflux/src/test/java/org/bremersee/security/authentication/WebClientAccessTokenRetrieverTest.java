@@ -21,8 +21,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import org.bremersee.exception.AccessTokenRetrieverAuthenticationException;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -48,17 +51,11 @@ import reactor.test.StepVerifier;
  */
 class WebClientAccessTokenRetrieverTest {
 
-  /**
-   * Retrieve access token.
-   */
-  @Test
-  void retrieveAccessToken() {
-    final String jwt = "{\"access_token\": \"test-token\"}";
-
+  private static WebClient mockWebClient(Mono<String> response) {
     ResponseSpec responseSpec = mock(ResponseSpec.class);
     when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
     //noinspection unchecked
-    when(responseSpec.bodyToMono(any(Class.class))).thenReturn(Mono.just(jwt));
+    when(responseSpec.bodyToMono(any(Class.class))).thenReturn(response);
 
     //noinspection rawtypes
     RequestHeadersSpec requestHeadersSpec = mock(RequestHeadersSpec.class);
@@ -75,8 +72,11 @@ class WebClientAccessTokenRetrieverTest {
 
     WebClient webClient = mock(WebClient.class);
     when(webClient.method(any(HttpMethod.class))).thenReturn(requestBodyUriSpec);
+    return webClient;
+  }
 
-    AccessTokenRetrieverProperties properties = new AccessTokenRetrieverProperties() {
+  private static AccessTokenRetrieverProperties properties() {
+    return new AccessTokenRetrieverProperties() {
       @Override
       public String getTokenEndpoint() {
         return "http://localhost/token";
@@ -92,11 +92,49 @@ class WebClientAccessTokenRetrieverTest {
         return new LinkedMultiValueMap<>();
       }
     };
+  }
+
+  /**
+   * Retrieve access token.
+   */
+  @Test
+  void retrieveAccessToken() {
+    final String jwt = "{\"access_token\": \"test-token\"}";
+    WebClient webClient = mockWebClient(Mono.just(jwt));
+    AccessTokenRetrieverProperties properties = properties();
+
+    WebClientAccessTokenRetriever retriever = new WebClientAccessTokenRetriever(webClient);
+    StepVerifier.create(retriever.retrieveAccessToken(properties))
+        .assertNext(token -> assertEquals("test-token", token))
+        .verifyComplete();
+  }
+
+  /**
+   * Concurrent retrievals of the same access token send only one request.
+   */
+  @Test
+  void retrieveAccessTokenConcurrently() {
+    final String jwt = "{\"access_token\": \"test-token\"}";
+    WebClient webClient = mockWebClient(Mono.delay(Duration.ofMillis(100L)).map(tick -> jwt));
+    AccessTokenRetrieverProperties properties = properties();
 
     WebClientAccessTokenRetriever retriever = new WebClientAccessTokenRetriever(webClient);
+    StepVerifier.create(Mono.zip(
+        retriever.retrieveAccessToken(properties),
+        retriever.retrieveAccessToken(properties),
+        retriever.retrieveAccessToken(properties)))
+        .assertNext(tokens -> {
+          assertEquals("test-token", tokens.getT1());
+          assertEquals("test-token", tokens.getT2());
+          assertEquals("test-token", tokens.getT3());
+        })
+        .verifyComplete();
+    verify(webClient, times(1)).method(any(HttpMethod.class));
+
     StepVerifier.create(retriever.retrieveAccessToken(properties))
         .assertNext(token -> assertEquals("test-token", token))
         .verifyComplete();
+    verify(webClient, times(2)).method(any(HttpMethod.class));
   }
 
   /**
@@ -18,12 +18,20 @@ package org.bremersee.security.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.bremersee.security.access.Ace;
+import org.bremersee.security.access.Acl;
+import org.bremersee.security.access.AclBuilder;
+import org.bremersee.security.access.PermissionConstants;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.core.Authentication;
@@ -129,6 +137,107 @@ class AuthenticatedReactiveUserContextCallerTest {
         .verifyComplete();
   }
 
+  /**
+   * Access filter.
+   */
+  @Test
+  void accessFilter() {
+    StepVerifier
+        .create(Flux
+            .<Acl<? extends Ace>>just(
+                AclBuilder.builder().owner("other").addRole(role, "read").buildAcl(),
+                AclBuilder.builder().owner("other").addUser("other", "read").buildAcl(),
+                AclBuilder.builder().owner("other").addGroup(group, "read").buildAcl())
+            .transform(new ReactiveUserContextCaller(
+                () -> Mono.just(Collections.singleton(group)),
+                ReactiveUserContextCaller.FORBIDDEN_SUPPLIER)
+                .<Acl<? extends Ace>>accessFilter(Function.identity(), PermissionConstants.READ)))
+        .expectNextCount(2)
+        .verifyComplete();
+  }
+
+  /**
+   * One with memoized user context.
+   */
+  @Test
+  void oneWithMemoizedUserContext() {
+    AtomicInteger calls = new AtomicInteger();
+    ReactiveUserContextCaller caller = new ReactiveUserContextCaller(
+        auth -> Mono.fromCallable(() -> {
+          calls.incrementAndGet();
+          return Collections.singleton(group);
+        }),
+        ReactiveUserContextCaller.FORBIDDEN_SUPPLIER);
+
+    StepVerifier
+        .create(caller.oneWithUserContext(Mono::just)
+            .zipWith(caller.manyWithUserContext(Mono::just).next()))
+        .assertNext(tuple -> assertEquals(expected, tuple.getT1()))
+        .verifyComplete();
+    assertEquals(2, calls.get());
+
+    calls.set(0);
+    StepVerifier
+        .create(caller.oneWithUserContext(Mono::just)
+            .zipWith(caller.manyWithUserContext(Mono::just).next())
+            .subscriberContext(ReactiveUserContextCaller::withUserContextCache))
+        .assertNext(tuple -> {
+          assertEquals(expected, tuple.getT1());
+          assertSame(tuple.getT1(), tuple.getT2());
+        })
+        .verifyComplete();
+    assertEquals(1, calls.get());
+  }
+
+  /**
+   * One with memoized user context that failed.
+   */
+  @Test
+  void oneWithMemoizedUserContextThatFailed() {
+    AtomicInteger calls = new AtomicInteger();
+    ReactiveUserContextCaller caller = new ReactiveUserContextCaller(
+        auth -> Mono.fromCallable(() -> {
+          if (calls.incrementAndGet() == 1) {
+            throw new IllegalStateException("Group service is not available.");
+          }
+          return Collections.singleton(group);
+        }),
+        ReactiveUserContextCaller.FORBIDDEN_SUPPLIER);
+
+    StepVerifier
+        .create(caller.oneWithUserContext(Mono::just)
+            .onErrorResume(IllegalStateException.class, error -> Mono.empty())
+            .then(caller.oneWithUserContext(Mono::just))
+            .subscriberContext(ReactiveUserContextCaller::withUserContextCache))
+        .assertNext(userContext -> assertEquals(expected, userContext))
+        .verifyComplete();
+    assertEquals(2, calls.get());
+  }
+
+  /**
+   * One with user context and groups cache.
+   */
+  @Test
+  void oneWithUserContextAndGroupsCache() {
+    AtomicInteger calls = new AtomicInteger();
+    UserGroupsCache userGroupsCache = new UserGroupsCache();
+    ReactiveUserContextCaller caller = new ReactiveUserContextCaller(
+        ReactiveUserContextCaller.cachingGroupsFn(userGroupsCache, auth -> Mono.fromCallable(() -> {
+          calls.incrementAndGet();
+          return Collections.singleton(group);
+        })),
+        ReactiveUserContextCaller.FORBIDDEN_SUPPLIER);
+
+    for (int i = 0; i < 3; i++) {
+      StepVerifier
+          .create(caller.oneWithUserContext(Mono::just))
+          .assertNext(userContext -> assertEquals(expected, userContext))
+          .verifyComplete();
+    }
+    assertEquals(1, calls.get());
+    assertEquals(Set.of(group), userGroupsCache.getIfPresent(userId));
+  }
+
   private Mono<UserContext> serviceMono(UserContext userContext, Object arg) {
     assertNotNull(arg);
     return Mono.just(userContext);
@@ -31,24 +31,26 @@ import org.springframework.lang.Nullable;
 public interface AccessController {
 
   /**
-   * Creates an access controller from the given access control list.
+   * Creates an access controller from the given access control list. The returned access
+   * controller is compiled (see {@link CompiledAccessController}).
    *
    * @param acl the access control list
    * @return the access controller
    */
   static AccessController from(@Nullable AccessControlList acl) {
-    return acl == null ? new Impl() : new Impl(AclBuilder.builder().from(acl).buildAcl());
+    return CompiledAccessController.compile(acl);
   }
 
   /**
-   * Creates an access controller from the given access control list.
+   * Creates an access controller from the given access control list. The returned access
+   * controller is compiled (see {@link CompiledAccessController}).
    *
    * @param acl the access control list
    * @return the access controller
    */
   @SuppressWarnings({"rawtypes", "unchecked"})
-  static AccessController from(@Nullable Acl acl) {
-    return acl == null ? new Impl() : new Impl(AclBuilder.builder().from(acl).buildAcl());
+  static AccessController from(@Nullable ReadOnlyAcl acl) {
+    return CompiledAccessController.compile((ReadOnlyAcl<? extends ReadOnlyAce>) acl);
   }
 
   /**
@@ -155,7 +157,67 @@ public interface AccessController {
   }
 
   /**
-   * The default access controller implementation.
+   * Returns an access controller, that expands the roles and groups by the given hierarchies
+   * before it checks the permissions. So an access control entry, that grants access to {@code
+   * ROLE_USER}, grants access to {@code ROLE_ADMIN}, too, if the role hierarchy says that {@code
+   * ROLE_ADMIN} includes {@code ROLE_USER}.
+   *
+   * @param roleHierarchy the role hierarchy
+   * @param groupHierarchy the group hierarchy
+   * @return the access controller
+   */
+  default AccessController withHierarchies(
+      @Nullable PrincipalHierarchy roleHierarchy,
+      @Nullable PrincipalHierarchy groupHierarchy) {
+
+    if (roleHierarchy == null && groupHierarchy == null) {
+      return this;
+    }
+    final AccessController accessController = this;
+    return new AccessController() {
+      @Override
+      public boolean hasPermission(
+          @Nullable String user,
+          @Nullable Collection<String> roles,
+          @Nullable Collection<String> groups,
+          @Nullable String permission) {
+        return accessController.hasPermission(
+            user, expandRoles(roles), expandGroups(groups), permission);
+      }
+
+      @Override
+      public boolean hasAnyPermission(
+          @Nullable String user,
+          @Nullable Collection<String> roles,
+          @Nullable Collection<String> groups,
+          @Nullable Collection<String> permissions) {
+        return accessController.hasAnyPermission(
+            user, expandRoles(roles), expandGroups(groups), permissions);
+      }
+
+      @Override
+      public boolean hasAllPermissions(
+          String user,
+          Collection<String> roles,
+          Collection<String> groups,
+          Collection<String> permissions) {
+        return accessController.hasAllPermissions(
+            user, expandRoles(roles), expandGroups(groups), permissions);
+      }
+
+      private Collection<String> expandRoles(Collection<String> roles) {
+        return roleHierarchy != null ? roleHierarchy.expand(roles) : roles;
+      }
+
+      private Collection<String> expandGroups(Collection<String> groups) {
+        return groupHierarchy != null ? groupHierarchy.expand(groups) : groups;
+      }
+    };
+  }
+
+  /**
+   * The access controller implementation, that works directly on an acl. Use {@link
+   * CompiledAccessController} for frequent permission checks against the same acl.
    */
   class Impl implements AccessController {
 
@@ -0,0 +1,496 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.ToString;
+import org.bremersee.common.model.AccessControlList;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * The access decision cache stores the results of permission checks. A decision is keyed by the
+ * version of the access control list and by the fingerprint of the principal (user, roles and
+ * groups).
+ *
+ * <p>The version of an access control list is the version of its {@link
+ * CompiledAccessController}. A new version of an access control list (for example built by the
+ * {@link AclBuilder} or returned by a modifying method of {@link ImmutableAcl}) is compiled
+ * again and gets a new version, so the decisions of the old version are never returned again.
+ * They are evicted, when the cache is full. The cache keeps only the version number, not the
+ * access control list.
+ *
+ * <p>An {@link ImmutableAcl} is compiled only once, so {@link #of(ReadOnlyAcl)} can be called for
+ * each check. Any other access control list is compiled on every call of {@code of}, the
+ * returned access controller should be kept as long as the access control list is not modified.
+ *
+ * <p>A lookup doesn't copy the roles and groups of the principal, they are copied only when a
+ * decision is stored. The cache is bounded and lock striped: each segment is a small LRU map with
+ * its own lock.
+ *
+ * @author Christian Bremer
+ */
+@ToString(of = {"maximumSize", "hits", "misses", "evictions"})
+public class AccessDecisionCache {
+
+  /**
+   * The default maximum size.
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+  /**
+   * The default concurrency level (number of segments).
+   */
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+  private final int maximumSize;
+
+  private final Segment[] segments;
+
+  private final int segmentMask;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Instantiates a new access decision cache with default maximum size and concurrency level.
+   */
+  public AccessDecisionCache() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * Instantiates a new access decision cache.
+   *
+   * @param maximumSize the maximum number of cached decisions
+   * @param concurrencyLevel the concurrency level, it will be rounded up to a power of two
+   */
+  public AccessDecisionCache(int maximumSize, int concurrencyLevel) {
+    Assert.isTrue(maximumSize > 0, "Maximum size must be greater than zero.");
+    Assert.isTrue(concurrencyLevel > 0, "Concurrency level must be greater than zero.");
+    int segmentCount = 1;
+    while (segmentCount < concurrencyLevel && segmentCount < maximumSize) {
+      segmentCount <<= 1;
+    }
+    this.maximumSize = maximumSize;
+    this.segments = new Segment[segmentCount];
+    this.segmentMask = segmentCount - 1;
+    final int segmentSize = Math.max(1, maximumSize / segmentCount);
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(segmentSize);
+    }
+  }
+
+  /**
+   * Creates a caching access controller of the given access control list.
+   *
+   * @param acl the access control list
+   * @return the caching access controller
+   */
+  public AccessController of(@Nullable ReadOnlyAcl<? extends ReadOnlyAce> acl) {
+    return of(CompiledAccessController.compile(acl));
+  }
+
+  /**
+   * Creates a caching access controller of the given access control list (dto).
+   *
+   * @param acl the access control list
+   * @return the caching access controller
+   */
+  public AccessController of(@Nullable AccessControlList acl) {
+    return of(CompiledAccessController.compile(acl));
+  }
+
+  /**
+   * Creates a caching access controller of the given compiled access controller.
+   *
+   * @param accessController the compiled access controller
+   * @return the caching access controller
+   */
+  public AccessController of(@Nullable CompiledAccessController accessController) {
+    final CompiledAccessController version = accessController != null
+        ? accessController
+        : CompiledAccessController.empty();
+    return new CachingAccessController(version);
+  }
+
+  /**
+   * Creates the fingerprint of a principal. If the same principal checks many permissions (for
+   * example all elements of a list), the fingerprint should be created only once.
+   *
+   * @param user the user
+   * @param roles the roles
+   * @param groups the groups
+   * @return the fingerprint
+   */
+  public static Fingerprint fingerprint(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups) {
+    return Fingerprint.probe(user, roles, groups).copy();
+  }
+
+  /**
+   * Determines whether the principal has the specified permission. The decision is taken from
+   * the cache or, if it is not present, it is calculated by the access controller and stored
+   * in the cache.
+   *
+   * @param accessController the compiled access controller
+   * @param principal the fingerprint of the principal
+   * @param permission the permission
+   * @return {@code true} if the principal has the permission, otherwise {@code false}
+   */
+  public boolean hasPermission(
+      @Nullable CompiledAccessController accessController,
+      @Nullable Fingerprint principal,
+      @Nullable String permission) {
+
+    if (accessController == null || principal == null || permission == null) {
+      return false;
+    }
+    final Key key = new Key(accessController.getVersion(), principal, permission);
+    final Segment segment = segments[spread(key.hash) & segmentMask];
+    Boolean decision;
+    synchronized (segment) {
+      decision = segment.get(key);
+    }
+    if (decision != null) {
+      hits.increment();
+      return decision;
+    }
+    misses.increment();
+    decision = accessController.hasPermission(
+        principal.user, principal.roles, principal.groups, permission);
+    final Key storedKey = key.withCopiedPrincipal();
+    synchronized (segment) {
+      segment.put(storedKey, decision);
+    }
+    return decision;
+  }
+
+  private static int spread(int h) {
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Gets the maximum number of cached decisions.
+   *
+   * @return the maximum size
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Gets the number of cached decisions.
+   *
+   * @return the size
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Removes all cached decisions. The counters are not reset.
+   */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /**
+   * Gets the number of cache hits.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Gets the number of cache misses.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the number of evicted decisions.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Gets the hit rate.
+   *
+   * @return the hit rate (a value between 0 and 1)
+   */
+  public double getHitRate() {
+    final long hitCount = getHitCount();
+    final long requestCount = hitCount + getMissCount();
+    return requestCount == 0L ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  /**
+   * The fingerprint of a principal (user, roles and groups). The hash code is calculated only
+   * once.
+   */
+  public static final class Fingerprint {
+
+    private final String user;
+
+    private final Set<String> roles;
+
+    private final Set<String> groups;
+
+    private final boolean copied;
+
+    private final int hash;
+
+    private Fingerprint(
+        String user,
+        Set<String> roles,
+        Set<String> groups,
+        boolean copied,
+        int hash) {
+      this.user = user;
+      this.roles = roles;
+      this.groups = groups;
+      this.copied = copied;
+      this.hash = hash;
+    }
+
+    /**
+     * Creates a fingerprint, that uses the given sets without copying them. It must not be
+     * stored in the cache.
+     */
+    private static Fingerprint probe(
+        String user,
+        Collection<String> roles,
+        Collection<String> groups) {
+      final Set<String> roleSet = asSet(roles);
+      final Set<String> groupSet = asSet(groups);
+      return new Fingerprint(user, roleSet, groupSet, false,
+          Objects.hash(user, roleSet, groupSet));
+    }
+
+    private static Set<String> asSet(Collection<String> values) {
+      if (values == null || values.isEmpty()) {
+        return Collections.emptySet();
+      }
+      return values instanceof Set ? (Set<String>) values : new HashSet<>(values);
+    }
+
+    private Fingerprint copy() {
+      if (copied) {
+        return this;
+      }
+      return new Fingerprint(user, copy(roles), copy(groups), true, hash);
+    }
+
+    private static Set<String> copy(Set<String> values) {
+      return values.isEmpty()
+          ? Collections.emptySet()
+          : Collections.unmodifiableSet(new HashSet<>(values));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Fingerprint)) {
+        return false;
+      }
+      Fingerprint that = (Fingerprint) o;
+      return hash == that.hash
+          && Objects.equals(user, that.user)
+          && roles.equals(that.roles)
+          && groups.equals(that.groups);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "Fingerprint{user=" + user + ", roles=" + roles + ", groups=" + groups + '}';
+    }
+  }
+
+  /**
+   * The access controller, that uses this cache.
+   */
+  private final class CachingAccessController implements AccessController {
+
+    private final CompiledAccessController version;
+
+    private CachingAccessController(CompiledAccessController version) {
+      this.version = version;
+    }
+
+    @Override
+    public boolean hasPermission(
+        String user,
+        Collection<String> roles,
+        Collection<String> groups,
+        String permission) {
+      return AccessDecisionCache.this.hasPermission(
+          version, Fingerprint.probe(user, roles, groups), permission);
+    }
+
+    @Override
+    public boolean hasAnyPermission(
+        String user,
+        Collection<String> roles,
+        Collection<String> groups,
+        Collection<String> permissions) {
+
+      if (permissions == null || permissions.isEmpty()) {
+        return false;
+      }
+      final Fingerprint principal = Fingerprint.probe(user, roles, groups);
+      for (String permission : permissions) {
+        if (AccessDecisionCache.this.hasPermission(version, principal, permission)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean hasAllPermissions(
+        String user,
+        Collection<String> roles,
+        Collection<String> groups,
+        Collection<String> permissions) {
+
+      if (permissions == null || permissions.isEmpty()) {
+        return false;
+      }
+      final Fingerprint principal = Fingerprint.probe(user, roles, groups);
+      for (String permission : permissions) {
+        if (!AccessDecisionCache.this.hasPermission(version, principal, permission)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The key of a cached decision.
+   */
+  private static final class Key {
+
+    private final long version;
+
+    private final Fingerprint principal;
+
+    private final String permission;
+
+    private final int hash;
+
+    private Key(long version, Fingerprint principal, String permission) {
+      this(version, principal, permission,
+          31 * (31 * Long.hashCode(version) + principal.hashCode()) + permission.hashCode());
+    }
+
+    private Key(long version, Fingerprint principal, String permission, int hash) {
+      this.version = version;
+      this.principal = principal;
+      this.permission = permission;
+      this.hash = hash;
+    }
+
+    private Key withCopiedPrincipal() {
+      final Fingerprint copy = principal.copy();
+      return copy == principal ? this : new Key(version, copy, permission, hash);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return hash == that.hash
+          && version == that.version
+          && permission.equals(that.permission)
+          && principal.equals(that.principal);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * A segment of the cache: a LRU map, that must be guarded by its own monitor.
+   */
+  private final class Segment extends LinkedHashMap<Key, Boolean> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    private Segment(int capacity) {
+      super(16, .75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+      if (size() > capacity) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+
+}
@@ -16,24 +16,15 @@
 
 package org.bremersee.security.access;
 
-import java.util.Set;
-import javax.validation.constraints.NotNull;
 import org.springframework.validation.annotation.Validated;
 
 /**
- * The access control entry interface.
+ * The access control entry interface. The sets of the users, roles and groups can be modified.
  *
  * @author Christian Bremer
  */
 @Validated
-public interface Ace {
-
-  /**
-   * Determines whether guests have access.
-   *
-   * @return {@code true} if guests have access, otherwise {@code false}
-   */
-  boolean isGuest();
+public interface Ace extends ReadOnlyAce {
 
   /**
    * Sets guest access.
@@ -42,28 +33,4 @@ public interface Ace {
    */
   void setGuest(boolean guest);
 
-  /**
-   * Gets users.
-   *
-   * @return the users
-   */
-  @NotNull
-  Set<String> getUsers();
-
-  /**
-   * Gets roles.
-   *
-   * @return the roles
-   */
-  @NotNull
-  Set<String> getRoles();
-
-  /**
-   * Gets groups.
-   *
-   * @return the groups
-   */
-  @NotNull
-  Set<String> getGroups();
-
 }
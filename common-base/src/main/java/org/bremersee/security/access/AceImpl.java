@@ -80,10 +80,10 @@ class AceImpl implements Ace {
     if (this == o) {
       return true;
     }
-    if (!(o instanceof Ace)) {
+    if (!(o instanceof ReadOnlyAce)) {
       return false;
     }
-    Ace ace = (Ace) o;
+    ReadOnlyAce ace = (ReadOnlyAce) o;
     return guest == ace.isGuest()
         && treeSet(groups).equals(treeSet(ace.getGroups()))
         && treeSet(roles).equals(treeSet(ace.getRoles()))
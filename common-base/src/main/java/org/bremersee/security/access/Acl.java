@@ -16,22 +16,13 @@
 
 package org.bremersee.security.access;
 
-import java.util.Map;
-
 /**
  * The access control list interface.
  *
  * @param <E> the ace type parameter
  * @author Christian Bremer
  */
-public interface Acl<E extends Ace> {
-
-  /**
-   * Gets owner.
-   *
-   * @return the owner
-   */
-  String getOwner();
+public interface Acl<E extends Ace> extends ReadOnlyAcl<E> {
 
   /**
    * Sets owner.
@@ -40,12 +31,4 @@ public interface Acl<E extends Ace> {
    */
   void setOwner(String owner);
 
-  /**
-   * Returns the entries of this access control list. The key of the map is the permission. This map is normally
-   * unmodifiable.
-   *
-   * @return the map
-   */
-  Map<String, ? extends E> entryMap();
-
 }
@@ -16,14 +16,15 @@
 
 package org.bremersee.security.access;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import javax.validation.constraints.NotNull;
+import org.bremersee.common.model.AccessControlEntry;
 import org.bremersee.common.model.AccessControlList;
 import org.bremersee.security.core.AuthorityConstants;
 import org.springframework.lang.Nullable;
@@ -76,7 +77,7 @@ public interface AclBuilder {
    * @param acl the acl (entity)
    * @return the acl builder
    */
-  default AclBuilder from(@Nullable Acl<? extends Ace> acl) {
+  default AclBuilder from(@Nullable ReadOnlyAcl<? extends ReadOnlyAce> acl) {
     return Optional.ofNullable(acl)
         .map(a -> from(a.getOwner(), a.entryMap()))
         .orElse(this);
@@ -89,7 +90,7 @@ public interface AclBuilder {
    * @param map the acl (entity) entry map
    * @return the acl builder
    */
-  AclBuilder from(String owner, Map<String, ? extends Ace> map);
+  AclBuilder from(String owner, Map<String, ? extends ReadOnlyAce> map);
 
   /**
    * Sets owner.
@@ -247,7 +248,7 @@ public interface AclBuilder {
    * @return the acl
    */
   default Acl<? extends Ace> buildAcl() {
-    return build((o, e) -> new AclImpl(o, new HashMap<>(e)));
+    return build(AclImpl::new);
   }
 
   /**
@@ -260,29 +261,143 @@ public interface AclBuilder {
   }
 
   /**
-   * The default access control list builder implementation.
+   * The default access control list builder implementation. It uses plain loops, normalizes
+   * each permission only once (the known permissions of {@link PermissionConstants} without any
+   * allocation) and sizes its entry map up front.
    */
   class Impl implements AclBuilder {
 
+    private static final int DEFAULT_CAPACITY = capacity(PermissionConstants.ALL.length);
+
+    private final AclInterner interner;
+
     private String owner;
 
-    private Map<String, Ace> entries = new HashMap<>();
+    private Map<String, Ace> entries = new HashMap<>(DEFAULT_CAPACITY);
+
+    /**
+     * Instantiates a new access control list builder.
+     */
+    public Impl() {
+      this(null);
+    }
+
+    /**
+     * Instantiates a new access control list builder, that uses the intern table of a batch.
+     *
+     * @param interner the intern table
+     */
+    Impl(@Nullable AclInterner interner) {
+      this.interner = interner;
+    }
+
+    private static int capacity(int size) {
+      return Math.max(4, (int) (size / .75f) + 1);
+    }
+
+    private String normalize(String permission) {
+      return interner != null
+          ? interner.permission(permission)
+          : PermissionConstants.normalize(permission);
+    }
+
+    private String principal(String principal) {
+      return interner != null ? interner.principal(principal) : principal;
+    }
+
+    private Ace entry(String normalizedPermission) {
+      Ace ace = entries.get(normalizedPermission);
+      if (ace == null) {
+        ace = new AceImpl();
+        entries.put(normalizedPermission, ace);
+      }
+      return ace;
+    }
+
+    private void presize(int size) {
+      if (entries.isEmpty() && size > PermissionConstants.ALL.length) {
+        entries = new HashMap<>(capacity(size));
+      }
+    }
+
+    private void guest(boolean guest, String normalizedPermission) {
+      if (guest) {
+        entry(normalizedPermission).setGuest(true);
+      } else {
+        final Ace ace = entries.get(normalizedPermission);
+        if (ace != null) {
+          ace.setGuest(false);
+        }
+      }
+    }
+
+    private void addAll(
+        String normalizedPermission,
+        Collection<String> principals,
+        Function<Ace, Set<String>> target) {
+
+      if (principals != null && !principals.isEmpty()) {
+        Set<String> set = null;
+        for (String principal : principals) {
+          if (StringUtils.hasText(principal)) {
+            if (set == null) {
+              set = target.apply(entry(normalizedPermission));
+            }
+            set.add(principal(principal));
+          }
+        }
+      }
+    }
+
+    private AclBuilder add(
+        String principal,
+        String[] permissions,
+        Function<Ace, Set<String>> target) {
+
+      if (StringUtils.hasText(principal) && permissions != null) {
+        final String value = principal(principal);
+        for (String permission : permissions) {
+          if (StringUtils.hasText(permission)) {
+            target.apply(entry(normalize(permission))).add(value);
+          }
+        }
+      }
+      return this;
+    }
+
+    private AclBuilder remove(
+        String principal,
+        String[] permissions,
+        Function<Ace, Set<String>> target) {
+
+      if (StringUtils.hasText(principal) && permissions != null) {
+        for (String permission : permissions) {
+          if (StringUtils.hasText(permission)) {
+            final Ace ace = entries.get(normalize(permission));
+            if (ace != null) {
+              target.apply(ace).remove(principal);
+            }
+          }
+        }
+      }
+      return this;
+    }
 
     @Override
     public AclBuilder reset() {
       this.owner = null;
-      this.entries = new HashMap<>();
+      this.entries = new HashMap<>(DEFAULT_CAPACITY);
       return this;
     }
 
     @Override
     public AclBuilder defaults(final String... permissions) {
       if (permissions != null) {
-        Arrays.stream(permissions).forEach(permission -> {
-          if (!entries.containsKey(permission)) {
-            entries.put(permission.toLowerCase(), new AceImpl());
+        for (String permission : permissions) {
+          if (StringUtils.hasText(permission)) {
+            entry(normalize(permission));
           }
-        });
+        }
       }
       return this;
     }
@@ -291,54 +406,39 @@ public interface AclBuilder {
     public AclBuilder from(final AccessControlList acl) {
       if (acl != null) {
         this.owner = acl.getOwner();
-        if (acl.getEntries() != null) {
-          acl.getEntries()
-              .stream()
-              .filter(Objects::nonNull)
-              .filter(accessControlEntry -> StringUtils.hasText(accessControlEntry.getPermission()))
-              .forEach(accessControlEntry -> {
-                guest(accessControlEntry.getGuest(), accessControlEntry.getPermission());
-                if (accessControlEntry.getGroups() != null) {
-                  accessControlEntry
-                      .getGroups()
-                      .forEach(group -> addGroup(
-                          group, accessControlEntry.getPermission().toLowerCase()));
-                }
-                if (accessControlEntry.getRoles() != null) {
-                  accessControlEntry
-                      .getRoles()
-                      .forEach(role -> addRole(
-                          role, accessControlEntry.getPermission().toLowerCase()));
-                }
-                if (accessControlEntry.getUsers() != null) {
-                  accessControlEntry
-                      .getUsers()
-                      .forEach(user -> addUser(
-                          user, accessControlEntry.getPermission().toLowerCase()));
-                }
-              });
+        final Collection<AccessControlEntry> accessControlEntries = acl.getEntries();
+        if (accessControlEntries != null) {
+          presize(accessControlEntries.size());
+          for (AccessControlEntry accessControlEntry : accessControlEntries) {
+            if (accessControlEntry != null
+                && StringUtils.hasText(accessControlEntry.getPermission())) {
+              final String permission = normalize(accessControlEntry.getPermission());
+              guest(Boolean.TRUE.equals(accessControlEntry.getGuest()), permission);
+              addAll(permission, accessControlEntry.getGroups(), Ace::getGroups);
+              addAll(permission, accessControlEntry.getRoles(), Ace::getRoles);
+              addAll(permission, accessControlEntry.getUsers(), Ace::getUsers);
+            }
+          }
         }
       }
       return this;
     }
 
     @Override
-    public AclBuilder from(String owner, Map<String, ? extends Ace> map) {
+    public AclBuilder from(String owner, Map<String, ? extends ReadOnlyAce> map) {
       this.owner = owner;
       if (map != null) {
-        map.entrySet()
-            .stream()
-            .filter(Objects::nonNull)
-            .filter(entry -> StringUtils.hasText(entry.getKey()))
-            .filter(entry -> entry.getValue() != null)
-            .forEach(entry -> {
-              final String permission = entry.getKey().toLowerCase();
-              final Ace ace = entry.getValue();
-              guest(ace.isGuest(), permission);
-              ace.getGroups().forEach(group -> addGroup(group, permission));
-              ace.getRoles().forEach(role -> addRole(role, permission));
-              ace.getUsers().forEach(user -> addUser(user, permission));
-            });
+        presize(map.size());
+        for (Map.Entry<String, ? extends ReadOnlyAce> entry : map.entrySet()) {
+          final ReadOnlyAce ace = entry.getValue();
+          if (ace != null && StringUtils.hasText(entry.getKey())) {
+            final String permission = normalize(entry.getKey());
+            guest(ace.isGuest(), permission);
+            addAll(permission, ace.getGroups(), Ace::getGroups);
+            addAll(permission, ace.getRoles(), Ace::getRoles);
+            addAll(permission, ace.getUsers(), Ace::getUsers);
+          }
+        }
       }
       return this;
     }
@@ -353,22 +453,10 @@ public interface AclBuilder {
     public AclBuilder guest(final Boolean isPublic, final String... permissions) {
       if (permissions != null) {
         final boolean guest = Boolean.TRUE.equals(isPublic);
-        if (guest) {
-          Arrays.stream(permissions)
-              .filter(StringUtils::hasText)
-              .map(String::toLowerCase)
-              .forEach(permission -> entries
-                  .computeIfAbsent(permission, p -> new AceImpl())
-                  .setGuest(true));
-        } else {
-          Arrays.stream(permissions)
-              .filter(StringUtils::hasText)
-              .map(String::toLowerCase)
-              .forEach(permission -> entries.computeIfPresent(permission,
-                  (p, mongoAccessControlEntry) -> {
-                    mongoAccessControlEntry.setGuest(false);
-                    return mongoAccessControlEntry;
-                  }));
+        for (String permission : permissions) {
+          if (StringUtils.hasText(permission)) {
+            guest(guest, normalize(permission));
+          }
         }
       }
       return this;
@@ -376,89 +464,32 @@ public interface AclBuilder {
 
     @Override
     public AclBuilder addUser(final String user, final String... permissions) {
-      if (StringUtils.hasText(user) && permissions != null) {
-        Arrays.stream(permissions)
-            .filter(StringUtils::hasText)
-            .map(String::toLowerCase)
-            .forEach(permission -> entries
-                .computeIfAbsent(permission, p -> new AceImpl())
-                .getUsers()
-                .add(user));
-      }
-      return this;
+      return add(user, permissions, Ace::getUsers);
     }
 
     @Override
     public AclBuilder addRole(final String role, final String... permissions) {
-      if (StringUtils.hasText(role) && permissions != null) {
-        Arrays.stream(permissions)
-            .filter(StringUtils::hasText)
-            .map(String::toLowerCase)
-            .forEach(permission -> entries
-                .computeIfAbsent(permission, p -> new AceImpl())
-                .getRoles()
-                .add(role));
-      }
-      return this;
+      return add(role, permissions, Ace::getRoles);
     }
 
     @Override
     public AclBuilder addGroup(final String group, final String... permissions) {
-      if (StringUtils.hasText(group) && permissions != null) {
-        Arrays.stream(permissions)
-            .filter(StringUtils::hasText)
-            .map(String::toLowerCase)
-            .forEach(permission -> entries
-                .computeIfAbsent(permission, p -> new AceImpl())
-                .getGroups()
-                .add(group));
-      }
-      return this;
+      return add(group, permissions, Ace::getGroups);
     }
 
     @Override
     public AclBuilder removeUser(final String user, final String... permissions) {
-      if (StringUtils.hasText(user) && permissions != null) {
-        Arrays.stream(permissions)
-            .filter(StringUtils::hasText)
-            .map(String::toLowerCase)
-            .forEach(permission -> entries.computeIfPresent(permission,
-                (p, mongoAccessControlEntry) -> {
-                  mongoAccessControlEntry.getUsers().remove(user);
-                  return mongoAccessControlEntry;
-                }));
-      }
-      return this;
+      return remove(user, permissions, Ace::getUsers);
     }
 
     @Override
     public AclBuilder removeRole(final String role, final String... permissions) {
-      if (StringUtils.hasText(role) && permissions != null) {
-        Arrays.stream(permissions)
-            .filter(StringUtils::hasText)
-            .map(String::toLowerCase)
-            .forEach(permission -> entries.computeIfPresent(permission,
-                (p, mongoAccessControlEntry) -> {
-                  mongoAccessControlEntry.getRoles().remove(role);
-                  return mongoAccessControlEntry;
-                }));
-      }
-      return this;
+      return remove(role, permissions, Ace::getRoles);
     }
 
     @Override
     public AclBuilder removeGroup(final String group, final String... permissions) {
-      if (StringUtils.hasText(group) && permissions != null) {
-        Arrays.stream(permissions)
-            .filter(StringUtils::hasText)
-            .map(String::toLowerCase)
-            .forEach(permission -> entries.computeIfPresent(permission,
-                (p, mongoAccessControlEntry) -> {
-                  mongoAccessControlEntry.getGroups().remove(group);
-                  return mongoAccessControlEntry;
-                }));
-      }
-      return this;
+      return remove(group, permissions, Ace::getGroups);
     }
 
     @Override
@@ -467,11 +498,17 @@ public interface AclBuilder {
         final String... permissions) {
 
       if (adminRoles != null && !adminRoles.isEmpty()) {
-        if (permissions == null || permissions.length == 0) {
-          adminRoles.forEach(adminRole -> entries.keySet()
-              .forEach(permission -> addRole(adminRole, permission)));
-        } else {
-          adminRoles.forEach(adminRole -> addRole(adminRole, permissions));
+        for (String adminRole : adminRoles) {
+          if (permissions == null || permissions.length == 0) {
+            if (StringUtils.hasText(adminRole)) {
+              final String role = principal(adminRole);
+              for (Ace ace : entries.values()) {
+                ace.getRoles().add(role);
+              }
+            }
+          } else {
+            addRole(adminRole, permissions);
+          }
         }
       }
       return this;
@@ -483,11 +520,16 @@ public interface AclBuilder {
         final String... permissions) {
 
       if (adminRoles != null && !adminRoles.isEmpty()) {
-        if (permissions == null || permissions.length == 0) {
-          adminRoles.forEach(adminRole -> entries.keySet()
-              .forEach(permission -> removeRole(adminRole, permission)));
-        } else {
-          adminRoles.forEach(adminRole -> removeRole(adminRole, permissions));
+        for (String adminRole : adminRoles) {
+          if (permissions == null || permissions.length == 0) {
+            if (StringUtils.hasText(adminRole)) {
+              for (Ace ace : entries.values()) {
+                ace.getRoles().remove(adminRole);
+              }
+            }
+          } else {
+            removeRole(adminRole, permissions);
+          }
         }
       }
       return this;
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.bremersee.common.model.AccessControlEntry;
+import org.bremersee.common.model.AccessControlList;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The acl codec encodes access control lists into a compact binary format and decodes them.
+ *
+ * <p>All strings (owner, permissions and principals) are stored only once in a dictionary at the
+ * beginning; the entries refer to them by index. Numbers are written as unsigned varints. The
+ * permissions are normalized (lower case) and, like the principals, sorted, so equal access
+ * control lists have equal bytes. The format is:
+ * <pre>
+ * magic (1 byte), version (1 byte)
+ * dictionary size, [string length, utf-8 bytes]*
+ * owner index + 1 (0 means no owner, an empty owner is kept)
+ * entry count, [permission index, guest (1 byte),
+ *               user count, [user index]*,
+ *               role count, [role index]*,
+ *               group count, [group index]*]*
+ * </pre>
+ *
+ * <p>The decoder creates each string of the dictionary only once and shares it between all
+ * entries. The decoded entries are put directly into the {@link ImmutableAcl} without copying
+ * them again, and an access control list can be decoded directly into a {@link
+ * CompiledAccessController} without any intermediate objects. Entries with the same permission
+ * (which the encoder never writes) are merged.
+ *
+ * @author Christian Bremer
+ */
+public final class AclCodec {
+
+  private static final int MAGIC = 0xAC;
+
+  private static final int VERSION = 1;
+
+  private AclCodec() {
+  }
+
+  /**
+   * Encodes the given access control list.
+   *
+   * @param acl the access control list
+   * @return the bytes
+   */
+  public static byte[] encode(@Nullable ReadOnlyAcl<? extends ReadOnlyAce> acl) {
+    if (acl == null) {
+      return encode(null, Collections.emptyMap());
+    }
+    return encode(acl.getOwner(), acl.entryMap());
+  }
+
+  /**
+   * Encodes the given owner and entries.
+   *
+   * @param owner the owner
+   * @param entryMap the entries
+   * @return the bytes
+   */
+  public static byte[] encode(
+      @Nullable String owner,
+      @Nullable Map<String, ? extends ReadOnlyAce> entryMap) {
+
+    final Encoder encoder = new Encoder(owner);
+    if (entryMap != null) {
+      for (Map.Entry<String, ? extends ReadOnlyAce> entry : entryMap.entrySet()) {
+        final ReadOnlyAce ace = entry.getValue();
+        if (ace != null) {
+          encoder.add(
+              entry.getKey(), ace.isGuest(), ace.getUsers(), ace.getRoles(), ace.getGroups());
+        }
+      }
+    }
+    return encoder.toByteArray();
+  }
+
+  /**
+   * Encodes the given access control list (dto).
+   *
+   * @param acl the access control list
+   * @return the bytes
+   */
+  public static byte[] encode(@Nullable AccessControlList acl) {
+    final Encoder encoder = new Encoder(acl != null ? acl.getOwner() : null);
+    if (acl != null && acl.getEntries() != null) {
+      for (AccessControlEntry entry : acl.getEntries()) {
+        if (entry != null) {
+          encoder.add(
+              entry.getPermission(),
+              Boolean.TRUE.equals(entry.getGuest()),
+              entry.getUsers(),
+              entry.getRoles(),
+              entry.getGroups());
+        }
+      }
+    }
+    return encoder.toByteArray();
+  }
+
+  /**
+   * Decodes the bytes into an immutable access control list.
+   *
+   * @param bytes the bytes
+   * @return the immutable access control list or {@code null}, if the bytes are {@code null} or
+   *     empty
+   * @throws IllegalArgumentException if the bytes are not a valid encoded access control list
+   */
+  @Nullable
+  public static ImmutableAcl decodeAcl(@Nullable byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    final Decoder decoder = new Decoder(bytes);
+    final TreeMap<String, ImmutableAce> entries = new TreeMap<>();
+    decoder.decode((permission, guest, users, roles, groups) -> entries.merge(
+        permission.toLowerCase(),
+        ImmutableAce.of(guest, users, roles, groups),
+        ImmutableAcl::merge));
+    return ImmutableAcl.ofNormalized(decoder.owner, entries);
+  }
+
+  /**
+   * Decodes the bytes into an access control list (dto).
+   *
+   * @param bytes the bytes
+   * @return the access control list or {@code null}, if the bytes are {@code null} or empty
+   * @throws IllegalArgumentException if the bytes are not a valid encoded access control list
+   */
+  @Nullable
+  public static AccessControlList decodeAccessControlList(@Nullable byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    final Decoder decoder = new Decoder(bytes);
+    final List<AccessControlEntry> entries = new ArrayList<>();
+    decoder.decode((permission, guest, users, roles, groups) -> entries.add(AccessControlEntry
+        .builder()
+        .permission(permission)
+        .guest(guest)
+        .users(new ArrayList<>(users))
+        .roles(new ArrayList<>(roles))
+        .groups(new ArrayList<>(groups))
+        .build()));
+    entries.sort(new AccessControlEntryComparator());
+    final AccessControlList acl = new AccessControlList();
+    acl.setOwner(decoder.owner);
+    acl.setEntries(entries);
+    return acl;
+  }
+
+  /**
+   * Decodes the bytes directly into a compiled access controller.
+   *
+   * @param bytes the bytes
+   * @return the compiled access controller
+   * @throws IllegalArgumentException if the bytes are not a valid encoded access control list
+   */
+  public static CompiledAccessController decodeAccessController(@Nullable byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      return CompiledAccessController.empty();
+    }
+    final Decoder decoder = new Decoder(bytes);
+    final Map<String, CompiledAccessController.Entry> entries = new HashMap<>();
+    decoder.decode((permission, guest, users, roles, groups) -> entries.merge(
+        CompiledAccessController.normalizePermission(permission),
+        new CompiledAccessController.Entry(guest, freeze(users), freeze(roles), freeze(groups)),
+        CompiledAccessController.Entry::merge));
+    return CompiledAccessController.of(decoder.owner, entries);
+  }
+
+  private static Set<String> freeze(List<String> values) {
+    return values.isEmpty() ? Collections.emptySet() : Set.copyOf(values);
+  }
+
+  /**
+   * The consumer of decoded entries.
+   */
+  @FunctionalInterface
+  private interface EntryConsumer {
+
+    void accept(
+        String permission,
+        boolean guest,
+        List<String> users,
+        List<String> roles,
+        List<String> groups);
+  }
+
+  /**
+   * The encoder collects the strings and entries and writes them.
+   */
+  private static final class Encoder {
+
+    private final String owner;
+
+    private final Map<String, Principals> entries = new TreeMap<>();
+
+    private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+    private byte[] buffer = new byte[256];
+
+    private int position;
+
+    private Encoder(String owner) {
+      this.owner = owner;
+    }
+
+    private void add(
+        String permission,
+        boolean guest,
+        Collection<String> users,
+        Collection<String> roles,
+        Collection<String> groups) {
+
+      if (StringUtils.hasText(permission)) {
+        final Principals principals = entries
+            .computeIfAbsent(permission.toLowerCase(), p -> new Principals());
+        principals.guest = principals.guest || guest;
+        addAll(principals.users, users);
+        addAll(principals.roles, roles);
+        addAll(principals.groups, groups);
+      }
+    }
+
+    private static void addAll(Set<String> target, Collection<String> values) {
+      if (values != null) {
+        for (String value : values) {
+          if (StringUtils.hasText(value)) {
+            target.add(value);
+          }
+        }
+      }
+    }
+
+    private int index(String value) {
+      return dictionary.computeIfAbsent(value, v -> dictionary.size());
+    }
+
+    private byte[] toByteArray() {
+      final int ownerIndex = owner != null ? index(owner) + 1 : 0;
+      for (Map.Entry<String, Principals> entry : entries.entrySet()) {
+        index(entry.getKey());
+        entry.getValue().users.forEach(this::index);
+        entry.getValue().roles.forEach(this::index);
+        entry.getValue().groups.forEach(this::index);
+      }
+      writeByte(MAGIC);
+      writeByte(VERSION);
+      writeVarint(dictionary.size());
+      for (String value : dictionary.keySet()) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+      }
+      writeVarint(ownerIndex);
+      writeVarint(entries.size());
+      for (Map.Entry<String, Principals> entry : entries.entrySet()) {
+        writeVarint(dictionary.get(entry.getKey()));
+        writeByte(entry.getValue().guest ? 1 : 0);
+        writeIndexes(entry.getValue().users);
+        writeIndexes(entry.getValue().roles);
+        writeIndexes(entry.getValue().groups);
+      }
+      return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeIndexes(Set<String> values) {
+      writeVarint(values.size());
+      for (String value : values) {
+        writeVarint(dictionary.get(value));
+      }
+    }
+
+    private void writeVarint(int value) {
+      ensureCapacity(5);
+      while ((value & ~0x7F) != 0) {
+        buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+      ensureCapacity(1);
+      buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int length) {
+      if (position + length > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+      }
+    }
+  }
+
+  /**
+   * The principals of an entry, that should be encoded.
+   */
+  private static final class Principals {
+
+    private boolean guest;
+
+    private final Set<String> users = new TreeSet<>();
+
+    private final Set<String> roles = new TreeSet<>();
+
+    private final Set<String> groups = new TreeSet<>();
+  }
+
+  /**
+   * The decoder reads the dictionary once and resolves the entries against it.
+   */
+  private static final class Decoder {
+
+    private final byte[] bytes;
+
+    private int position;
+
+    private String[] dictionary;
+
+    private String owner;
+
+    private Decoder(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    private void decode(EntryConsumer consumer) {
+      if (readByte() != MAGIC) {
+        throw new IllegalArgumentException("Bytes are not an encoded access control list.");
+      }
+      final int version = readByte();
+      if (version != VERSION) {
+        throw new IllegalArgumentException(
+            "Unsupported version of encoded access control list: " + version);
+      }
+      dictionary = new String[readLength()];
+      for (int i = 0; i < dictionary.length; i++) {
+        final int length = readLength();
+        dictionary[i] = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+      }
+      final int ownerIndex = readVarint();
+      owner = ownerIndex == 0 ? null : lookup(ownerIndex - 1);
+      final int entryCount = readLength();
+      for (int i = 0; i < entryCount; i++) {
+        final String permission = lookup(readVarint());
+        final boolean guest = readByte() != 0;
+        consumer.accept(permission, guest, readValues(), readValues(), readValues());
+      }
+    }
+
+    private List<String> readValues() {
+      final int size = readLength();
+      if (size == 0) {
+        return Collections.emptyList();
+      }
+      final String[] values = new String[size];
+      for (int i = 0; i < size; i++) {
+        values[i] = lookup(readVarint());
+      }
+      return Arrays.asList(values);
+    }
+
+    private String lookup(int index) {
+      if (index < 0 || index >= dictionary.length) {
+        throw new IllegalArgumentException("Invalid dictionary index: " + index);
+      }
+      return dictionary[index];
+    }
+
+    private int readLength() {
+      final int length = readVarint();
+      if (length < 0 || length > bytes.length - position) {
+        throw new IllegalArgumentException("Invalid length: " + length);
+      }
+      return length;
+    }
+
+    private int readByte() {
+      if (position >= bytes.length) {
+        throw new IllegalArgumentException("Unexpected end of encoded access control list.");
+      }
+      return bytes[position++] & 0xFF;
+    }
+
+    private int readVarint() {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        final int b = readByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint.");
+    }
+  }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The acl delta is the minimal change set between two access control lists: the owner change,
+ * the guest flips and the added and removed users, roles and groups per permission. It can be
+ * used to update a persisted access control list incrementally.
+ *
+ * @author Christian Bremer
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class AclDelta {
+
+  private final boolean ownerChanged;
+
+  private final String owner;
+
+  private final SortedMap<String, AceDelta> entries;
+
+  private AclDelta(boolean ownerChanged, String owner, SortedMap<String, AceDelta> entries) {
+    this.ownerChanged = ownerChanged;
+    this.owner = owner;
+    this.entries = entries;
+  }
+
+  /**
+   * Computes the delta between the given access control lists. Entries, that are the same
+   * instances in both access control lists (like the untouched entries of an {@link
+   * ImmutableAcl}), are skipped without comparing them.
+   *
+   * @param oldAcl the old access control list
+   * @param newAcl the new access control list
+   * @return the delta
+   */
+  public static AclDelta between(
+      @Nullable ReadOnlyAcl<? extends ReadOnlyAce> oldAcl,
+      @Nullable ReadOnlyAcl<? extends ReadOnlyAce> newAcl) {
+
+    final String oldOwner = oldAcl != null ? oldAcl.getOwner() : null;
+    final String newOwner = newAcl != null ? newAcl.getOwner() : null;
+    final Map<String, ? extends ReadOnlyAce> oldMap = entryMap(oldAcl);
+    final Map<String, ? extends ReadOnlyAce> newMap = entryMap(newAcl);
+    final TreeMap<String, AceDelta> entries = new TreeMap<>();
+    if (oldMap != newMap) {
+      for (Map.Entry<String, ? extends ReadOnlyAce> entry : newMap.entrySet()) {
+        if (StringUtils.hasText(entry.getKey())) {
+          final String permission = entry.getKey().toLowerCase();
+          final AceDelta delta = AceDelta.between(
+              get(oldMap, entry.getKey(), permission), entry.getValue());
+          if (!delta.isEmpty()) {
+            entries.put(permission, delta);
+          }
+        }
+      }
+      for (Map.Entry<String, ? extends ReadOnlyAce> entry : oldMap.entrySet()) {
+        if (StringUtils.hasText(entry.getKey())) {
+          final String permission = entry.getKey().toLowerCase();
+          if (get(newMap, entry.getKey(), permission) == null) {
+            final AceDelta delta = AceDelta.between(entry.getValue(), null);
+            if (!delta.isEmpty()) {
+              entries.put(permission, delta);
+            }
+          }
+        }
+      }
+    }
+    return new AclDelta(
+        !Objects.equals(oldOwner, newOwner),
+        newOwner,
+        Collections.unmodifiableSortedMap(entries));
+  }
+
+  private static Map<String, ? extends ReadOnlyAce> entryMap(
+      ReadOnlyAcl<? extends ReadOnlyAce> acl) {
+    return acl != null && acl.entryMap() != null ? acl.entryMap() : Collections.emptyMap();
+  }
+
+  private static ReadOnlyAce get(
+      Map<String, ? extends ReadOnlyAce> map,
+      String key,
+      String permission) {
+    final ReadOnlyAce ace = map.get(key);
+    return ace != null || key.equals(permission) ? ace : map.get(permission);
+  }
+
+  /**
+   * Determines whether there are no changes.
+   *
+   * @return {@code true} if there are no changes, otherwise {@code false}
+   */
+  public boolean isEmpty() {
+    return !ownerChanged && entries.isEmpty();
+  }
+
+  /**
+   * Applies this delta to the given access control list.
+   *
+   * @param acl the access control list
+   * @return the changed access control list
+   */
+  public ImmutableAcl applyTo(@Nullable ReadOnlyAcl<? extends ReadOnlyAce> acl) {
+    ImmutableAcl result = ImmutableAcl.from(acl);
+    if (ownerChanged) {
+      result = result.withOwner(owner);
+    }
+    for (Map.Entry<String, AceDelta> entry : entries.entrySet()) {
+      final String permission = entry.getKey();
+      final AceDelta delta = entry.getValue();
+      if (delta.getGuest() != null) {
+        result = result.guest(delta.getGuest(), permission);
+      }
+      for (String user : delta.getAddedUsers()) {
+        result = result.addUser(user, permission);
+      }
+      for (String user : delta.getRemovedUsers()) {
+        result = result.removeUser(user, permission);
+      }
+      for (String role : delta.getAddedRoles()) {
+        result = result.addRole(role, permission);
+      }
+      for (String role : delta.getRemovedRoles()) {
+        result = result.removeRole(role, permission);
+      }
+      for (String group : delta.getAddedGroups()) {
+        result = result.addGroup(group, permission);
+      }
+      for (String group : delta.getRemovedGroups()) {
+        result = result.removeGroup(group, permission);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * The changes of one access control entry.
+   */
+  @Getter
+  @ToString
+  @EqualsAndHashCode
+  public static final class AceDelta {
+
+    private final Boolean guest;
+
+    private final Set<String> addedUsers;
+
+    private final Set<String> removedUsers;
+
+    private final Set<String> addedRoles;
+
+    private final Set<String> removedRoles;
+
+    private final Set<String> addedGroups;
+
+    private final Set<String> removedGroups;
+
+    private AceDelta(ReadOnlyAce oldAce, ReadOnlyAce newAce) {
+      final boolean oldGuest = oldAce != null && oldAce.isGuest();
+      final boolean newGuest = newAce != null && newAce.isGuest();
+      this.guest = oldGuest != newGuest ? newGuest : null;
+      this.addedUsers = minus(
+          newAce != null ? newAce.getUsers() : null, oldAce != null ? oldAce.getUsers() : null);
+      this.removedUsers = minus(
+          oldAce != null ? oldAce.getUsers() : null, newAce != null ? newAce.getUsers() : null);
+      this.addedRoles = minus(
+          newAce != null ? newAce.getRoles() : null, oldAce != null ? oldAce.getRoles() : null);
+      this.removedRoles = minus(
+          oldAce != null ? oldAce.getRoles() : null, newAce != null ? newAce.getRoles() : null);
+      this.addedGroups = minus(
+          newAce != null ? newAce.getGroups() : null, oldAce != null ? oldAce.getGroups() : null);
+      this.removedGroups = minus(
+          oldAce != null ? oldAce.getGroups() : null, newAce != null ? newAce.getGroups() : null);
+    }
+
+    private static AceDelta between(ReadOnlyAce oldAce, ReadOnlyAce newAce) {
+      return new AceDelta(oldAce == newAce ? null : oldAce, oldAce == newAce ? null : newAce);
+    }
+
+    private static Set<String> minus(Set<String> a, Set<String> b) {
+      if (a == null || a.isEmpty() || a == b) {
+        return Collections.emptySet();
+      }
+      Set<String> result = null;
+      for (String value : a) {
+        if (StringUtils.hasText(value) && (b == null || !b.contains(value))) {
+          if (result == null) {
+            result = new TreeSet<>();
+          }
+          result.add(value);
+        }
+      }
+      return result != null ? Collections.unmodifiableSet(result) : Collections.emptySet();
+    }
+
+    /**
+     * Returns the new guest flag or {@code null}, if it was not changed.
+     *
+     * @return the guest flag
+     */
+    @Nullable
+    public Boolean getGuest() {
+      return guest;
+    }
+
+    /**
+     * Determines whether there are no changes.
+     *
+     * @return {@code true} if there are no changes, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+      return guest == null
+          && addedUsers.isEmpty()
+          && removedUsers.isEmpty()
+          && addedRoles.isEmpty()
+          && removedRoles.isEmpty()
+          && addedGroups.isEmpty()
+          && removedGroups.isEmpty();
+    }
+  }
+
+}
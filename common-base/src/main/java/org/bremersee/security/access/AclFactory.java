@@ -68,6 +68,19 @@ public interface AclFactory<T> {
     public AccessControlList createAccessControlList(
         final String owner,
         final Map<String, ? extends Ace> entries) {
+      return create(owner, entries);
+    }
+
+    /**
+     * Creates the access control list (dto) of the given owner and read-only entries.
+     *
+     * @param owner the owner
+     * @param entries the entries
+     * @return the access control list (dto)
+     */
+    static AccessControlList create(
+        final String owner,
+        final Map<String, ? extends ReadOnlyAce> entries) {
       final AccessControlList acl = new AccessControlList();
       acl.setOwner(owner);
       if (entries != null) {
@@ -76,7 +89,7 @@ public interface AclFactory<T> {
             .stream()
             .map(entry -> {
               final String permission = entry.getKey();
-              final Ace ace = entry.getValue();
+              final ReadOnlyAce ace = entry.getValue();
               return AccessControlEntry
                   .builder()
                   .permission(permission)
@@ -70,10 +70,10 @@ class AclImpl extends TreeMap<String, Ace> implements Acl<Ace> {
     if (this == o) {
       return true;
     }
-    if (!(o instanceof Acl)) {
+    if (!(o instanceof ReadOnlyAcl)) {
       return false;
     }
-    Acl<? extends Ace> acl = (Acl<? extends Ace>) o;
+    ReadOnlyAcl<?> acl = (ReadOnlyAcl<?>) o;
     return Objects.equals(owner, acl.getOwner())
         && new TreeMap<>(this).equals(new TreeMap<>(acl.entryMap()));
   }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The intern table of a batch of access control lists. Equal permissions are normalized only
+ * once and equal principals (users, roles and groups) share the same string instance. The table
+ * is thread safe, so it can be used by a parallel stream.
+ *
+ * @author Christian Bremer
+ */
+final class AclInterner {
+
+  private final Map<String, String> permissions = new ConcurrentHashMap<>();
+
+  private final Map<String, String> principals = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the normalized (lower case) permission.
+   *
+   * @param permission the permission
+   * @return the normalized permission
+   */
+  String permission(String permission) {
+    final String normalized = permissions.get(permission);
+    if (normalized != null) {
+      return normalized;
+    }
+    return permissions.computeIfAbsent(
+        permission, p -> principal(PermissionConstants.normalize(p)));
+  }
+
+  /**
+   * Returns the shared instance of the given principal.
+   *
+   * @param principal the principal
+   * @return the shared instance
+   */
+  String principal(String principal) {
+    final String existing = principals.putIfAbsent(principal, principal);
+    return existing != null ? existing : principal;
+  }
+
+}
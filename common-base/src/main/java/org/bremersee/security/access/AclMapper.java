@@ -16,6 +16,10 @@
 
 package org.bremersee.security.access;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import javax.validation.constraints.NotNull;
 import org.bremersee.common.model.AccessControlList;
 import org.springframework.lang.Nullable;
@@ -28,7 +32,7 @@ import org.springframework.validation.annotation.Validated;
  * @author Christian Bremer
  */
 @Validated
-public interface AclMapper<T extends Acl<? extends Ace>> {
+public interface AclMapper<T extends ReadOnlyAcl<? extends ReadOnlyAce>> {
 
   /**
    * Gets acl factory.
@@ -81,15 +85,54 @@ public interface AclMapper<T extends Acl<? extends Ace>> {
   T map(@Nullable AccessControlList accessControlList);
 
   /**
-   * Default acl (entity).
+   * Map access control lists (entities) to dtos. The order of the elements is preserved.
+   *
+   * @param acls the acls
+   * @return the access control lists
+   */
+  default List<AccessControlList> mapAll(@Nullable Collection<? extends T> acls) {
+    if (acls == null || acls.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<AccessControlList> list = new ArrayList<>(acls.size());
+    for (T acl : acls) {
+      list.add(map(acl));
+    }
+    return list;
+  }
+
+  /**
+   * Map access control list dtos to entities. The order of the elements is preserved.
+   *
+   * @param accessControlLists the access control lists
+   * @return the acls of the specified type
+   */
+  default List<T> mapAllToAcl(
+      @Nullable Collection<? extends AccessControlList> accessControlLists) {
+
+    if (accessControlLists == null || accessControlLists.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<T> list = new ArrayList<>(accessControlLists.size());
+    for (AccessControlList accessControlList : accessControlLists) {
+      list.add(map(accessControlList));
+    }
+    return list;
+  }
+
+  /**
+   * Default acl (entity). A read-only acl, that cannot get the owner, is mapped from an access
+   * control list (dto) with the owner.
    *
    * @param owner the owner
    * @return the acl (can be null)
    */
   default T defaultAcl(@Nullable String owner) {
     T acl = map((AccessControlList) null);
-    if (acl != null) {
-      acl.setOwner(owner);
+    if (acl instanceof Acl) {
+      ((Acl<?>) acl).setOwner(owner);
+    } else if (acl != null) {
+      acl = map(AclBuilder.builder().owner(owner).buildAccessControlList());
     }
     return acl;
   }
@@ -18,21 +18,33 @@ package org.bremersee.security.access;
 
 import static org.springframework.util.Assert.notNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.validation.constraints.NotNull;
 import org.bremersee.common.model.AccessControlList;
 import org.bremersee.security.core.AuthorityConstants;
 import org.springframework.lang.Nullable;
 
 /**
- * The acl mapper implementation.
+ * The acl mapper implementation. Immutable access control lists (see {@link ImmutableAcl}) are
+ * mapped without copying them into an {@link AclBuilder}.
  *
  * @param <T> the acl type
  * @author Christian Bremer
  */
-public class AclMapperImpl<T extends Acl<? extends Ace>> implements AclMapper<T> {
+public class AclMapperImpl<T extends ReadOnlyAcl<? extends ReadOnlyAce>>
+    implements AclMapper<T> {
+
+  /**
+   * The value of the parallel threshold, that disables parallel processing.
+   */
+  public static final int NO_PARALLEL_PROCESSING = Integer.MAX_VALUE;
 
   private final AclFactory<T> aclFactory;
 
@@ -44,6 +56,8 @@ public class AclMapperImpl<T extends Acl<? extends Ace>> implements AclMapper<T>
 
   private Set<String> adminRoles;
 
+  private int parallelThreshold = NO_PARALLEL_PROCESSING;
+
   /**
    * Instantiates a new acl mapper.
    *
@@ -110,6 +124,26 @@ public class AclMapperImpl<T extends Acl<? extends Ace>> implements AclMapper<T>
     this.adminRoles = new LinkedHashSet<>(adminRoles != null ? adminRoles : Collections.emptySet());
   }
 
+  /**
+   * Gets the minimum number of elements, that are mapped in parallel by the bulk operations.
+   *
+   * @return the parallel threshold
+   */
+  public int getParallelThreshold() {
+    return parallelThreshold;
+  }
+
+  /**
+   * Sets the minimum number of elements, that are mapped in parallel by the bulk operations
+   * ({@link #mapAll(Collection)} and {@link #mapAllToAcl(Collection)}). Default is {@link
+   * #NO_PARALLEL_PROCESSING}.
+   *
+   * @param parallelThreshold the parallel threshold
+   */
+  public void setParallelThreshold(int parallelThreshold) {
+    this.parallelThreshold = parallelThreshold > 0 ? parallelThreshold : NO_PARALLEL_PROCESSING;
+  }
+
   @Override
   public AclFactory<T> getAclFactory() {
     return aclFactory;
@@ -126,11 +160,21 @@ public class AclMapperImpl<T extends Acl<? extends Ace>> implements AclMapper<T>
 
   @Override
   public AccessControlList map(T acl) {
+    return map(acl, null);
+  }
+
+  private AccessControlList map(T acl, AclInterner interner) {
     if (acl == null && returnNull) {
       return null;
     }
-    final AclBuilder aclBuilder = AclBuilder
-        .builder()
+    if (acl instanceof ImmutableAcl) {
+      ImmutableAcl immutableAcl = ((ImmutableAcl) acl).defaults(defaultPermissions);
+      if (switchAdminAccess) {
+        immutableAcl = immutableAcl.removeAdminAccess(adminRoles);
+      }
+      return immutableAcl.toAccessControlList();
+    }
+    final AclBuilder aclBuilder = new AclBuilder.Impl(interner)
         .from(acl)
         .defaults(defaultPermissions);
     if (switchAdminAccess) {
@@ -144,11 +188,23 @@ public class AclMapperImpl<T extends Acl<? extends Ace>> implements AclMapper<T>
 
   @Override
   public T map(AccessControlList accessControlList) {
+    return map(accessControlList, null);
+  }
+
+  private T map(AccessControlList accessControlList, AclInterner interner) {
     if (accessControlList == null && returnNull) {
       return null;
     }
-    final AclBuilder aclBuilder = AclBuilder
-        .builder()
+    if (aclFactory instanceof ImmutableAcl.Factory) {
+      ImmutableAcl immutableAcl = ImmutableAcl.from(accessControlList, interner)
+          .defaults(defaultPermissions);
+      if (switchAdminAccess) {
+        immutableAcl = immutableAcl.ensureAdminAccess(adminRoles);
+      }
+      //noinspection unchecked
+      return (T) immutableAcl;
+    }
+    final AclBuilder aclBuilder = new AclBuilder.Impl(interner)
         .from(accessControlList)
         .defaults(defaultPermissions);
     if (switchAdminAccess) {
@@ -175,4 +231,47 @@ public class AclMapperImpl<T extends Acl<? extends Ace>> implements AclMapper<T>
         .build(aclFactory);
   }
 
+  /**
+   * Map access control lists (entities) to dtos. The permissions and principals of all elements
+   * are interned in one table, so that equal strings are normalized only once.
+   *
+   * @param acls the acls
+   * @return the access control lists
+   */
+  @Override
+  public List<AccessControlList> mapAll(Collection<? extends T> acls) {
+    if (acls == null || acls.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final AclInterner interner = new AclInterner();
+    return mapAll(acls, acl -> map(acl, interner));
+  }
+
+  /**
+   * Map access control list dtos to entities. The permissions and principals of all elements are
+   * interned in one table, so that equal strings are normalized only once.
+   *
+   * @param accessControlLists the access control lists
+   * @return the acls of the specified type
+   */
+  @Override
+  public List<T> mapAllToAcl(Collection<? extends AccessControlList> accessControlLists) {
+    if (accessControlLists == null || accessControlLists.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final AclInterner interner = new AclInterner();
+    return mapAll(accessControlLists, accessControlList -> map(accessControlList, interner));
+  }
+
+  private <S, D> List<D> mapAll(Collection<? extends S> source, Function<S, D> mapper) {
+    if (source.size() >= parallelThreshold) {
+      return source.parallelStream().map(mapper).collect(Collectors.toList());
+    }
+    final List<D> list = new ArrayList<>(source.size());
+    for (S element : source) {
+      list.add(mapper.apply(element));
+    }
+    return list;
+  }
+
 }
@@ -0,0 +1,499 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.bremersee.common.model.AccessControlEntry;
+import org.bremersee.common.model.AccessControlList;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The compiled access controller is an immutable snapshot of an access control list. The
+ * permission names are normalized and interned once, the principals of each entry are kept in
+ * hash sets, so that the permission checks don't allocate any objects.
+ *
+ * <p>Every compiled access controller has a unique version, which is used as key of the {@link
+ * AccessDecisionCache}. Equality is based on the content and ignores the version.
+ *
+ * @author Christian Bremer
+ */
+@ToString
+@EqualsAndHashCode(exclude = {"version"})
+public final class CompiledAccessController implements AccessController {
+
+  private static final AtomicLong VERSIONS = new AtomicLong();
+
+  private static final CompiledAccessController EMPTY = new CompiledAccessController(
+      null, Collections.emptyMap());
+
+  private final long version;
+
+  private final String owner;
+
+  private final Map<String, Entry> entries;
+
+  private CompiledAccessController(String owner, Map<String, Entry> entries) {
+    this.version = VERSIONS.incrementAndGet();
+    this.owner = owner;
+    this.entries = entries;
+  }
+
+  /**
+   * Returns an access controller that denies everything.
+   *
+   * @return the empty access controller
+   */
+  public static CompiledAccessController empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Compiles the given access control list.
+   *
+   * @param acl the access control list
+   * @return the compiled access controller
+   */
+  public static CompiledAccessController compile(
+      @Nullable ReadOnlyAcl<? extends ReadOnlyAce> acl) {
+    if (acl == null) {
+      return EMPTY;
+    }
+    if (acl instanceof ImmutableAcl) {
+      return ((ImmutableAcl) acl).accessController();
+    }
+    return compile(acl.getOwner(), acl.entryMap());
+  }
+
+  /**
+   * Compiles the given owner and entries.
+   *
+   * @param owner the owner
+   * @param entryMap the entries
+   * @return the compiled access controller
+   */
+  public static CompiledAccessController compile(
+      @Nullable String owner,
+      @Nullable Map<String, ? extends ReadOnlyAce> entryMap) {
+
+    if (entryMap == null || entryMap.isEmpty()) {
+      return new CompiledAccessController(owner, Collections.emptyMap());
+    }
+    final Map<String, EntryBuilder> builders = new HashMap<>(capacity(entryMap.size()));
+    for (Map.Entry<String, ? extends ReadOnlyAce> mapEntry : entryMap.entrySet()) {
+      final ReadOnlyAce ace = mapEntry.getValue();
+      if (ace != null && StringUtils.hasText(mapEntry.getKey())) {
+        builders
+            .computeIfAbsent(normalizePermission(mapEntry.getKey()), p -> new EntryBuilder())
+            .add(ace.isGuest(), ace.getUsers(), ace.getRoles(), ace.getGroups());
+      }
+    }
+    return new CompiledAccessController(owner, freeze(builders));
+  }
+
+  /**
+   * Compiles the given access control list (dto).
+   *
+   * @param acl the access control list
+   * @return the compiled access controller
+   */
+  public static CompiledAccessController compile(@Nullable AccessControlList acl) {
+    if (acl == null) {
+      return EMPTY;
+    }
+    final Collection<AccessControlEntry> entries = acl.getEntries();
+    if (entries == null || entries.isEmpty()) {
+      return new CompiledAccessController(acl.getOwner(), Collections.emptyMap());
+    }
+    final Map<String, EntryBuilder> builders = new HashMap<>(capacity(entries.size()));
+    for (AccessControlEntry entry : entries) {
+      if (entry != null && StringUtils.hasText(entry.getPermission())) {
+        builders
+            .computeIfAbsent(normalizePermission(entry.getPermission()), p -> new EntryBuilder())
+            .add(
+                Boolean.TRUE.equals(entry.getGuest()),
+                entry.getUsers(),
+                entry.getRoles(),
+                entry.getGroups());
+      }
+    }
+    return new CompiledAccessController(acl.getOwner(), freeze(builders));
+  }
+
+  /**
+   * Creates a compiled access controller from already normalized and immutable entries.
+   *
+   * @param owner the owner
+   * @param entries the entries, the keys must be normalized permissions
+   * @return the compiled access controller
+   */
+  static CompiledAccessController of(@Nullable String owner, Map<String, Entry> entries) {
+    return new CompiledAccessController(owner, Collections.unmodifiableMap(entries));
+  }
+
+  /**
+   * Normalizes the given permission: it will be lower-cased and interned.
+   *
+   * @param permission the permission
+   * @return the normalized permission
+   */
+  static String normalizePermission(String permission) {
+    return PermissionConstants.normalize(permission).intern();
+  }
+
+  private static Map<String, Entry> freeze(Map<String, EntryBuilder> builders) {
+    final Map<String, Entry> map = new HashMap<>(capacity(builders.size()));
+    for (Map.Entry<String, EntryBuilder> builder : builders.entrySet()) {
+      map.put(builder.getKey(), builder.getValue().build());
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  private static int capacity(int size) {
+    return Math.max(4, (int) (size / .75f) + 1);
+  }
+
+  /**
+   * Gets the version. Every compilation creates a new version, so a new version of an access
+   * control list (for example built by the {@link AclBuilder} or returned by a modifying method
+   * of {@link ImmutableAcl}) never has the version of an old one, even if the content is the
+   * same.
+   *
+   * @return the version
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets owner.
+   *
+   * @return the owner
+   */
+  @Nullable
+  public String getOwner() {
+    return owner;
+  }
+
+  /**
+   * Gets the normalized permissions of this access controller.
+   *
+   * @return the permissions
+   */
+  public Set<String> getPermissions() {
+    return entries.keySet();
+  }
+
+  /**
+   * Gets the entry of the given permission.
+   *
+   * @param permission the permission
+   * @return the entry (can be null)
+   */
+  @Nullable
+  Entry getEntry(@Nullable String permission) {
+    if (permission == null) {
+      return null;
+    }
+    final Entry entry = entries.get(permission);
+    if (entry != null || !hasUpperCase(permission)) {
+      return entry;
+    }
+    return entries.get(permission.toLowerCase());
+  }
+
+  private static boolean hasUpperCase(String value) {
+    for (int i = 0, n = value.length(); i < n; i++) {
+      if (Character.isUpperCase(value.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determines whether the given user is the owner.
+   *
+   * @param user the user
+   * @return {@code true} if the user is the owner, otherwise {@code false}
+   */
+  boolean isOwner(@Nullable String user) {
+    return user != null && user.equals(owner);
+  }
+
+  @Override
+  public boolean hasPermission(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable String permission) {
+
+    if (permission == null) {
+      return false;
+    }
+    if (isOwner(user)) {
+      return true;
+    }
+    final Entry entry = getEntry(permission);
+    return entry != null && entry.grants(user, roles, groups);
+  }
+
+  @Override
+  public boolean hasAnyPermission(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable String... permissions) {
+
+    if (permissions == null) {
+      return false;
+    }
+    for (String permission : permissions) {
+      if (hasPermission(user, roles, groups, permission)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean hasAnyPermission(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable Collection<String> permissions) {
+
+    if (permissions == null) {
+      return false;
+    }
+    for (String permission : permissions) {
+      if (hasPermission(user, roles, groups, permission)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean hasAllPermissions(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable String... permissions) {
+
+    if (permissions == null || permissions.length == 0) {
+      return false;
+    }
+    for (String permission : permissions) {
+      if (!hasPermission(user, roles, groups, permission)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean hasAllPermissions(
+      @Nullable String user,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable Collection<String> permissions) {
+
+    if (permissions == null || permissions.isEmpty()) {
+      return false;
+    }
+    for (String permission : permissions) {
+      if (!hasPermission(user, roles, groups, permission)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The immutable entry of a compiled access controller.
+   */
+  @ToString
+  @EqualsAndHashCode
+  static final class Entry {
+
+    private final boolean guest;
+
+    private final Set<String> users;
+
+    private final Set<String> roles;
+
+    private final Set<String> groups;
+
+    Entry(boolean guest, Set<String> users, Set<String> roles, Set<String> groups) {
+      this.guest = guest;
+      this.users = users;
+      this.roles = roles;
+      this.groups = groups;
+    }
+
+    /**
+     * Determines whether guests have access.
+     *
+     * @return {@code true} if guests have access, otherwise {@code false}
+     */
+    boolean isGuest() {
+      return guest;
+    }
+
+    /**
+     * Gets users.
+     *
+     * @return the users
+     */
+    Set<String> getUsers() {
+      return users;
+    }
+
+    /**
+     * Gets roles.
+     *
+     * @return the roles
+     */
+    Set<String> getRoles() {
+      return roles;
+    }
+
+    /**
+     * Gets groups.
+     *
+     * @return the groups
+     */
+    Set<String> getGroups() {
+      return groups;
+    }
+
+    /**
+     * Merges this entry with the given entry of the same permission.
+     *
+     * @param other the other entry
+     * @return the merged entry
+     */
+    Entry merge(Entry other) {
+      return new Entry(
+          guest || other.guest,
+          union(users, other.users),
+          union(roles, other.roles),
+          union(groups, other.groups));
+    }
+
+    private static Set<String> union(Set<String> a, Set<String> b) {
+      if (b.isEmpty() || a.containsAll(b)) {
+        return a;
+      }
+      if (a.isEmpty()) {
+        return b;
+      }
+      final Set<String> union = new HashSet<>(a);
+      union.addAll(b);
+      return Collections.unmodifiableSet(union);
+    }
+
+    /**
+     * Determines whether this entry grants access to the given user, roles or groups.
+     *
+     * @param user the user
+     * @param roles the roles
+     * @param groups the groups
+     * @return {@code true} if access is granted, otherwise {@code false}
+     */
+    boolean grants(
+        @Nullable String user,
+        @Nullable Collection<String> roles,
+        @Nullable Collection<String> groups) {
+
+      return guest
+          || (user != null && users.contains(user))
+          || intersects(this.roles, roles)
+          || intersects(this.groups, groups);
+    }
+
+    private static boolean intersects(Set<String> indexed, @Nullable Collection<String> values) {
+      if (values == null || indexed.isEmpty() || values.isEmpty()) {
+        return false;
+      }
+      if (values instanceof Set && values.size() > indexed.size()) {
+        for (String value : indexed) {
+          if (values.contains(value)) {
+            return true;
+          }
+        }
+        return false;
+      }
+      for (String value : values) {
+        if (value != null && indexed.contains(value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class EntryBuilder {
+
+    private boolean guest;
+
+    private final Set<String> users = new HashSet<>();
+
+    private final Set<String> roles = new HashSet<>();
+
+    private final Set<String> groups = new HashSet<>();
+
+    private void add(
+        boolean guest,
+        @Nullable Collection<String> users,
+        @Nullable Collection<String> roles,
+        @Nullable Collection<String> groups) {
+      this.guest = this.guest || guest;
+      addAll(this.users, users);
+      addAll(this.roles, roles);
+      addAll(this.groups, groups);
+    }
+
+    private static void addAll(Set<String> target, @Nullable Collection<String> values) {
+      if (values != null) {
+        for (String value : values) {
+          if (StringUtils.hasText(value)) {
+            target.add(value);
+          }
+        }
+      }
+    }
+
+    private Entry build() {
+      return new Entry(guest, freeze(users), freeze(roles), freeze(groups));
+    }
+
+    private static Set<String> freeze(Set<String> values) {
+      return values.isEmpty() ? Collections.emptySet() : Set.copyOf(values);
+    }
+  }
+
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The default principal hierarchy. The transitive closure of the inclusions is computed once
+ * and cached as bit sets over interned principal ids; it is invalidated on every change of the
+ * hierarchy. The expanded principals are a set view, whose {@code contains} method costs one
+ * hash lookup and one bit test; {@code isEmpty} and {@code size} don't materialize the view
+ * either.
+ *
+ * <p>The hierarchy can be created from a string like
+ * <pre>
+ * ROLE_ADMIN &gt; ROLE_USER
+ * ROLE_USER &gt; ROLE_GUEST
+ * </pre>
+ *
+ * @author Christian Bremer
+ */
+@Slf4j
+public class DefaultPrincipalHierarchy implements PrincipalHierarchy {
+
+  private final Map<String, Set<String>> inclusions = new LinkedHashMap<>();
+
+  private volatile Closure closure;
+
+  /**
+   * Instantiates a new empty principal hierarchy.
+   */
+  public DefaultPrincipalHierarchy() {
+  }
+
+  /**
+   * Instantiates a new principal hierarchy.
+   *
+   * @param inclusions the inclusions, the key is the including principal, the value are the
+   *     included principals
+   */
+  public DefaultPrincipalHierarchy(@Nullable Map<String, ? extends Collection<String>> inclusions) {
+    setInclusions(inclusions);
+  }
+
+  /**
+   * Creates a principal hierarchy from the given string representation. Each line (or each part
+   * separated by {@code ;}) contains a chain like {@code ROLE_ADMIN > ROLE_USER > ROLE_GUEST}.
+   *
+   * @param hierarchy the string representation of the hierarchy
+   * @return the principal hierarchy
+   */
+  public static DefaultPrincipalHierarchy fromString(@Nullable String hierarchy) {
+    final DefaultPrincipalHierarchy principalHierarchy = new DefaultPrincipalHierarchy();
+    if (StringUtils.hasText(hierarchy)) {
+      for (String line : hierarchy.split("[\\r\\n;]+")) {
+        final String[] parts = line.split(">");
+        for (int i = 1; i < parts.length; i++) {
+          principalHierarchy.include(parts[i - 1].trim(), parts[i].trim());
+        }
+      }
+    }
+    return principalHierarchy;
+  }
+
+  /**
+   * Gets a copy of the inclusions.
+   *
+   * @return the inclusions
+   */
+  public synchronized Map<String, Set<String>> getInclusions() {
+    final Map<String, Set<String>> copy = new LinkedHashMap<>();
+    inclusions.forEach((principal, included) -> copy.put(principal, new LinkedHashSet<>(included)));
+    return copy;
+  }
+
+  /**
+   * Replaces the inclusions.
+   *
+   * @param inclusions the inclusions, the key is the including principal, the value are the
+   *     included principals
+   */
+  public synchronized void setInclusions(
+      @Nullable Map<String, ? extends Collection<String>> inclusions) {
+    this.inclusions.clear();
+    if (inclusions != null) {
+      inclusions.forEach((principal, included) -> {
+        if (included != null) {
+          include(principal, included.toArray(new String[0]));
+        }
+      });
+    }
+    invalidate();
+  }
+
+  /**
+   * Adds inclusions.
+   *
+   * @param principal the including principal
+   * @param includedPrincipals the included principals
+   * @return the principal hierarchy
+   */
+  public synchronized DefaultPrincipalHierarchy include(
+      @Nullable String principal,
+      @Nullable String... includedPrincipals) {
+
+    if (StringUtils.hasText(principal) && includedPrincipals != null) {
+      for (String includedPrincipal : includedPrincipals) {
+        if (StringUtils.hasText(includedPrincipal) && !principal.equals(includedPrincipal)) {
+          inclusions.computeIfAbsent(principal, p -> new LinkedHashSet<>()).add(includedPrincipal);
+        }
+      }
+      invalidate();
+    }
+    return this;
+  }
+
+  /**
+   * Removes inclusions.
+   *
+   * @param principal the including principal
+   * @param includedPrincipals the included principals, if empty all inclusions of the principal
+   *     are removed
+   * @return the principal hierarchy
+   */
+  public synchronized DefaultPrincipalHierarchy exclude(
+      @Nullable String principal,
+      @Nullable String... includedPrincipals) {
+
+    if (principal != null && inclusions.containsKey(principal)) {
+      if (includedPrincipals == null || includedPrincipals.length == 0) {
+        inclusions.remove(principal);
+      } else {
+        final Set<String> included = inclusions.get(principal);
+        for (String includedPrincipal : includedPrincipals) {
+          included.remove(includedPrincipal);
+        }
+        if (included.isEmpty()) {
+          inclusions.remove(principal);
+        }
+      }
+      invalidate();
+    }
+    return this;
+  }
+
+  private void invalidate() {
+    closure = null;
+  }
+
+  private Closure getClosure() {
+    Closure current = closure;
+    if (current == null) {
+      synchronized (this) {
+        current = closure;
+        if (current == null) {
+          current = new Closure(inclusions);
+          closure = current;
+          log.debug("Transitive closure of principal hierarchy computed ({} principals).",
+              current.names.length);
+        }
+      }
+    }
+    return current;
+  }
+
+  @Override
+  public Set<String> expand(@Nullable Collection<String> principals) {
+    if (principals == null || principals.isEmpty()) {
+      return Collections.emptySet();
+    }
+    final Set<String> direct = principals instanceof Set
+        ? (Set<String>) principals
+        : new HashSet<>(principals);
+    final Closure current = getClosure();
+    BitSet bits = null;
+    for (String principal : direct) {
+      final Integer id = current.ids.get(principal);
+      if (id != null && !current.reachable[id].isEmpty()) {
+        if (bits == null) {
+          bits = new BitSet(current.names.length);
+        }
+        bits.or(current.reachable[id]);
+      }
+    }
+    return bits == null ? direct : new ExpandedPrincipals(direct, bits, current);
+  }
+
+  /**
+   * The transitive closure of the inclusions.
+   */
+  private static final class Closure {
+
+    private final Map<String, Integer> ids;
+
+    private final String[] names;
+
+    private final BitSet[] reachable;
+
+    private Closure(Map<String, Set<String>> inclusions) {
+      final Map<String, Integer> idMap = new HashMap<>();
+      inclusions.forEach((principal, included) -> {
+        idMap.computeIfAbsent(principal, p -> idMap.size());
+        included.forEach(p -> idMap.computeIfAbsent(p, x -> idMap.size()));
+      });
+      this.ids = Collections.unmodifiableMap(idMap);
+      this.names = new String[idMap.size()];
+      idMap.forEach((name, id) -> names[id] = name);
+
+      final int[][] edges = new int[names.length][];
+      for (int id = 0; id < names.length; id++) {
+        final Set<String> included = inclusions.getOrDefault(names[id], Collections.emptySet());
+        edges[id] = included.stream().mapToInt(idMap::get).toArray();
+      }
+      this.reachable = new BitSet[names.length];
+      final Deque<Integer> queue = new ArrayDeque<>();
+      for (int id = 0; id < names.length; id++) {
+        final BitSet bits = new BitSet(names.length);
+        queue.add(id);
+        while (!queue.isEmpty()) {
+          for (int next : edges[queue.poll()]) {
+            if (next != id && !bits.get(next)) {
+              bits.set(next);
+              queue.add(next);
+            }
+          }
+        }
+        reachable[id] = bits;
+      }
+    }
+
+    private boolean contains(BitSet bits, Object principal) {
+      final Integer id = ids.get(principal);
+      return id != null && bits.get(id);
+    }
+  }
+
+  /**
+   * The set view of the expanded principals.
+   */
+  private static final class ExpandedPrincipals extends AbstractSet<String> {
+
+    private final Set<String> direct;
+
+    private final BitSet bits;
+
+    private final Closure closure;
+
+    private Set<String> values;
+
+    private ExpandedPrincipals(Set<String> direct, BitSet bits, Closure closure) {
+      this.direct = direct;
+      this.bits = bits;
+      this.closure = closure;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return direct.contains(o) || closure.contains(bits, o);
+    }
+
+    private Set<String> values() {
+      if (values == null) {
+        final Set<String> set = new LinkedHashSet<>(direct);
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+          set.add(closure.names[id]);
+        }
+        values = Collections.unmodifiableSet(set);
+      }
+      return values;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return values().iterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return direct.isEmpty() && bits.isEmpty();
+    }
+
+    @Override
+    public int size() {
+      if (values != null) {
+        return values.size();
+      }
+      int size = direct.size() + bits.cardinality();
+      for (String principal : direct) {
+        if (closure.contains(bits, principal)) {
+          size--;
+        }
+      }
+      return size;
+    }
+  }
+
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.validation.constraints.NotNull;
+import lombok.ToString;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * The immutable access control entry. All modifying methods return a new entry, that shares the
+ * unchanged sets with this entry, or this entry, if nothing was changed. It implements only the
+ * {@link ReadOnlyAce} interface, because it cannot fulfill the mutable {@link Ace} contract.
+ *
+ * @author Christian Bremer
+ */
+@ToString
+@Validated
+public final class ImmutableAce implements ReadOnlyAce {
+
+  private static final ImmutableAce EMPTY = new ImmutableAce(
+      false,
+      Collections.emptySortedSet(),
+      Collections.emptySortedSet(),
+      Collections.emptySortedSet());
+
+  private final boolean guest;
+
+  private final SortedSet<String> users;
+
+  private final SortedSet<String> roles;
+
+  private final SortedSet<String> groups;
+
+  private ImmutableAce(
+      boolean guest,
+      SortedSet<String> users,
+      SortedSet<String> roles,
+      SortedSet<String> groups) {
+    this.guest = guest;
+    this.users = users;
+    this.roles = roles;
+    this.groups = groups;
+  }
+
+  /**
+   * Returns the empty entry.
+   *
+   * @return the empty entry
+   */
+  public static ImmutableAce empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a new immutable entry.
+   *
+   * @param guest the guest flag
+   * @param users the users
+   * @param roles the roles
+   * @param groups the groups
+   * @return the immutable entry
+   */
+  public static ImmutableAce of(
+      boolean guest,
+      @Nullable Collection<String> users,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups) {
+    return of(guest, users, roles, groups, null);
+  }
+
+  /**
+   * Creates a new immutable entry, whose principals are taken from the given intern table.
+   *
+   * @param guest the guest flag
+   * @param users the users
+   * @param roles the roles
+   * @param groups the groups
+   * @param interner the intern table of a batch (can be null)
+   * @return the immutable entry
+   */
+  static ImmutableAce of(
+      boolean guest,
+      @Nullable Collection<String> users,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups,
+      @Nullable AclInterner interner) {
+    final SortedSet<String> u = freeze(users, interner);
+    final SortedSet<String> r = freeze(roles, interner);
+    final SortedSet<String> g = freeze(groups, interner);
+    if (!guest && u.isEmpty() && r.isEmpty() && g.isEmpty()) {
+      return EMPTY;
+    }
+    return new ImmutableAce(guest, u, r, g);
+  }
+
+  /**
+   * Returns the given entry as immutable entry. If it is already immutable, it will be returned
+   * without copying it.
+   *
+   * @param ace the entry
+   * @return the immutable entry
+   */
+  public static ImmutableAce from(@Nullable ReadOnlyAce ace) {
+    if (ace == null) {
+      return EMPTY;
+    }
+    if (ace instanceof ImmutableAce) {
+      return (ImmutableAce) ace;
+    }
+    return of(ace.isGuest(), ace.getUsers(), ace.getRoles(), ace.getGroups());
+  }
+
+  private static SortedSet<String> freeze(Collection<String> values, AclInterner interner) {
+    if (values == null || values.isEmpty()) {
+      return Collections.emptySortedSet();
+    }
+    final TreeSet<String> set = new TreeSet<>();
+    for (String value : values) {
+      if (StringUtils.hasText(value)) {
+        set.add(interner != null ? interner.principal(value) : value);
+      }
+    }
+    return set.isEmpty()
+        ? Collections.emptySortedSet()
+        : Collections.unmodifiableSortedSet(set);
+  }
+
+  private static SortedSet<String> with(SortedSet<String> set, String value) {
+    if (set.contains(value)) {
+      return set;
+    }
+    final TreeSet<String> copy = new TreeSet<>(set);
+    copy.add(value);
+    return Collections.unmodifiableSortedSet(copy);
+  }
+
+  private static SortedSet<String> without(SortedSet<String> set, String value) {
+    if (!set.contains(value)) {
+      return set;
+    }
+    if (set.size() == 1) {
+      return Collections.emptySortedSet();
+    }
+    final TreeSet<String> copy = new TreeSet<>(set);
+    copy.remove(value);
+    return Collections.unmodifiableSortedSet(copy);
+  }
+
+  @Override
+  public boolean isGuest() {
+    return guest;
+  }
+
+  @Override
+  public @NotNull Set<String> getUsers() {
+    return users;
+  }
+
+  @Override
+  public @NotNull Set<String> getRoles() {
+    return roles;
+  }
+
+  @Override
+  public @NotNull Set<String> getGroups() {
+    return groups;
+  }
+
+  /**
+   * Determines whether this entry has no guest access and no users, roles and groups.
+   *
+   * @return {@code true} if this entry is empty, otherwise {@code false}
+   */
+  public boolean isEmpty() {
+    return !guest && users.isEmpty() && roles.isEmpty() && groups.isEmpty();
+  }
+
+  /**
+   * Returns an entry with the given guest flag.
+   *
+   * @param guest the guest flag
+   * @return the entry
+   */
+  public ImmutableAce withGuest(boolean guest) {
+    return this.guest == guest ? this : new ImmutableAce(guest, users, roles, groups);
+  }
+
+  /**
+   * Returns an entry with the given user.
+   *
+   * @param user the user
+   * @return the entry
+   */
+  public ImmutableAce withUser(@Nullable String user) {
+    return StringUtils.hasText(user)
+        ? copy(with(users, user), roles, groups)
+        : this;
+  }
+
+  /**
+   * Returns an entry without the given user.
+   *
+   * @param user the user
+   * @return the entry
+   */
+  public ImmutableAce withoutUser(@Nullable String user) {
+    return user != null ? copy(without(users, user), roles, groups) : this;
+  }
+
+  /**
+   * Returns an entry with the given role.
+   *
+   * @param role the role
+   * @return the entry
+   */
+  public ImmutableAce withRole(@Nullable String role) {
+    return StringUtils.hasText(role)
+        ? copy(users, with(roles, role), groups)
+        : this;
+  }
+
+  /**
+   * Returns an entry without the given role.
+   *
+   * @param role the role
+   * @return the entry
+   */
+  public ImmutableAce withoutRole(@Nullable String role) {
+    return role != null ? copy(users, without(roles, role), groups) : this;
+  }
+
+  /**
+   * Returns an entry with the given group.
+   *
+   * @param group the group
+   * @return the entry
+   */
+  public ImmutableAce withGroup(@Nullable String group) {
+    return StringUtils.hasText(group)
+        ? copy(users, roles, with(groups, group))
+        : this;
+  }
+
+  /**
+   * Returns an entry without the given group.
+   *
+   * @param group the group
+   * @return the entry
+   */
+  public ImmutableAce withoutGroup(@Nullable String group) {
+    return group != null ? copy(users, roles, without(groups, group)) : this;
+  }
+
+  /**
+   * Determines whether this entry has the given values. The values are compared with the sets of
+   * this entry without copying them; blank values are ignored like {@link #of(boolean,
+   * Collection, Collection, Collection)} does.
+   *
+   * @param guest the guest flag
+   * @param users the users
+   * @param roles the roles
+   * @param groups the groups
+   * @return {@code true} if this entry has the given values, otherwise {@code false}
+   */
+  boolean matches(
+      boolean guest,
+      @Nullable Collection<String> users,
+      @Nullable Collection<String> roles,
+      @Nullable Collection<String> groups) {
+    return this.guest == guest
+        && matches(this.users, users)
+        && matches(this.roles, roles)
+        && matches(this.groups, groups);
+  }
+
+  private static boolean matches(SortedSet<String> set, Collection<String> values) {
+    if (values == null || values.isEmpty()) {
+      return set.isEmpty();
+    }
+    for (String value : values) {
+      if (StringUtils.hasText(value) && !set.contains(value)) {
+        return false;
+      }
+    }
+    for (String value : set) {
+      if (!values.contains(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private ImmutableAce copy(
+      SortedSet<String> users,
+      SortedSet<String> roles,
+      SortedSet<String> groups) {
+    if (this.users == users && this.roles == roles && this.groups == groups) {
+      return this;
+    }
+    return new ImmutableAce(guest, users, roles, groups);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ReadOnlyAce)) {
+      return false;
+    }
+    ReadOnlyAce ace = (ReadOnlyAce) o;
+    return guest == ace.isGuest()
+        && users.equals(ace.getUsers())
+        && roles.equals(ace.getRoles())
+        && groups.equals(ace.getGroups());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(guest, users, roles, groups);
+  }
+
+}
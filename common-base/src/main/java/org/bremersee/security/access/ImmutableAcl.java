@@ -0,0 +1,525 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+import lombok.ToString;
+import org.bremersee.common.model.AccessControlEntry;
+import org.bremersee.common.model.AccessControlList;
+import org.bremersee.security.core.AuthorityConstants;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The immutable (persistent) access control list. All modifying methods return a new version,
+ * that shares all untouched entries with this version. If nothing was changed, the same instance
+ * will be returned.
+ *
+ * <p>Only the small sorted map of the permissions is copied by a modification (it holds one
+ * reference per permission); the entries and their principal sets are shared.
+ *
+ * <p>It implements only the {@link ReadOnlyAcl} interface, because it cannot fulfill the mutable
+ * {@link Acl} contract.
+ *
+ * @author Christian Bremer
+ */
+@ToString(exclude = "accessController")
+public final class ImmutableAcl implements ReadOnlyAcl<ImmutableAce> {
+
+  private static final ImmutableAcl EMPTY = new ImmutableAcl(null, Collections.emptySortedMap());
+
+  private final String owner;
+
+  private final SortedMap<String, ImmutableAce> entries;
+
+  private volatile CompiledAccessController accessController;
+
+  private ImmutableAcl(String owner, SortedMap<String, ImmutableAce> entries) {
+    this.owner = owner;
+    this.entries = entries;
+  }
+
+  private static ImmutableAcl create(String owner, TreeMap<String, ImmutableAce> entries) {
+    return new ImmutableAcl(owner, Collections.unmodifiableSortedMap(entries));
+  }
+
+  /**
+   * Returns the empty access control list.
+   *
+   * @return the empty access control list
+   */
+  public static ImmutableAcl empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates an immutable access control list. Immutable entries will not be copied.
+   *
+   * @param owner the owner
+   * @param entries the entries
+   * @return the immutable access control list
+   */
+  public static ImmutableAcl of(
+      @Nullable String owner,
+      @Nullable Map<String, ? extends ReadOnlyAce> entries) {
+
+    final TreeMap<String, ImmutableAce> map = new TreeMap<>();
+    if (entries != null) {
+      for (Map.Entry<String, ? extends ReadOnlyAce> entry : entries.entrySet()) {
+        if (StringUtils.hasText(entry.getKey()) && entry.getValue() != null) {
+          map.merge(
+              entry.getKey().toLowerCase(),
+              ImmutableAce.from(entry.getValue()),
+              ImmutableAcl::merge);
+        }
+      }
+    }
+    return create(owner, map);
+  }
+
+  /**
+   * Returns the given access control list as immutable access control list. If it is already
+   * immutable, it will be returned without copying it.
+   *
+   * @param acl the access control list
+   * @return the immutable access control list
+   */
+  public static ImmutableAcl from(@Nullable ReadOnlyAcl<? extends ReadOnlyAce> acl) {
+    if (acl == null) {
+      return EMPTY;
+    }
+    if (acl instanceof ImmutableAcl) {
+      return (ImmutableAcl) acl;
+    }
+    return of(acl.getOwner(), acl.entryMap());
+  }
+
+  /**
+   * Creates an immutable access control list from the given access control list (dto).
+   *
+   * @param acl the access control list (dto)
+   * @return the immutable access control list
+   */
+  public static ImmutableAcl from(@Nullable AccessControlList acl) {
+    return from(acl, null, null);
+  }
+
+  /**
+   * Creates an immutable access control list from the given access control list (dto). All
+   * entries, that are equal to the entries of the given base, will be taken from the base without
+   * copying them. If the access control list is equal to the base, the base will be returned.
+   *
+   * @param acl the access control list (dto)
+   * @param base the base, e. g. the currently persisted version
+   * @return the immutable access control list
+   */
+  public static ImmutableAcl from(
+      @Nullable AccessControlList acl,
+      @Nullable ImmutableAcl base) {
+    return from(acl, base, null);
+  }
+
+  /**
+   * Creates an immutable access control list from the given access control list (dto), that is
+   * part of a batch. The permissions and principals are taken from the intern table of the
+   * batch.
+   *
+   * @param acl the access control list (dto)
+   * @param interner the intern table of the batch
+   * @return the immutable access control list
+   */
+  static ImmutableAcl from(@Nullable AccessControlList acl, @Nullable AclInterner interner) {
+    return from(acl, null, interner);
+  }
+
+  private static ImmutableAcl from(
+      AccessControlList acl,
+      ImmutableAcl base,
+      AclInterner interner) {
+
+    if (acl == null) {
+      return EMPTY;
+    }
+    final TreeMap<String, ImmutableAce> map = new TreeMap<>();
+    if (acl.getEntries() != null) {
+      for (AccessControlEntry entry : acl.getEntries()) {
+        if (entry != null && StringUtils.hasText(entry.getPermission())) {
+          final String permission = interner != null
+              ? interner.permission(entry.getPermission())
+              : entry.getPermission().toLowerCase();
+          final boolean guest = Boolean.TRUE.equals(entry.getGuest());
+          final ImmutableAce baseAce = base != null ? base.entries.get(permission) : null;
+          map.merge(
+              permission,
+              baseAce != null
+                  && baseAce.matches(guest, entry.getUsers(), entry.getRoles(), entry.getGroups())
+                  ? baseAce
+                  : ImmutableAce.of(
+                      guest, entry.getUsers(), entry.getRoles(), entry.getGroups(), interner),
+              ImmutableAcl::merge);
+        }
+      }
+    }
+    final String owner = interner != null && acl.getOwner() != null
+        ? interner.principal(acl.getOwner())
+        : acl.getOwner();
+    if (base != null
+        && Objects.equals(owner, base.owner)
+        && map.equals(base.entries)) {
+      return base;
+    }
+    return create(owner, map);
+  }
+
+  /**
+   * Returns an acl factory, that creates immutable access control lists.
+   *
+   * @return the acl factory
+   */
+  public static AclFactory<ImmutableAcl> factory() {
+    return Factory.INSTANCE;
+  }
+
+  /**
+   * Creates an immutable access control list from entries, whose permissions are already
+   * normalized (lower case). The map is used without copying it, so it must not be modified
+   * afterwards.
+   *
+   * @param owner the owner
+   * @param entries the entries with normalized permissions
+   * @return the immutable access control list
+   */
+  static ImmutableAcl ofNormalized(@Nullable String owner, TreeMap<String, ImmutableAce> entries) {
+    return create(owner, entries);
+  }
+
+  /**
+   * Merges two entries of the same permission.
+   *
+   * @param a the first entry
+   * @param b the second entry
+   * @return the merged entry
+   */
+  static ImmutableAce merge(ImmutableAce a, ImmutableAce b) {
+    final Set<String> users = new HashSet<>(a.getUsers());
+    users.addAll(b.getUsers());
+    final Set<String> roles = new HashSet<>(a.getRoles());
+    roles.addAll(b.getRoles());
+    final Set<String> groups = new HashSet<>(a.getGroups());
+    groups.addAll(b.getGroups());
+    return ImmutableAce.of(a.isGuest() || b.isGuest(), users, roles, groups);
+  }
+
+  @Override
+  public String getOwner() {
+    return owner;
+  }
+
+  @Override
+  public SortedMap<String, ImmutableAce> entryMap() {
+    return entries;
+  }
+
+  /**
+   * Gets the entry of the given permission.
+   *
+   * @param permission the permission
+   * @return the entry (can be null)
+   */
+  @Nullable
+  public ImmutableAce getEntry(@Nullable String permission) {
+    return StringUtils.hasText(permission) ? entries.get(permission.toLowerCase()) : null;
+  }
+
+  /**
+   * Returns the compiled access controller of this access control list. It will be created only
+   * once.
+   *
+   * @return the access controller
+   */
+  public CompiledAccessController accessController() {
+    CompiledAccessController controller = accessController;
+    if (controller == null) {
+      controller = CompiledAccessController.compile(owner, entries);
+      accessController = controller;
+    }
+    return controller;
+  }
+
+  /**
+   * Creates the access control list (dto).
+   *
+   * @return the access control list (dto)
+   */
+  public AccessControlList toAccessControlList() {
+    return AclFactory.DtoAclFactory.create(owner, entries);
+  }
+
+  /**
+   * Returns a version with the given owner.
+   *
+   * @param owner the owner
+   * @return the access control list
+   */
+  public ImmutableAcl withOwner(@Nullable String owner) {
+    return Objects.equals(this.owner, owner) ? this : new ImmutableAcl(owner, entries);
+  }
+
+  /**
+   * Returns a version with (empty) entries for the given permissions.
+   *
+   * @param permissions the permissions
+   * @return the access control list
+   */
+  public ImmutableAcl defaults(@Nullable String... permissions) {
+    return update(permissions, true, UnaryOperator.identity());
+  }
+
+  /**
+   * Returns a version with the given guest flag.
+   *
+   * @param isPublic is public
+   * @param permissions the permissions
+   * @return the access control list
+   */
+  public ImmutableAcl guest(@Nullable Boolean isPublic, @Nullable String... permissions) {
+    final boolean guest = Boolean.TRUE.equals(isPublic);
+    return update(permissions, guest, ace -> ace.withGuest(guest));
+  }
+
+  /**
+   * Returns a version with the given user.
+   *
+   * @param user the user
+   * @param permissions the permissions
+   * @return the access control list
+   */
+  public ImmutableAcl addUser(@Nullable String user, @Nullable String... permissions) {
+    return StringUtils.hasText(user)
+        ? update(permissions, true, ace -> ace.withUser(user))
+        : this;
+  }
+
+  /**
+   * Returns a version with the given role.
+   *
+   * @param role the role
+   * @param permissions the permissions
+   * @return the access control list
+   */
+  public ImmutableAcl addRole(@Nullable String role, @Nullable String... permissions) {
+    return StringUtils.hasText(role)
+        ? update(permissions, true, ace -> ace.withRole(role))
+        : this;
+  }
+
+  /**
+   * Returns a version with the given group.
+   *
+   * @param group the group
+   * @param permissions the permissions
+   * @return the access control list
+   */
+  public ImmutableAcl addGroup(@Nullable String group, @Nullable String... permissions) {
+    return StringUtils.hasText(group)
+        ? update(permissions, true, ace -> ace.withGroup(group))
+        : this;
+  }
+
+  /**
+   * Returns a version without the given user.
+   *
+   * @param user the user
+   * @param permissions the permissions
+   * @return the access control list
+   */
+  public ImmutableAcl removeUser(@Nullable String user, @Nullable String... permissions) {
+    return StringUtils.hasText(user)
+        ? update(permissions, false, ace -> ace.withoutUser(user))
+        : this;
+  }
+
+  /**
+   * Returns a version without the given role.
+   *
+   * @param role the role
+   * @param permissions the permissions
+   * @return the access control list
+   */
+  public ImmutableAcl removeRole(@Nullable String role, @Nullable String... permissions) {
+    return StringUtils.hasText(role)
+        ? update(permissions, false, ace -> ace.withoutRole(role))
+        : this;
+  }
+
+  /**
+   * Returns a version without the given group.
+   *
+   * @param group the group
+   * @param permissions the permissions
+   * @return the access control list
+   */
+  public ImmutableAcl removeGroup(@Nullable String group, @Nullable String... permissions) {
+    return StringUtils.hasText(group)
+        ? update(permissions, false, ace -> ace.withoutGroup(group))
+        : this;
+  }
+
+  /**
+   * Returns a version with admin access.
+   *
+   * @return the access control list
+   */
+  public ImmutableAcl ensureAdminAccess() {
+    return ensureAdminAccess(Collections.singleton(AuthorityConstants.ADMIN_ROLE_NAME));
+  }
+
+  /**
+   * Returns a version with admin access.
+   *
+   * @param adminRoles the admin roles
+   * @param permissions the permissions (if empty, all existing permissions are used)
+   * @return the access control list
+   */
+  public ImmutableAcl ensureAdminAccess(
+      @Nullable Collection<String> adminRoles,
+      @Nullable String... permissions) {
+
+    ImmutableAcl acl = this;
+    if (adminRoles != null) {
+      final String[] perms = permissions == null || permissions.length == 0
+          ? entries.keySet().toArray(new String[0])
+          : permissions;
+      for (String adminRole : adminRoles) {
+        acl = acl.addRole(adminRole, perms);
+      }
+    }
+    return acl;
+  }
+
+  /**
+   * Returns a version without admin access.
+   *
+   * @return the access control list
+   */
+  public ImmutableAcl removeAdminAccess() {
+    return removeAdminAccess(Collections.singleton(AuthorityConstants.ADMIN_ROLE_NAME));
+  }
+
+  /**
+   * Returns a version without admin access.
+   *
+   * @param adminRoles the admin roles
+   * @param permissions the permissions (if empty, all existing permissions are used)
+   * @return the access control list
+   */
+  public ImmutableAcl removeAdminAccess(
+      @Nullable Collection<String> adminRoles,
+      @Nullable String... permissions) {
+
+    ImmutableAcl acl = this;
+    if (adminRoles != null) {
+      final String[] perms = permissions == null || permissions.length == 0
+          ? entries.keySet().toArray(new String[0])
+          : permissions;
+      for (String adminRole : adminRoles) {
+        acl = acl.removeRole(adminRole, perms);
+      }
+    }
+    return acl;
+  }
+
+  private ImmutableAcl update(
+      String[] permissions,
+      boolean createMissing,
+      UnaryOperator<ImmutableAce> updateFn) {
+
+    if (permissions == null || permissions.length == 0) {
+      return this;
+    }
+    TreeMap<String, ImmutableAce> copy = null;
+    for (String permission : permissions) {
+      if (!StringUtils.hasText(permission)) {
+        continue;
+      }
+      final String key = permission.toLowerCase();
+      final ImmutableAce current = copy != null ? copy.get(key) : entries.get(key);
+      if (current == null && !createMissing) {
+        continue;
+      }
+      final ImmutableAce next = updateFn.apply(current != null ? current : ImmutableAce.empty());
+      if (next != current) {
+        if (copy == null) {
+          copy = new TreeMap<>(entries);
+        }
+        copy.put(key, next);
+      }
+    }
+    return copy == null ? this : create(owner, copy);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ReadOnlyAcl)) {
+      return false;
+    }
+    ReadOnlyAcl<?> acl = (ReadOnlyAcl<?>) o;
+    return Objects.equals(owner, acl.getOwner())
+        && entries.equals(acl.entryMap());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(owner, entries);
+  }
+
+  /**
+   * The factory of immutable access control lists. The {@link AclMapperImpl} recognizes it and
+   * maps immutable access control lists without the mutable {@link AclBuilder}.
+   */
+  static final class Factory implements AclFactory<ImmutableAcl> {
+
+    private static final Factory INSTANCE = new Factory();
+
+    private Factory() {
+    }
+
+    @Override
+    public ImmutableAcl createAccessControlList(
+        String owner,
+        Map<String, ? extends Ace> entries) {
+      return of(owner, entries);
+    }
+
+    @Override
+    public Class<ImmutableAcl> getAccessControlListClass() {
+      return ImmutableAcl.class;
+    }
+  }
+
+}
@@ -16,6 +16,9 @@
 
 package org.bremersee.security.access;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * The permission constants.
  *
@@ -60,7 +63,39 @@ public abstract class PermissionConstants {
       WRITE
   };
 
+  private static final Map<String, String> KNOWN_PERMISSIONS = new HashMap<>();
+
+  static {
+    for (String permission : ALL) {
+      KNOWN_PERMISSIONS.put(permission, permission);
+      KNOWN_PERMISSIONS.put(permission.toUpperCase(), permission);
+      KNOWN_PERMISSIONS.put(
+          Character.toUpperCase(permission.charAt(0)) + permission.substring(1), permission);
+    }
+  }
+
   private PermissionConstants() {
   }
 
+  /**
+   * Normalizes the given permission (lower case). The known permissions (like {@code READ} or
+   * {@code Read}) are resolved to the constant without creating a new string, other permissions
+   * are only lower-cased, if they contain upper case characters.
+   *
+   * @param permission the permission
+   * @return the normalized permission
+   */
+  static String normalize(String permission) {
+    final String known = KNOWN_PERMISSIONS.get(permission);
+    if (known != null) {
+      return known;
+    }
+    for (int i = 0, n = permission.length(); i < n; i++) {
+      if (Character.isUpperCase(permission.charAt(i))) {
+        return permission.toLowerCase();
+      }
+    }
+    return permission;
+  }
+
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.validation.constraints.NotNull;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * The hierarchy of principals (roles or groups). A principal includes other principals, e. g.
+ * {@code ROLE_ADMIN} includes {@code ROLE_USER}. So an access control entry, that grants access
+ * to {@code ROLE_USER}, grants access to a user with {@code ROLE_ADMIN}, too, without adding
+ * {@code ROLE_ADMIN} to the entry.
+ *
+ * @author Christian Bremer
+ */
+@Validated
+public interface PrincipalHierarchy {
+
+  /**
+   * Returns a hierarchy without any inclusions.
+   *
+   * @return the principal hierarchy
+   */
+  static PrincipalHierarchy none() {
+    return principals -> {
+      if (principals == null || principals.isEmpty()) {
+        return Collections.emptySet();
+      }
+      return principals instanceof Set
+          ? (Set<String>) principals
+          : new HashSet<>(principals);
+    };
+  }
+
+  /**
+   * Expands the given principals by all principals, that are included by them (directly or
+   * transitively).
+   *
+   * @param principals the principals (e. g. the roles of a user)
+   * @return the expanded principals
+   */
+  @NotNull
+  Set<String> expand(@Nullable Collection<String> principals);
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The access decision cache test.
+ *
+ * @author Christian Bremer
+ */
+class AccessDecisionCacheTest {
+
+  private static final List<String> ROLES = Collections.singletonList("ROLE_USER");
+
+  private static final List<String> GROUPS = Arrays.asList("friends", "family");
+
+  /**
+   * Has permission.
+   */
+  @Test
+  void hasPermission() {
+    AccessDecisionCache cache = new AccessDecisionCache();
+    ImmutableAcl acl = ImmutableAcl.empty()
+        .withOwner("owner")
+        .addRole("ROLE_USER", PermissionConstants.READ);
+    AccessController accessController = cache.of(acl);
+
+    assertTrue(accessController.hasPermission("anna", ROLES, GROUPS, PermissionConstants.READ));
+    assertFalse(accessController.hasPermission("anna", ROLES, GROUPS, PermissionConstants.WRITE));
+    assertEquals(0L, cache.getHitCount());
+    assertEquals(2L, cache.getMissCount());
+
+    assertTrue(cache.of(acl).hasPermission(
+        "anna", ROLES, Arrays.asList("family", "friends"), PermissionConstants.READ));
+    assertFalse(accessController.hasPermission("anna", ROLES, GROUPS, PermissionConstants.WRITE));
+    assertEquals(2L, cache.getHitCount());
+    assertEquals(2L, cache.getMissCount());
+    assertEquals(2, cache.size());
+  }
+
+  /**
+   * New version of acl.
+   */
+  @Test
+  void newVersionOfAcl() {
+    AccessDecisionCache cache = new AccessDecisionCache();
+    AclBuilder builder = AclBuilder.builder()
+        .owner("owner")
+        .addUser("anna", PermissionConstants.READ);
+    AccessDecisionCache.Fingerprint anna = AccessDecisionCache
+        .fingerprint("anna", ROLES, GROUPS);
+
+    CompiledAccessController version1 = CompiledAccessController.compile(builder.buildAcl());
+    assertTrue(cache.hasPermission(version1, anna, PermissionConstants.READ));
+    assertTrue(cache.hasPermission(
+        version1,
+        AccessDecisionCache.fingerprint("anna", new LinkedHashSet<>(ROLES), GROUPS),
+        PermissionConstants.READ));
+    assertEquals(1L, cache.getHitCount());
+
+    CompiledAccessController version2 = CompiledAccessController.compile(builder
+        .removeUser("anna", PermissionConstants.READ)
+        .buildAcl());
+    assertNotEquals(version1.getVersion(), version2.getVersion());
+    assertFalse(cache.hasPermission(version2, anna, PermissionConstants.READ));
+    assertEquals(2L, cache.getMissCount());
+  }
+
+  /**
+   * Principal is copied.
+   */
+  @Test
+  void principalIsCopied() {
+    AccessDecisionCache cache = new AccessDecisionCache();
+    AccessController accessController = cache.of(ImmutableAcl.empty()
+        .addRole("ROLE_ADMIN", PermissionConstants.WRITE));
+    Set<String> roles = new HashSet<>(ROLES);
+    assertFalse(accessController.hasPermission("anna", roles, null, PermissionConstants.WRITE));
+    roles.add("ROLE_ADMIN");
+    assertTrue(accessController.hasPermission("anna", roles, null, PermissionConstants.WRITE));
+    assertEquals(2L, cache.getMissCount());
+  }
+
+  /**
+   * Any and all permissions.
+   */
+  @Test
+  void anyAndAllPermissions() {
+    AccessDecisionCache cache = new AccessDecisionCache();
+    AccessController accessController = cache.of(AclBuilder.builder()
+        .addGroup("friends", PermissionConstants.READ, PermissionConstants.WRITE)
+        .buildAccessControlList());
+
+    assertTrue(accessController.hasAnyPermission(
+        "anna", ROLES, GROUPS, PermissionConstants.DELETE, PermissionConstants.READ));
+    assertTrue(accessController.hasAllPermissions(
+        "anna", ROLES, GROUPS, PermissionConstants.WRITE, PermissionConstants.READ));
+    assertFalse(accessController.hasAllPermissions(
+        "anna", ROLES, GROUPS, PermissionConstants.READ, PermissionConstants.DELETE));
+    assertFalse(accessController.hasAnyPermission("anna", ROLES, GROUPS));
+  }
+
+  /**
+   * Eviction.
+   */
+  @Test
+  void eviction() {
+    AccessDecisionCache cache = new AccessDecisionCache(4, 2);
+    AccessController accessController = cache.of(ImmutableAcl.empty()
+        .guest(true, PermissionConstants.READ));
+    for (int i = 0; i < 10; i++) {
+      assertTrue(accessController.hasPermission(
+          "user" + i, null, null, PermissionConstants.READ));
+    }
+    assertTrue(cache.size() <= 4);
+    assertEquals(10L - cache.size(), cache.getEvictionCount());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0.0, cache.getHitRate());
+  }
+
+}
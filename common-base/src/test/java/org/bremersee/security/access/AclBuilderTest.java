@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
@@ -289,4 +290,27 @@ class AclBuilderTest {
         .contains("ROLE_ADMIN"));
   }
 
-}
\ No newline at end of file
+  /**
+   * Normalize permissions.
+   */
+  @Test
+  void normalizePermissions() {
+    Acl<? extends Ace> acl = aclBuilder
+        .reset()
+        .addUser("anna", "READ", "Write", "Custom_Permission", "", null)
+        .defaults("read", "DELETE")
+        .buildAcl();
+    assertEquals(4, acl.entryMap().size());
+    assertTrue(acl.entryMap().get(PermissionConstants.READ).getUsers().contains("anna"));
+    assertTrue(acl.entryMap().get(PermissionConstants.WRITE).getUsers().contains("anna"));
+    assertTrue(acl.entryMap().get("custom_permission").getUsers().contains("anna"));
+    assertTrue(acl.entryMap().get(PermissionConstants.DELETE).getUsers().isEmpty());
+
+    assertSame(PermissionConstants.READ, PermissionConstants.normalize("READ"));
+    assertSame(PermissionConstants.WRITE, PermissionConstants.normalize("Write"));
+    String custom = "custom";
+    assertSame(custom, PermissionConstants.normalize(custom));
+    assertEquals("custom", PermissionConstants.normalize("CusTom"));
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.bremersee.common.model.AccessControlEntry;
+import org.bremersee.common.model.AccessControlList;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The acl codec test.
+ *
+ * @author Christian Bremer
+ */
+class AclCodecTest {
+
+  private static final ImmutableAcl ACL = ImmutableAcl.empty()
+      .withOwner("owner")
+      .guest(true, PermissionConstants.READ)
+      .addUser("anna", PermissionConstants.READ, PermissionConstants.WRITE)
+      .addRole("ROLE_ADMIN", PermissionConstants.ALL)
+      .addGroup("friends", PermissionConstants.READ);
+
+  /**
+   * Encode and decode acl.
+   */
+  @Test
+  void encodeAndDecodeAcl() {
+    byte[] bytes = AclCodec.encode(ACL);
+    ImmutableAcl actual = AclCodec.decodeAcl(bytes);
+    assertEquals(ACL, actual);
+    assertArrayEquals(bytes, AclCodec.encode(actual));
+    assertArrayEquals(bytes, AclCodec.encode(AclBuilder.builder().from(ACL).buildAcl()));
+  }
+
+  /**
+   * Encode and decode access control list.
+   */
+  @Test
+  void encodeAndDecodeAccessControlList() {
+    AccessControlList expected = ACL.toAccessControlList();
+    byte[] bytes = AclCodec.encode(expected);
+    assertArrayEquals(AclCodec.encode(ACL), bytes);
+    AccessControlList actual = AclCodec.decodeAccessControlList(bytes);
+    assertEquals(expected, actual);
+  }
+
+  /**
+   * Decode access controller.
+   */
+  @Test
+  void decodeAccessController() {
+    CompiledAccessController actual = AclCodec.decodeAccessController(AclCodec.encode(ACL));
+    assertEquals(ACL.accessController(), actual);
+    assertTrue(actual.hasPermission(
+        "anna", null, null, PermissionConstants.WRITE));
+    assertTrue(actual.hasPermission(
+        "somebody", null, Collections.singleton("friends"), PermissionConstants.READ));
+    assertFalse(actual.hasPermission(
+        "somebody", null, Collections.singleton("friends"), PermissionConstants.WRITE));
+    assertSame(CompiledAccessController.empty(), AclCodec.decodeAccessController(null));
+  }
+
+  /**
+   * Merge duplicate entries.
+   */
+  @Test
+  void mergeDuplicateEntries() {
+    AccessControlList acl = AccessControlList.builder()
+        .entries(Arrays.asList(
+            AccessControlEntry.builder()
+                .permission("READ")
+                .users(Arrays.asList("anna", "anna"))
+                .build(),
+            AccessControlEntry.builder()
+                .permission("read")
+                .guest(true)
+                .build()))
+        .build();
+    ImmutableAcl actual = AclCodec.decodeAcl(AclCodec.encode(acl));
+    assertNull(actual.getOwner());
+    assertEquals(1, actual.entryMap().size());
+    assertTrue(actual.getEntry(PermissionConstants.READ).isGuest());
+    assertEquals(
+        Collections.singleton("anna"),
+        actual.getEntry(PermissionConstants.READ).getUsers());
+  }
+
+  /**
+   * Keep empty owner.
+   */
+  @Test
+  void keepEmptyOwner() {
+    ImmutableAcl acl = ACL.withOwner("");
+    assertEquals("", AclCodec.decodeAcl(AclCodec.encode(acl)).getOwner());
+    assertEquals("", AclCodec.decodeAccessControlList(AclCodec.encode(acl)).getOwner());
+    assertNull(AclCodec.decodeAcl(AclCodec.encode(ACL.withOwner(null))).getOwner());
+  }
+
+  /**
+   * Decode duplicate permissions.
+   */
+  @Test
+  void decodeDuplicatePermissions() {
+    byte[] bytes = {
+        (byte) 0xAC, 1,
+        4, 4, 'r', 'e', 'a', 'd', 4, 'R', 'E', 'A', 'D', 4, 'a', 'n', 'n', 'a', 3, 'b', 'o', 'b',
+        0,
+        2, 0, 0, 1, 2, 0, 0, 1, 0, 1, 3, 0, 0
+    };
+    ImmutableAcl expected = ImmutableAcl.empty()
+        .addUser("anna", PermissionConstants.READ)
+        .addUser("bob", PermissionConstants.READ);
+    assertEquals(expected, AclCodec.decodeAcl(bytes));
+    assertEquals(expected.accessController(), AclCodec.decodeAccessController(bytes));
+  }
+
+  /**
+   * Decode invalid bytes.
+   */
+  @Test
+  void decodeInvalidBytes() {
+    assertNull(AclCodec.decodeAcl(new byte[0]));
+    assertThrows(IllegalArgumentException.class, () -> AclCodec.decodeAcl(new byte[]{1, 2, 3}));
+    byte[] bytes = AclCodec.encode(ACL);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> AclCodec.decodeAcl(Arrays.copyOf(bytes, bytes.length - 2)));
+  }
+
+}
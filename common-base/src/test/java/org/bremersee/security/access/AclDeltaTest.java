@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import org.bremersee.security.access.AclDelta.AceDelta;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The acl delta test.
+ *
+ * @author Christian Bremer
+ */
+class AclDeltaTest {
+
+  private static final ImmutableAcl ACL = ImmutableAcl.empty()
+      .withOwner("owner")
+      .addUser("anna", PermissionConstants.READ, PermissionConstants.WRITE)
+      .addGroup("friends", PermissionConstants.READ);
+
+  /**
+   * Empty delta.
+   */
+  @Test
+  void emptyDelta() {
+    assertTrue(AclDelta.between(ACL, ACL).isEmpty());
+    assertTrue(AclDelta.between(ACL, AclBuilder.builder().from(ACL).buildAcl()).isEmpty());
+    assertTrue(AclDelta.between(null, null).isEmpty());
+  }
+
+  /**
+   * Changes.
+   */
+  @Test
+  void changes() {
+    ImmutableAcl newAcl = ACL
+        .withOwner("anna")
+        .addGroup("colleagues", PermissionConstants.READ)
+        .removeUser("anna", PermissionConstants.WRITE)
+        .guest(true, PermissionConstants.READ);
+    AclDelta delta = AclDelta.between(ACL, newAcl);
+    assertFalse(delta.isEmpty());
+    assertTrue(delta.isOwnerChanged());
+    assertEquals("anna", delta.getOwner());
+    assertEquals(Set.of("read", "write"), delta.getEntries().keySet());
+
+    AceDelta read = delta.getEntries().get("read");
+    assertEquals(Boolean.TRUE, read.getGuest());
+    assertEquals(Set.of("colleagues"), read.getAddedGroups());
+    assertTrue(read.getRemovedGroups().isEmpty());
+
+    AceDelta write = delta.getEntries().get("write");
+    assertNull(write.getGuest());
+    assertEquals(Set.of("anna"), write.getRemovedUsers());
+
+    assertEquals(newAcl, delta.applyTo(ACL));
+  }
+
+  /**
+   * Removed entry.
+   */
+  @Test
+  void removedEntry() {
+    Acl<? extends Ace> newAcl = AclBuilder.builder()
+        .owner("owner")
+        .addUser("anna", PermissionConstants.READ)
+        .addGroup("friends", PermissionConstants.READ)
+        .buildAcl();
+    AclDelta delta = AclDelta.between(ACL, newAcl);
+    assertEquals(Set.of("write"), delta.getEntries().keySet());
+    assertEquals(Set.of("anna"), delta.getEntries().get("write").getRemovedUsers());
+  }
+
+}
@@ -20,11 +20,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import org.bremersee.common.model.AccessControlEntry;
 import org.bremersee.common.model.AccessControlList;
 import org.bremersee.security.core.AuthorityConstants;
@@ -60,6 +62,36 @@ class AclMapperImplTest {
     assertTrue(mapper.getAdminRoles().contains("ROLE_SUPER_USER"));
   }
 
+  /**
+   * Map immutable acl.
+   */
+  @Test
+  void mapImmutableAcl() {
+    AclMapperImpl<ImmutableAcl> mapper = new AclMapperImpl<>(
+        ImmutableAcl.factory(),
+        PermissionConstants.ALL,
+        true,
+        false);
+    AclMapperImpl<Acl<? extends Ace>> builderMapper = new AclMapperImpl<>(
+        AclImpl::new,
+        PermissionConstants.ALL,
+        true,
+        false);
+    AccessControlList dto = AclBuilder.builder()
+        .owner("anna")
+        .addUser("stephan", PermissionConstants.READ)
+        .addGroup("friends", PermissionConstants.WRITE)
+        .buildAccessControlList();
+
+    ImmutableAcl acl = mapper.map(dto);
+    assertEquals(builderMapper.map(dto), acl);
+    assertTrue(acl.getEntry(PermissionConstants.READ).getRoles()
+        .contains(AuthorityConstants.ADMIN_ROLE_NAME));
+    assertEquals(builderMapper.map(builderMapper.map(dto)), mapper.map(acl));
+    // the acl has all defaults already, so the unchanged version is mapped
+    assertSame(acl, acl.defaults(PermissionConstants.ALL));
+  }
+
   /**
    * Switch admin access.
    */
@@ -241,4 +273,46 @@ class AclMapperImplTest {
     assertFalse(ace.getRoles().contains(AuthorityConstants.ADMIN_ROLE_NAME));
   }
 
-}
\ No newline at end of file
+  /**
+   * Map all.
+   */
+  @Test
+  void mapAll() {
+    AclMapperImpl<Acl<? extends Ace>> mapper = new AclMapperImpl<>(
+        AclImpl::new,
+        new String[]{PermissionConstants.READ},
+        true,
+        true
+    );
+    List<AccessControlList> sources = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      sources.add(AclBuilder.builder()
+          .owner("owner" + i)
+          .addUser("user" + i, "WRITE")
+          .addGroup("group" + (i % 2), "Read")
+          .buildAccessControlList());
+    }
+    sources.add(null);
+
+    List<Acl<? extends Ace>> expected = new ArrayList<>();
+    sources.forEach(source -> expected.add(mapper.map(source)));
+    assertEquals(expected, mapper.mapAllToAcl(sources));
+    assertTrue(mapper.mapAllToAcl(null).isEmpty());
+
+    mapper.setParallelThreshold(5);
+    List<Acl<? extends Ace>> actual = mapper.mapAllToAcl(sources);
+    assertEquals(expected, actual);
+    assertNull(actual.get(20));
+    assertSame(
+        actual.get(0).entryMap().get(PermissionConstants.READ).getGroups().iterator().next(),
+        actual.get(2).entryMap().get(PermissionConstants.READ).getGroups().iterator().next());
+
+    List<AccessControlList> dtos = mapper.mapAll(actual);
+    assertEquals(21, dtos.size());
+    for (int i = 0; i < 20; i++) {
+      assertEquals(mapper.map(actual.get(i)), dtos.get(i));
+    }
+    assertTrue(mapper.mapAll(Collections.emptyList()).isEmpty());
+  }
+
+}
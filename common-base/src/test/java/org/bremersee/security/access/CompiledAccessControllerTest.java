@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.bremersee.common.model.AccessControlEntry;
+import org.bremersee.common.model.AccessControlList;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The compiled access controller test.
+ *
+ * @author Christian Bremer
+ */
+class CompiledAccessControllerTest {
+
+  private static final AccessControlList ACL = AccessControlList
+      .builder()
+      .owner("owner")
+      .entries(Arrays.asList(
+          AccessControlEntry
+              .builder()
+              .permission("WRITE")
+              .groups(Collections.singletonList("group"))
+              .roles(Collections.singletonList("role"))
+              .users(Collections.singletonList("user"))
+              .build(),
+          AccessControlEntry
+              .builder()
+              .permission("read")
+              .guest(true)
+              .build()
+      ))
+      .build();
+
+  /**
+   * Compile.
+   */
+  @Test
+  void compile() {
+    assertSame(CompiledAccessController.empty(),
+        CompiledAccessController.compile((AccessControlList) null));
+    assertSame(CompiledAccessController.empty(),
+        CompiledAccessController.compile((Acl<?>) null));
+
+    CompiledAccessController controller = CompiledAccessController.compile(ACL);
+    assertEquals("owner", controller.getOwner());
+    assertEquals(Set.of("write", "read"), controller.getPermissions());
+    assertEquals(
+        controller,
+        CompiledAccessController.compile(AclBuilder.builder().from(ACL).buildAcl()));
+  }
+
+  /**
+   * Has permission.
+   */
+  @Test
+  void hasPermission() {
+    CompiledAccessController controller = CompiledAccessController.compile(ACL);
+    assertTrue(controller.hasPermission("owner", null, null, "delete"));
+    assertTrue(controller.hasPermission("anybody", null, null, "read"));
+    assertTrue(controller.hasPermission("user", null, null, "write"));
+    assertTrue(controller.hasPermission("user", null, null, "Write"));
+    assertTrue(controller.hasPermission(null, List.of("role"), null, "write"));
+    assertTrue(controller.hasPermission(null, null, Set.of("a", "b", "group"), "write"));
+    assertFalse(controller.hasPermission("anybody", Set.of("a"), List.of("b"), "write"));
+    assertFalse(controller.hasPermission("user", null, null, "delete"));
+    assertFalse(controller.hasPermission("owner", null, null, null));
+    assertFalse(CompiledAccessController.empty().hasPermission(null, null, null, "read"));
+  }
+
+  /**
+   * Has any and all permissions.
+   */
+  @Test
+  void hasAnyAndAllPermissions() {
+    CompiledAccessController controller = CompiledAccessController.compile(ACL);
+    assertTrue(controller.hasAnyPermission("user", null, null, "delete", "write"));
+    assertFalse(controller.hasAnyPermission("user", null, null));
+    assertFalse(controller.hasAnyPermission("user", null, null, (String[]) null));
+    assertTrue(controller.hasAllPermissions("user", null, null, "read", "write"));
+    assertFalse(controller.hasAllPermissions("user", null, null, "read", "delete"));
+    assertFalse(controller.hasAllPermissions("user", null, null, Collections.emptyList()));
+  }
+
+}
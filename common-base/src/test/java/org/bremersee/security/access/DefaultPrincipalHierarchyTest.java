@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The default principal hierarchy test.
+ *
+ * @author Christian Bremer
+ */
+class DefaultPrincipalHierarchyTest {
+
+  /**
+   * Expand.
+   */
+  @Test
+  void expand() {
+    DefaultPrincipalHierarchy hierarchy = DefaultPrincipalHierarchy
+        .fromString("ROLE_ADMIN > ROLE_USER > ROLE_GUEST\nROLE_DEVELOPER > ROLE_USER");
+    Set<String> roles = hierarchy.expand(List.of("ROLE_ADMIN"));
+    assertEquals(Set.of("ROLE_ADMIN", "ROLE_USER", "ROLE_GUEST"), roles);
+    assertTrue(roles.contains("ROLE_GUEST"));
+    assertFalse(roles.contains("ROLE_DEVELOPER"));
+
+    roles = hierarchy.expand(List.of("ROLE_DEVELOPER", "ROLE_GUEST", "ROLE_USER"));
+    assertFalse(roles.isEmpty());
+    assertEquals(3, roles.size());
+    assertEquals(Set.of("ROLE_DEVELOPER", "ROLE_USER", "ROLE_GUEST"), roles);
+
+    Set<String> unknown = Set.of("ROLE_UNKNOWN");
+    assertSame(unknown, hierarchy.expand(unknown));
+    assertTrue(hierarchy.expand(null).isEmpty());
+  }
+
+  /**
+   * Cycles.
+   */
+  @Test
+  void cycles() {
+    DefaultPrincipalHierarchy hierarchy = new DefaultPrincipalHierarchy(Map.of(
+        "a", List.of("b"),
+        "b", List.of("c"),
+        "c", List.of("a")));
+    assertEquals(Set.of("a", "b", "c"), hierarchy.expand(Set.of("b")));
+  }
+
+  /**
+   * Invalidation.
+   */
+  @Test
+  void invalidation() {
+    DefaultPrincipalHierarchy hierarchy = new DefaultPrincipalHierarchy()
+        .include("group", "subgroup");
+    assertTrue(hierarchy.expand(Set.of("group")).contains("subgroup"));
+    hierarchy.exclude("group");
+    assertFalse(hierarchy.expand(Set.of("group")).contains("subgroup"));
+    hierarchy.include("group", "other");
+    assertTrue(hierarchy.expand(Set.of("group")).contains("other"));
+    assertEquals(Map.of("group", Set.of("other")), hierarchy.getInclusions());
+  }
+
+  /**
+   * Access controller with hierarchy.
+   */
+  @Test
+  void accessControllerWithHierarchy() {
+    DefaultPrincipalHierarchy hierarchy = DefaultPrincipalHierarchy
+        .fromString("ROLE_ADMIN > ROLE_USER");
+    AccessController controller = AccessController.from(AclBuilder.builder()
+        .addRole("ROLE_USER", PermissionConstants.READ)
+        .buildAcl());
+    assertFalse(controller.hasPermission(
+        "anna", Set.of("ROLE_ADMIN"), Collections.emptySet(), PermissionConstants.READ));
+    assertTrue(controller.hasPermission(
+        "anna", hierarchy.expand(Set.of("ROLE_ADMIN")), null, PermissionConstants.READ));
+    assertTrue(controller.withHierarchies(hierarchy, null).hasPermission(
+        "anna", Set.of("ROLE_ADMIN"), null, PermissionConstants.READ));
+    assertTrue(controller.withHierarchies(hierarchy, null).hasAllPermissions(
+        "anna", Set.of("ROLE_ADMIN"), null, PermissionConstants.READ));
+  }
+
+}
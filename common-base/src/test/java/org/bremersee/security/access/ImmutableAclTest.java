@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.security.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import org.bremersee.common.model.AccessControlList;
+import org.bremersee.security.core.AuthorityConstants;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The immutable acl test.
+ *
+ * @author Christian Bremer
+ */
+class ImmutableAclTest {
+
+  private static final ImmutableAcl ACL = ImmutableAcl.empty()
+      .withOwner("owner")
+      .addUser("anna", PermissionConstants.READ, PermissionConstants.WRITE)
+      .addGroup("friends", PermissionConstants.READ);
+
+  /**
+   * Structural sharing.
+   */
+  @Test
+  void structuralSharing() {
+    ImmutableAcl acl = ACL.addRole("ROLE_USER", PermissionConstants.WRITE);
+    assertNotSame(ACL, acl);
+    assertSame(ACL.getEntry("read"), acl.getEntry("read"));
+    assertSame(ACL.getEntry("write").getUsers(), acl.getEntry("write").getUsers());
+    assertFalse(ACL.getEntry("write").getRoles().contains("ROLE_USER"));
+    assertTrue(acl.getEntry("WRITE").getRoles().contains("ROLE_USER"));
+
+    assertSame(ACL, ACL.addUser("anna", PermissionConstants.READ));
+    assertSame(ACL, ACL.removeRole("ROLE_USER", PermissionConstants.READ));
+    assertSame(ACL, ACL.removeUser("anna", PermissionConstants.DELETE));
+    assertSame(ACL, ACL.withOwner("owner"));
+    assertSame(ACL, ACL.guest(false, PermissionConstants.READ));
+  }
+
+  /**
+   * Admin access.
+   */
+  @Test
+  void adminAccess() {
+    ImmutableAcl acl = ACL.ensureAdminAccess();
+    assertTrue(acl.getEntry("read").getRoles().contains(AuthorityConstants.ADMIN_ROLE_NAME));
+    assertTrue(acl.getEntry("write").getRoles().contains(AuthorityConstants.ADMIN_ROLE_NAME));
+    assertEquals(ACL, acl.removeAdminAccess());
+  }
+
+  /**
+   * Equals acl impl.
+   */
+  @Test
+  void equalsAclImpl() {
+    Acl<? extends Ace> acl = AclBuilder.builder().from(ACL).buildAcl();
+    assertEquals(acl, ACL);
+    assertEquals(ACL, acl);
+    assertEquals(acl.hashCode(), ACL.hashCode());
+    assertSame(ACL, ImmutableAcl.from(ACL));
+    assertEquals(ACL, ImmutableAcl.from(acl));
+    assertEquals(ACL, AclBuilder.builder().from(ACL).build(ImmutableAcl.factory()));
+  }
+
+  /**
+   * From access control list with base.
+   */
+  @Test
+  void fromAccessControlListWithBase() {
+    AccessControlList dto = ACL.toAccessControlList();
+    assertSame(ACL, ImmutableAcl.from(dto, ACL));
+
+    dto = ACL.addRole("ROLE_USER", "write").toAccessControlList();
+    ImmutableAcl acl = ImmutableAcl.from(dto, ACL);
+    assertSame(ACL.getEntry("read"), acl.getEntry("read"));
+    assertEquals(Set.of("ROLE_USER"), acl.getEntry("write").getRoles());
+
+    dto = ACL.toAccessControlList();
+    dto.getEntries().forEach(entry -> {
+      entry.getUsers().add(0, " ");
+      entry.getGroups().addAll(entry.getGroups());
+    });
+    acl = ImmutableAcl.from(dto, ACL);
+    assertSame(ACL.getEntry("read"), acl.getEntry("read"));
+    assertSame(ACL.getEntry("write"), acl.getEntry("write"));
+  }
+
+  /**
+   * Access controller.
+   */
+  @Test
+  void accessController() {
+    assertSame(ACL.accessController(), AccessController.from(ACL));
+    assertTrue(ACL.accessController().hasPermission("x", null, Set.of("friends"), "read"));
+    assertFalse(Acl.class.isAssignableFrom(ImmutableAcl.class));
+    assertFalse(Ace.class.isAssignableFrom(ImmutableAce.class));
+  }
+
+}